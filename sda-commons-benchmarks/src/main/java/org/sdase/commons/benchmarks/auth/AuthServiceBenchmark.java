@@ -0,0 +1,88 @@
+package org.sdase.commons.benchmarks.auth;
+
+import static java.util.Collections.singletonList;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.Claim;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.auth.key.KeySource;
+import org.sdase.commons.server.auth.key.LoadedPublicKey;
+import org.sdase.commons.server.auth.key.PublicKeyLoader;
+import org.sdase.commons.server.auth.service.AuthService;
+import org.sdase.commons.server.auth.service.VerifiedTokenCache;
+
+/**
+ * Measures the throughput of {@link AuthService#auth(String)} for a client that sends the same
+ * token with each request, with and without the {@link VerifiedTokenCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+  private static final String KEY_ID = "benchmark-key";
+
+  @Param({"false", "true"})
+  public boolean cached;
+
+  private AuthService authService;
+
+  private String token;
+
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException {
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+    PublicKeyLoader keyLoader = new PublicKeyLoader();
+    keyLoader.addKeySource(
+        new KeySource() {
+          @Override
+          public List<LoadedPublicKey> loadKeysFromSource() {
+            return singletonList(
+                new LoadedPublicKey(KEY_ID, keyPair.getPublic(), this, null, "RS256"));
+          }
+        });
+    authService =
+        new AuthService(keyLoader, 0, cached ? new VerifiedTokenCache(1_000, null) : null);
+
+    token =
+        JWT.create()
+            .withKeyId(KEY_ID)
+            .withIssuer("https://keycloak.example.com/auth/realms/benchmark")
+            .withSubject("john.doe")
+            .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+            .sign(
+                Algorithm.RSA256(
+                    (RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+  }
+
+  @Benchmark
+  public Map<String, Claim> auth() {
+    return authService.auth(token);
+  }
+}
@@ -0,0 +1,131 @@
+package org.sdase.commons.benchmarks.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.jackson.EnableFieldFilter;
+import org.sdase.commons.server.jackson.filter.FieldFilterPlan;
+import org.sdase.commons.server.jackson.filter.JacksonFieldFilterModule;
+
+/**
+ * Serializes a collection of 1,000 entities with 20 properties each like the {@code
+ * FieldFilterWriterInterceptor} does for a response: without {@code ?fields=}, with {@code
+ * ?fields=} selecting 3 properties, with {@code ?fields=} selecting a property of a nested object
+ * and without the field filter module as baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldFilterBenchmark {
+
+  private static final List<String> FIELDS = Collections.singletonList("id, field01, field02");
+
+  private static final List<String> NESTED_FIELDS = Collections.singletonList("id, address.city");
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+  private ObjectMapper fieldFilterObjectMapper;
+
+  private ObjectMapper plainObjectMapper;
+
+  private List<Entity> entities;
+
+  @Setup
+  public void setUp() {
+    fieldFilterObjectMapper = new ObjectMapper().registerModule(new JacksonFieldFilterModule());
+    plainObjectMapper = new ObjectMapper();
+    entities = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      entities.add(new Entity(i));
+    }
+  }
+
+  @Benchmark
+  public int withoutFieldFilterModule() throws IOException {
+    out.reset();
+    plainObjectMapper.writeValue(out, entities);
+    return out.size();
+  }
+
+  @Benchmark
+  public int withoutFields() throws IOException {
+    out.reset();
+    try (FieldFilterPlan.Scope ignored = FieldFilterPlan.activate(FieldFilterPlan.of(null))) {
+      fieldFilterObjectMapper.writeValue(out, entities);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public int withFields() throws IOException {
+    out.reset();
+    try (FieldFilterPlan.Scope ignored = FieldFilterPlan.activate(FieldFilterPlan.of(FIELDS))) {
+      fieldFilterObjectMapper.writeValue(out, entities);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public int withNestedFields() throws IOException {
+    out.reset();
+    try (FieldFilterPlan.Scope ignored =
+        FieldFilterPlan.activate(FieldFilterPlan.of(NESTED_FIELDS))) {
+      fieldFilterObjectMapper.writeValue(out, entities);
+    }
+    return out.size();
+  }
+
+  @EnableFieldFilter
+  public static class Entity {
+    public String id;
+    public String field01 = "value 01";
+    public String field02 = "value 02";
+    public String field03 = "value 03";
+    public String field04 = "value 04";
+    public String field05 = "value 05";
+    public String field06 = "value 06";
+    public String field07 = "value 07";
+    public String field08 = "value 08";
+    public String field09 = "value 09";
+    public int field10 = 10;
+    public int field11 = 11;
+    public int field12 = 12;
+    public int field13 = 13;
+    public int field14 = 14;
+    public boolean field15 = true;
+    public boolean field16 = false;
+    public long field17 = 17L;
+    public long field18 = 18L;
+    public double field19 = 19.0;
+    public Address address = new Address();
+
+    Entity(int id) {
+      this.id = "entity-" + id;
+    }
+  }
+
+  @EnableFieldFilter
+  public static class Address {
+    public String street = "Main Street 1";
+    public String postalCode = "12345";
+    public String city = "Hamburg";
+    public String country = "DE";
+  }
+}
@@ -0,0 +1,89 @@
+package org.sdase.commons.benchmarks.jackson;
+
+import static org.sdase.commons.server.jackson.hal.HalLinkProvider.linkTo;
+import static org.sdase.commons.server.jackson.hal.HalLinkProvider.methodOn;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.UriInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.jackson.hal.HalLinkProvider;
+
+/**
+ * Builds HAL links with the {@link HalLinkProvider} like a collection resource does for the self
+ * link of each item. The {@link UriInfo} of a request is simulated with a fixed base URI.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HalLinkBenchmark {
+
+  private static final URI BASE_URI = URI.create("http://localhost:8080/api/");
+
+  private int id;
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException {
+    UriInfo uriInfo =
+        (UriInfo)
+            Proxy.newProxyInstance(
+                UriInfo.class.getClassLoader(),
+                new Class[] {UriInfo.class},
+                (proxy, method, args) -> {
+                  if ("getBaseUri".equals(method.getName())) {
+                    return BASE_URI;
+                  }
+                  throw new UnsupportedOperationException(method.getName());
+                });
+    // the UriInfo is usually injected by Jersey
+    Field uriInfoField = HalLinkProvider.class.getDeclaredField("uriInfo");
+    uriInfoField.setAccessible(true);
+    uriInfoField.set(HalLinkProvider.getInstance(), uriInfo);
+  }
+
+  @Benchmark
+  public URI linkWithPathParam() {
+    return linkTo(methodOn(PersonsApi.class).getPerson("person-" + (id++ & 1023))).asUri();
+  }
+
+  @Benchmark
+  public URI linkWithPathAndQueryParams() {
+    return linkTo(
+            methodOn(PersonsApi.class)
+                .getPersonAddresses("person-" + (id++ & 1023), "address-1", "city"))
+        .asUri();
+  }
+
+  @Path("/persons")
+  public interface PersonsApi {
+
+    @GET
+    @Path("/{personId}")
+    Object getPerson(@PathParam("personId") String personId);
+
+    @GET
+    @Path("/{personId}/addresses/{addressId}")
+    Object getPersonAddresses(
+        @PathParam("personId") String personId,
+        @PathParam("addressId") String addressId,
+        @QueryParam("fields") String fields);
+  }
+}
@@ -0,0 +1,256 @@
+package org.sdase.commons.benchmarks.jackson;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import io.openapitools.jackson.dataformat.hal.annotation.EmbeddedResource;
+import io.openapitools.jackson.dataformat.hal.annotation.Link;
+import io.openapitools.jackson.dataformat.hal.annotation.Resource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.jackson.EnableFieldFilter;
+import org.sdase.commons.server.jackson.ObjectMapperConfigurationUtil;
+import org.sdase.commons.server.jackson.filter.JacksonFieldFilterModule;
+
+/**
+ * Serializes and deserializes a collection of 100 HAL resources with links, embedded resources,
+ * dates and enums with the {@link ObjectMapper} of the platform with and without bytecode
+ * acceleration. The field filter module is registered like in the {@code
+ * JacksonConfigurationBundle}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectMapperAccelerationBenchmark {
+
+  private static final TypeReference<List<Person>> PERSONS = new TypeReference<List<Person>>() {};
+
+  @Param({"false", "true"})
+  public boolean bytecodeAcceleration;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 17);
+
+  private ObjectMapper objectMapper;
+
+  private List<Person> persons;
+
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapperConfigurationUtil.Builder builder = ObjectMapperConfigurationUtil.configureMapper();
+    if (bytecodeAcceleration) {
+      builder.withBytecodeAcceleration();
+    }
+    objectMapper = builder.build().registerModule(new JacksonFieldFilterModule());
+    persons = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      persons.add(new Person(i));
+    }
+    json = objectMapper.writeValueAsBytes(persons);
+  }
+
+  @Benchmark
+  public int serialize() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, persons);
+    return out.size();
+  }
+
+  @Benchmark
+  public List<Person> deserialize() throws IOException {
+    return objectMapper.readValue(json, PERSONS);
+  }
+
+  public enum Title {
+    NONE,
+    DOCTOR,
+    PROFESSOR
+  }
+
+  @Resource
+  @EnableFieldFilter
+  public static class Person {
+    @Link private HALLink self;
+    private String id;
+    private String firstName = "John";
+    private String lastName = "Doe";
+    private String email = "john.doe@example.com";
+    private Title title = Title.DOCTOR;
+    private int age = 42;
+    private long version = 7L;
+    private boolean active = true;
+    private ZonedDateTime createdAt = ZonedDateTime.of(2023, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC);
+    @EmbeddedResource private List<Address> addresses = new ArrayList<>();
+
+    public Person() {
+      // for deserialization
+    }
+
+    Person(int id) {
+      this.id = "person-" + id;
+      this.self = new HALLink.Builder(URI.create("http://localhost/persons/" + this.id)).build();
+      this.addresses.add(new Address("Main Street 1", "12345", "Hamburg"));
+      this.addresses.add(new Address("Side Street 2", "54321", "Berlin"));
+    }
+
+    public HALLink getSelf() {
+      return self;
+    }
+
+    public void setSelf(HALLink self) {
+      this.self = self;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public void setId(String id) {
+      this.id = id;
+    }
+
+    public String getFirstName() {
+      return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+      this.firstName = firstName;
+    }
+
+    public String getLastName() {
+      return lastName;
+    }
+
+    public void setLastName(String lastName) {
+      this.lastName = lastName;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public void setEmail(String email) {
+      this.email = email;
+    }
+
+    public Title getTitle() {
+      return title;
+    }
+
+    public void setTitle(Title title) {
+      this.title = title;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public void setVersion(long version) {
+      this.version = version;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public ZonedDateTime getCreatedAt() {
+      return createdAt;
+    }
+
+    public void setCreatedAt(ZonedDateTime createdAt) {
+      this.createdAt = createdAt;
+    }
+
+    public List<Address> getAddresses() {
+      return addresses;
+    }
+
+    public void setAddresses(List<Address> addresses) {
+      this.addresses = addresses;
+    }
+  }
+
+  @Resource
+  @EnableFieldFilter
+  public static class Address {
+    private String street;
+    private String postalCode;
+    private String city;
+    private String country = "DE";
+
+    public Address() {
+      // for deserialization
+    }
+
+    Address(String street, String postalCode, String city) {
+      this.street = street;
+      this.postalCode = postalCode;
+      this.city = city;
+    }
+
+    public String getStreet() {
+      return street;
+    }
+
+    public void setStreet(String street) {
+      this.street = street;
+    }
+
+    public String getPostalCode() {
+      return postalCode;
+    }
+
+    public void setPostalCode(String postalCode) {
+      this.postalCode = postalCode;
+    }
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+
+    public String getCountry() {
+      return country;
+    }
+
+    public void setCountry(String country) {
+      this.country = country;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.sdase.commons.benchmarks.kafka;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonDeserializer;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonLazyDeserializer;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonReaderDeserializer;
+import org.sdase.commons.server.kafka.serializers.LazyJsonValue;
+
+/**
+ * Compares the {@link KafkaJsonDeserializer} with the {@link KafkaJsonReaderDeserializer} when
+ * reading a complete event, a projection of a nested part and a lazy value that is not accessed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaJsonDeserializerBenchmark {
+
+  private static final String TOPIC = "customer-events";
+
+  private byte[] event;
+
+  private KafkaJsonDeserializer<CustomerEvent> kafkaJsonDeserializer;
+  private KafkaJsonReaderDeserializer<CustomerEvent> readerDeserializer;
+  private KafkaJsonReaderDeserializer<CustomerIdOnly> projectionDeserializer;
+  private KafkaJsonLazyDeserializer<CustomerEvent> lazyDeserializer;
+
+  @Setup
+  public void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    event = createEvent().getBytes(UTF_8);
+    kafkaJsonDeserializer = new KafkaJsonDeserializer<>(objectMapper, CustomerEvent.class);
+    readerDeserializer = new KafkaJsonReaderDeserializer<>(objectMapper, CustomerEvent.class);
+    projectionDeserializer =
+        KafkaJsonReaderDeserializer.builder(objectMapper, CustomerIdOnly.class)
+            .ignoringUnknownProperties()
+            .at("/customer")
+            .build();
+    lazyDeserializer =
+        KafkaJsonReaderDeserializer.builder(objectMapper, CustomerEvent.class).buildLazy();
+  }
+
+  @Benchmark
+  public CustomerEvent kafkaJsonDeserializer() {
+    return kafkaJsonDeserializer.deserialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public CustomerEvent readerDeserializer() {
+    return readerDeserializer.deserialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public CustomerIdOnly readerDeserializerProjection() {
+    return projectionDeserializer.deserialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public LazyJsonValue<CustomerEvent> lazyDeserializerNotAccessed() {
+    return lazyDeserializer.deserialize(TOPIC, event);
+  }
+
+  private static String createEvent() {
+    StringBuilder addresses = new StringBuilder();
+    for (int i = 0; i < 5; i++) {
+      if (i > 0) {
+        addresses.append(',');
+      }
+      addresses
+          .append("{\"street\":\"Main Street ")
+          .append(i)
+          .append("\",\"zipCode\":\"2000")
+          .append(i)
+          .append("\",\"city\":\"Hamburg\",\"country\":\"DE\"}");
+    }
+    return "{\"id\":\"6b7c4c0e-4c4c-4b2a-9d38-3c1f8a2f0a11\","
+        + "\"type\":\"CUSTOMER_UPDATED\","
+        + "\"occurredAt\":\"2023-01-23T10:15:30Z\","
+        + "\"customer\":{\"id\":\"c-4711\",\"firstName\":\"John\",\"lastName\":\"Doe\","
+        + "\"email\":\"john.doe@example.com\",\"addresses\":["
+        + addresses
+        + "]}}";
+  }
+
+  public static class CustomerEvent {
+    public String id;
+    public String type;
+    public String occurredAt;
+    public Customer customer;
+  }
+
+  public static class Customer {
+    public String id;
+    public String firstName;
+    public String lastName;
+    public String email;
+    public List<Address> addresses;
+  }
+
+  public static class Address {
+    public String street;
+    public String zipCode;
+    public String city;
+    public String country;
+  }
+
+  public static class CustomerIdOnly {
+    public String id;
+  }
+}
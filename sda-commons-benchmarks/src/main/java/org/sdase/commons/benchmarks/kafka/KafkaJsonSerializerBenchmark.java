@@ -0,0 +1,82 @@
+package org.sdase.commons.benchmarks.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.benchmarks.kafka.KafkaJsonDeserializerBenchmark.Address;
+import org.sdase.commons.benchmarks.kafka.KafkaJsonDeserializerBenchmark.Customer;
+import org.sdase.commons.benchmarks.kafka.KafkaJsonDeserializerBenchmark.CustomerEvent;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonPooledSerializer;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonSerializer;
+
+/**
+ * Compares the {@link KafkaJsonSerializer} with the {@link KafkaJsonPooledSerializer}. Run with
+ * {@code -prof gc} to compare the allocation rate per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaJsonSerializerBenchmark {
+
+  private static final String TOPIC = "customer-events";
+
+  private CustomerEvent event;
+
+  private KafkaJsonSerializer<CustomerEvent> kafkaJsonSerializer;
+  private KafkaJsonPooledSerializer<CustomerEvent> pooledSerializer;
+
+  @Setup
+  public void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    kafkaJsonSerializer = new KafkaJsonSerializer<>(objectMapper);
+    pooledSerializer = new KafkaJsonPooledSerializer<>(objectMapper);
+    event = createEvent();
+  }
+
+  @Benchmark
+  public byte[] kafkaJsonSerializer() {
+    return kafkaJsonSerializer.serialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public byte[] pooledSerializer() {
+    return pooledSerializer.serialize(TOPIC, event);
+  }
+
+  private static CustomerEvent createEvent() {
+    CustomerEvent customerEvent = new CustomerEvent();
+    customerEvent.id = "6b7c4c0e-4c4c-4b2a-9d38-3c1f8a2f0a11";
+    customerEvent.type = "CUSTOMER_UPDATED";
+    customerEvent.occurredAt = "2023-01-23T10:15:30Z";
+    customerEvent.customer = new Customer();
+    customerEvent.customer.id = "c-4711";
+    customerEvent.customer.firstName = "John";
+    customerEvent.customer.lastName = "Doe";
+    customerEvent.customer.email = "john.doe@example.com";
+    customerEvent.customer.addresses = new ArrayList<>();
+    List<Address> addresses = customerEvent.customer.addresses;
+    for (int i = 0; i < 5; i++) {
+      Address address = new Address();
+      address.street = "Main Street " + i;
+      address.zipCode = "2000" + i;
+      address.city = "Hamburg";
+      address.country = "DE";
+      addresses.add(address);
+    }
+    return customerEvent;
+  }
+}
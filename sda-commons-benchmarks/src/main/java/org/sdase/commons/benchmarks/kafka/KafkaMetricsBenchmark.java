@@ -0,0 +1,75 @@
+package org.sdase.commons.benchmarks.kafka;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageCounter;
+
+/**
+ * Compares the overhead of the Kafka message metrics per message when the labels are resolved for
+ * each message with the overhead when the child of the metric is resolved once. Run with {@code -t
+ * 1} and {@code -t 4} to compare the overhead of concurrent producers and consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaMetricsBenchmark {
+
+  private static final String CLIENT_NAME = "my-client";
+  private static final String TOPIC = "customer-events";
+
+  private ProducerTopicMessageCounter producerTopicMessageCounter;
+  private ConsumerTopicMessageHistogram consumerTopicMessageHistogram;
+
+  private Counter.Child counterChild;
+  private Histogram.Child histogramChild;
+
+  @Setup
+  public void setUp() {
+    producerTopicMessageCounter = new ProducerTopicMessageCounter();
+    consumerTopicMessageHistogram = new ConsumerTopicMessageHistogram();
+    counterChild = producerTopicMessageCounter.child(CLIENT_NAME, TOPIC);
+    histogramChild = consumerTopicMessageHistogram.child(CLIENT_NAME, TOPIC);
+  }
+
+  @TearDown
+  public void tearDown() {
+    producerTopicMessageCounter.unregister();
+    consumerTopicMessageHistogram.unregister();
+  }
+
+  @Benchmark
+  public void producerCounterLabels() {
+    producerTopicMessageCounter.increase(CLIENT_NAME, TOPIC);
+  }
+
+  @Benchmark
+  public void producerCounterChild() {
+    counterChild.inc();
+  }
+
+  @Benchmark
+  public void consumerHistogramLabels() {
+    consumerTopicMessageHistogram.observe(0.002, CLIENT_NAME, TOPIC);
+  }
+
+  @Benchmark
+  public void consumerHistogramChild() {
+    histogramChild.observe(0.002);
+  }
+}
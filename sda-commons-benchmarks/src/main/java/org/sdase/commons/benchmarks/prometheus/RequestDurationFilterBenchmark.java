@@ -0,0 +1,150 @@
+package org.sdase.commons.benchmarks.prometheus;
+
+import io.prometheus.client.Histogram;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Response;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.internal.routing.UriRoutingContext;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.uri.PathTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdase.commons.server.prometheus.metric.request.duration.RequestDurationFilter;
+import org.sdase.commons.server.prometheus.metric.request.duration.RequestDurationHistogramSpecification;
+
+/**
+ * Measures the overhead of the {@link RequestDurationFilter} per request for a resource method with
+ * path parameters. The request is prepared like Jersey does when routing it. {@code
+ * histogramLabels} resolves the child of a histogram with the same labels for each request like the
+ * filter did before the labels of resource methods have been cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestDurationFilterBenchmark {
+
+  private RequestDurationHistogramSpecification specification;
+  private RequestDurationFilter filter;
+  private ContainerRequest request;
+  private ContainerResponse response;
+
+  private Histogram histogram;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    specification = new RequestDurationHistogramSpecification();
+    Method method = ContractsResource.class.getMethod("getContract", String.class, String.class);
+    filter = new RequestDurationFilter(new StaticResourceInfo(method), specification);
+
+    request =
+        new ContainerRequest(
+            URI.create("http://localhost:8080/api/"),
+            URI.create("http://localhost:8080/api/customers/4711/contracts/4711"),
+            "GET",
+            null,
+            new MapPropertiesDelegate());
+    // the routing context of the request is exposed as its uri info
+    UriRoutingContext routingContext = (UriRoutingContext) request.getUriInfo();
+    PathTemplate resourceTemplate = new PathTemplate("/customers");
+    PathTemplate methodTemplate = new PathTemplate("/{customerId}/contracts/{contractId: [0-9]+}");
+    routingContext.pushMatchResult(
+        resourceTemplate.getPattern().match("/customers/4711/contracts/4711"));
+    routingContext.pushMatchResult(methodTemplate.getPattern().match("/4711/contracts/4711"));
+    routingContext.pushTemplates(resourceTemplate, methodTemplate);
+    routingContext.setMatchedResourceMethod(resourceMethod());
+    response = new ContainerResponse(request, Response.ok().build());
+
+    histogram =
+        Histogram.build()
+            .name("benchmark_request_duration_seconds")
+            .help("Labels resolved per request.")
+            .labelNames(
+                "implementing_method",
+                "http_method",
+                "resource_path",
+                "status_code",
+                "consumer_name")
+            .create();
+  }
+
+  @TearDown
+  public void tearDown() {
+    specification.unregister();
+  }
+
+  @Benchmark
+  public void requestDurationFilter() {
+    filter.filter(request);
+    filter.filter(request, response);
+  }
+
+  @Benchmark
+  public void histogramLabels() {
+    histogram
+        .labels(
+            "getContract",
+            request.getMethod(),
+            "api/customers/{customerId}/contracts/{contractId}",
+            String.valueOf(response.getStatus()),
+            "")
+        .observe(0.002);
+  }
+
+  private static ResourceMethod resourceMethod() {
+    return Resource.from(ContractsResource.class).getChildResources().stream()
+        .flatMap(r -> r.getResourceMethods().stream())
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+
+  @Path("/customers")
+  public static class ContractsResource {
+
+    @GET
+    @Path("/{customerId}/contracts/{contractId: [0-9]+}")
+    public String getContract(
+        @PathParam("customerId") String customerId, @PathParam("contractId") String contractId) {
+      return contractId;
+    }
+  }
+
+  private static class StaticResourceInfo implements ResourceInfo {
+
+    private final Method method;
+
+    private StaticResourceInfo(Method method) {
+      this.method = method;
+    }
+
+    @Override
+    public Method getResourceMethod() {
+      return method;
+    }
+
+    @Override
+    public Class<?> getResourceClass() {
+      return method.getDeclaringClass();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.sdase.commons.server.opa.testing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluationInput;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluator;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+import org.sdase.commons.server.opa.filter.model.OpaResponse;
+
+/**
+ * An {@link OpaEvaluator} that evaluates the same mocked policies as the {@link OpaClassExtension}
+ * in the same process without an HTTP server. It is registered with {@code
+ * OpaBundle.builder().withEvaluator(config -> inProcessOpa)}.
+ *
+ * <p>Like in WireMock, the latest matching mock wins. Requests that do not match any mock and
+ * mocked errors or empty responses do not produce a decision.
+ */
+@SuppressWarnings("WeakerAccess")
+public class InProcessOpa extends AbstractOpa implements OpaEvaluator {
+
+  private static final ObjectMapper OM = new ObjectMapper();
+
+  private final List<MockedDecision> mocks = new CopyOnWriteArrayList<>();
+
+  private final List<JsonNode> requestJournal = Collections.synchronizedList(new ArrayList<>());
+
+  private boolean requestJournalEnabled = true;
+
+  /**
+   * Disables recording the inputs, e.g. for load tests. Requests can't be {@linkplain #verify(int,
+   * AllowBuilder) verified} without the journal.
+   *
+   * @return this instance
+   */
+  public InProcessOpa withoutRequestJournal() {
+    this.requestJournalEnabled = false;
+    return this;
+  }
+
+  public void mock(BuildBuilder builder) {
+    StubBuilder stub = (StubBuilder) builder;
+    mocks.add(0, new MockedDecision(stub, createDecision(stub)));
+  }
+
+  public void reset() {
+    mocks.clear();
+    requestJournal.clear();
+  }
+
+  @Override
+  public OpaDecision evaluate(OpaEvaluationInput input) {
+    JsonNode inputTree = input.toTree(OM);
+    if (requestJournalEnabled) {
+      requestJournal.add(inputTree);
+    }
+    for (MockedDecision mock : mocks) {
+      if (matches(mock.stub, inputTree)) {
+        return mock.decision;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  void verify(int count, StubBuilder builder) {
+    if (!requestJournalEnabled) {
+      throw new IllegalStateException("The request journal is disabled.");
+    }
+    long actual;
+    synchronized (requestJournal) {
+      actual = requestJournal.stream().filter(input -> matches(builder, input)).count();
+    }
+    if (actual != count) {
+      throw new AssertionError(
+          String.format(
+              "Expected exactly %d requests matching the mock but got %d", count, actual));
+    }
+  }
+
+  private static boolean matches(StubBuilder stub, JsonNode input) {
+    if (stub.isOnAnyRequest()) {
+      return true;
+    }
+    if (!Objects.equals(stub.getHttpMethod(), input.path("httpMethod").textValue())) {
+      return false;
+    }
+    if (!matchesPath(stub.getPaths(), input.path("path"))) {
+      return false;
+    }
+    return !stub.isMatchJWT() || Objects.equals(stub.getJwt(), input.path("jwt").textValue());
+  }
+
+  private static boolean matchesPath(String[] paths, JsonNode path) {
+    if (!path.isArray() || path.size() != paths.length) {
+      return false;
+    }
+    for (int i = 0; i < paths.length; i++) {
+      if (!paths[i].equals(path.get(i).textValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static OpaDecision createDecision(StubBuilder stub) {
+    if (stub.isErrorResponse() || stub.isEmptyResponse()) {
+      return null;
+    }
+    try {
+      if (stub.getAnswer() != null) {
+        OpaResponse answer = stub.getAnswer();
+        if (answer.getResult() == null || answer.getResult().isNull()) {
+          return null;
+        }
+        return OpaDecision.of(answer.isAllow(), OM.writeValueAsBytes(answer.getResult()));
+      }
+      ObjectNode result =
+          stub.getConstraint() == null
+              ? OM.createObjectNode()
+              : OM.valueToTree(stub.getConstraint());
+      result.put("allow", stub.isAllow());
+      return OpaDecision.of(stub.isAllow(), OM.writeValueAsBytes(result));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Mock initialization failed", e);
+    }
+  }
+
+  private static class MockedDecision {
+
+    private final StubBuilder stub;
+
+    private final OpaDecision decision;
+
+    private MockedDecision(StubBuilder stub, OpaDecision decision) {
+      this.stub = stub;
+      this.decision = decision;
+    }
+  }
+}
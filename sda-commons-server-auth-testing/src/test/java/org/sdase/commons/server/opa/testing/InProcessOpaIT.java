@@ -0,0 +1,131 @@
+package org.sdase.commons.server.opa.testing;
+
+import static io.dropwizard.testing.ConfigOverride.randomPorts;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.sdase.commons.server.opa.testing.InProcessOpa.onAnyRequest;
+import static org.sdase.commons.server.opa.testing.InProcessOpa.onRequest;
+
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.junit5.DropwizardAppExtension;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sdase.commons.server.opa.OpaBundle;
+import org.sdase.commons.server.opa.OpaJwtPrincipal;
+import org.sdase.commons.server.opa.config.OpaConfig;
+import org.sdase.commons.server.opa.testing.test.ConstraintModel;
+
+class InProcessOpaIT {
+
+  private static final InProcessOpa OPA = new InProcessOpa();
+
+  @RegisterExtension
+  static final DropwizardAppExtension<TestConfiguration> DW =
+      new DropwizardAppExtension<>(TestApplication.class, null, randomPorts());
+
+  @BeforeEach
+  void before() {
+    OPA.reset();
+  }
+
+  @Test
+  void shouldAllowWithConstraints() {
+    OPA.mock(
+        onRequest()
+            .withHttpMethod("GET")
+            .withPath("resources")
+            .allow()
+            .withConstraint(new ConstraintModel().addConstraint("customer_ids", "1")));
+
+    Response response = get("resources");
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.readEntity(String.class)).contains("\"customer_ids\":[\"1\"]");
+    OPA.verify(1, "GET", "resources");
+  }
+
+  @Test
+  void shouldDeny() {
+    OPA.mock(onRequest().withHttpMethod("GET").withPath("resources").deny());
+
+    assertThat(get("resources").getStatus()).isEqualTo(403);
+  }
+
+  @Test
+  void shouldDenyWithoutMatchingMock() {
+    OPA.mock(onRequest().withHttpMethod("POST").withPath("resources").allow());
+
+    assertThat(get("resources").getStatus()).isEqualTo(403);
+    OPA.verify(1, onAnyRequest());
+  }
+
+  @Test
+  void shouldPreferLatestMock() {
+    OPA.mock(onAnyRequest().deny());
+    OPA.mock(onRequest().withHttpMethod("GET").withPath("resources").allow());
+
+    assertThat(get("resources").getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void shouldDenyOnServerError() {
+    OPA.mock(onAnyRequest().serverError());
+
+    assertThat(get("resources").getStatus()).isEqualTo(403);
+  }
+
+  @Test
+  void shouldFailVerificationOfMissingRequest() {
+    assertThrows(AssertionError.class, () -> OPA.verify(1, "GET", "resources"));
+  }
+
+  private static Response get(String path) {
+    return DW.client().target("http://localhost:" + DW.getLocalPort()).path(path).request().get();
+  }
+
+  public static class TestApplication extends Application<TestConfiguration> {
+
+    @Override
+    public void initialize(Bootstrap<TestConfiguration> bootstrap) {
+      bootstrap.addBundle(
+          OpaBundle.builder()
+              .withOpaConfigProvider(TestConfiguration::getOpa)
+              .withEvaluator(c -> OPA)
+              .build());
+    }
+
+    @Override
+    public void run(TestConfiguration configuration, Environment environment) {
+      environment.jersey().register(Endpoint.class);
+    }
+  }
+
+  @Path("")
+  public static class Endpoint {
+
+    @Context SecurityContext securityContext;
+
+    @GET
+    @Path("/resources")
+    public String get() {
+      return ((OpaJwtPrincipal) securityContext.getUserPrincipal()).getConstraints();
+    }
+  }
+
+  public static class TestConfiguration extends Configuration {
+    private OpaConfig opa = new OpaConfig();
+
+    public OpaConfig getOpa() {
+      return opa;
+    }
+  }
+}
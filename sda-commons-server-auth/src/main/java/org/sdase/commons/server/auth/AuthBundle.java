@@ -1,5 +1,6 @@
 package org.sdase.commons.server.auth;
 
+import static org.sdase.commons.server.dropwizard.lifecycle.ManagedShutdownListener.onShutdown;
 import static org.sdase.commons.server.opentracing.client.ClientTracingUtil.registerTracing;
 
 import io.dropwizard.Configuration;
@@ -29,9 +30,13 @@ import org.sdase.commons.server.auth.key.KeySource;
 import org.sdase.commons.server.auth.key.OpenIdProviderDiscoveryKeySource;
 import org.sdase.commons.server.auth.key.PemKeySource;
 import org.sdase.commons.server.auth.key.PublicKeyLoader;
+import org.sdase.commons.server.auth.key.PublicKeyReloadMetrics;
 import org.sdase.commons.server.auth.service.AuthService;
 import org.sdase.commons.server.auth.service.JwtAuthenticator;
 import org.sdase.commons.server.auth.service.TokenAuthorizer;
+import org.sdase.commons.server.auth.service.TokenVerificationFailureMetrics;
+import org.sdase.commons.server.auth.service.VerifiedTokenCache;
+import org.sdase.commons.server.auth.service.VerifiedTokenCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,7 +76,13 @@ public class AuthBundle<T extends Configuration> implements ConfiguredBundle<T>
     Tracer currentTracer = tracer == null ? GlobalTracer.get() : tracer;
 
     Client client = createKeyLoaderClient(environment, config, currentTracer);
-    PublicKeyLoader keyLoader = new PublicKeyLoader();
+    PublicKeyReloadMetrics reloadMetrics = new PublicKeyReloadMetrics();
+    environment.lifecycle().manage(onShutdown(reloadMetrics::unregister));
+    PublicKeyLoader keyLoader =
+        new PublicKeyLoader(
+            PublicKeyLoader.DEFAULT_MIN_RELOAD_INTERVAL,
+            PublicKeyLoader.DEFAULT_UNKNOWN_KID_TTL,
+            reloadMetrics);
     config.getKeys().stream()
         .map(k -> this.createKeySources(k, client))
         .forEach(keyLoader::addKeySource);
@@ -80,7 +91,14 @@ public class AuthBundle<T extends Configuration> implements ConfiguredBundle<T>
         environment.lifecycle().scheduledExecutorService("reloadKeysExecutorService").build();
     KeyLoaderScheduler.create(keyLoader, executorService).start();
 
-    TokenAuthorizer authService = new AuthService(keyLoader, config.getLeeway());
+    TokenVerificationFailureMetrics failureMetrics = new TokenVerificationFailureMetrics();
+    environment.lifecycle().manage(onShutdown(failureMetrics::unregister));
+    TokenAuthorizer authService =
+        new AuthService(
+            keyLoader,
+            config.getLeeway(),
+            createVerifiedTokenCache(config, environment),
+            failureMetrics);
     JwtAuthenticator authenticator = new JwtAuthenticator(authService, config.isDisableAuth());
 
     JwtAuthFilter<JwtPrincipal> authFilter =
@@ -103,6 +121,15 @@ public class AuthBundle<T extends Configuration> implements ConfiguredBundle<T>
     environment.jersey().register(ForbiddenExceptionMapper.class);
   }
 
+  private VerifiedTokenCache createVerifiedTokenCache(AuthConfig config, Environment environment) {
+    if (config.getVerifiedTokenCacheSize() <= 0) {
+      return null;
+    }
+    VerifiedTokenCacheMetrics cacheMetrics = new VerifiedTokenCacheMetrics();
+    environment.lifecycle().manage(onShutdown(cacheMetrics::unregister));
+    return new VerifiedTokenCache(config.getVerifiedTokenCacheSize(), cacheMetrics);
+  }
+
   private Client createKeyLoaderClient(Environment environment, AuthConfig config, Tracer tracer) {
     JerseyClientBuilder jerseyClientBuilder = new JerseyClientBuilder(environment);
 
@@ -32,6 +32,12 @@ public class AuthConfig {
    */
   private boolean disableAuth;
 
+  /**
+   * The maximum number of verified tokens that are cached to avoid repeated verification of the
+   * signature. The cache is disabled with {@code 0}.
+   */
+  private int verifiedTokenCacheSize = 1_000;
+
   public JerseyClientConfiguration getKeyLoaderClient() {
     return keyLoaderClient;
   }
@@ -74,6 +80,15 @@ public class AuthConfig {
     return this;
   }
 
+  public int getVerifiedTokenCacheSize() {
+    return verifiedTokenCacheSize;
+  }
+
+  public AuthConfig setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+    this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+    return this;
+  }
+
   public AuthConfig setIssuers(String commaSeparatedIssuers) {
     this.keysFromIssuers.clear();
     if (commaSeparatedIssuers != null) {
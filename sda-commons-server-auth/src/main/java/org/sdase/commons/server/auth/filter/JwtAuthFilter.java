@@ -18,6 +18,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.SecurityContext;
 import org.sdase.commons.server.auth.error.JwtAuthException;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
 
 /**
  * A dropwizard authentication filter using JSON Web Token (JWT). The filter checks if JWT (Json Web
@@ -42,6 +43,7 @@ public class JwtAuthFilter<P extends Principal> extends AuthFilter<Optional<Stri
 
   @Override
   public void filter(ContainerRequestContext requestContext) {
+    long start = System.nanoTime();
     Span span =
         tracer
             .buildSpan("validateToken")
@@ -64,6 +66,7 @@ public class JwtAuthFilter<P extends Principal> extends AuthFilter<Optional<Stri
       }
     } finally {
       span.finish();
+      RequestPhases.record(requestContext, RequestPhases.JWT, start);
     }
   }
 
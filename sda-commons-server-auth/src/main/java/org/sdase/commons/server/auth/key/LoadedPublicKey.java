@@ -1,6 +1,9 @@
 package org.sdase.commons.server.auth.key;
 
+import com.auth0.jwt.algorithms.Algorithm;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
 import java.util.Objects;
 
 public class LoadedPublicKey {
@@ -20,6 +23,12 @@ public class LoadedPublicKey {
   /** The required issuer for the JWT in correlation to the publicKey. */
   private String requiredIssuer;
 
+  /**
+   * The algorithm to verify signatures with the publicKey, created once when the key is loaded.
+   * {@code null} if the sign algorithm is not supported for the key.
+   */
+  private Algorithm algorithm;
+
   public LoadedPublicKey(
       String kid,
       PublicKey publicKey,
@@ -31,6 +40,7 @@ public class LoadedPublicKey {
     this.keySource = keySource;
     this.requiredIssuer = requiredIssuer;
     this.sigAlgorithm = sigAlgorithm;
+    this.algorithm = createAlgorithm(sigAlgorithm, publicKey);
   }
 
   public String getKid() {
@@ -57,15 +67,51 @@ public class LoadedPublicKey {
     return Objects.equals(kid, that.kid)
         && Objects.equals(publicKey, that.publicKey)
         && Objects.equals(sigAlgorithm, that.sigAlgorithm)
-        && Objects.equals(keySource, that.keySource);
+        && Objects.equals(keySource, that.keySource)
+        && Objects.equals(requiredIssuer, that.requiredIssuer);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(kid, publicKey, keySource);
+    return Objects.hash(kid, publicKey, sigAlgorithm, keySource, requiredIssuer);
   }
 
   public String getSigAlgorithm() {
     return sigAlgorithm;
   }
+
+  /**
+   * @return the algorithm to verify signatures with the public key or {@code null} if the sign
+   *     algorithm is not supported for the key
+   */
+  public Algorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  private static Algorithm createAlgorithm(String sigAlgorithm, PublicKey publicKey) {
+    if (sigAlgorithm == null) {
+      return null;
+    }
+    try {
+      switch (sigAlgorithm) {
+        case "RS256":
+          return Algorithm.RSA256((RSAPublicKey) publicKey, null);
+        case "RS384":
+          return Algorithm.RSA384((RSAPublicKey) publicKey, null);
+        case "RS512":
+          return Algorithm.RSA512((RSAPublicKey) publicKey, null);
+        case "ES256":
+          return Algorithm.ECDSA256((ECPublicKey) publicKey, null);
+        case "ES384":
+          return Algorithm.ECDSA384((ECPublicKey) publicKey, null);
+        case "ES512":
+          return Algorithm.ECDSA512((ECPublicKey) publicKey, null);
+        default:
+          return null;
+      }
+    } catch (ClassCastException e) {
+      // the key does not match the algorithm
+      return null;
+    }
+  }
 }
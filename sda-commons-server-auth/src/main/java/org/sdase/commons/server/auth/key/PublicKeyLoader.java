@@ -1,6 +1,16 @@
 package org.sdase.commons.server.auth.key;
 
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.OUTCOME_RELOADED;
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.OUTCOME_SHARED;
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.OUTCOME_THROTTLED;
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.TRIGGER_NO_KEYS_WITHOUT_KID;
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.TRIGGER_SCHEDULED;
+import static org.sdase.commons.server.auth.key.PublicKeyReloadMetrics.TRIGGER_UNKNOWN_KID;
+
+import io.prometheus.client.SimpleTimer;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -8,30 +18,88 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Loads public keys from various locations, converts them to Java Keys and caches them. */
+/**
+ * Loads public keys from various locations, converts them to Java Keys and caches them.
+ *
+ * <p>Keys are reloaded on demand when a key is requested that is not known. Concurrent requests
+ * share one reload, each {@link KeySource} is not reloaded on demand more often than the minimum
+ * reload interval and key ids that are still unknown after a reload are not reloaded again until
+ * the unknown kid TTL elapsed.
+ */
 public class PublicKeyLoader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PublicKeyLoader.class);
 
+  /** The default minimum time between two loads of the same {@link KeySource} on demand. */
+  public static final Duration DEFAULT_MIN_RELOAD_INTERVAL = Duration.ofSeconds(10);
+
+  /** The default time a kid that is unknown after a reload is not reloaded again. */
+  public static final Duration DEFAULT_UNKNOWN_KID_TTL = Duration.ofSeconds(30);
+
+  /** The maximum number of unknown key ids that are remembered, to limit memory usage. */
+  private static final int MAX_UNKNOWN_KIDS = 1_000;
+
   private Map<String, LoadedPublicKey> keysByKid = new ConcurrentHashMap<>();
 
   private Set<LoadedPublicKey> keysWithoutKeyId = new CopyOnWriteArraySet<>();
 
   private Map<KeySource, Boolean> keySources = new ConcurrentHashMap<>();
 
+  /** The {@link System#nanoTime()} when a key source has been loaded the last time. */
+  private Map<KeySource, Long> lastLoadNanos = new ConcurrentHashMap<>();
+
+  /** The {@link System#nanoTime()} until a kid that was unknown after a reload is not reloaded. */
+  private Map<String, Long> unknownKidsExpiryNanos = new ConcurrentHashMap<>();
+
+  private List<Consumer<LoadedPublicKey>> keyRemovalListeners = new CopyOnWriteArrayList<>();
+
   private final Object loadingSemaphore = new Object();
 
+  /**
+   * The number of completed loads, modified only with the {@link #loadingSemaphore}. Callers
+   * waiting for the semaphore use it to identify that a load has been completed in the meantime.
+   */
+  private volatile long completedLoads;
+
+  private final long minReloadIntervalNanos;
+
+  private final long unknownKidTtlNanos;
+
+  private final PublicKeyReloadMetrics reloadMetrics;
+
+  /**
+   * Creates a {@code PublicKeyLoader} with the {@link #DEFAULT_MIN_RELOAD_INTERVAL} and the {@link
+   * #DEFAULT_UNKNOWN_KID_TTL} that does not provide metrics.
+   */
+  public PublicKeyLoader() {
+    this(DEFAULT_MIN_RELOAD_INTERVAL, DEFAULT_UNKNOWN_KID_TTL, null);
+  }
+
+  /**
+   * @param minReloadInterval the minimum time between two loads of the same {@link KeySource} on
+   *     demand, scheduled reloads are not limited
+   * @param unknownKidTtl the time a kid that is unknown after a reload does not cause another
+   *     reload
+   * @param reloadMetrics the metrics of reloads, may be {@code null}
+   */
+  public PublicKeyLoader(
+      Duration minReloadInterval, Duration unknownKidTtl, PublicKeyReloadMetrics reloadMetrics) {
+    this.minReloadIntervalNanos = minReloadInterval.toNanos();
+    this.unknownKidTtlNanos = unknownKidTtl.toNanos();
+    this.reloadMetrics = reloadMetrics;
+  }
+
   /** @return All keys that have been registered without kid in the order they have been added. */
   public List<LoadedPublicKey> getKeysWithoutId() {
     if (keysWithoutKeyId.isEmpty()) {
-      // we may need to avoid reloading every time and delay reloads if reloaded keys just moments
-      // ago
-      reloadKeys();
+      reloadOnDemand(TRIGGER_NO_KEYS_WITHOUT_KID);
     }
     return new ArrayList<>(keysWithoutKeyId);
   }
@@ -44,9 +112,15 @@ public class PublicKeyLoader {
     if (key != null) {
       return key;
     }
-    // we may need to avoid reloading every time and delay reloads if reloaded keys just moments ago
-    reloadKeys();
-    return keysByKid.get(kid);
+    if (isRecentlyUnknown(kid)) {
+      return null;
+    }
+    boolean reloaded = reloadOnDemand(TRIGGER_UNKNOWN_KID);
+    key = keysByKid.get(kid);
+    if (key == null && reloaded) {
+      rememberUnknownKid(kid);
+    }
+    return key;
   }
 
   public void addKeySource(KeySource keySource) {
@@ -55,6 +129,25 @@ public class PublicKeyLoader {
     new Thread(this::loadAllNewKeys).start();
   }
 
+  /**
+   * @param listener notified about each key that is removed or replaced by another key with the
+   *     same kid after it has been removed
+   */
+  public void addKeyRemovalListener(Consumer<LoadedPublicKey> listener) {
+    keyRemovalListeners.add(listener);
+  }
+
+  /**
+   * @param key a key that has been loaded before
+   * @return if the key is still loaded and accepted to verify tokens
+   */
+  public boolean isLoaded(LoadedPublicKey key) {
+    if (key.getKid() == null) {
+      return keysWithoutKeyId.contains(key);
+    }
+    return key.equals(keysByKid.get(key.getKid()));
+  }
+
   public int getTotalNumberOfKeySources() {
     return keySources.size();
   }
@@ -63,15 +156,58 @@ public class PublicKeyLoader {
     return keysWithoutKeyId.size() + keysByKid.size();
   }
 
+  /** Reloads all key sources regardless when they have been loaded the last time. */
   void reloadKeys() {
     synchronized (loadingSemaphore) {
-      keySources
-          .keySet()
-          .forEach(
-              ks -> {
-                keySources.put(ks, true);
-                reloadFromKeySource(ks);
-              });
+      reloadFromKeySources(keySources.keySet(), TRIGGER_SCHEDULED);
+    }
+  }
+
+  /**
+   * Reloads all key sources that have not been loaded within the minimum reload interval. If a load
+   * is in progress, the caller waits for it and uses its result instead of reloading again.
+   *
+   * @param trigger what requested the reload
+   * @return {@code true} if keys have been loaded since the reload was requested
+   */
+  private boolean reloadOnDemand(String trigger) {
+    long loadsBefore = completedLoads;
+    synchronized (loadingSemaphore) {
+      if (completedLoads != loadsBefore) {
+        countReload(trigger, OUTCOME_SHARED);
+        return true;
+      }
+      long now = System.nanoTime();
+      List<KeySource> dueKeySources =
+          keySources.keySet().stream()
+              .filter(ks -> isReloadDue(ks, now))
+              .collect(Collectors.toList());
+      if (dueKeySources.isEmpty()) {
+        countReload(trigger, OUTCOME_THROTTLED);
+        return false;
+      }
+      reloadFromKeySources(dueKeySources, trigger);
+      return true;
+    }
+  }
+
+  private boolean isReloadDue(KeySource keySource, long now) {
+    Long lastLoad = lastLoadNanos.get(keySource);
+    return lastLoad == null || now - lastLoad >= minReloadIntervalNanos;
+  }
+
+  private void reloadFromKeySources(Collection<KeySource> sources, String trigger) {
+    SimpleTimer timer = new SimpleTimer();
+    sources.forEach(
+        ks -> {
+          keySources.put(ks, true);
+          lastLoadNanos.put(ks, System.nanoTime());
+          reloadFromKeySource(ks);
+        });
+    completedLoads++;
+    countReload(trigger, OUTCOME_RELOADED);
+    if (reloadMetrics != null) {
+      reloadMetrics.observeReloadDuration(trigger, timer.elapsedSeconds());
     }
   }
 
@@ -85,7 +221,12 @@ public class PublicKeyLoader {
   }
 
   private void removeOldKeysFromSource(KeySource keySource, List<LoadedPublicKey> newKeys) {
-    keysWithoutKeyId.removeIf(k -> keySource.equals(k.getKeySource()) && !newKeys.contains(k));
+    List<LoadedPublicKey> oldKeysWithoutKeyId =
+        keysWithoutKeyId.stream()
+            .filter(k -> keySource.equals(k.getKeySource()) && !newKeys.contains(k))
+            .collect(Collectors.toList());
+    keysWithoutKeyId.removeAll(oldKeysWithoutKeyId);
+    oldKeysWithoutKeyId.forEach(this::notifyKeyRemoved);
     Set<String> newKeyIds =
         newKeys.stream() // NOSONAR squid:S1854 this assignment is not useless
             .map(LoadedPublicKey::getKid)
@@ -93,23 +234,36 @@ public class PublicKeyLoader {
             .collect(Collectors.toSet());
     keysByKid.values().stream()
         .filter(k -> keySource.equals(k.getKeySource()))
-        .map(LoadedPublicKey::getKid)
-        .filter(kid -> !newKeyIds.contains(kid))
-        .forEach(keysByKid::remove);
+        .filter(k -> !newKeyIds.contains(k.getKid()))
+        .collect(Collectors.toList())
+        .forEach(
+            k -> {
+              if (keysByKid.remove(k.getKid(), k)) {
+                notifyKeyRemoved(k);
+              }
+            });
   }
 
   private void loadAllNewKeys() {
     try {
       synchronized (loadingSemaphore) {
-        keySources.keySet().stream()
-            .filter(ks -> !keySources.get(ks))
+        List<KeySource> newKeySources =
+            keySources.keySet().stream()
+                .filter(ks -> !keySources.get(ks))
+                .collect(Collectors.toList());
+        if (newKeySources.isEmpty()) {
+          return;
+        }
+        newKeySources.stream()
             .map(
                 ks -> {
                   keySources.put(ks, true);
+                  lastLoadNanos.put(ks, System.nanoTime());
                   return silentlyLoadKeysFromSource(ks);
                 })
             .flatMap(List::stream)
             .forEach(this::addKey);
+        completedLoads++;
       }
     } catch (Throwable t) { // NOSONAR
       // Catch information about any error that occurs in this method.
@@ -127,11 +281,58 @@ public class PublicKeyLoader {
     }
   }
 
+  private boolean isRecentlyUnknown(String kid) {
+    Long expiry = unknownKidsExpiryNanos.get(kid);
+    if (expiry == null) {
+      return false;
+    }
+    if (expiry - System.nanoTime() > 0) {
+      return true;
+    }
+    unknownKidsExpiryNanos.remove(kid, expiry);
+    return false;
+  }
+
+  private void rememberUnknownKid(String kid) {
+    if (unknownKidTtlNanos <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (unknownKidsExpiryNanos.size() >= MAX_UNKNOWN_KIDS) {
+      unknownKidsExpiryNanos.values().removeIf(expiry -> expiry - now <= 0);
+      if (unknownKidsExpiryNanos.size() >= MAX_UNKNOWN_KIDS) {
+        // a burst of random kids must not grow the memory, they may cause reloads again instead
+        unknownKidsExpiryNanos.clear();
+      }
+    }
+    unknownKidsExpiryNanos.put(kid, now + unknownKidTtlNanos);
+  }
+
+  private void countReload(String trigger, String outcome) {
+    if (reloadMetrics != null) {
+      reloadMetrics.countReload(trigger, outcome);
+    }
+  }
+
   private void addKey(LoadedPublicKey key) {
     if (key.getKid() == null) {
       keysWithoutKeyId.add(key);
     } else {
-      keysByKid.put(key.getKid(), key);
+      LoadedPublicKey replacedKey = keysByKid.put(key.getKid(), key);
+      if (replacedKey != null && !replacedKey.equals(key)) {
+        notifyKeyRemoved(replacedKey);
+      }
     }
   }
+
+  private void notifyKeyRemoved(LoadedPublicKey key) {
+    keyRemovalListeners.forEach(
+        listener -> {
+          try {
+            listener.accept(key);
+          } catch (RuntimeException e) {
+            LOGGER.error("Failed to notify about removed key {}", key.getKid(), e);
+          }
+        });
+  }
 }
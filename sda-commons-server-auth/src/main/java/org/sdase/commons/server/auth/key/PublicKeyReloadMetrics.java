@@ -0,0 +1,117 @@
+package org.sdase.commons.server.auth.key;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The central definition of the metrics of reloading public keys in the {@link PublicKeyLoader}.
+ * Reloads are counted by what triggered them and how the request for a reload was handled.
+ */
+public class PublicKeyReloadMetrics {
+
+  /** Trigger of reloads started by the {@link KeyLoaderScheduler}. */
+  static final String TRIGGER_SCHEDULED = "scheduled";
+
+  /** Trigger of reloads requested for a token with an unknown {@code kid}. */
+  static final String TRIGGER_UNKNOWN_KID = "unknown_kid";
+
+  /** Trigger of reloads requested because no keys without {@code kid} are known. */
+  static final String TRIGGER_NO_KEYS_WITHOUT_KID = "no_keys_without_kid";
+
+  /** The key sources have been reloaded. */
+  static final String OUTCOME_RELOADED = "reloaded";
+
+  /** The caller used the result of a reload that was in progress when it requested a reload. */
+  static final String OUTCOME_SHARED = "shared";
+
+  /** No key source has been reloaded because all of them have been reloaded just moments ago. */
+  static final String OUTCOME_THROTTLED = "throttled";
+
+  /** The name of the reload counter as it is published to Prometheus. */
+  private static final String COUNTER_METRIC_NAME = "auth_public_key_reloads";
+
+  /** The help message description that describes the reload counter. */
+  private static final String COUNTER_HELP = "Amount of requested reloads of public keys.";
+
+  /** The labels of the reload counter. */
+  private static final String[] COUNTER_LABELS = {
+    // what requested the reload
+    "trigger",
+    // if keys have been reloaded or the request has been satisfied otherwise
+    "outcome"
+  };
+
+  /** The name of the reload duration histogram as it is published to Prometheus. */
+  private static final String DURATION_METRIC_NAME = "auth_public_key_reload_duration";
+
+  /** The help message description that describes the reload duration histogram. */
+  private static final String DURATION_HELP =
+      "Duration of reloading public keys from all key sources in seconds.";
+
+  /** The labels of the reload duration histogram. */
+  private static final String[] DURATION_LABELS = {
+    // what requested the reload
+    "trigger"
+  };
+
+  private final Counter reloadCounter;
+
+  private final Histogram reloadDurationHistogram;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new metrics matching the specification of this {@code PublicKeyReloadMetrics}
+   * instance. The metrics are registered when the first reload is requested. <strong>Note that
+   * there should be only one instance of this type in the application.</strong>
+   */
+  public PublicKeyReloadMetrics() {
+    this.reloadCounter =
+        Counter.build()
+            .name(COUNTER_METRIC_NAME)
+            .help(COUNTER_HELP)
+            .labelNames(COUNTER_LABELS)
+            .create();
+    this.reloadDurationHistogram =
+        Histogram.build()
+            .name(DURATION_METRIC_NAME)
+            .help(DURATION_HELP)
+            .labelNames(DURATION_LABELS)
+            .create();
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(reloadCounter);
+      CollectorRegistry.defaultRegistry.unregister(reloadDurationHistogram);
+    }
+  }
+
+  /**
+   * @param trigger what requested the reload
+   * @param outcome how the request was handled
+   */
+  void countReload(String trigger, String outcome) {
+    registerIfNeeded();
+    reloadCounter.labels(trigger, outcome).inc();
+  }
+
+  /**
+   * @param trigger what requested the reload
+   * @param durationSeconds the duration of reloading all key sources in seconds
+   */
+  void observeReloadDuration(String trigger, double durationSeconds) {
+    registerIfNeeded();
+    reloadDurationHistogram.labels(trigger).observe(durationSeconds);
+  }
+
+  private void registerIfNeeded() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(reloadCounter);
+      CollectorRegistry.defaultRegistry.register(reloadDurationHistogram);
+    }
+  }
+}
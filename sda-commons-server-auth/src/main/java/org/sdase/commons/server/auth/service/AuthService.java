@@ -1,18 +1,21 @@
 package org.sdase.commons.server.auth.service;
 
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_MALFORMED;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_UNKNOWN_KID;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_UNSUPPORTED_ALGORITHM;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.reasonOf;
+
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.Verification;
-import java.security.interfaces.ECPublicKey;
-import java.security.interfaces.RSAPublicKey;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.sdase.commons.server.auth.error.JwtAuthException;
@@ -29,89 +32,143 @@ public class AuthService implements TokenAuthorizer {
 
   private long leeway;
 
+  private VerifiedTokenCache verifiedTokenCache;
+
+  /** The verifiers of the loaded keys, created on first use and removed with the key. */
+  private final Map<LoadedPublicKey, JWTVerifier> verifiers = new ConcurrentHashMap<>();
+
+  private final TokenVerificationFailureReporter failureReporter;
+
   public AuthService(PublicKeyLoader publicKeyLoader, long leeway) {
+    this(publicKeyLoader, leeway, null);
+  }
+
+  /**
+   * @param publicKeyLoader the source of keys to verify tokens
+   * @param leeway the window in seconds in which the time based claims are still valid
+   * @param verifiedTokenCache the cache of verified tokens, may be {@code null} to verify every
+   *     token
+   */
+  public AuthService(
+      PublicKeyLoader publicKeyLoader, long leeway, VerifiedTokenCache verifiedTokenCache) {
+    this(publicKeyLoader, leeway, verifiedTokenCache, null);
+  }
+
+  /**
+   * @param publicKeyLoader the source of keys to verify tokens
+   * @param leeway the window in seconds in which the time based claims are still valid
+   * @param verifiedTokenCache the cache of verified tokens, may be {@code null} to verify every
+   *     token
+   * @param failureMetrics the metrics of rejected tokens, may be {@code null}
+   */
+  public AuthService(
+      PublicKeyLoader publicKeyLoader,
+      long leeway,
+      VerifiedTokenCache verifiedTokenCache,
+      TokenVerificationFailureMetrics failureMetrics) {
     Validate.notNull(publicKeyLoader);
     Validate.inclusiveBetween(0, Long.MAX_VALUE, leeway);
     this.publicKeyLoader = publicKeyLoader;
     this.leeway = leeway;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.failureReporter =
+        new TokenVerificationFailureReporter(
+            failureMetrics, TokenVerificationFailureReporter.DEFAULT_LOG_INTERVAL_MILLIS);
+    publicKeyLoader.addKeyRemovalListener(verifiers::remove);
+    if (verifiedTokenCache != null) {
+      publicKeyLoader.addKeyRemovalListener(verifiedTokenCache::evictKey);
+    }
   }
 
   @Override
   public Map<String, Claim> auth(String authorizationToken) {
+    if (verifiedTokenCache != null) {
+      Map<String, Claim> claims = verifiedTokenCache.get(authorizationToken);
+      if (claims != null) {
+        return claims;
+      }
+    }
+    DecodedJWT decodedJwt;
     try {
-      String keyId = JWT.decode(authorizationToken).getKeyId();
-      if (keyId == null) {
-        // check all keys without id
-        List<LoadedPublicKey> keysWithoutId = publicKeyLoader.getKeysWithoutId();
-        if (keysWithoutId.size() > 1) {
-          LOG.warn("Verifying token without kid trying {} public keys", keysWithoutId.size());
+      decodedJwt = JWT.decode(authorizationToken);
+    } catch (JWTDecodeException e) {
+      failureReporter.report(REASON_MALFORMED, e.getMessage());
+      throw new JwtAuthException(e);
+    }
+    String keyId = decodedJwt.getKeyId();
+    if (keyId == null) {
+      // check all keys without id
+      List<LoadedPublicKey> keysWithoutId = publicKeyLoader.getKeysWithoutId();
+      if (keysWithoutId.size() > 1) {
+        LOG.warn("Verifying token without kid trying {} public keys", keysWithoutId.size());
+      }
+      Collections.reverse(keysWithoutId);
+      JWTVerificationException lastFailure = null;
+      for (LoadedPublicKey loadedPublicKey : keysWithoutId) {
+        try {
+          DecodedJWT jwt = verifyJwtSignature(decodedJwt, loadedPublicKey);
+          return verified(authorizationToken, jwt, loadedPublicKey);
+        } catch (JWTVerificationException e) {
+          lastFailure = e;
         }
-        Collections.reverse(keysWithoutId);
-        return keysWithoutId.stream()
-            .map(k -> verifyJwtSignature(authorizationToken, k))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .findFirst()
-            .orElseThrow(() -> new JwtAuthException("Could not verify JWT without kid."))
-            .getClaims();
+      }
+      if (lastFailure == null) {
+        failureReporter.report(REASON_UNKNOWN_KID, "No key without kid found for verification");
       } else {
-        LoadedPublicKey loadedPublicKey = publicKeyLoader.getLoadedPublicKey(keyId);
+        failureReporter.report(reasonOf(lastFailure), lastFailure.getMessage());
+      }
+      throw new JwtAuthException("Could not verify JWT without kid.");
+    } else {
+      LoadedPublicKey loadedPublicKey = publicKeyLoader.getLoadedPublicKey(keyId);
 
-        if (loadedPublicKey == null) {
-          LOG.error("No key found for verification, matching the requested kid {}", keyId);
-          throw new JwtAuthException("Could not verify JWT with the requested kid.");
-        }
+      if (loadedPublicKey == null) {
+        failureReporter.report(
+            REASON_UNKNOWN_KID,
+            "No key found for verification, matching the requested kid " + keyId);
+        throw new JwtAuthException("Could not verify JWT with the requested kid.");
+      }
 
-        DecodedJWT jwt =
-            verifyJwtSignature(authorizationToken, loadedPublicKey)
-                .orElseThrow(() -> new JwtAuthException("Verifying token failed"));
-        return jwt.getClaims();
+      try {
+        DecodedJWT jwt = verifyJwtSignature(decodedJwt, loadedPublicKey);
+        return verified(authorizationToken, jwt, loadedPublicKey);
+      } catch (JWTVerificationException e) {
+        failureReporter.report(reasonOf(e), e.getMessage());
+        throw new JwtAuthException("Verifying token failed");
       }
-    } catch (JWTVerificationException e) {
-      throw new JwtAuthException(e);
     }
   }
 
-  private static Algorithm resolveAlgorithm(LoadedPublicKey loadedPublicKey) {
-    switch (loadedPublicKey.getSigAlgorithm()) {
-      case "RS256":
-        return Algorithm.RSA256((RSAPublicKey) loadedPublicKey.getPublicKey(), null);
-      case "RS384":
-        return Algorithm.RSA384((RSAPublicKey) loadedPublicKey.getPublicKey(), null);
-      case "RS512":
-        return Algorithm.RSA512((RSAPublicKey) loadedPublicKey.getPublicKey(), null);
-      case "ES256":
-        return Algorithm.ECDSA256((ECPublicKey) loadedPublicKey.getPublicKey(), null);
-      case "ES384":
-        return Algorithm.ECDSA384((ECPublicKey) loadedPublicKey.getPublicKey(), null);
-      case "ES512":
-        return Algorithm.ECDSA512((ECPublicKey) loadedPublicKey.getPublicKey(), null);
-      default:
-        throw new JwtAuthException(
-            "Unsupported algorithm :'" + loadedPublicKey.getSigAlgorithm() + "'");
+  private Map<String, Claim> verified(
+      String authorizationToken, DecodedJWT jwt, LoadedPublicKey loadedPublicKey) {
+    if (verifiedTokenCache == null) {
+      return jwt.getClaims();
+    }
+    Map<String, Claim> claims =
+        verifiedTokenCache.put(authorizationToken, jwt, loadedPublicKey, leeway);
+    if (!publicKeyLoader.isLoaded(loadedPublicKey)) {
+      // the key has been removed while verifying and the removal listener may have missed the token
+      verifiedTokenCache.evictKey(loadedPublicKey);
     }
+    return claims;
   }
 
-  private Optional<DecodedJWT> verifyJwtSignature(
-      String authorizationToken, LoadedPublicKey loadedPublicKey) {
-    try {
-
-      Verification jwtVerification =
-          JWT.require(resolveAlgorithm(loadedPublicKey)).acceptLeeway(leeway);
-
-      if (StringUtils.isNotBlank(loadedPublicKey.getRequiredIssuer())) {
-        jwtVerification = jwtVerification.withIssuer(loadedPublicKey.getRequiredIssuer());
-      }
+  private DecodedJWT verifyJwtSignature(DecodedJWT decodedJwt, LoadedPublicKey loadedPublicKey) {
+    return verifiers.computeIfAbsent(loadedPublicKey, this::createVerifier).verify(decodedJwt);
+  }
 
-      DecodedJWT jwt = jwtVerification.build().verify(authorizationToken);
-      return Optional.of(jwt);
+  private JWTVerifier createVerifier(LoadedPublicKey loadedPublicKey) {
+    if (loadedPublicKey.getAlgorithm() == null) {
+      failureReporter.report(
+          REASON_UNSUPPORTED_ALGORITHM,
+          "Unsupported algorithm '" + loadedPublicKey.getSigAlgorithm() + "'");
+      throw new JwtAuthException(
+          "Unsupported algorithm :'" + loadedPublicKey.getSigAlgorithm() + "'");
+    }
+    Verification jwtVerification = JWT.require(loadedPublicKey.getAlgorithm()).acceptLeeway(leeway);
 
-    } catch (TokenExpiredException e) {
-      LOG.warn("Verifying token failed.", e);
-      return Optional.empty();
-    } catch (JWTVerificationException e) {
-      LOG.error("Verifying token failed.", e);
-      return Optional.empty();
+    if (StringUtils.isNotBlank(loadedPublicKey.getRequiredIssuer())) {
+      jwtVerification = jwtVerification.withIssuer(loadedPublicKey.getRequiredIssuer());
     }
+    return jwtVerification.build();
   }
 }
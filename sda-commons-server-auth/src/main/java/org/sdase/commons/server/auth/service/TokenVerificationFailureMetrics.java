@@ -0,0 +1,54 @@
+package org.sdase.commons.server.auth.service;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** The central definition of the metrics of tokens rejected by the {@link AuthService}. */
+public class TokenVerificationFailureMetrics {
+
+  /** The name of the counter as it is published to Prometheus. */
+  private static final String METRIC_NAME = "auth_token_verification_failures";
+
+  /** The help message description that describes the counter. */
+  private static final String HELP = "Amount of tokens that failed verification.";
+
+  /** The labels added by {@code TokenVerificationFailureMetrics}. */
+  private static final String[] LABELS = {
+    // why the token has been rejected, see TokenVerificationFailureReporter
+    "reason"
+  };
+
+  private final Counter failureCounter;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new metrics matching the specification of this {@code
+   * TokenVerificationFailureMetrics} instance. The metrics are registered when the first token is
+   * rejected. <strong>Note that there should be only one instance of this type in the
+   * application.</strong>
+   */
+  public TokenVerificationFailureMetrics() {
+    this.failureCounter = Counter.build().name(METRIC_NAME).help(HELP).labelNames(LABELS).create();
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(failureCounter);
+    }
+  }
+
+  /** @param reason why the token has been rejected */
+  void countFailure(String reason) {
+    registerIfNeeded();
+    failureCounter.labels(reason).inc();
+  }
+
+  private void registerIfNeeded() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(failureCounter);
+    }
+  }
+}
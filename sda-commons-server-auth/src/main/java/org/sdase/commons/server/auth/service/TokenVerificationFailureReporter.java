@@ -0,0 +1,108 @@
+package org.sdase.commons.server.auth.service;
+
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.IncorrectClaimException;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.MissingClaimException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports rejected tokens. Each failure is counted, but only one failure per interval is logged and
+ * without stack trace, so that rejecting a flood of invalid tokens stays cheap.
+ */
+class TokenVerificationFailureReporter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AuthService.class);
+
+  static final String REASON_MALFORMED = "malformed";
+  static final String REASON_UNKNOWN_KID = "unknown_kid";
+  static final String REASON_UNSUPPORTED_ALGORITHM = "unsupported_algorithm";
+  static final String REASON_ALGORITHM_MISMATCH = "algorithm_mismatch";
+  static final String REASON_INVALID_SIGNATURE = "invalid_signature";
+  static final String REASON_EXPIRED = "expired";
+  static final String REASON_INVALID_CLAIM = "invalid_claim";
+  static final String REASON_INVALID = "invalid";
+
+  /** The default minimum time between two logged failures. */
+  static final long DEFAULT_LOG_INTERVAL_MILLIS = 10_000;
+
+  private final TokenVerificationFailureMetrics metrics;
+
+  private final long logIntervalMillis;
+
+  private final Clock clock;
+
+  private final AtomicLong nextLogMillis = new AtomicLong();
+
+  private final AtomicLong suppressedFailures = new AtomicLong();
+
+  /**
+   * @param metrics the metrics of failures, may be {@code null}
+   * @param logIntervalMillis the minimum time between two logged failures
+   */
+  TokenVerificationFailureReporter(
+      TokenVerificationFailureMetrics metrics, long logIntervalMillis) {
+    this(metrics, logIntervalMillis, Clock.systemUTC());
+  }
+
+  TokenVerificationFailureReporter(
+      TokenVerificationFailureMetrics metrics, long logIntervalMillis, Clock clock) {
+    this.metrics = metrics;
+    this.logIntervalMillis = logIntervalMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * @param e the exception that caused the rejection of a token
+   * @return the reason of the failure
+   */
+  static String reasonOf(Exception e) {
+    if (e instanceof JWTDecodeException) {
+      return REASON_MALFORMED;
+    }
+    if (e instanceof AlgorithmMismatchException) {
+      return REASON_ALGORITHM_MISMATCH;
+    }
+    if (e instanceof SignatureVerificationException) {
+      return REASON_INVALID_SIGNATURE;
+    }
+    if (e instanceof TokenExpiredException) {
+      return REASON_EXPIRED;
+    }
+    if (e instanceof IncorrectClaimException || e instanceof MissingClaimException) {
+      return REASON_INVALID_CLAIM;
+    }
+    return REASON_INVALID;
+  }
+
+  /**
+   * @param reason why the token has been rejected
+   * @param message the details of the failure, must not contain the token
+   */
+  void report(String reason, String message) {
+    if (metrics != null) {
+      metrics.countFailure(reason);
+    }
+    long now = clock.millis();
+    long next = nextLogMillis.get();
+    if (now < next || !nextLogMillis.compareAndSet(next, now + logIntervalMillis)) {
+      suppressedFailures.incrementAndGet();
+      return;
+    }
+    long suppressed = suppressedFailures.getAndSet(0);
+    if (suppressed > 0) {
+      LOG.warn(
+          "Verifying token failed ({}): {}. {} more tokens failed since the last report.",
+          reason,
+          message,
+          suppressed);
+    } else {
+      LOG.warn("Verifying token failed ({}): {}", reason, message);
+    }
+  }
+}
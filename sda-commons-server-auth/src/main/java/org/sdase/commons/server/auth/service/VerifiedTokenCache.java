@@ -0,0 +1,171 @@
+package org.sdase.commons.server.auth.service;
+
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.Validate;
+import org.sdase.commons.server.auth.key.LoadedPublicKey;
+
+/**
+ * A bounded cache of the claims of tokens with a verified signature, so that a token that is used
+ * repeatedly is verified only once. Tokens are identified by their SHA-256 hash. Each token is
+ * removed when it expires or when the key that verified it is removed.
+ *
+ * <p>When the cache is full, expired tokens and, if needed, further tokens are evicted in a batch
+ * of a tenth of the maximum size, so that the cache is not scanned for each new token.
+ */
+public class VerifiedTokenCache {
+
+  private final int maxSize;
+
+  private final int evictionBatchSize;
+
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  private final Clock clock;
+
+  private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+  private final VerifiedTokenCacheMetrics metrics;
+
+  /**
+   * @param maxSize the maximum number of tokens in the cache
+   * @param metrics the metrics of cache hits and misses, may be {@code null}
+   */
+  public VerifiedTokenCache(int maxSize, VerifiedTokenCacheMetrics metrics) {
+    this(maxSize, metrics, Clock.systemUTC());
+  }
+
+  VerifiedTokenCache(int maxSize, VerifiedTokenCacheMetrics metrics, Clock clock) {
+    Validate.isTrue(maxSize > 0, "maxSize must be positive");
+    this.maxSize = maxSize;
+    this.evictionBatchSize = Math.max(1, maxSize / 10);
+    this.clock = clock;
+    this.metrics = metrics;
+  }
+
+  /**
+   * @param token the token as received from the client
+   * @return the claims of the token if it has been verified before and is not expired, otherwise
+   *     {@code null}
+   */
+  public Map<String, Claim> get(String token) {
+    String tokenHash = hash(token);
+    VerifiedToken verifiedToken = verifiedTokens.get(tokenHash);
+    if (verifiedToken != null) {
+      if (!verifiedToken.isExpired(clock.millis())) {
+        if (metrics != null) {
+          metrics.countHit();
+        }
+        return verifiedToken.claims;
+      }
+      verifiedTokens.remove(tokenHash, verifiedToken);
+    }
+    if (metrics != null) {
+      metrics.countMiss();
+    }
+    return null;
+  }
+
+  /**
+   * Adds a token that has been verified. Tokens without expiration are not added.
+   *
+   * @param token the token as received from the client
+   * @param jwt the verified token
+   * @param key the key that verified the signature of the token
+   * @param leewaySeconds the leeway in seconds that the token is accepted after expiration
+   * @return the claims of the token that are shared by all requests with the same token
+   */
+  public Map<String, Claim> put(
+      String token, DecodedJWT jwt, LoadedPublicKey key, long leewaySeconds) {
+    Map<String, Claim> claims = Collections.unmodifiableMap(jwt.getClaims());
+    Date expiresAt = jwt.getExpiresAt();
+    if (expiresAt == null) {
+      return claims;
+    }
+    long now = clock.millis();
+    VerifiedToken verifiedToken =
+        new VerifiedToken(claims, key, expiresAt.getTime() + leewaySeconds * 1000L);
+    if (verifiedToken.isExpired(now)) {
+      return claims;
+    }
+    if (verifiedTokens.size() >= maxSize) {
+      makeRoom(now);
+    }
+    verifiedTokens.put(hash(token), verifiedToken);
+    return claims;
+  }
+
+  /**
+   * Removes all tokens that have been verified by the given key.
+   *
+   * @param key the key that has been removed
+   */
+  public void evictKey(LoadedPublicKey key) {
+    verifiedTokens.values().removeIf(t -> key.equals(t.key));
+  }
+
+  /** @return the number of tokens in the cache, including expired tokens not removed yet */
+  public int size() {
+    return verifiedTokens.size();
+  }
+
+  private void makeRoom(long now) {
+    // concurrent puts do not wait for the eviction and may exceed the maximum size shortly
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int targetSize = maxSize - evictionBatchSize;
+      verifiedTokens.values().removeIf(t -> t.isExpired(now));
+      // ConcurrentHashMap does not keep an order, removing the first entries is a random eviction
+      Iterator<VerifiedToken> iterator = verifiedTokens.values().iterator();
+      while (verifiedTokens.size() > targetSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class VerifiedToken {
+
+    private final Map<String, Claim> claims;
+
+    private final LoadedPublicKey key;
+
+    private final long expiresAtMillis;
+
+    private VerifiedToken(Map<String, Claim> claims, LoadedPublicKey key, long expiresAtMillis) {
+      this.claims = claims;
+      this.key = key;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAtMillis;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package org.sdase.commons.server.auth.service;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** The central definition of the metrics of the {@link VerifiedTokenCache}. */
+public class VerifiedTokenCacheMetrics {
+
+  /** The name of the counter as it is published to Prometheus. */
+  private static final String METRIC_NAME = "auth_verified_token_cache_requests";
+
+  /** The help message description that describes the counter. */
+  private static final String HELP = "Amount of tokens looked up in the cache of verified tokens.";
+
+  /** The labels added by {@code VerifiedTokenCacheMetrics}. */
+  private static final String[] LABELS = {
+    // hit if the token has been verified before, miss if the signature must be verified
+    "result"
+  };
+
+  private final Counter requestCounter;
+
+  private final Counter.Child hits;
+
+  private final Counter.Child misses;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new metrics matching the specification of this {@code VerifiedTokenCacheMetrics}
+   * instance. The metrics are registered when the first token is looked up. <strong>Note that there
+   * should be only one instance of this type in the application.</strong>
+   */
+  public VerifiedTokenCacheMetrics() {
+    this.requestCounter =
+        Counter.build().name(METRIC_NAME).help(HELP).labelNames(LABELS).create();
+    this.hits = requestCounter.labels("hit");
+    this.misses = requestCounter.labels("miss");
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(requestCounter);
+    }
+  }
+
+  /** Counts a token found in the cache. */
+  void countHit() {
+    registerIfNeeded();
+    hits.inc();
+  }
+
+  /** Counts a token not found in the cache. */
+  void countMiss() {
+    registerIfNeeded();
+    misses.inc();
+  }
+
+  private void registerIfNeeded() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(requestCounter);
+    }
+  }
+}
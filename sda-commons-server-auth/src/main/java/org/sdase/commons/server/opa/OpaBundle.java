@@ -1,6 +1,7 @@
 package org.sdase.commons.server.opa;
 
 import static java.util.Collections.singletonList;
+import static org.sdase.commons.server.dropwizard.lifecycle.ManagedShutdownListener.onShutdown;
 import static org.sdase.commons.server.opentracing.client.ClientTracingUtil.registerTracing;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -27,11 +28,18 @@ import org.glassfish.jersey.process.internal.RequestScoped;
 import org.sdase.commons.server.opa.config.OpaClientConfiguration;
 import org.sdase.commons.server.opa.config.OpaConfig;
 import org.sdase.commons.server.opa.config.OpaConfigProvider;
+import org.sdase.commons.server.opa.config.OpaDecisionCacheConfig;
+import org.sdase.commons.server.opa.evaluation.HttpOpaEvaluator;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluator;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluatorProvider;
 import org.sdase.commons.server.opa.extension.OpaInputExtension;
 import org.sdase.commons.server.opa.extension.OpaInputHeadersExtension;
 import org.sdase.commons.server.opa.filter.OpaAuthFilter;
+import org.sdase.commons.server.opa.filter.OpaDecisionCache;
+import org.sdase.commons.server.opa.filter.OpaDecisionMetrics;
 import org.sdase.commons.server.opa.filter.model.OpaInput;
 import org.sdase.commons.server.opa.health.PolicyExistsHealthCheck;
+import org.sdase.commons.server.opa.internal.OpaDecisionCacheInvalidationTask;
 import org.sdase.commons.server.opa.internal.OpaJwtPrincipalFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,14 +82,18 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
   private final OpaConfigProvider<T> configProvider;
   private final Map<String, OpaInputExtension<?>> inputExtensions;
   private final Tracer tracer;
+  private final OpaEvaluatorProvider<T> evaluatorProvider;
+  private volatile OpaDecisionCache decisionCache;
 
   private OpaBundle(
       OpaConfigProvider<T> configProvider,
       Map<String, OpaInputExtension<?>> inputExtensions,
-      Tracer tracer) {
+      Tracer tracer,
+      OpaEvaluatorProvider<T> evaluatorProvider) {
     this.configProvider = configProvider;
     this.inputExtensions = inputExtensions;
     this.tracer = tracer;
+    this.evaluatorProvider = evaluatorProvider;
   }
 
   //
@@ -102,6 +114,18 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
     return inputExtensions;
   }
 
+  /**
+   * Removes all cached decisions of the Open Policy Agent. Must be called when the policies of the
+   * Open Policy Agent change if the decision cache is enabled. The same can be achieved by the
+   * admin task {@value OpaDecisionCacheInvalidationTask#NAME}.
+   */
+  public void invalidateDecisionCache() {
+    OpaDecisionCache cache = decisionCache;
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
   @Override
   public void initialize(Bootstrap<?> bootstrap) {
     // no init
@@ -121,10 +145,17 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
     // bundle
     ObjectMapper objectMapper = createObjectMapper();
 
-    // disable GZIP format since OPA cannot handle GZIP
-    Client client = createClient(environment, config, objectMapper, currentTracer);
-
-    WebTarget policyTarget = client.target(buildUrl(config));
+    OpaEvaluator evaluator =
+        evaluatorProvider == null || config.isDisableOpa()
+            ? null
+            : evaluatorProvider.apply(configuration);
+    WebTarget policyTarget = null;
+    if (evaluator == null) {
+      // disable GZIP format since OPA cannot handle GZIP
+      Client client = createClient(environment, config, objectMapper, currentTracer);
+      policyTarget = client.target(buildUrl(config));
+      evaluator = new HttpOpaEvaluator(policyTarget, objectMapper);
+    }
 
     // exclude swagger
     List<String> excludePattern = new ArrayList<>();
@@ -135,20 +166,26 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
       excludePattern.addAll(getOpenApiExcludePatterns());
     }
 
+    OpaDecisionMetrics metrics = new OpaDecisionMetrics();
+    environment.lifecycle().manage(onShutdown(metrics::unregister));
+    this.decisionCache = createDecisionCache(config, environment, metrics);
+
     // register filter
     environment
         .jersey()
         .register(
             new OpaAuthFilter(
-                policyTarget,
+                evaluator,
                 config,
                 excludePattern,
                 objectMapper,
                 inputExtensions,
-                currentTracer));
+                currentTracer,
+                decisionCache,
+                metrics));
 
-    // register health check
-    if (!config.isDisableOpa()) {
+    // register health check, custom evaluators are not checked
+    if (!config.isDisableOpa() && policyTarget != null) {
       environment
           .healthChecks()
           .register(
@@ -170,6 +207,21 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
             });
   }
 
+  private OpaDecisionCache createDecisionCache(
+      OpaConfig config, Environment environment, OpaDecisionMetrics metrics) {
+    OpaDecisionCacheConfig cacheConfig = config.getDecisionCache();
+    if (config.isDisableOpa() || cacheConfig == null || !cacheConfig.isEnabled()) {
+      return null;
+    }
+    OpaDecisionCache cache =
+        new OpaDecisionCache(
+            cacheConfig.getMaxSize(),
+            java.time.Duration.ofMillis(cacheConfig.getMaxTtl().toMilliseconds()),
+            metrics);
+    environment.admin().addTask(new OpaDecisionCacheInvalidationTask(cache));
+    return cache;
+  }
+
   private Client createClient(
       Environment environment, OpaConfig config, ObjectMapper objectMapper, Tracer tracer) {
     OpaClientConfiguration clientConfig =
@@ -287,6 +339,18 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
 
     OpaBuilder<C> withTracer(Tracer tracer);
 
+    /**
+     * Evaluate the policies with a custom {@link OpaEvaluator} instead of requesting the Open
+     * Policy Agent sidecar configured in the {@link OpaConfig}. This may be used by latency
+     * critical services that evaluate policies in the same process. No health check is registered
+     * for a custom evaluator.
+     *
+     * @param evaluatorProvider provides the evaluator for the configuration of the application, the
+     *     Open Policy Agent sidecar is used if it provides {@code null}
+     * @return the builder
+     */
+    OpaBuilder<C> withEvaluator(OpaEvaluatorProvider<C> evaluatorProvider);
+
     OpaBundle<C> build();
   }
 
@@ -295,6 +359,7 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
 
     private OpaConfigProvider<C> opaConfigProvider;
     private Tracer tracer;
+    private OpaEvaluatorProvider<C> evaluatorProvider;
     private final Map<String, OpaInputExtension<?>> inputExtensions = new HashMap<>();
     private boolean addHeadersExtension = true; // on by default
 
@@ -341,13 +406,19 @@ public class OpaBundle<T extends Configuration> implements ConfiguredBundle<T> {
       return this;
     }
 
+    @Override
+    public OpaBuilder<C> withEvaluator(OpaEvaluatorProvider<C> evaluatorProvider) {
+      this.evaluatorProvider = evaluatorProvider;
+      return this;
+    }
+
     @Override
     public OpaBundle<C> build() {
       if (addHeadersExtension) {
         withInputExtension("headers", OpaInputHeadersExtension.builder().build());
       }
 
-      return new OpaBundle<>(opaConfigProvider, inputExtensions, tracer);
+      return new OpaBundle<>(opaConfigProvider, inputExtensions, tracer, evaluatorProvider);
     }
   }
 
@@ -9,6 +9,9 @@ public class OpaConfig {
   /** The client configuration of the HTTP client that is used to call the Open Policy Agent. */
   private OpaClientConfiguration opaClient = new OpaClientConfiguration();
 
+  /** The cache of decisions of the Open Policy Agent, disabled by default. */
+  private OpaDecisionCacheConfig decisionCache = new OpaDecisionCacheConfig();
+
   /** flag if OPA is disabled (for testing) */
   private boolean disableOpa;
 
@@ -45,6 +48,15 @@ public class OpaConfig {
     return this;
   }
 
+  public OpaDecisionCacheConfig getDecisionCache() {
+    return decisionCache;
+  }
+
+  public OpaConfig setDecisionCache(OpaDecisionCacheConfig decisionCache) {
+    this.decisionCache = decisionCache;
+    return this;
+  }
+
   public boolean isDisableOpa() {
     return disableOpa;
   }
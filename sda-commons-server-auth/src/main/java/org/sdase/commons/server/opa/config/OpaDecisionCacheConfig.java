@@ -0,0 +1,47 @@
+package org.sdase.commons.server.opa.config;
+
+import io.dropwizard.util.Duration;
+
+/** Configuration of the cache of decisions of the Open Policy Agent. */
+@SuppressWarnings("UnusedReturnValue")
+public class OpaDecisionCacheConfig {
+
+  /** flag if decisions are cached, disabled by default */
+  private boolean enabled;
+
+  /** the maximum number of cached decisions */
+  private int maxSize = 10_000;
+
+  /** the maximum time a decision is cached, it is never cached longer than the JWT is valid */
+  private Duration maxTtl = Duration.seconds(10);
+
+  /** @return if decisions are cached */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public OpaDecisionCacheConfig setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  /** @return the maximum number of cached decisions */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public OpaDecisionCacheConfig setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  /** @return the maximum time a decision is cached */
+  public Duration getMaxTtl() {
+    return maxTtl;
+  }
+
+  public OpaDecisionCacheConfig setMaxTtl(Duration maxTtl) {
+    this.maxTtl = maxTtl;
+    return this;
+  }
+}
@@ -0,0 +1,65 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the policy with the REST API of the Open Policy Agent, usually running as sidecar of
+ * the service. The input is streamed to the request and only the decision is read from the
+ * response.
+ */
+public class HttpOpaEvaluator implements OpaEvaluator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpOpaEvaluator.class);
+
+  private final WebTarget policyTarget;
+
+  private final ObjectMapper om;
+
+  /**
+   * @param policyTarget the target of the policy, e.g. {@code
+   *     http://localhost:8181/v1/data/http/authz}
+   * @param om the object mapper to write the input, it is used by input extensions to write their
+   *     content
+   */
+  public HttpOpaEvaluator(WebTarget policyTarget, ObjectMapper om) {
+    this.policyTarget = policyTarget;
+    this.om = om;
+  }
+
+  @Override
+  public OpaDecision evaluate(OpaEvaluationInput input) {
+    OpaRequestEntity entity = new OpaRequestEntity(om.getFactory(), input);
+    try {
+      byte[] response =
+          policyTarget
+              .request(MediaType.APPLICATION_JSON_TYPE)
+              .post(Entity.entity(entity, MediaType.APPLICATION_JSON_TYPE), byte[].class);
+      return OpaResponseParser.parse(om.getFactory(), response);
+    } catch (WebApplicationException e) {
+      try {
+        e.getResponse().close();
+      } catch (ProcessingException ex) {
+        LOG.warn("Error while closing response", ex);
+      }
+      LOG.warn("Exception when querying OPA. Maybe policy is broken", e);
+    } catch (ProcessingException e) {
+      if (entity.getInputFailure() != null) {
+        // failures of input extensions are not related to the Open Policy Agent
+        throw entity.getInputFailure();
+      }
+      LOG.warn("Exception during processing of OPA request.", e);
+    } catch (IOException e) {
+      LOG.warn("Exception when reading the response of OPA.", e);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,37 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The input of a policy evaluation. The input is written on demand, so that an {@link OpaEvaluator}
+ * can stream it directly to its destination. It may be written only once because {@linkplain
+ * org.sdase.commons.server.opa.extension.OpaInputExtension input extensions} may consume parts of
+ * the request.
+ */
+@FunctionalInterface
+public interface OpaEvaluationInput {
+
+  /**
+   * @param generator the generator to write the input object to
+   * @throws IOException if writing fails
+   */
+  void writeTo(JsonGenerator generator) throws IOException;
+
+  /**
+   * @param objectMapper the object mapper to create the tree
+   * @return the input as tree for evaluators that can't process a stream of the input
+   */
+  default JsonNode toTree(ObjectMapper objectMapper) {
+    try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+      writeTo(buffer);
+      return objectMapper.readTree(buffer.asParser());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+
+/**
+ * Evaluates the policy that decides about the authorization of a request. By default, the policy is
+ * evaluated by the Open Policy Agent sidecar with the {@link HttpOpaEvaluator}. Latency critical
+ * services may evaluate policies in the same process, e.g. from a compiled policy bundle loaded
+ * from disk, with a custom implementation.
+ *
+ * <p>Implementations must be thread safe.
+ */
+@FunctionalInterface
+public interface OpaEvaluator {
+
+  /**
+   * @param input the input of the policy, see {@link
+   *     org.sdase.commons.server.opa.filter.model.OpaInput}
+   * @return the decision of the policy or {@code null} if the policy could not be evaluated or did
+   *     not produce a result, which denies the request
+   */
+  OpaDecision evaluate(OpaEvaluationInput input);
+}
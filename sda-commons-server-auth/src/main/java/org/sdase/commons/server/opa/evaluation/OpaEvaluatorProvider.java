@@ -0,0 +1,11 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import io.dropwizard.Configuration;
+import java.util.function.Function;
+
+/**
+ * Provides the {@link OpaEvaluator} for the {@link org.sdase.commons.server.opa.OpaBundle}
+ *
+ * @param <C> the type of the specific {@link Configuration} used in the application
+ */
+public interface OpaEvaluatorProvider<C extends Configuration> extends Function<C, OpaEvaluator> {}
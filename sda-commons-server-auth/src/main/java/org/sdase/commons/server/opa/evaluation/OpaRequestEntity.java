@@ -0,0 +1,55 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * The body of a request to the Open Policy Agent that streams the input directly to the HTTP
+ * request without creating an intermediate tree.
+ */
+final class OpaRequestEntity implements StreamingOutput {
+
+  private final JsonFactory jsonFactory;
+
+  private final OpaEvaluationInput input;
+
+  private RuntimeException inputFailure;
+
+  /**
+   * @param jsonFactory the factory to create the generator, it must provide a codec if input
+   *     extensions write objects
+   * @param input writes the value of the {@code input} property
+   */
+  OpaRequestEntity(JsonFactory jsonFactory, OpaEvaluationInput input) {
+    this.jsonFactory = jsonFactory;
+    this.input = input;
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+      // the HTTP client closes the request stream itself
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartObject();
+      generator.writeFieldName("input");
+      try {
+        input.writeTo(generator);
+      } catch (RuntimeException e) {
+        inputFailure = e;
+        throw e;
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * @return the exception thrown while creating the input, e.g. by an input extension, or {@code
+   *     null} if the input has been written or writing failed for technical reasons
+   */
+  RuntimeException getInputFailure() {
+    return inputFailure;
+  }
+}
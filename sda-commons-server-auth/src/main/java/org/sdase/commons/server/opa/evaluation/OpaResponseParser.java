@@ -0,0 +1,72 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import java.io.IOException;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+
+/**
+ * Reads the decision from the response of the Open Policy Agent without creating a tree of the
+ * response. The {@code result} is copied as JSON, only the {@code allow} property is interpreted.
+ */
+final class OpaResponseParser {
+
+  private static final String RESULT = "result";
+
+  private static final String ALLOW = "allow";
+
+  private OpaResponseParser() {
+    // utility class
+  }
+
+  /**
+   * @param jsonFactory the factory to create the parser and generator
+   * @param response the response of the Open Policy Agent
+   * @return the decision or {@code null} if the response does not contain a {@code result}
+   * @throws IOException if the response is not valid JSON
+   */
+  static OpaDecision parse(JsonFactory jsonFactory, byte[] response) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(response)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if (RESULT.equals(fieldName)) {
+          return value == JsonToken.VALUE_NULL ? null : readResult(jsonFactory, parser);
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+  }
+
+  private static OpaDecision readResult(JsonFactory jsonFactory, JsonParser parser)
+      throws IOException {
+    boolean allow = false;
+    ByteArrayBuilder result = new ByteArrayBuilder();
+    try (JsonGenerator generator = jsonFactory.createGenerator(result)) {
+      if (parser.currentToken() == JsonToken.START_OBJECT) {
+        generator.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String fieldName = parser.getCurrentName();
+          generator.writeFieldName(fieldName);
+          JsonToken value = parser.nextToken();
+          if (ALLOW.equals(fieldName)) {
+            // only a boolean true allows access, the last property wins as in a tree
+            allow = value == JsonToken.VALUE_TRUE;
+          }
+          generator.copyCurrentStructure(parser);
+        }
+        generator.writeEndObject();
+      } else {
+        generator.copyCurrentStructure(parser);
+      }
+    }
+    return OpaDecision.of(allow, result.toByteArray());
+  }
+}
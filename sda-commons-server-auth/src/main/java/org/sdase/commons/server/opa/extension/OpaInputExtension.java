@@ -1,6 +1,8 @@
 package org.sdase.commons.server.opa.extension;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import javax.ws.rs.container.ContainerRequestContext;
 
 /**
@@ -76,4 +78,23 @@ public interface OpaInputExtension<T> {
    * @return the JsonNode that should be added as child of the extension's namespace property.
    */
   T createAdditionalInputContent(ContainerRequestContext requestContext);
+
+  /**
+   * When registered, it is called in {@link
+   * org.sdase.commons.server.opa.filter.OpaAuthFilter#filter(ContainerRequestContext)} while the
+   * input is written to the Open Policy Agent. The property name of the extension's namespace is
+   * already written, the implementation must write exactly one value.
+   *
+   * <p>By default, the result of {@link #createAdditionalInputContent(ContainerRequestContext)} is
+   * written. Extensions may override this method to write their content directly without creating
+   * intermediate objects.
+   *
+   * @param requestContext the request context
+   * @param generator the generator that writes the input of the Open Policy Agent
+   * @throws IOException if writing fails
+   */
+  default void writeAdditionalInputContent(
+      ContainerRequestContext requestContext, JsonGenerator generator) throws IOException {
+    generator.writeObject(createAdditionalInputContent(requestContext));
+  }
 }
@@ -1,5 +1,9 @@
 package org.sdase.commons.server.opa.extension;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
@@ -44,6 +48,24 @@ public class OpaInputHeadersExtension implements OpaInputExtension<MultivaluedMa
     return lowercaseHeaderNames(requestContext.getHeaders());
   }
 
+  /**
+   * Writes the headers with lowercase names directly without copying them. The request headers of
+   * the framework are case-insensitive, so lowercase names are unique.
+   */
+  @Override
+  public void writeAdditionalInputContent(
+      ContainerRequestContext requestContext, JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    for (Map.Entry<String, List<String>> header : requestContext.getHeaders().entrySet()) {
+      generator.writeArrayFieldStart(header.getKey().toLowerCase());
+      for (String value : header.getValue()) {
+        generator.writeString(value);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeEndObject();
+  }
+
   /**
    * Lowercase header names. In HTTP RFC, the header names are defined as case-insensitive, so a
    * normalization is needed to define how the headers are named in OPA.
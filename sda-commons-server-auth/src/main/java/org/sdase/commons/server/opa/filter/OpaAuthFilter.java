@@ -4,12 +4,14 @@ import static io.opentracing.tag.Tags.COMPONENT;
 import static java.util.stream.Collectors.toList;
 
 import com.auth0.jwt.interfaces.Claim;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
+import io.prometheus.client.SimpleTimer;
+import java.io.IOException;
 import java.security.Principal;
 import java.util.Collections;
 import java.util.List;
@@ -18,32 +20,32 @@ import java.util.regex.Pattern;
 import javax.annotation.Priority;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.Priorities;
-import javax.ws.rs.ProcessingException;
-import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.Provider;
 import org.apache.commons.lang3.NotImplementedException;
 import org.sdase.commons.server.auth.JwtPrincipal;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
 import org.sdase.commons.server.opa.OpaJwtPrincipal;
 import org.sdase.commons.server.opa.config.OpaConfig;
+import org.sdase.commons.server.opa.evaluation.HttpOpaEvaluator;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluationInput;
+import org.sdase.commons.server.opa.evaluation.OpaEvaluator;
 import org.sdase.commons.server.opa.extension.OpaInputExtension;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
 import org.sdase.commons.server.opa.filter.model.OpaInput;
-import org.sdase.commons.server.opa.filter.model.OpaRequest;
-import org.sdase.commons.server.opa.filter.model.OpaResponse;
+import org.sdase.commons.server.opa.internal.OpaJwtPrincipalImpl;
 import org.sdase.commons.shared.tracing.RequestTracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The OpaAuthFilter sends requests to the Open Policy Agent REST API to validate the input against
- * the policy that is configured
+ * the policy that is configured. The policy may also be evaluated by a custom {@link OpaEvaluator}.
  *
  * <p>As default input, the following information are send:
  *
@@ -57,6 +59,9 @@ import org.slf4j.LoggerFactory;
  * <p>OPA response includes at least the general access decision (true/false) and optional a list of
  * constraints that must be considered during data projection.
  *
+ * <p>Decisions may be cached in an {@link OpaDecisionCache} to avoid requesting the same decision
+ * from the Open Policy Agent repeatedly.
+ *
  * <p>Swagger URLs are excluded generally from check
  *
  * <p>The filter replaces the principal within the security context with a new {@link
@@ -69,12 +74,14 @@ public class OpaAuthFilter implements ContainerRequestFilter {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpaAuthFilter.class);
 
-  private final WebTarget webTarget;
+  private final OpaEvaluator evaluator;
   private final boolean isDisabled;
   private final List<Pattern> excludePatterns;
   private final ObjectMapper om;
   private final Map<String, OpaInputExtension<?>> inputExtensions;
   private final Tracer tracer;
+  private final OpaDecisionCache decisionCache;
+  private final OpaDecisionMetrics metrics;
 
   public OpaAuthFilter(
       WebTarget webTarget,
@@ -83,7 +90,37 @@ public class OpaAuthFilter implements ContainerRequestFilter {
       ObjectMapper om,
       Map<String, OpaInputExtension<?>> inputExtensions,
       Tracer tracer) {
-    this.webTarget = webTarget;
+    this(
+        new HttpOpaEvaluator(webTarget, om),
+        config,
+        excludePatterns,
+        om,
+        inputExtensions,
+        tracer,
+        null,
+        null);
+  }
+
+  /**
+   * @param evaluator the evaluator of the policy
+   * @param config the configuration of the Open Policy Agent
+   * @param excludePatterns patterns of paths that are not authorized
+   * @param om the object mapper used to create the input and read the constraints
+   * @param inputExtensions the extensions of the input by namespace
+   * @param tracer the tracer
+   * @param decisionCache the cache of decisions, may be {@code null} to request every decision
+   * @param metrics the metrics of policy evaluations, may be {@code null}
+   */
+  public OpaAuthFilter(
+      OpaEvaluator evaluator,
+      OpaConfig config,
+      List<String> excludePatterns,
+      ObjectMapper om,
+      Map<String, OpaInputExtension<?>> inputExtensions,
+      Tracer tracer,
+      OpaDecisionCache decisionCache,
+      OpaDecisionMetrics metrics) {
+    this.evaluator = evaluator;
     this.isDisabled = config.isDisableOpa();
     this.excludePatterns =
         excludePatterns == null
@@ -92,10 +129,13 @@ public class OpaAuthFilter implements ContainerRequestFilter {
     this.om = om;
     this.inputExtensions = inputExtensions;
     this.tracer = tracer;
+    this.decisionCache = decisionCache;
+    this.metrics = metrics;
   }
 
   @Override
   public void filter(ContainerRequestContext requestContext) {
+    long start = System.nanoTime();
     Span span =
         tracer
             .buildSpan("authorizeUsingOpa")
@@ -125,29 +165,22 @@ public class OpaAuthFilter implements ContainerRequestFilter {
         }
       }
 
-      JsonNode constraints = null;
+      byte[] constraints = null;
       if (!isDisabled && !isExcluded(uriInfo)) {
         // process the actual request to the open policy agent server
         String[] path =
             uriInfo.getPathSegments().stream().map(PathSegment::getPath).toArray(String[]::new);
         OpaInput opaInput = new OpaInput(jwt, path, method, trace);
-        ObjectNode objectNode = om.convertValue(opaInput, ObjectNode.class);
-
-        // append the input extensions to the input object
-        inputExtensions.forEach(
-            (namespace, extension) ->
-                objectNode.set(
-                    namespace,
-                    om.valueToTree(extension.createAdditionalInputContent(requestContext))));
-
-        OpaRequest request = OpaRequest.request(objectNode);
-        constraints = authorizeWithOpa(request, span);
+        constraints = authorizeWithOpa(g -> writeInput(g, opaInput, requestContext), claims, span);
       }
 
-      OpaJwtPrincipal principal = OpaJwtPrincipal.create(jwt, claims, constraints, om);
+      OpaJwtPrincipal principal =
+          new OpaJwtPrincipalImpl(
+              OpaJwtPrincipal.class.getSimpleName(), jwt, claims, constraints, om);
       replaceSecurityContext(requestContext, securityContext, principal);
     } finally {
       span.finish();
+      RequestPhases.record(requestContext, RequestPhases.OPA, start);
     }
   }
 
@@ -196,40 +229,80 @@ public class OpaAuthFilter implements ContainerRequestFilter {
         });
   }
 
-  private JsonNode authorizeWithOpa(OpaRequest request, Span span) {
-    OpaResponse resp = null;
-    try {
-      resp =
-          webTarget
-              .request(MediaType.APPLICATION_JSON_TYPE)
-              .post(Entity.json(request), OpaResponse.class);
-    } catch (WebApplicationException e) {
-      try {
-        e.getResponse().close();
-      } catch (ProcessingException ex) {
-        LOG.warn("Error while closing response", ex);
+  /**
+   * Writes the input with the extensions directly to the generator. The order of the properties
+   * matches the serialization of {@link OpaInput}.
+   */
+  private void writeInput(
+      JsonGenerator generator, OpaInput opaInput, ContainerRequestContext requestContext)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("trace", opaInput.getTrace());
+    generator.writeStringField("jwt", opaInput.getJwt());
+    generator.writeArrayFieldStart("path");
+    for (String segment : opaInput.getPath()) {
+      generator.writeString(segment);
+    }
+    generator.writeEndArray();
+    generator.writeStringField("httpMethod", opaInput.getHttpMethod());
+
+    // append the input extensions to the input object
+    for (Map.Entry<String, OpaInputExtension<?>> extension : inputExtensions.entrySet()) {
+      generator.writeFieldName(extension.getKey());
+      extension.getValue().writeAdditionalInputContent(requestContext, generator);
+    }
+    generator.writeEndObject();
+  }
+
+  private byte[] authorizeWithOpa(OpaEvaluationInput input, Map<String, Claim> claims, Span span) {
+    OpaDecision decision;
+    if (decisionCache == null) {
+      decision = requestDecision(input);
+    } else {
+      // the key needs the complete input, extensions are called only once to create it
+      JsonNode inputTree = input.toTree(om);
+      String key = OpaDecisionCache.createKey(inputTree);
+      long generation = decisionCache.getGeneration();
+      decision = decisionCache.get(key);
+      if (decision == null) {
+        decision = requestDecision(g -> g.writeTree(inputTree));
+        if (decision != null) {
+          decisionCache.put(key, decision, getExpiresAtMillis(claims), generation);
+        }
       }
-      LOG.warn("Exception when querying OPA. Maybe policy is broken", e);
-    } catch (ProcessingException e) {
-      LOG.warn("Exception during processing of OPA request.", e);
     }
 
-    if (null == resp || resp.getResult() == null) {
+    if (null == decision) {
       LOG.warn(
           "Invalid response from OPA. Maybe the policy path or the response format is not correct");
       throw new ForbiddenException("Not authorized");
     }
 
-    span.setTag("opa.allow", resp.isAllow());
+    span.setTag("opa.allow", decision.isAllow());
 
-    if (!resp.isAllow()) {
+    if (!decision.isAllow()) {
       throw new ForbiddenException("Not authorized");
     }
-    if (null == resp.getResult()) {
-      // no constraints defined
+    return decision.getResult();
+  }
+
+  private OpaDecision requestDecision(OpaEvaluationInput input) {
+    SimpleTimer timer = new SimpleTimer();
+    try {
+      return evaluator.evaluate(input);
+    } finally {
+      if (metrics != null) {
+        metrics.observeRequestDuration(timer.elapsedSeconds());
+      }
+    }
+  }
+
+  private static Long getExpiresAtMillis(Map<String, Claim> claims) {
+    Claim exp = claims == null ? null : claims.get("exp");
+    if (exp == null || exp.asLong() == null) {
       return null;
     }
-    return resp.getResult();
+    return exp.asLong() * 1000L;
   }
 
   private JwtPrincipal getJwtPrincipal(SecurityContext securityContext) {
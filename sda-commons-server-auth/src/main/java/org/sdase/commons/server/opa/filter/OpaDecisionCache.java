@@ -0,0 +1,247 @@
+package org.sdase.commons.server.opa.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.Validate;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+
+/**
+ * A bounded cache of the decisions of the Open Policy Agent. Decisions are identified by the
+ * SHA-256 hash of the canonical form of the input that has been sent to the Open Policy Agent, so
+ * that equal inputs share a decision regardless of the order of their properties. The trace token
+ * is not part of the key as it differs for every request.
+ *
+ * <p>Allow and deny decisions are cached until the configured maximum time to live is exceeded or
+ * the JWT of the input expires, whatever comes first. All decisions must be {@linkplain
+ * #invalidateAll() invalidated} when the policies of the Open Policy Agent change.
+ *
+ * <p>When the cache is full, expired decisions and, if needed, further decisions are evicted in a
+ * batch of a tenth of the maximum size, so that the cache is not scanned for each new decision.
+ */
+public class OpaDecisionCache {
+
+  /** The property of the input that is not part of the key. */
+  private static final String TRACE_PROPERTY = "trace";
+
+  private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+
+  private final int maxSize;
+
+  private final int evictionBatchSize;
+
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  private final long maxTtlMillis;
+
+  private final Clock clock;
+
+  private final Map<String, CachedDecision> decisions = new ConcurrentHashMap<>();
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private final OpaDecisionMetrics metrics;
+
+  /**
+   * @param maxSize the maximum number of decisions in the cache
+   * @param maxTtl the maximum time a decision is cached
+   * @param metrics the metrics of cache hits and misses, may be {@code null}
+   */
+  public OpaDecisionCache(int maxSize, Duration maxTtl, OpaDecisionMetrics metrics) {
+    this(maxSize, maxTtl, metrics, Clock.systemUTC());
+  }
+
+  OpaDecisionCache(int maxSize, Duration maxTtl, OpaDecisionMetrics metrics, Clock clock) {
+    Validate.isTrue(maxSize > 0, "maxSize must be positive");
+    Validate.isTrue(!maxTtl.isNegative() && !maxTtl.isZero(), "maxTtl must be positive");
+    this.maxSize = maxSize;
+    this.evictionBatchSize = Math.max(1, maxSize / 10);
+    this.maxTtlMillis = maxTtl.toMillis();
+    this.clock = clock;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Removes all decisions, e.g. because the policies of the Open Policy Agent have changed.
+   * Decisions that have been requested before but are added after the invalidation are discarded.
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    decisions.clear();
+  }
+
+  /** @return the number of decisions in the cache, including expired decisions not removed yet */
+  public int size() {
+    return decisions.size();
+  }
+
+  /**
+   * @return the current generation of decisions that must be passed to {@link #put(String,
+   *     OpaDecision, Long, long)} when a decision has been requested after calling this method
+   */
+  long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * @param key the key of the input created with {@link #createKey(JsonNode)}
+   * @return the cached decision if it is not expired, otherwise {@code null}
+   */
+  OpaDecision get(String key) {
+    CachedDecision cached = decisions.get(key);
+    if (cached != null) {
+      if (!cached.isExpired(clock.millis())) {
+        if (metrics != null) {
+          metrics.countCacheHit();
+        }
+        return cached.decision;
+      }
+      decisions.remove(key, cached);
+    }
+    if (metrics != null) {
+      metrics.countCacheMiss();
+    }
+    return null;
+  }
+
+  /**
+   * Adds a decision of the Open Policy Agent.
+   *
+   * @param key the key of the input created with {@link #createKey(JsonNode)}
+   * @param decision the decision of the Open Policy Agent
+   * @param jwtExpiresAtMillis the expiration of the JWT in the input, {@code null} if the input has
+   *     no JWT or the JWT does not expire
+   * @param generation the {@link #getGeneration() generation} before the decision was requested
+   */
+  void put(String key, OpaDecision decision, Long jwtExpiresAtMillis, long generation) {
+    long now = clock.millis();
+    long expiresAtMillis = now + maxTtlMillis;
+    if (jwtExpiresAtMillis != null) {
+      expiresAtMillis = Math.min(expiresAtMillis, jwtExpiresAtMillis);
+    }
+    if (expiresAtMillis <= now) {
+      return;
+    }
+    if (decisions.size() >= maxSize) {
+      makeRoom(now);
+    }
+    decisions.put(key, new CachedDecision(decision, expiresAtMillis));
+    if (this.generation.get() != generation) {
+      // the cache has been invalidated while the decision has been requested
+      decisions.remove(key);
+    }
+  }
+
+  private void makeRoom(long now) {
+    // concurrent puts do not wait for the eviction and may exceed the maximum size shortly
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int targetSize = maxSize - evictionBatchSize;
+      decisions.values().removeIf(d -> d.isExpired(now));
+      // ConcurrentHashMap does not keep an order, removing the first entries is a random eviction
+      Iterator<CachedDecision> iterator = decisions.values().iterator();
+      while (decisions.size() > targetSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * @param input the input that is sent to the Open Policy Agent
+   * @return the hash of the canonical form of the input without the trace token
+   */
+  static String createKey(JsonNode input) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      try (JsonGenerator generator =
+          JSON_FACTORY.createGenerator(new DigestOutputStream(new NullOutputStream(), digest))) {
+        writeCanonical(generator, input, true);
+      }
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeCanonical(JsonGenerator generator, JsonNode node, boolean root)
+      throws IOException {
+    if (node.isObject()) {
+      List<String> fieldNames = new ArrayList<>(node.size());
+      node.fieldNames().forEachRemaining(fieldNames::add);
+      Collections.sort(fieldNames);
+      generator.writeStartObject();
+      for (String fieldName : fieldNames) {
+        if (root && TRACE_PROPERTY.equals(fieldName)) {
+          continue;
+        }
+        generator.writeFieldName(fieldName);
+        writeCanonical(generator, node.get(fieldName), false);
+      }
+      generator.writeEndObject();
+    } else if (node.isArray()) {
+      generator.writeStartArray();
+      for (JsonNode element : node) {
+        writeCanonical(generator, element, false);
+      }
+      generator.writeEndArray();
+    } else {
+      generator.writeTree(node);
+    }
+  }
+
+  private static class CachedDecision {
+
+    private final OpaDecision decision;
+
+    private final long expiresAtMillis;
+
+    private CachedDecision(OpaDecision decision, long expiresAtMillis) {
+      this.decision = decision;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAtMillis;
+    }
+  }
+
+  /** Discards all bytes, only the digest of the written bytes is of interest. */
+  private static class NullOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) {
+      // discard
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      // discard
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package org.sdase.commons.server.opa.filter;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The central definition of the metrics of the authorization decisions of the {@link
+ * OpaAuthFilter}: the duration of requests to the Open Policy Agent and the usage of the {@link
+ * OpaDecisionCache}.
+ */
+public class OpaDecisionMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OpaDecisionMetrics.class);
+
+  /** The name of the request duration histogram as it is published to Prometheus. */
+  private static final String DURATION_METRIC_NAME = "opa_request_duration";
+
+  /** The help message description that describes the request duration histogram. */
+  private static final String DURATION_HELP =
+      "Duration of requesting a decision from the Open Policy Agent in seconds.";
+
+  /** The name of the cache counter as it is published to Prometheus. */
+  private static final String CACHE_METRIC_NAME = "opa_decision_cache_requests";
+
+  /** The help message description that describes the cache counter. */
+  private static final String CACHE_HELP = "Amount of decisions looked up in the decision cache.";
+
+  /** The labels of the cache counter. */
+  private static final String[] CACHE_LABELS = {
+    // hit if a cached decision is used, miss if the Open Policy Agent is requested
+    "result"
+  };
+
+  private final Histogram requestDurationHistogram;
+
+  private final Counter cacheCounter;
+
+  private final Counter.Child cacheHits;
+
+  private final Counter.Child cacheMisses;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /** If the metrics of this instance are published, they are not when another instance is. */
+  private volatile boolean published;
+
+  /**
+   * Creates the new metrics matching the specification of this {@code OpaDecisionMetrics} instance.
+   * The metrics are registered when the first decision is requested. <strong>Note that there should
+   * be only one instance of this type in the application.</strong>
+   */
+  public OpaDecisionMetrics() {
+    this.requestDurationHistogram =
+        Histogram.build().name(DURATION_METRIC_NAME).help(DURATION_HELP).create();
+    this.cacheCounter =
+        Counter.build().name(CACHE_METRIC_NAME).help(CACHE_HELP).labelNames(CACHE_LABELS).create();
+    this.cacheHits = cacheCounter.labels("hit");
+    this.cacheMisses = cacheCounter.labels("miss");
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false) && published) {
+      published = false;
+      CollectorRegistry.defaultRegistry.unregister(requestDurationHistogram);
+      CollectorRegistry.defaultRegistry.unregister(cacheCounter);
+    }
+  }
+
+  /** @param durationSeconds the duration of a request to the Open Policy Agent in seconds */
+  void observeRequestDuration(double durationSeconds) {
+    registerIfNeeded();
+    requestDurationHistogram.observe(durationSeconds);
+  }
+
+  /** Counts a decision found in the cache. */
+  void countCacheHit() {
+    registerIfNeeded();
+    cacheHits.inc();
+  }
+
+  /** Counts a decision not found in the cache. */
+  void countCacheMiss() {
+    registerIfNeeded();
+    cacheMisses.inc();
+  }
+
+  private void registerIfNeeded() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      // publish both metrics or none, a failure must not fail the authorization of the request
+      try {
+        CollectorRegistry.defaultRegistry.register(requestDurationHistogram);
+      } catch (IllegalArgumentException e) {
+        // multiple applications with an OpaBundle in the same JVM, e.g. in tests
+        LOG.warn("Metrics of OPA decisions are already published by another OpaBundle.");
+        return;
+      }
+      try {
+        CollectorRegistry.defaultRegistry.register(cacheCounter);
+      } catch (IllegalArgumentException e) {
+        CollectorRegistry.defaultRegistry.unregister(requestDurationHistogram);
+        LOG.warn("Metrics of OPA decisions are not published, the cache metric is in use.", e);
+        return;
+      }
+      published = true;
+    }
+  }
+}
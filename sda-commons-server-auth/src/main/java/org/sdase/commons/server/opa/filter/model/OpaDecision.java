@@ -0,0 +1,36 @@
+package org.sdase.commons.server.opa.filter.model;
+
+/**
+ * The decision of the Open Policy Agent. The {@code result} of the response is kept as JSON and is
+ * only parsed when the constraints are requested.
+ */
+public class OpaDecision {
+
+  private final boolean allow;
+
+  private final byte[] result;
+
+  private OpaDecision(boolean allow, byte[] result) {
+    this.allow = allow;
+    this.result = result;
+  }
+
+  /**
+   * @param allow the overall access decision
+   * @param result the complete {@code result} of the policy as UTF-8 encoded JSON, including the
+   *     access decision and the constraints
+   * @return the decision
+   */
+  public static OpaDecision of(boolean allow, byte[] result) {
+    return new OpaDecision(allow, result);
+  }
+
+  public boolean isAllow() {
+    return allow;
+  }
+
+  /** @return the complete {@code result} of the policy as UTF-8 encoded JSON */
+  public byte[] getResult() {
+    return result;
+  }
+}
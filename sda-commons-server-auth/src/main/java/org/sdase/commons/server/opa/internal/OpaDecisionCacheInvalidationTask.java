@@ -0,0 +1,30 @@
+package org.sdase.commons.server.opa.internal;
+
+import io.dropwizard.servlets.tasks.Task;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import org.sdase.commons.server.opa.filter.OpaDecisionCache;
+
+/**
+ * Admin task that removes all cached decisions of the Open Policy Agent. It should be triggered
+ * when the policy bundle of the Open Policy Agent changes with {@code POST
+ * /tasks/opa-decision-cache-invalidation} on the admin port.
+ */
+public class OpaDecisionCacheInvalidationTask extends Task {
+
+  public static final String NAME = "opa-decision-cache-invalidation";
+
+  private final OpaDecisionCache decisionCache;
+
+  public OpaDecisionCacheInvalidationTask(OpaDecisionCache decisionCache) {
+    super(NAME);
+    this.decisionCache = decisionCache;
+  }
+
+  @Override
+  public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+    decisionCache.invalidateAll();
+    output.println("Invalidated all cached decisions.");
+  }
+}
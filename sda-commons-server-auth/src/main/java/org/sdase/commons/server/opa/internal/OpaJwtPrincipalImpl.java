@@ -3,6 +3,8 @@ package org.sdase.commons.server.opa.internal;
 import com.auth0.jwt.interfaces.Claim;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import org.sdase.commons.server.opa.OpaBundle;
 import org.sdase.commons.server.opa.OpaJwtPrincipal;
@@ -21,6 +23,7 @@ public class OpaJwtPrincipalImpl implements OpaJwtPrincipal {
   private String jwt;
   private Map<String, Claim> claims;
   private JsonNode constraints;
+  private byte[] constraintsJson;
   private ObjectMapper om;
 
   public OpaJwtPrincipalImpl(
@@ -32,6 +35,24 @@ public class OpaJwtPrincipalImpl implements OpaJwtPrincipal {
     this.om = om;
   }
 
+  /**
+   * Creates a principal with constraints that are parsed when they are requested.
+   *
+   * @param name the name of the principal
+   * @param jwt the JWT, may be {@code null}
+   * @param claims the claims of the JWT, may be {@code null}
+   * @param constraintsJson the constraints as UTF-8 encoded JSON, may be {@code null}
+   * @param om the object mapper to parse the constraints
+   */
+  public OpaJwtPrincipalImpl(
+      String name, String jwt, Map<String, Claim> claims, byte[] constraintsJson, ObjectMapper om) {
+    this.name = name;
+    this.jwt = jwt;
+    this.claims = claims;
+    this.constraintsJson = constraintsJson;
+    this.om = om;
+  }
+
   @Override
   public String getName() {
     return name;
@@ -49,12 +70,21 @@ public class OpaJwtPrincipalImpl implements OpaJwtPrincipal {
 
   @Override
   public String getConstraints() {
+    if (constraintsJson != null) {
+      return new String(constraintsJson, StandardCharsets.UTF_8);
+    }
     return constraints.toString();
   }
 
   @Override
   public <T> T getConstraintsAsEntity(Class<T> resultType) {
-    if (constraints != null) {
+    if (constraintsJson != null) {
+      try {
+        return om.readValue(constraintsJson, resultType);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e.getMessage(), e);
+      }
+    } else if (constraints != null) {
       return om.convertValue(constraints, resultType);
     } else {
       return null;
@@ -5,8 +5,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import io.dropwizard.testing.ResourceHelpers;
 import java.io.File;
 import java.net.URI;
+import java.security.interfaces.RSAPublicKey;
 import java.util.List;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 public class LoadedPublicKeyTest {
 
@@ -25,4 +27,16 @@ public class LoadedPublicKeyTest {
     assertThat(key1.equals(key2)).isTrue();
     assertThat(key1).isNotSameAs(key2);
   }
+
+  @Test
+  public void shouldNotBeEqualWithDifferentRequiredIssuer() {
+    RSAPublicKey publicKey = Mockito.mock(RSAPublicKey.class);
+    LoadedPublicKey key1 = new LoadedPublicKey("kid", publicKey, null, "issuer", "RS256");
+    LoadedPublicKey key2 = new LoadedPublicKey("kid", publicKey, null, "other-issuer", "RS256");
+
+    assertThat(key1).isNotEqualTo(key2);
+    assertThat(key1).isEqualTo(new LoadedPublicKey("kid", publicKey, null, "issuer", "RS256"));
+    assertThat(key1)
+        .hasSameHashCodeAs(new LoadedPublicKey("kid", publicKey, null, "issuer", "RS256"));
+  }
 }
@@ -2,18 +2,29 @@ package org.sdase.commons.server.auth.key;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
+import io.prometheus.client.CollectorRegistry;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 public class PublicKeyLoaderTest {
 
-  private PublicKeyLoader keyLoader = new PublicKeyLoader();
+  private PublicKeyLoader keyLoader = new PublicKeyLoader(Duration.ZERO, Duration.ZERO, null);
 
   @Test
   public void shouldAddKeyWithoutKid() {
@@ -118,6 +129,38 @@ public class PublicKeyLoaderTest {
     assertThat(numberOfCalls.get()).isEqualTo(2);
   }
 
+  @Test
+  public void shouldReplaceKeysIfOnlyRequiredIssuerChanges() {
+    RSAPublicKey mockKey = Mockito.mock(RSAPublicKey.class);
+    AtomicReference<String> issuer = new AtomicReference<>("issuer");
+    KeySource keySource =
+        new KeySource() {
+          @Override
+          public List<LoadedPublicKey> loadKeysFromSource() throws KeyLoadFailedException {
+            return Arrays.asList(
+                new LoadedPublicKey("exampleKid", mockKey, this, issuer.get(), "RS256"),
+                new LoadedPublicKey(null, mockKey, this, issuer.get(), "RS256"));
+          }
+        };
+    List<LoadedPublicKey> removedKeys = new CopyOnWriteArrayList<>();
+    keyLoader.addKeyRemovalListener(removedKeys::add);
+    keyLoader.addKeySource(keySource);
+    LoadedPublicKey keyWithKid = keyLoader.getLoadedPublicKey("exampleKid");
+    LoadedPublicKey keyWithoutKid = keyLoader.getKeysWithoutId().get(0);
+
+    issuer.set("other-issuer");
+    keyLoader.reloadKeys();
+
+    assertThat(removedKeys).containsExactlyInAnyOrder(keyWithKid, keyWithoutKid);
+    assertThat(keyLoader.isLoaded(keyWithKid)).isFalse();
+    assertThat(keyLoader.isLoaded(keyWithoutKid)).isFalse();
+    assertThat(keyLoader.getLoadedPublicKey("exampleKid").getRequiredIssuer())
+        .isEqualTo("other-issuer");
+    assertThat(keyLoader.getKeysWithoutId())
+        .extracting(LoadedPublicKey::getRequiredIssuer)
+        .containsExactly("other-issuer");
+  }
+
   @Test
   public void shouldNotRemoveIfReloadFails() {
     RSAPublicKey mockKey = Mockito.mock(RSAPublicKey.class);
@@ -196,7 +239,7 @@ public class PublicKeyLoaderTest {
   public void shouldNotRemoveKeysIfReloadingFailed() {
     AtomicBoolean loaded = new AtomicBoolean();
     AtomicBoolean thrown = new AtomicBoolean();
-    PublicKeyLoader rsaPublicKeyLoader = new PublicKeyLoader();
+    PublicKeyLoader rsaPublicKeyLoader = new PublicKeyLoader(Duration.ZERO, Duration.ZERO, null);
     KeySource keySource =
         new KeySource() {
           @Override
@@ -222,4 +265,145 @@ public class PublicKeyLoaderTest {
 
     assertThat(thrown).isTrue();
   }
+
+  @Test
+  public void shouldNotReloadOnDemandWithinMinimumInterval() {
+    AtomicInteger numberOfCalls = new AtomicInteger();
+    PublicKeyLoader throttledKeyLoader = new PublicKeyLoader();
+    throttledKeyLoader.addKeySource(countingKeySource(numberOfCalls));
+
+    assertThat(throttledKeyLoader.getLoadedPublicKey("exampleKid")).isNotNull();
+    assertThat(numberOfCalls.get()).isEqualTo(1);
+
+    assertThat(throttledKeyLoader.getLoadedPublicKey("unknownKid")).isNull();
+    assertThat(throttledKeyLoader.getLoadedPublicKey("otherUnknownKid")).isNull();
+    assertThat(numberOfCalls.get()).isEqualTo(1);
+
+    // scheduled reloads are not limited
+    throttledKeyLoader.reloadKeys();
+    assertThat(numberOfCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotReloadForRecentlyUnknownKid() {
+    AtomicInteger numberOfCalls = new AtomicInteger();
+    PublicKeyLoader negativeCachingKeyLoader =
+        new PublicKeyLoader(Duration.ZERO, Duration.ofMinutes(1), null);
+    negativeCachingKeyLoader.addKeySource(countingKeySource(numberOfCalls));
+
+    assertThat(negativeCachingKeyLoader.getLoadedPublicKey("exampleKid")).isNotNull();
+    assertThat(numberOfCalls.get()).isEqualTo(1);
+
+    assertThat(negativeCachingKeyLoader.getLoadedPublicKey("unknownKid")).isNull();
+    assertThat(numberOfCalls.get()).isEqualTo(2);
+
+    assertThat(negativeCachingKeyLoader.getLoadedPublicKey("unknownKid")).isNull();
+    assertThat(numberOfCalls.get()).isEqualTo(2);
+
+    // other kids are still reloaded
+    assertThat(negativeCachingKeyLoader.getLoadedPublicKey("otherUnknownKid")).isNull();
+    assertThat(numberOfCalls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldShareReloadInProgress() throws Exception {
+    RSAPublicKey mockKey = Mockito.mock(RSAPublicKey.class);
+    AtomicInteger numberOfCalls = new AtomicInteger();
+    CountDownLatch reloadStarted = new CountDownLatch(1);
+    CountDownLatch finishReload = new CountDownLatch(1);
+    KeySource keySource =
+        new KeySource() {
+          @Override
+          public List<LoadedPublicKey> loadKeysFromSource() throws KeyLoadFailedException {
+            if (numberOfCalls.getAndIncrement() < 1) {
+              return singletonList(new LoadedPublicKey("exampleKid", mockKey, this, null, "RS256"));
+            }
+            reloadStarted.countDown();
+            try {
+              finishReload.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return singletonList(new LoadedPublicKey("newKid", mockKey, this, null, "RS256"));
+          }
+        };
+    keyLoader.addKeySource(keySource);
+    assertThat(keyLoader.getLoadedPublicKey("exampleKid")).isNotNull();
+
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            5,
+            r -> {
+              Thread thread = new Thread(r);
+              threads.add(thread);
+              return thread;
+            });
+    try {
+      List<Future<LoadedPublicKey>> results = new ArrayList<>();
+      results.add(executorService.submit(() -> keyLoader.getLoadedPublicKey("newKid")));
+      assertThat(reloadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      for (int i = 0; i < 4; i++) {
+        results.add(executorService.submit(() -> keyLoader.getLoadedPublicKey("newKid")));
+      }
+      // all other callers are waiting for the reload in progress
+      await()
+          .untilAsserted(
+              () ->
+                  assertThat(threads)
+                      .filteredOn(t -> t.getState() == Thread.State.BLOCKED)
+                      .hasSize(4));
+      finishReload.countDown();
+
+      for (Future<LoadedPublicKey> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).isNotNull();
+      }
+      assertThat(numberOfCalls.get()).isEqualTo(2);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldCountReloads() {
+    PublicKeyReloadMetrics reloadMetrics = new PublicKeyReloadMetrics();
+    try {
+      PublicKeyLoader monitoredKeyLoader =
+          new PublicKeyLoader(Duration.ofMinutes(1), Duration.ZERO, reloadMetrics);
+      monitoredKeyLoader.addKeySource(countingKeySource(new AtomicInteger()));
+      assertThat(monitoredKeyLoader.getLoadedPublicKey("exampleKid")).isNotNull();
+
+      monitoredKeyLoader.reloadKeys();
+      monitoredKeyLoader.getLoadedPublicKey("unknownKid");
+
+      assertThat(reloadCount("scheduled", "reloaded")).isEqualTo(1.0);
+      assertThat(reloadCount("unknown_kid", "throttled")).isEqualTo(1.0);
+      assertThat(
+              CollectorRegistry.defaultRegistry.getSampleValue(
+                  "auth_public_key_reload_duration_count",
+                  new String[] {"trigger"},
+                  new String[] {"scheduled"}))
+          .isEqualTo(1.0);
+    } finally {
+      reloadMetrics.unregister();
+    }
+  }
+
+  private Double reloadCount(String trigger, String outcome) {
+    return CollectorRegistry.defaultRegistry.getSampleValue(
+        "auth_public_key_reloads_total",
+        new String[] {"trigger", "outcome"},
+        new String[] {trigger, outcome});
+  }
+
+  private KeySource countingKeySource(AtomicInteger numberOfCalls) {
+    RSAPublicKey mockKey = Mockito.mock(RSAPublicKey.class);
+    return new KeySource() {
+      @Override
+      public List<LoadedPublicKey> loadKeysFromSource() throws KeyLoadFailedException {
+        numberOfCalls.incrementAndGet();
+        return singletonList(new LoadedPublicKey("exampleKid", mockKey, this, null, "RS256"));
+      }
+    };
+  }
 }
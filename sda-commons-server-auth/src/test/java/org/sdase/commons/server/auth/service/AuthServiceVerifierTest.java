@@ -0,0 +1,153 @@
+package org.sdase.commons.server.auth.service;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.auth.error.JwtAuthException;
+import org.sdase.commons.server.auth.key.KeySource;
+import org.sdase.commons.server.auth.key.LoadedPublicKey;
+import org.sdase.commons.server.auth.key.PublicKeyLoader;
+
+class AuthServiceVerifierTest {
+
+  private static final String KEY_ID = "myKeyId";
+  private static final String RSA_ALG = "RS256";
+  private static final String ISSUER = "https://localhost.com/issuer";
+  private static final String OTHER_ISSUER = "https://localhost.com/other-issuer";
+
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  private final AtomicReference<KeyPair> publishedKeyPair = new AtomicReference<>();
+  private final AtomicReference<String> publishedIssuer = new AtomicReference<>();
+  private final AtomicInteger algorithmRequests = new AtomicInteger();
+  private PublicKeyLoader keyLoader;
+  private AuthService service;
+
+  @BeforeAll
+  static void createKeyPairs() throws NoSuchAlgorithmException {
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    keyPair = keyPairGenerator.generateKeyPair();
+    otherKeyPair = keyPairGenerator.generateKeyPair();
+  }
+
+  @BeforeEach
+  void setUp() {
+    publishedKeyPair.set(keyPair);
+    publishedIssuer.set(ISSUER);
+    keyLoader = new PublicKeyLoader(Duration.ZERO, Duration.ZERO, null);
+    keyLoader.addKeySource(
+        new KeySource() {
+          @Override
+          public List<LoadedPublicKey> loadKeysFromSource() {
+            return singletonList(
+                new CountingLoadedPublicKey(
+                    publishedKeyPair.get().getPublic(), this, publishedIssuer.get()));
+          }
+        });
+    service = new AuthService(keyLoader, 0);
+  }
+
+  @Test
+  void shouldReuseVerifierForTokensOfSameKey() {
+    service.auth(createToken(keyPair, KEY_ID, ISSUER, "john"));
+    service.auth(createToken(keyPair, KEY_ID, ISSUER, "jane"));
+    service.auth(createToken(keyPair, KEY_ID, ISSUER, "jim"));
+
+    // the algorithm of the key is only requested to create the verifier
+    assertThat(algorithmRequests).hasValue(2);
+  }
+
+  @Test
+  void shouldCreateVerifierOfReloadedKey() {
+    String token = createToken(keyPair, KEY_ID, ISSUER, "john");
+    service.auth(token);
+
+    publishedKeyPair.set(otherKeyPair);
+    reload();
+
+    assertThat(service.auth(createToken(otherKeyPair, KEY_ID, ISSUER, "john"))).isNotEmpty();
+    assertThat(algorithmRequests).hasValue(4);
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+  }
+
+  @Test
+  void shouldVerifyRequiredIssuerOfReloadedKey() {
+    String token = createToken(keyPair, KEY_ID, ISSUER, "john");
+    service.auth(token);
+
+    // the reloaded key equals the previous key except for the required issuer
+    publishedIssuer.set(OTHER_ISSUER);
+    reload();
+
+    assertThat(service.auth(createToken(keyPair, KEY_ID, OTHER_ISSUER, "john"))).isNotEmpty();
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+  }
+
+  @Test
+  void shouldEvictCachedTokensIfOnlyRequiredIssuerChanges() {
+    VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(10, null);
+    service = new AuthService(keyLoader, 0, verifiedTokenCache);
+    String token = createToken(keyPair, KEY_ID, ISSUER, "john");
+    service.auth(token);
+    assertThat(verifiedTokenCache.size()).isEqualTo(1);
+
+    publishedIssuer.set(OTHER_ISSUER);
+    reload();
+
+    assertThat(verifiedTokenCache.size()).isZero();
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+  }
+
+  private void reload() {
+    // a token with an unknown kid causes a reload
+    String tokenWithUnknownKid = createToken(publishedKeyPair.get(), "unknownKid", ISSUER, "john");
+    assertThatThrownBy(() -> service.auth(tokenWithUnknownKid))
+        .isInstanceOf(JwtAuthException.class);
+  }
+
+  private String createToken(KeyPair signingKeyPair, String keyId, String issuer, String subject) {
+    return JWT.create()
+        .withKeyId(keyId)
+        .withIssuer(issuer)
+        .withSubject(subject)
+        .withExpiresAt(DateUtils.addSeconds(new Date(), 30))
+        .sign(
+            Algorithm.RSA256(
+                (RSAPublicKey) signingKeyPair.getPublic(),
+                (RSAPrivateKey) signingKeyPair.getPrivate()));
+  }
+
+  private class CountingLoadedPublicKey extends LoadedPublicKey {
+
+    private CountingLoadedPublicKey(
+        PublicKey publicKey, KeySource keySource, String requiredIssuer) {
+      super(KEY_ID, publicKey, keySource, requiredIssuer, RSA_ALG);
+    }
+
+    @Override
+    public Algorithm getAlgorithm() {
+      algorithmRequests.incrementAndGet();
+      return super.getAlgorithm();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package org.sdase.commons.server.auth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_EXPIRED;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_INVALID_CLAIM;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_INVALID_SIGNATURE;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_MALFORMED;
+import static org.sdase.commons.server.auth.service.TokenVerificationFailureReporter.REASON_UNKNOWN_KID;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.auth0.jwt.exceptions.IncorrectClaimException;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import io.prometheus.client.CollectorRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVerificationFailureReporterTest {
+
+  @Mock private Appender<ILoggingEvent> mockAppender;
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(AuthService.class);
+
+  private final TokenVerificationFailureMetrics metrics = new TokenVerificationFailureMetrics();
+
+  @BeforeEach
+  void addAppender() {
+    logger.addAppender(mockAppender);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    logger.detachAppender(mockAppender);
+    metrics.unregister();
+  }
+
+  @Test
+  void shouldCountAllFailuresButLogOncePerInterval() {
+    TokenVerificationFailureReporter reporter =
+        new TokenVerificationFailureReporter(metrics, 60_000);
+
+    for (int i = 0; i < 5; i++) {
+      reporter.report(REASON_INVALID_SIGNATURE, "The Token's Signature resulted invalid");
+    }
+    reporter.report(REASON_UNKNOWN_KID, "No key found");
+
+    assertThat(failures(REASON_INVALID_SIGNATURE)).isEqualTo(5.0);
+    assertThat(failures(REASON_UNKNOWN_KID)).isEqualTo(1.0);
+    ArgumentCaptor<ILoggingEvent> event = ArgumentCaptor.forClass(ILoggingEvent.class);
+    verify(mockAppender, times(1)).doAppend(event.capture());
+    assertThat(event.getValue().getThrowableProxy()).isNull();
+    assertThat(event.getValue().getFormattedMessage())
+        .isEqualTo(
+            "Verifying token failed (invalid_signature): The Token's Signature resulted invalid");
+  }
+
+  @Test
+  void shouldLogNumberOfSuppressedFailures() {
+    Clock clock = mock(Clock.class);
+    TokenVerificationFailureReporter reporter =
+        new TokenVerificationFailureReporter(null, 10_000, clock);
+
+    when(clock.millis()).thenReturn(100_000L);
+    reporter.report(REASON_EXPIRED, "The Token has expired");
+    when(clock.millis()).thenReturn(105_000L);
+    reporter.report(REASON_EXPIRED, "The Token has expired");
+    reporter.report(REASON_EXPIRED, "The Token has expired");
+    when(clock.millis()).thenReturn(110_000L);
+    reporter.report(REASON_UNKNOWN_KID, "No key found");
+
+    ArgumentCaptor<ILoggingEvent> event = ArgumentCaptor.forClass(ILoggingEvent.class);
+    verify(mockAppender, times(2)).doAppend(event.capture());
+    assertThat(event.getAllValues())
+        .extracting(ILoggingEvent::getFormattedMessage)
+        .containsExactly(
+            "Verifying token failed (expired): The Token has expired",
+            "Verifying token failed (unknown_kid): No key found. "
+                + "2 more tokens failed since the last report.");
+  }
+
+  @Test
+  void shouldDetectReasons() {
+    assertThat(TokenVerificationFailureReporter.reasonOf(new JWTDecodeException("bad")))
+        .isEqualTo(REASON_MALFORMED);
+    assertThat(TokenVerificationFailureReporter.reasonOf(new SignatureVerificationException(null)))
+        .isEqualTo(REASON_INVALID_SIGNATURE);
+    assertThat(
+            TokenVerificationFailureReporter.reasonOf(
+                new TokenExpiredException("expired", Instant.now())))
+        .isEqualTo(REASON_EXPIRED);
+    assertThat(
+            TokenVerificationFailureReporter.reasonOf(
+                new IncorrectClaimException("bad issuer", "iss", null)))
+        .isEqualTo(REASON_INVALID_CLAIM);
+  }
+
+  private Double failures(String reason) {
+    return CollectorRegistry.defaultRegistry.getSampleValue(
+        "auth_token_verification_failures_total", new String[] {"reason"}, new String[] {reason});
+  }
+}
@@ -0,0 +1,223 @@
+package org.sdase.commons.server.auth.service;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.Claim;
+import io.prometheus.client.CollectorRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.auth.error.JwtAuthException;
+import org.sdase.commons.server.auth.key.KeySource;
+import org.sdase.commons.server.auth.key.LoadedPublicKey;
+import org.sdase.commons.server.auth.key.PublicKeyLoader;
+
+class VerifiedTokenCacheTest {
+
+  private static final String KEY_ID = "myKeyId";
+  private static final String RSA_ALG = "RS256";
+
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  private final AtomicReference<KeyPair> publishedKeyPair = new AtomicReference<>();
+  private VerifiedTokenCacheMetrics metrics;
+  private VerifiedTokenCache cache;
+  private AuthService service;
+
+  @BeforeAll
+  static void createKeyPairs() throws NoSuchAlgorithmException {
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    keyPair = keyPairGenerator.generateKeyPair();
+    otherKeyPair = keyPairGenerator.generateKeyPair();
+  }
+
+  @BeforeEach
+  void setUp() {
+    publishedKeyPair.set(keyPair);
+    PublicKeyLoader keyLoader = new PublicKeyLoader(Duration.ZERO, Duration.ZERO, null);
+    keyLoader.addKeySource(
+        new KeySource() {
+          @Override
+          public List<LoadedPublicKey> loadKeysFromSource() {
+            return singletonList(
+                new LoadedPublicKey(
+                    KEY_ID, publishedKeyPair.get().getPublic(), this, null, RSA_ALG));
+          }
+        });
+    metrics = new VerifiedTokenCacheMetrics();
+    cache = new VerifiedTokenCache(10, metrics);
+    service = new AuthService(keyLoader, 0, cache);
+  }
+
+  @AfterEach
+  void unregisterMetrics() {
+    metrics.unregister();
+  }
+
+  @Test
+  void shouldVerifyTokenOnlyOnce() {
+    String token = createToken(keyPair, KEY_ID, 30);
+
+    Map<String, Claim> claims = service.auth(token);
+    Map<String, Claim> cachedClaims = service.auth(token);
+
+    assertThat(cachedClaims).isSameAs(claims);
+    assertThat(claims.get("sub").asString()).isEqualTo("john");
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(requests("miss")).isEqualTo(1.0);
+    assertThat(requests("hit")).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldNotCacheInvalidToken() {
+    String token = createToken(otherKeyPair, KEY_ID, 30);
+
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+
+    assertThat(cache.size()).isZero();
+    assertThat(requests("miss")).isEqualTo(2.0);
+  }
+
+  @Test
+  void shouldEvictTokensWhenKeyIsRemoved() {
+    String token = createToken(keyPair, KEY_ID, 30);
+    service.auth(token);
+    assertThat(cache.size()).isEqualTo(1);
+
+    // the key is replaced and a token with an unknown kid causes a reload
+    publishedKeyPair.set(otherKeyPair);
+    String tokenWithUnknownKid = createToken(otherKeyPair, "unknownKid", 30);
+    assertThatThrownBy(() -> service.auth(tokenWithUnknownKid))
+        .isInstanceOf(JwtAuthException.class);
+
+    assertThat(cache.size()).isZero();
+    assertThatThrownBy(() -> service.auth(token)).isInstanceOf(JwtAuthException.class);
+  }
+
+  @Test
+  void shouldEvictExpiredTokens() {
+    Clock clock = mock(Clock.class);
+    VerifiedTokenCache clockedCache = new VerifiedTokenCache(10, null, clock);
+    LoadedPublicKey key = new LoadedPublicKey(KEY_ID, keyPair.getPublic(), null, null, RSA_ALG);
+    long now = System.currentTimeMillis();
+    when(clock.millis()).thenReturn(now);
+    String token = createToken(keyPair, KEY_ID, 30);
+
+    clockedCache.put(token, JWT.decode(token), key, 5);
+    assertThat(clockedCache.get(token)).isNotNull();
+
+    // still accepted within the leeway
+    when(clock.millis()).thenReturn(now + 34_000);
+    assertThat(clockedCache.get(token)).isNotNull();
+
+    when(clock.millis()).thenReturn(now + 36_000);
+    assertThat(clockedCache.get(token)).isNull();
+    assertThat(clockedCache.size()).isZero();
+  }
+
+  @Test
+  void shouldNotCacheTokensWithoutExpiration() {
+    LoadedPublicKey key = new LoadedPublicKey(KEY_ID, keyPair.getPublic(), null, null, RSA_ALG);
+    String token =
+        JWT.create()
+            .withKeyId(KEY_ID)
+            .sign(
+                Algorithm.RSA256(
+                    (RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+
+    assertThat(cache.put(token, JWT.decode(token), key, 0)).isEmpty();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void shouldNotExceedMaximumSize() {
+    LoadedPublicKey key = new LoadedPublicKey(KEY_ID, keyPair.getPublic(), null, null, RSA_ALG);
+    for (int i = 0; i < 25; i++) {
+      String token =
+          JWT.create()
+              .withKeyId(KEY_ID)
+              .withSubject("user-" + i)
+              .withExpiresAt(DateUtils.addSeconds(new Date(), 30))
+              .sign(
+                  Algorithm.RSA256(
+                      (RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+      cache.put(token, JWT.decode(token), key, 0);
+    }
+
+    assertThat(cache.size()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldEvictExpiredTokensFirstAndInBatches() {
+    Clock clock = mock(Clock.class);
+    VerifiedTokenCache clockedCache = new VerifiedTokenCache(100, null, clock);
+    LoadedPublicKey key = new LoadedPublicKey(KEY_ID, keyPair.getPublic(), null, null, RSA_ALG);
+    long now = System.currentTimeMillis();
+    when(clock.millis()).thenReturn(now);
+    for (int i = 0; i < 100; i++) {
+      String token = createToken(keyPair, KEY_ID, "user-" + i, i < 20 ? 10 : 60);
+      clockedCache.put(token, JWT.decode(token), key, 0);
+    }
+    assertThat(clockedCache.size()).isEqualTo(100);
+
+    // the expired tokens are enough to make room
+    when(clock.millis()).thenReturn(now + 30_000);
+    String token = createToken(keyPair, KEY_ID, "user-100", 60);
+    clockedCache.put(token, JWT.decode(token), key, 0);
+    assertThat(clockedCache.size()).isEqualTo(81);
+
+    for (int i = 101; i < 120; i++) {
+      token = createToken(keyPair, KEY_ID, "user-" + i, 60);
+      clockedCache.put(token, JWT.decode(token), key, 0);
+    }
+    assertThat(clockedCache.size()).isEqualTo(100);
+
+    // a tenth of the cache is evicted at once
+    token = createToken(keyPair, KEY_ID, "user-120", 60);
+    clockedCache.put(token, JWT.decode(token), key, 0);
+    assertThat(clockedCache.size()).isEqualTo(91);
+  }
+
+  private Double requests(String result) {
+    return CollectorRegistry.defaultRegistry.getSampleValue(
+        "auth_verified_token_cache_requests_total", new String[] {"result"}, new String[] {result});
+  }
+
+  private String createToken(KeyPair signingKeyPair, String keyId, int expiresInGivenSeconds) {
+    return createToken(signingKeyPair, keyId, "john", expiresInGivenSeconds);
+  }
+
+  private String createToken(
+      KeyPair signingKeyPair, String keyId, String subject, int expiresInGivenSeconds) {
+    return JWT.create()
+        .withKeyId(keyId)
+        .withSubject(subject)
+        .withExpiresAt(DateUtils.addSeconds(new Date(), expiresInGivenSeconds))
+        .sign(
+            Algorithm.RSA256(
+                (RSAPublicKey) signingKeyPair.getPublic(),
+                (RSAPrivateKey) signingKeyPair.getPrivate()));
+  }
+}
@@ -0,0 +1,158 @@
+package org.sdase.commons.server.opa;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static io.dropwizard.testing.ConfigOverride.config;
+import static io.dropwizard.testing.ConfigOverride.randomPorts;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.sdase.commons.server.opa.config.OpaConfig;
+import org.sdase.commons.server.opa.internal.OpaDecisionCacheInvalidationTask;
+import org.sdase.commons.server.testing.Retry;
+import org.sdase.commons.server.testing.RetryRule;
+
+public class OpaBundleDecisionCacheTest {
+
+  private static final WireMockClassRule WIRE =
+      new WireMockClassRule(wireMockConfig().dynamicPort());
+
+  private static final DropwizardAppRule<TestConfiguration> DW =
+      new DropwizardAppRule<>(
+          TestApplication.class,
+          null,
+          randomPorts(),
+          config("opa.baseUrl", WIRE::baseUrl),
+          config("opa.policyPackage", "policy"),
+          config("opa.decisionCache.enabled", "true"),
+
+          // relax the timeout to make tests more stable
+          config("opa.opaClient.timeout", "1s"));
+
+  @ClassRule public static final RuleChain CHAIN = RuleChain.outerRule(WIRE).around(DW);
+
+  @Rule public final RetryRule retryRule = new RetryRule();
+
+  @Before
+  public void before() {
+    WIRE.resetAll();
+    stubDecision("allowed", true);
+    stubDecision("denied", false);
+    invalidateCache();
+  }
+
+  @Test
+  @Retry(5)
+  public void shouldRequestAllowDecisionOnlyOnce() {
+    assertThat(get("allowed").getStatus()).isEqualTo(200);
+    assertThat(get("allowed").getStatus()).isEqualTo(200);
+
+    assertThat(WIRE.getAllServeEvents()).hasSize(1);
+  }
+
+  @Test
+  @Retry(5)
+  public void shouldRequestDenyDecisionOnlyOnce() {
+    assertThat(get("denied").getStatus()).isEqualTo(403);
+    assertThat(get("denied").getStatus()).isEqualTo(403);
+
+    assertThat(WIRE.getAllServeEvents()).hasSize(1);
+  }
+
+  @Test
+  @Retry(5)
+  public void shouldRequestDecisionsForDifferentInputs() {
+    assertThat(get("allowed").getStatus()).isEqualTo(200);
+    assertThat(get("denied").getStatus()).isEqualTo(403);
+
+    assertThat(WIRE.getAllServeEvents()).hasSize(2);
+  }
+
+  @Test
+  @Retry(5)
+  public void shouldRequestDecisionAgainAfterInvalidation() {
+    assertThat(get("allowed").getStatus()).isEqualTo(200);
+
+    invalidateCache();
+
+    assertThat(get("allowed").getStatus()).isEqualTo(200);
+    assertThat(WIRE.getAllServeEvents()).hasSize(2);
+  }
+
+  private static void stubDecision(String path, boolean allow) {
+    WIRE.stubFor(
+        post("/v1/data/policy")
+            .withRequestBody(matchingJsonPath("$.input.path[0]", equalTo(path)))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                    .withBody("{\"result\": {\"allow\": " + allow + "}}")));
+  }
+
+  private static Response get(String path) {
+    return DW.client().target("http://localhost:" + DW.getLocalPort()).path(path).request().get();
+  }
+
+  private static void invalidateCache() {
+    Response response =
+        DW.client()
+            .target("http://localhost:" + DW.getAdminPort())
+            .path("tasks")
+            .path(OpaDecisionCacheInvalidationTask.NAME)
+            .request()
+            .post(Entity.text(""));
+    assertThat(response.getStatus()).isEqualTo(200);
+  }
+
+  public static class TestApplication extends Application<TestConfiguration> {
+
+    @Override
+    public void initialize(Bootstrap<TestConfiguration> bootstrap) {
+      bootstrap.addBundle(
+          OpaBundle.builder().withOpaConfigProvider(TestConfiguration::getOpa).build());
+    }
+
+    @Override
+    public void run(TestConfiguration configuration, Environment environment) {
+      environment.jersey().register(Endpoint.class);
+    }
+  }
+
+  @Path("")
+  public static class Endpoint {
+
+    @GET
+    @Path("/{any}")
+    public String get() {
+      return "ok";
+    }
+  }
+
+  public static class TestConfiguration extends Configuration {
+    private OpaConfig opa = new OpaConfig();
+
+    public OpaConfig getOpa() {
+      return opa;
+    }
+  }
+}
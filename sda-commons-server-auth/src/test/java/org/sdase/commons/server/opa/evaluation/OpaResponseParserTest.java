@@ -0,0 +1,75 @@
+package org.sdase.commons.server.opa.evaluation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+
+class OpaResponseParserTest {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  @Test
+  void shouldReadAllowDecisionWithConstraints() throws IOException {
+    OpaDecision decision =
+        parse(
+            "{\"decision_id\": \"1\", \"result\": {\"allow\": true, \"constraint\": {\"ids\": [1, 2]}}}");
+
+    assertThat(decision.isAllow()).isTrue();
+    assertThat(result(decision)).isEqualTo("{\"allow\":true,\"constraint\":{\"ids\":[1,2]}}");
+  }
+
+  @Test
+  void shouldReadDenyDecision() throws IOException {
+    OpaDecision decision = parse("{\"result\": {\"allow\": false}}");
+
+    assertThat(decision.isAllow()).isFalse();
+    assertThat(result(decision)).isEqualTo("{\"allow\":false}");
+  }
+
+  @Test
+  void shouldDenyIfAllowIsNotBoolean() throws IOException {
+    assertThat(parse("{\"result\": {\"allow\": \"true\"}}").isAllow()).isFalse();
+    assertThat(parse("{\"result\": {\"constraint\": true}}").isAllow()).isFalse();
+    assertThat(parse("{\"result\": true}").isAllow()).isFalse();
+  }
+
+  @Test
+  void shouldUseLastAllowProperty() throws IOException {
+    assertThat(parse("{\"result\": {\"allow\": true, \"allow\": 1}}").isAllow()).isFalse();
+  }
+
+  @Test
+  void shouldIgnorePropertiesBeforeResult() throws IOException {
+    OpaDecision decision =
+        parse("{\"metrics\": {\"timer\": [1, {\"allow\": false}]}, \"result\": {\"allow\": true}}");
+
+    assertThat(decision.isAllow()).isTrue();
+  }
+
+  @Test
+  void shouldReturnNullWithoutResult() throws IOException {
+    assertThat(parse("{}")).isNull();
+    assertThat(parse("{\"result\": null}")).isNull();
+    assertThat(parse("[]")).isNull();
+  }
+
+  @Test
+  void shouldFailForInvalidJson() {
+    assertThatThrownBy(() -> parse("{\"result\": {\"allow\": tru"))
+        .isInstanceOf(JsonProcessingException.class);
+  }
+
+  private static OpaDecision parse(String response) throws IOException {
+    return OpaResponseParser.parse(JSON_FACTORY, response.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String result(OpaDecision decision) {
+    return new String(decision.getResult(), StandardCharsets.UTF_8);
+  }
+}
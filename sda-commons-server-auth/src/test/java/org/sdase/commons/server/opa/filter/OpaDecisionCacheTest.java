@@ -0,0 +1,192 @@
+package org.sdase.commons.server.opa.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.opa.filter.model.OpaDecision;
+
+class OpaDecisionCacheTest {
+
+  private static final ObjectMapper OM = new ObjectMapper();
+
+  private static final long NOW = 1_600_000_000_000L;
+
+  private final Clock clock = mock(Clock.class);
+
+  private OpaDecisionMetrics metrics;
+
+  private OpaDecisionCache cache;
+
+  @BeforeEach
+  void setUp() {
+    when(clock.millis()).thenReturn(NOW);
+    metrics = new OpaDecisionMetrics();
+    cache = new OpaDecisionCache(10, Duration.ofSeconds(10), metrics, clock);
+  }
+
+  @AfterEach
+  void tearDown() {
+    metrics.unregister();
+  }
+
+  @Test
+  void shouldCreateSameKeyIndependentOfPropertyOrderAndTrace() throws IOException {
+    String key =
+        OpaDecisionCache.createKey(
+            OM.readTree(
+                "{\"trace\":\"a\",\"jwt\":\"j\",\"path\":[\"p\"],\"headers\":{\"x\":[\"1\"],\"y\":[\"2\"]}}"));
+    String sameKey =
+        OpaDecisionCache.createKey(
+            OM.readTree(
+                "{\"headers\":{\"y\":[\"2\"],\"x\":[\"1\"]},\"path\":[\"p\"],\"jwt\":\"j\",\"trace\":\"b\"}"));
+
+    assertThat(key).isEqualTo(sameKey);
+  }
+
+  @Test
+  void shouldCreateDifferentKeysForDifferentInputs() throws IOException {
+    String key = OpaDecisionCache.createKey(OM.readTree("{\"path\":[\"a\",\"b\"],\"jwt\":null}"));
+
+    assertThat(key)
+        .isNotEqualTo(OpaDecisionCache.createKey(OM.readTree("{\"path\":[\"b\",\"a\"]}")))
+        .isNotEqualTo(OpaDecisionCache.createKey(OM.readTree("{\"path\":[\"ab\"]}")))
+        .isNotEqualTo(
+            OpaDecisionCache.createKey(
+                OM.readTree("{\"path\":[\"a\",\"b\"],\"jwt\":null,\"x\":{\"trace\":1}}")));
+  }
+
+  @Test
+  void shouldCacheAllowAndDenyDecisions() {
+    OpaDecision allow = response(true);
+    OpaDecision deny = response(false);
+
+    cache.put("allow", allow, null, cache.getGeneration());
+    cache.put("deny", deny, null, cache.getGeneration());
+
+    assertThat(cache.get("allow")).isSameAs(allow);
+    assertThat(cache.get("deny")).isSameAs(deny);
+    assertThat(cache.get("unknown")).isNull();
+    assertThat(cacheRequests("hit")).isEqualTo(2.0);
+    assertThat(cacheRequests("miss")).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldExpireDecisionsAfterMaxTtl() {
+    cache.put("key", response(true), null, cache.getGeneration());
+
+    when(clock.millis()).thenReturn(NOW + 9_999);
+    assertThat(cache.get("key")).isNotNull();
+
+    when(clock.millis()).thenReturn(NOW + 10_000);
+    assertThat(cache.get("key")).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void shouldExpireDecisionsWithJwt() {
+    cache.put("key", response(true), NOW + 2_000, cache.getGeneration());
+
+    when(clock.millis()).thenReturn(NOW + 2_000);
+    assertThat(cache.get("key")).isNull();
+  }
+
+  @Test
+  void shouldNotCacheDecisionsForExpiredJwt() {
+    cache.put("key", response(true), NOW, cache.getGeneration());
+
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void shouldInvalidateAllDecisions() {
+    cache.put("key", response(true), null, cache.getGeneration());
+
+    cache.invalidateAll();
+
+    assertThat(cache.get("key")).isNull();
+  }
+
+  @Test
+  void shouldDiscardDecisionsRequestedBeforeInvalidation() {
+    long generation = cache.getGeneration();
+
+    cache.invalidateAll();
+    cache.put("key", response(true), null, generation);
+
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void shouldNotExceedMaxSize() {
+    for (int i = 0; i < 15; i++) {
+      cache.put("key" + i, response(true), null, cache.getGeneration());
+    }
+
+    assertThat(cache.size()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldEvictExpiredDecisionsFirstAndInBatches() {
+    OpaDecisionCache batchCache = new OpaDecisionCache(100, Duration.ofSeconds(60), null, clock);
+    for (int i = 0; i < 100; i++) {
+      Long jwtExpiresAt = i < 20 ? NOW + 10_000 : null;
+      batchCache.put("key" + i, response(true), jwtExpiresAt, batchCache.getGeneration());
+    }
+    assertThat(batchCache.size()).isEqualTo(100);
+
+    // the expired decisions are enough to make room
+    when(clock.millis()).thenReturn(NOW + 30_000);
+    batchCache.put("key100", response(true), null, batchCache.getGeneration());
+    assertThat(batchCache.size()).isEqualTo(81);
+
+    for (int i = 101; i < 120; i++) {
+      batchCache.put("key" + i, response(true), null, batchCache.getGeneration());
+    }
+    assertThat(batchCache.size()).isEqualTo(100);
+
+    // a tenth of the cache is evicted at once
+    batchCache.put("key120", response(true), null, batchCache.getGeneration());
+    assertThat(batchCache.size()).isEqualTo(91);
+  }
+
+  @Test
+  void shouldPublishNoMetricsIfOneOfThemIsInUse() {
+    Counter conflictingCounter =
+        Counter.build().name("opa_decision_cache_requests").help("in use").register();
+    try {
+      metrics.unregister();
+      OpaDecisionMetrics conflictingMetrics = new OpaDecisionMetrics();
+
+      conflictingMetrics.countCacheHit();
+      conflictingMetrics.observeRequestDuration(0.1);
+
+      assertThat(
+              CollectorRegistry.defaultRegistry.getSampleValue(
+                  "opa_request_duration_count", new String[0], new String[0]))
+          .isNull();
+      conflictingMetrics.unregister();
+    } finally {
+      CollectorRegistry.defaultRegistry.unregister(conflictingCounter);
+    }
+  }
+
+  private static OpaDecision response(boolean allow) {
+    return OpaDecision.of(allow, ("{\"allow\":" + allow + "}").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Double cacheRequests(String result) {
+    return CollectorRegistry.defaultRegistry.getSampleValue(
+        "opa_decision_cache_requests_total", new String[] {"result"}, new String[] {result});
+  }
+}
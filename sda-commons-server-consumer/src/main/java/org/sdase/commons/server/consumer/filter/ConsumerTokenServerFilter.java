@@ -13,6 +13,7 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
 import org.sdase.commons.shared.api.error.ApiException;
 import org.sdase.commons.shared.tracing.ConsumerTracing;
 import org.slf4j.MDC;
@@ -46,21 +47,26 @@ public class ConsumerTokenServerFilter implements ContainerRequestFilter {
       return;
     }
 
-    Optional<String> consumerToken = extractConsumerTokenFromRequest(requestContext);
-    Optional<String> consumerName = consumerToken.map(this::extractConsumerName);
-    consumerToken.ifPresent(token -> this.addConsumerTokenToRequest(requestContext, token));
-    consumerName.ifPresent(this::addConsumerNameToMdc);
-    consumerName.ifPresent(name -> this.addConsumerNameToRequest(requestContext, name));
-
-    if (requireIdentifiedConsumer && !consumerName.isPresent()) {
-      String path = requestContext.getUriInfo().getPath();
-      boolean pathExcluded = excludePatterns.stream().anyMatch(p -> p.matcher(path).matches());
-      if (!pathExcluded) {
-        throw ApiException.builder()
-            .httpCode(401)
-            .title("Consumer token is required to access this resource.")
-            .build();
+    long start = System.nanoTime();
+    try {
+      Optional<String> consumerToken = extractConsumerTokenFromRequest(requestContext);
+      Optional<String> consumerName = consumerToken.map(this::extractConsumerName);
+      consumerToken.ifPresent(token -> this.addConsumerTokenToRequest(requestContext, token));
+      consumerName.ifPresent(this::addConsumerNameToMdc);
+      consumerName.ifPresent(name -> this.addConsumerNameToRequest(requestContext, name));
+
+      if (requireIdentifiedConsumer && !consumerName.isPresent()) {
+        String path = requestContext.getUriInfo().getPath();
+        boolean pathExcluded = excludePatterns.stream().anyMatch(p -> p.matcher(path).matches());
+        if (!pathExcluded) {
+          throw ApiException.builder()
+              .httpCode(401)
+              .title("Consumer token is required to access this resource.")
+              .build();
+        }
       }
+    } finally {
+      RequestPhases.record(requestContext, RequestPhases.CONSUMER_TOKEN, start);
     }
   }
 
@@ -0,0 +1,125 @@
+package org.sdase.commons.server.dropwizard.timing;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Records the time spent in the phases of handling a request, e.g. in the filters provided by SDA
+ * commons. Phases are only recorded if the instrumentation is enabled for the request by {@link
+ * #start(ContainerRequestContext)}, e.g. by the {@code PrometheusBundle}. Otherwise recording a
+ * phase is a lookup of a request property only.
+ *
+ * <p>Filters record their phase like this:
+ *
+ * <pre>
+ *   long start = System.nanoTime();
+ *   try {
+ *     // ...
+ *   } finally {
+ *     RequestPhases.record(requestContext, RequestPhases.JWT, start);
+ *   }
+ * </pre>
+ *
+ * Phases that are recorded multiple times, e.g. in the request and response filter, are summed up.
+ */
+public final class RequestPhases {
+
+  /** The request property that holds the {@code RequestPhases} of the current request. */
+  public static final String REQUEST_PROPERTY = RequestPhases.class.getName();
+
+  /** Detecting or generating the trace token. */
+  public static final String TRACE_TOKEN = "trace_token";
+
+  /** Detecting and verifying the consumer token. */
+  public static final String CONSUMER_TOKEN = "consumer_token";
+
+  /** Verifying the JWT of the request. */
+  public static final String JWT = "jwt";
+
+  /** Authorizing the request with the Open Policy Agent. */
+  public static final String OPA = "opa";
+
+  /** Adding the security headers to the response. */
+  public static final String SECURITY_HEADERS = "security_headers";
+
+  /** Invoking the resource method including the mapping of exceptions. */
+  public static final String RESOURCE = "resource";
+
+  /** Writing the response entity including the filtering of fields. */
+  public static final String SERIALIZATION = "serialization";
+
+  private String[] phases = new String[8];
+
+  private long[] durations = new long[8];
+
+  private int size;
+
+  private RequestPhases() {}
+
+  /**
+   * Enables recording the phases of the given request.
+   *
+   * @param requestContext the context of the request
+   * @return the phases of the request
+   */
+  public static RequestPhases start(ContainerRequestContext requestContext) {
+    RequestPhases requestPhases = new RequestPhases();
+    requestContext.setProperty(REQUEST_PROPERTY, requestPhases);
+    return requestPhases;
+  }
+
+  /**
+   * @param requestContext the context of the request
+   * @return the phases of the request or {@code null} if recording is not enabled for the request
+   */
+  public static RequestPhases fromRequest(ContainerRequestContext requestContext) {
+    Object requestPhases = requestContext.getProperty(REQUEST_PROPERTY);
+    return requestPhases instanceof RequestPhases ? (RequestPhases) requestPhases : null;
+  }
+
+  /**
+   * Records the time from {@code startNanos} until now as duration of the given phase if recording
+   * is enabled for the request.
+   *
+   * @param requestContext the context of the request
+   * @param phase the name of the phase, e.g. {@link #JWT}
+   * @param startNanos the {@link System#nanoTime()} when the phase started
+   */
+  public static void record(ContainerRequestContext requestContext, String phase, long startNanos) {
+    RequestPhases requestPhases = fromRequest(requestContext);
+    if (requestPhases != null) {
+      requestPhases.add(phase, System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * @param phase the name of the phase
+   * @param durationNanos the duration to add to the phase in nanoseconds
+   */
+  public synchronized void add(String phase, long durationNanos) {
+    for (int i = 0; i < size; i++) {
+      if (phases[i].equals(phase)) {
+        durations[i] += durationNanos;
+        return;
+      }
+    }
+    if (size == phases.length) {
+      phases = Arrays.copyOf(phases, size * 2);
+      durations = Arrays.copyOf(durations, size * 2);
+    }
+    phases[size] = phase;
+    durations[size] = durationNanos;
+    size++;
+  }
+
+  /**
+   * @param consumer receives each recorded phase with its duration in nanoseconds in the order the
+   *     phases have been recorded first
+   */
+  public synchronized void forEach(ObjLongConsumer<String> consumer) {
+    for (int i = 0; i < size; i++) {
+      consumer.accept(phases[i], durations[i]);
+    }
+  }
+}
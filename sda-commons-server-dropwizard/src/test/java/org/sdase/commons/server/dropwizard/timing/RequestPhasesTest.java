@@ -0,0 +1,68 @@
+package org.sdase.commons.server.dropwizard.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.ws.rs.container.ContainerRequestContext;
+import org.junit.Test;
+
+public class RequestPhasesTest {
+
+  @Test
+  public void shouldNotRecordIfNotStarted() {
+    ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+
+    RequestPhases.record(requestContext, RequestPhases.JWT, System.nanoTime());
+
+    assertThat(RequestPhases.fromRequest(requestContext)).isNull();
+  }
+
+  @Test
+  public void shouldRecordPhasesOfStartedRequest() {
+    ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+    RequestPhases requestPhases = RequestPhases.start(requestContext);
+    when(requestContext.getProperty(RequestPhases.REQUEST_PROPERTY)).thenReturn(requestPhases);
+
+    long start = System.nanoTime();
+    RequestPhases.record(requestContext, RequestPhases.JWT, start);
+
+    assertThat(toMap(requestPhases))
+        .containsOnlyKeys(RequestPhases.JWT)
+        .allSatisfy((phase, duration) -> assertThat(duration).isNotNegative());
+  }
+
+  @Test
+  public void shouldSumPhasesInOrderOfFirstRecording() {
+    ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+    RequestPhases requestPhases = RequestPhases.start(requestContext);
+
+    requestPhases.add(RequestPhases.TRACE_TOKEN, 10);
+    requestPhases.add(RequestPhases.JWT, 20);
+    requestPhases.add(RequestPhases.TRACE_TOKEN, 5);
+
+    assertThat(toMap(requestPhases))
+        .containsExactly(entry(RequestPhases.TRACE_TOKEN, 15L), entry(RequestPhases.JWT, 20L));
+  }
+
+  @Test
+  public void shouldRecordManyPhases() {
+    ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+    RequestPhases requestPhases = RequestPhases.start(requestContext);
+
+    for (int i = 0; i < 20; i++) {
+      requestPhases.add("phase_" + i, i);
+    }
+
+    assertThat(toMap(requestPhases)).hasSize(20).containsEntry("phase_19", 19L);
+  }
+
+  private static Map<String, Long> toMap(RequestPhases requestPhases) {
+    Map<String, Long> result = new LinkedHashMap<>();
+    requestPhases.forEach(result::put);
+    return result;
+  }
+}
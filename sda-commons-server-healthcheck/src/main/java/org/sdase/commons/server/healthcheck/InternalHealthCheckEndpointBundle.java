@@ -4,21 +4,41 @@ import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
 import org.sdase.commons.server.healthcheck.servlet.OnlyInternalHealthCheckServlet;
 
 /**
  * This bundle registers a new servlet to provide all registered health checks that are not
  * {@linkplain ExternalHealthCheck external}. The health checks are provided at {@code
  * /healthcheck/internal} at the admin port.
+ *
+ * <p>Optionally, the health checks are {@linkplain HealthCheckScheduler scheduled} in the
+ * background. The internal health check endpoint and the Prometheus metrics of the health checks
+ * then serve the latest results instead of executing the health checks for each request.
  */
 public class InternalHealthCheckEndpointBundle implements ConfiguredBundle<Configuration> {
 
-  private InternalHealthCheckEndpointBundle() {
-    // deny public access
+  private final Duration scheduleInterval;
+  private final Map<String, Duration> scheduleIntervals;
+  private final int scheduleThreads;
+
+  private InternalHealthCheckEndpointBundle(
+      Duration scheduleInterval, Map<String, Duration> scheduleIntervals, int scheduleThreads) {
+    this.scheduleInterval = scheduleInterval;
+    this.scheduleIntervals = scheduleIntervals;
+    this.scheduleThreads = scheduleThreads;
   }
 
   @Override
   public void run(Configuration configuration, Environment environment) {
+    if (scheduleInterval != null) {
+      scheduleHealthChecks(environment);
+    }
+
     // Register a new endpoints that provides only the internal health checks
     // The default healthcheck endpoint '/healthcheck' provides both, internal and external
     // health checks
@@ -29,6 +49,24 @@ public class InternalHealthCheckEndpointBundle implements ConfiguredBundle<Confi
         .addMapping("/healthcheck/internal");
   }
 
+  private void scheduleHealthChecks(Environment environment) {
+    ScheduledExecutorService executorService =
+        environment
+            .lifecycle()
+            .scheduledExecutorService("health-check-scheduler-%d", true)
+            .threads(scheduleThreads)
+            .build();
+    HealthCheckScheduler scheduler =
+        new HealthCheckScheduler(
+            environment.healthChecks(), executorService, scheduleInterval, scheduleIntervals);
+    environment.lifecycle().manage(scheduler);
+    // the servlet and other bundles find the scheduler in the admin context, e.g. to provide the
+    // latest results as metrics
+    environment
+        .getAdminContext()
+        .setAttribute(HealthCheckScheduler.SERVLET_CONTEXT_ATTRIBUTE, scheduler);
+  }
+
   @Override
   public void initialize(Bootstrap<?> bootstrap) {
     // Nothing here
@@ -39,18 +77,71 @@ public class InternalHealthCheckEndpointBundle implements ConfiguredBundle<Confi
   }
 
   public interface InternalHealthCheckEndpointBuilder {
+
+    /**
+     * Runs all health checks in the background and serves the latest results at the internal health
+     * check endpoint and as Prometheus metrics. Note that the default health check endpoint of
+     * Dropwizard still executes all health checks for each request.
+     *
+     * @param interval the delay between the executions of each health check
+     * @return the builder
+     */
+    InternalHealthCheckEndpointBuilder withScheduledHealthChecks(Duration interval);
+
+    /**
+     * Overrides the interval of a single health check if health checks are {@linkplain
+     * #withScheduledHealthChecks(Duration) scheduled}.
+     *
+     * @param name the name of the health check
+     * @param interval the delay between the executions of the health check
+     * @return the builder
+     */
+    InternalHealthCheckEndpointBuilder withHealthCheckInterval(String name, Duration interval);
+
+    /**
+     * @param threads the maximum number of health checks that are executed at the same time if
+     *     health checks are {@linkplain #withScheduledHealthChecks(Duration) scheduled}, defaults
+     *     to 2
+     * @return the builder
+     */
+    InternalHealthCheckEndpointBuilder withHealthCheckThreads(int threads);
+
     InternalHealthCheckEndpointBundle build();
   }
 
   public static class Builder implements InternalHealthCheckEndpointBuilder {
 
+    private Duration scheduleInterval;
+    private final Map<String, Duration> scheduleIntervals = new HashMap<>();
+    private int scheduleThreads = 2;
+
     private Builder() {
       // deny public access
     }
 
+    @Override
+    public InternalHealthCheckEndpointBuilder withScheduledHealthChecks(Duration interval) {
+      this.scheduleInterval = interval;
+      return this;
+    }
+
+    @Override
+    public InternalHealthCheckEndpointBuilder withHealthCheckInterval(
+        String name, Duration interval) {
+      this.scheduleIntervals.put(name, interval);
+      return this;
+    }
+
+    @Override
+    public InternalHealthCheckEndpointBuilder withHealthCheckThreads(int threads) {
+      this.scheduleThreads = threads;
+      return this;
+    }
+
     @Override
     public InternalHealthCheckEndpointBundle build() {
-      return new InternalHealthCheckEndpointBundle();
+      return new InternalHealthCheckEndpointBundle(
+          scheduleInterval, new HashMap<>(scheduleIntervals), scheduleThreads);
     }
   }
 }
@@ -0,0 +1,249 @@
+package org.sdase.commons.server.healthcheck.scheduler;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckFilter;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.codahale.metrics.health.HealthCheckRegistryListener;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the health checks of a {@link HealthCheckRegistry} in the background, each in its own
+ * interval, and keeps the latest {@link HealthCheck.Result} of each health check. The results
+ * contain the time and the duration of the execution.
+ *
+ * <p>Endpoints that serve health checks use the latest results instead of executing all health
+ * checks for each request. A result is reported as unhealthy if the health check has not been
+ * completed for three intervals, e.g. because it is blocked. If the result of a health check that
+ * has not been completed yet is requested, the request waits for the execution in progress or
+ * executes the health check itself, so that a health check is never executed twice at the same
+ * time.
+ *
+ * <p>The scheduler is available in the attributes of the admin servlet context as {@link
+ * #SERVLET_CONTEXT_ATTRIBUTE} when health checks are scheduled.
+ */
+public class HealthCheckScheduler implements Managed, HealthCheckRegistryListener {
+
+  /** The attribute of the admin servlet context that refers to the {@code HealthCheckScheduler}. */
+  public static final String SERVLET_CONTEXT_ATTRIBUTE = HealthCheckScheduler.class.getName();
+
+  private static final Logger LOG = LoggerFactory.getLogger(HealthCheckScheduler.class);
+
+  /** The number of intervals after the last result of a health check is reported as unhealthy. */
+  private static final int MAX_AGE_INTERVALS = 3;
+
+  private final HealthCheckRegistry healthCheckRegistry;
+
+  private final ScheduledExecutorService executorService;
+
+  private final Duration defaultInterval;
+
+  private final Map<String, Duration> intervals;
+
+  private final Clock clock;
+
+  private final ConcurrentMap<String, ScheduledHealthCheck> scheduledHealthChecks =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param healthCheckRegistry the registry of the health checks to schedule
+   * @param executorService the executor that runs the health checks, the number of its threads
+   *     limits the health checks that are executed at the same time
+   * @param defaultInterval the interval of health checks that have no own interval
+   * @param intervals the intervals of health checks by name of the health check
+   */
+  public HealthCheckScheduler(
+      HealthCheckRegistry healthCheckRegistry,
+      ScheduledExecutorService executorService,
+      Duration defaultInterval,
+      Map<String, Duration> intervals) {
+    this(healthCheckRegistry, executorService, defaultInterval, intervals, Clock.systemUTC());
+  }
+
+  HealthCheckScheduler(
+      HealthCheckRegistry healthCheckRegistry,
+      ScheduledExecutorService executorService,
+      Duration defaultInterval,
+      Map<String, Duration> intervals,
+      Clock clock) {
+    this.healthCheckRegistry = healthCheckRegistry;
+    this.executorService = executorService;
+    this.defaultInterval = defaultInterval;
+    this.intervals = new HashMap<>(intervals);
+    this.clock = clock;
+  }
+
+  /**
+   * @param servletContext the admin servlet context
+   * @return the scheduler registered in the given context or {@code null} if health checks are not
+   *     scheduled
+   */
+  public static HealthCheckScheduler fromServletContext(ServletContext servletContext) {
+    Object scheduler = servletContext.getAttribute(SERVLET_CONTEXT_ATTRIBUTE);
+    return scheduler instanceof HealthCheckScheduler ? (HealthCheckScheduler) scheduler : null;
+  }
+
+  @Override
+  public void start() {
+    // the listener is notified about all health checks that are already registered
+    healthCheckRegistry.addListener(this);
+  }
+
+  @Override
+  public void stop() {
+    healthCheckRegistry.removeListener(this);
+    scheduledHealthChecks.values().forEach(ScheduledHealthCheck::cancel);
+    scheduledHealthChecks.clear();
+  }
+
+  @Override
+  public void onHealthCheckAdded(String name, HealthCheck healthCheck) {
+    Duration interval = intervals.getOrDefault(name, defaultInterval);
+    ScheduledHealthCheck scheduledHealthCheck =
+        new ScheduledHealthCheck(name, healthCheck, interval.toMilliseconds());
+    ScheduledHealthCheck replaced = scheduledHealthChecks.put(name, scheduledHealthCheck);
+    if (replaced != null) {
+      replaced.cancel();
+    }
+    scheduledHealthCheck.schedule();
+    LOG.debug("Scheduled health check {} every {}", name, interval);
+  }
+
+  @Override
+  public void onHealthCheckRemoved(String name, HealthCheck healthCheck) {
+    ScheduledHealthCheck removed = scheduledHealthChecks.remove(name);
+    if (removed != null) {
+      removed.cancel();
+    }
+  }
+
+  /** @return the latest results of all scheduled health checks */
+  public SortedMap<String, HealthCheck.Result> getResults() {
+    return getResults(HealthCheckFilter.ALL);
+  }
+
+  /**
+   * @param filter the filter for the health checks to include
+   * @return the latest results of the scheduled health checks that match the filter
+   */
+  public SortedMap<String, HealthCheck.Result> getResults(HealthCheckFilter filter) {
+    SortedMap<String, HealthCheck.Result> results = new TreeMap<>();
+    for (ScheduledHealthCheck scheduledHealthCheck : scheduledHealthChecks.values()) {
+      if (filter.matches(scheduledHealthCheck.name, scheduledHealthCheck.healthCheck)) {
+        results.put(scheduledHealthCheck.name, scheduledHealthCheck.getResult());
+      }
+    }
+    return results;
+  }
+
+  private class ScheduledHealthCheck implements Runnable {
+
+    private final String name;
+
+    private final HealthCheck healthCheck;
+
+    private final long intervalMillis;
+
+    private volatile HealthCheck.Result result;
+
+    private Future<?> future;
+
+    /** The execution in progress, {@code null} if the health check is not executed currently. */
+    private CompletableFuture<HealthCheck.Result> execution;
+
+    private ScheduledHealthCheck(String name, HealthCheck healthCheck, long intervalMillis) {
+      this.name = name;
+      this.healthCheck = healthCheck;
+      this.intervalMillis = intervalMillis;
+    }
+
+    private synchronized void schedule() {
+      try {
+        future =
+            executorService.scheduleWithFixedDelay(this, 0, intervalMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // the executor has been shut down, the health check is executed when requested
+        LOG.warn("Failed to schedule health check {}", name, e);
+      }
+    }
+
+    private synchronized void cancel() {
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      // the scheduled execution is skipped if the result is currently requested before completed
+      executeOrJoin();
+    }
+
+    /**
+     * Executes the health check in the current thread unless it is already executed.
+     *
+     * @return the execution in progress or the completed execution of the current thread
+     */
+    private CompletableFuture<HealthCheck.Result> executeOrJoin() {
+      CompletableFuture<HealthCheck.Result> current;
+      synchronized (this) {
+        if (execution != null) {
+          return execution;
+        }
+        execution = new CompletableFuture<>();
+        current = execution;
+      }
+      try {
+        // execute() catches all exceptions of the health check and records its duration
+        HealthCheck.Result latest = healthCheck.execute();
+        if (!latest.isHealthy() && (result == null || result.isHealthy())) {
+          LOG.warn("Health check {} failed: {}", name, latest.getMessage());
+        }
+        result = latest;
+        current.complete(latest);
+      } catch (RuntimeException | Error e) {
+        current.completeExceptionally(e);
+        throw e;
+      } finally {
+        synchronized (this) {
+          execution = null;
+        }
+      }
+      return current;
+    }
+
+    private HealthCheck.Result getResult() {
+      HealthCheck.Result latest = result;
+      if (latest == null) {
+        // not completed yet
+        return executeOrJoin().join();
+      }
+      long maxAgeMillis = MAX_AGE_INTERVALS * intervalMillis;
+      if (clock.millis() - latest.getTime() > maxAgeMillis) {
+        return HealthCheck.Result.builder()
+            .unhealthy()
+            .withMessage(
+                "The health check has not been completed since %s.",
+                Instant.ofEpochMilli(latest.getTime()))
+            .build();
+      }
+      return latest;
+    }
+  }
+}
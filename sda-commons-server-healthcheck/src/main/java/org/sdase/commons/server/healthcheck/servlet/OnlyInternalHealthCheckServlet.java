@@ -21,12 +21,14 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Servlet that provides only the <b>internal</b> health check data of the application as JSON
- * response
+ * response. If the health checks are {@linkplain HealthCheckScheduler scheduled}, the latest
+ * results are provided.
  */
 public class OnlyInternalHealthCheckServlet extends HttpServlet {
 
@@ -39,6 +41,7 @@ public class OnlyInternalHealthCheckServlet extends HttpServlet {
   private final transient HealthCheckRegistry healthCheckRegistry;
   private transient ExecutorService executorService;
   private transient HealthCheckFilter healthCheckFilter;
+  private transient HealthCheckScheduler healthCheckScheduler;
   private final transient ObjectMapper mapper;
 
   public OnlyInternalHealthCheckServlet(HealthCheckRegistry healthCheckRegistry) {
@@ -58,6 +61,7 @@ public class OnlyInternalHealthCheckServlet extends HttpServlet {
     }
 
     healthCheckFilter = new OnlyInternalHealthCheckFilter();
+    healthCheckScheduler = HealthCheckScheduler.fromServletContext(context);
   }
 
   @Override
@@ -105,6 +109,9 @@ public class OnlyInternalHealthCheckServlet extends HttpServlet {
   }
 
   private SortedMap<String, HealthCheck.Result> runHealthChecks() {
+    if (healthCheckScheduler != null) {
+      return healthCheckScheduler.getResults(healthCheckFilter);
+    }
     if (executorService == null) {
       return healthCheckRegistry.runHealthChecks(healthCheckFilter);
     }
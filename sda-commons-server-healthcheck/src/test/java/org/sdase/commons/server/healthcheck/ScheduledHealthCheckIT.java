@@ -0,0 +1,117 @@
+package org.sdase.commons.server.healthcheck;
+
+import static io.dropwizard.testing.ConfigOverride.randomPorts;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.health.HealthCheck;
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.junit5.DropwizardAppExtension;
+import io.dropwizard.util.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class ScheduledHealthCheckIT {
+
+  private static final String COUNTING = "counting";
+  private static final String TOGGLE = "toggle";
+
+  @RegisterExtension
+  static final DropwizardAppExtension<Configuration> EXT =
+      new DropwizardAppExtension<>(ScheduledHealthApplication.class, null, randomPorts());
+
+  @Test
+  void shouldNotExecuteHealthChecksForEachRequest() {
+    ScheduledHealthApplication app = EXT.getApplication();
+    try (Response response = healthCheckGet()) {
+      assertThat(response.getStatus()).isEqualTo(SC_OK);
+      assertThat(response.readEntity(String.class)).contains(COUNTING);
+    }
+    int executions = app.executions.get();
+
+    for (int i = 0; i < 5; i++) {
+      healthCheckGet().close();
+    }
+
+    assertThat(app.executions).hasValue(executions);
+  }
+
+  @Test
+  void shouldProvideResultOfLatestExecution() {
+    ScheduledHealthApplication app = EXT.getApplication();
+    app.healthy.set(false);
+    try {
+      await()
+          .untilAsserted(
+              () -> {
+                try (Response response = healthCheckGet()) {
+                  assertThat(response.getStatus()).isEqualTo(SC_INTERNAL_SERVER_ERROR);
+                }
+              });
+    } finally {
+      app.healthy.set(true);
+    }
+    await()
+        .untilAsserted(
+            () -> {
+              try (Response response = healthCheckGet()) {
+                assertThat(response.getStatus()).isEqualTo(SC_OK);
+              }
+            });
+  }
+
+  private Response healthCheckGet() {
+    return EXT.client()
+        .target(String.format("http://localhost:%d/healthcheck/internal", EXT.getAdminPort()))
+        .request()
+        .get();
+  }
+
+  public static class ScheduledHealthApplication extends Application<Configuration> {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+    @Override
+    public void initialize(Bootstrap<Configuration> bootstrap) {
+      bootstrap.addBundle(
+          InternalHealthCheckEndpointBundle.builder()
+              .withScheduledHealthChecks(Duration.minutes(10))
+              .withHealthCheckInterval(TOGGLE, Duration.milliseconds(50))
+              .build());
+    }
+
+    @Override
+    public void run(Configuration configuration, Environment environment) {
+      environment
+          .healthChecks()
+          .register(
+              COUNTING,
+              new HealthCheck() {
+                @Override
+                protected Result check() {
+                  executions.incrementAndGet();
+                  return Result.healthy();
+                }
+              });
+      environment
+          .healthChecks()
+          .register(
+              TOGGLE,
+              new HealthCheck() {
+                @Override
+                protected Result check() {
+                  return healthy.get() ? Result.healthy() : Result.unhealthy("toggled");
+                }
+              });
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package org.sdase.commons.server.healthcheck.scheduler;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import io.dropwizard.util.Duration;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.healthcheck.ExternalHealthCheck;
+import org.sdase.commons.server.healthcheck.servlet.OnlyInternalHealthCheckFilter;
+
+class HealthCheckSchedulerTest {
+
+  private final HealthCheckRegistry registry = new HealthCheckRegistry();
+
+  private ScheduledExecutorService executorService;
+
+  private HealthCheckScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    executorService = Executors.newScheduledThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (scheduler != null) {
+      scheduler.stop();
+    }
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void shouldServeLatestResultWithoutExecutingHealthCheck() {
+    CountingHealthCheck healthCheck = new CountingHealthCheck();
+    registry.register("counting", healthCheck);
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+    await().untilAsserted(() -> assertThat(healthCheck.executions).hasValue(1));
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(scheduler.getResults())
+          .containsOnlyKeys("counting")
+          .hasEntrySatisfying("counting", r -> assertThat(r.isHealthy()).isTrue());
+    }
+
+    assertThat(healthCheck.executions).hasValue(1);
+  }
+
+  @Test
+  void shouldExecuteHealthChecksInOwnInterval() {
+    CountingHealthCheck frequent = new CountingHealthCheck();
+    CountingHealthCheck rare = new CountingHealthCheck();
+    registry.register("frequent", frequent);
+    registry.register("rare", rare);
+    scheduler =
+        new HealthCheckScheduler(
+            registry,
+            executorService,
+            Duration.minutes(10),
+            singletonMap("frequent", Duration.milliseconds(10)));
+    scheduler.start();
+
+    await().untilAsserted(() -> assertThat(frequent.executions).hasValueGreaterThan(3));
+    assertThat(rare.executions).hasValue(1);
+  }
+
+  @Test
+  void shouldScheduleHealthChecksRegisteredAfterStart() {
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+    CountingHealthCheck healthCheck = new CountingHealthCheck();
+    registry.register("late", healthCheck);
+
+    await().untilAsserted(() -> assertThat(healthCheck.executions).hasValue(1));
+    assertThat(scheduler.getResults()).containsOnlyKeys("late");
+
+    registry.unregister("late");
+    assertThat(scheduler.getResults()).isEmpty();
+  }
+
+  @Test
+  void shouldExecuteHealthCheckIfNotCompletedYet() {
+    executorService.shutdown();
+    CountingHealthCheck healthCheck = new CountingHealthCheck();
+    registry.register("counting", healthCheck);
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+
+    assertThat(scheduler.getResults())
+        .hasEntrySatisfying("counting", r -> assertThat(r.isHealthy()).isTrue());
+    assertThat(healthCheck.executions).hasValue(1);
+  }
+
+  @Test
+  void shouldWaitForScheduledExecutionIfNotCompletedYet() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountingHealthCheck healthCheck =
+        new CountingHealthCheck() {
+          @Override
+          protected Result check() {
+            started.countDown();
+            try {
+              release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.check();
+          }
+        };
+    registry.register("blocked", healthCheck);
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+    // the scheduled execution is in progress
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    ExecutorService requests = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<SortedMap<String, HealthCheck.Result>>> results = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        results.add(requests.submit(() -> scheduler.getResults()));
+      }
+
+      release.countDown();
+
+      for (Future<SortedMap<String, HealthCheck.Result>> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS))
+            .hasEntrySatisfying("blocked", r -> assertThat(r.isHealthy()).isTrue());
+      }
+      assertThat(healthCheck.executions).hasValue(1);
+    } finally {
+      requests.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldReportOutdatedResultAsUnhealthy() {
+    CountingHealthCheck healthCheck = new CountingHealthCheck();
+    registry.register("counting", healthCheck);
+    Clock future = Clock.fixed(Instant.now().plusSeconds(31 * 60), ZoneOffset.UTC);
+    scheduler =
+        new HealthCheckScheduler(
+            registry, executorService, Duration.minutes(10), emptyMap(), future);
+    scheduler.start();
+    await().untilAsserted(() -> assertThat(healthCheck.executions).hasValue(1));
+
+    assertThat(scheduler.getResults())
+        .hasEntrySatisfying(
+            "counting",
+            r -> {
+              assertThat(r.isHealthy()).isFalse();
+              assertThat(r.getMessage()).contains("has not been completed since");
+            });
+  }
+
+  @Test
+  void shouldFilterResults() {
+    registry.register("internal", new CountingHealthCheck());
+    registry.register("external", new ExternalCountingHealthCheck());
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+
+    assertThat(scheduler.getResults(new OnlyInternalHealthCheckFilter()))
+        .containsOnlyKeys("internal");
+    assertThat(scheduler.getResults()).containsOnlyKeys("internal", "external");
+  }
+
+  @Test
+  void shouldRecordDurationOfExecution() {
+    registry.register(
+        "slow",
+        new HealthCheck() {
+          @Override
+          protected Result check() throws Exception {
+            Thread.sleep(50);
+            return Result.healthy();
+          }
+        });
+    scheduler =
+        new HealthCheckScheduler(registry, executorService, Duration.minutes(10), emptyMap());
+    scheduler.start();
+
+    assertThat(scheduler.getResults())
+        .hasEntrySatisfying("slow", r -> assertThat(r.getDuration()).isGreaterThanOrEqualTo(50));
+  }
+
+  static class CountingHealthCheck extends HealthCheck {
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Override
+    protected Result check() {
+      executions.incrementAndGet();
+      return Result.healthy();
+    }
+  }
+
+  @ExternalHealthCheck
+  static class ExternalCountingHealthCheck extends CountingHealthCheck {}
+}
@@ -34,6 +34,11 @@ import org.sdase.commons.server.jackson.filter.JacksonFieldFilterModule;
  *   }
  * </pre>
  *
+ * <p>Fields of nested objects are selected with dotted paths, e.g. {@code
+ * fields=firstName,address.city} or {@code fields=_embedded.partner.nickName}. The classes of the
+ * nested objects must be annotated as well. Nested objects that are selected without a path are
+ * rendered completely.
+ *
  * <p>The {@link JacksonFieldFilterModule} has to be registered after the {@link JacksonHALModule}
  * is added to the {@link com.fasterxml.jackson.databind.ObjectMapper}. Both can be accomplished in
  * appropriate order, using the {@link JacksonConfigurationBundle}.
@@ -12,6 +12,8 @@ import java.util.function.Consumer;
 import org.sdase.commons.server.jackson.errors.*;
 import org.sdase.commons.server.jackson.filter.JacksonFieldFilterModule;
 import org.sdase.commons.server.jackson.hal.HalLinkProvider;
+import org.sdase.commons.server.jackson.stream.StreamingCollectionCloser;
+import org.sdase.commons.server.jackson.stream.StreamingCollectionMessageBodyWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +36,9 @@ import org.slf4j.LoggerFactory;
  *
  * }</pre>
  *
+ * <p>Resources may return a {@link org.sdase.commons.server.jackson.stream.StreamingCollection} to
+ * write large collections incrementally.
+ *
  * <p>If Jacksons yaml provider is available in the classpath it will be registered as well so that
  * the application is able to respond to "Accept application/yaml" requests. The JacksonYAMLProvider
  * is available with {@code
@@ -89,6 +94,10 @@ public class JacksonConfigurationBundle implements ConfiguredBundle<Configuratio
       environment.jersey().register(jacksonFieldFilterModule);
     }
 
+    // register writer of streamed collections
+    environment.jersey().register(new StreamingCollectionMessageBodyWriter(objectMapper));
+    environment.jersey().register(new StreamingCollectionCloser());
+
     // register singleton HalLinkProvider
     environment.jersey().register(HalLinkProvider.getInstance());
 
@@ -164,6 +173,19 @@ public class JacksonConfigurationBundle implements ConfiguredBundle<Configuratio
       return this;
     }
 
+    /**
+     * Registers the {@code BlackbirdModule} that replaces the reflection based access to properties
+     * and creators with generated lambdas to reduce the CPU time of serialization and
+     * deserialization. HAL support, the field filter and the configured features and serializers
+     * work the same way with or without this option.
+     *
+     * @return the builder
+     */
+    public Builder withBytecodeAcceleration() {
+      objectMapperBuilder.withBytecodeAcceleration();
+      return this;
+    }
+
     /**
      * Allows customization of the used {@link ObjectMapper}. More customizers may be added by
      * calling this method multiple times.
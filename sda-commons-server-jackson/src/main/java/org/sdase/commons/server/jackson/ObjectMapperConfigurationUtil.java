@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import io.dropwizard.jackson.AnnotationSensitivePropertyNamingStrategy;
 import io.dropwizard.jackson.CaffeineModule;
@@ -46,6 +47,8 @@ public class ObjectMapperConfigurationUtil {
 
     private boolean disableHalSupport = false;
 
+    private boolean bytecodeAcceleration = false;
+
     private Iso8601Serializer defaultSerializer;
 
     private Builder() {}
@@ -61,6 +64,20 @@ public class ObjectMapperConfigurationUtil {
       return this;
     }
 
+    /**
+     * Registers the {@link BlackbirdModule} that replaces the reflection based access to properties
+     * and creators with generated lambdas. This reduces the CPU time of serialization and
+     * deserialization of beans, e.g. for APIs with high traffic or large Kafka payloads. HAL
+     * support, field filtering and the configured features and serializers work the same way with
+     * or without this option.
+     *
+     * @return the builder
+     */
+    public Builder withBytecodeAcceleration() {
+      this.bytecodeAcceleration = true;
+      return this;
+    }
+
     /**
      * Allows customization of the {@link ObjectMapper}. More customizers may be added by calling
      * this method multiple times.
@@ -114,8 +131,10 @@ public class ObjectMapperConfigurationUtil {
               .registerModule(new GuavaExtrasModule())
               .registerModule(new CaffeineModule())
               .registerModule(new JodaModule());
-      // Decided against Afterburner/Blackbird in favour of less complexity
-      // .registerModule(new BlackbirdModule());
+      // Blackbird is opt-in in favour of less complexity, see withBytecodeAcceleration()
+      if (bytecodeAcceleration) {
+        objectMapper.registerModule(new BlackbirdModule());
+      }
       // .registerModule(new FuzzyEnumModule()) breaks READ_UNKNOWN_ENUM_VALUES_AS_NULL
       objectMapper
           .registerModule(new ParameterNamesModule())
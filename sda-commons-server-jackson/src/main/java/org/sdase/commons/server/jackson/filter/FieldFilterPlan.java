@@ -0,0 +1,112 @@
+package org.sdase.commons.server.jackson.filter;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The fields selected with the {@code fields} query parameter of a request. The plan is created
+ * once per request and activated for the current thread while the response entity is written, so
+ * that the {@link FieldFilterSerializerModifier} does not need to parse the query parameters for
+ * each property.
+ *
+ * <p>Nested fields are selected with dotted paths, e.g. {@code fields=id,address.city}. The paths
+ * are compiled into a tree of selections once for each distinct selection and reused by all
+ * requests with the same selection.
+ */
+public final class FieldFilterPlan {
+
+  /** Limits the compiled selections kept for reuse, e.g. if clients create random selections. */
+  private static final int MAX_COMPILED_SELECTIONS = 512;
+
+  private static final ConcurrentMap<String, FieldSelection> COMPILED_SELECTIONS =
+      new ConcurrentHashMap<>();
+
+  private static final ThreadLocal<FieldFilterPlan> ACTIVE = new ThreadLocal<>();
+
+  private final FieldSelection root;
+
+  private FieldFilterPlan(FieldSelection root) {
+    this.root = root;
+  }
+
+  /**
+   * @param fieldsParameters the values of the {@code fields} query parameter, each may contain
+   *     multiple comma separated field names or dotted paths of nested fields
+   * @return the plan to select the given fields or {@code null} if no fields are selected and all
+   *     fields should be serialized
+   */
+  public static FieldFilterPlan of(List<String> fieldsParameters) {
+    if (fieldsParameters == null || fieldsParameters.isEmpty()) {
+      return null;
+    }
+    Set<String> paths = new TreeSet<>();
+    for (String fields : fieldsParameters) {
+      for (String path : fields.split(",")) {
+        String trimmed = path.trim();
+        if (!trimmed.isEmpty()) {
+          paths.add(trimmed);
+        }
+      }
+    }
+    String normalized = String.join(",", paths);
+    FieldSelection root = COMPILED_SELECTIONS.get(normalized);
+    if (root == null) {
+      root = FieldSelection.compile(paths);
+      if (COMPILED_SELECTIONS.size() >= MAX_COMPILED_SELECTIONS) {
+        COMPILED_SELECTIONS.clear();
+      }
+      COMPILED_SELECTIONS.put(normalized, root);
+    }
+    return new FieldFilterPlan(root);
+  }
+
+  /** @return the plan that is active for the current thread or {@code null} if none is active */
+  static FieldFilterPlan active() {
+    return ACTIVE.get();
+  }
+
+  /**
+   * Activates the given plan for the current thread until the returned scope is closed.
+   *
+   * @param plan the plan to activate, may be {@code null} to serialize all fields
+   * @return the scope that restores the previously active plan when closed
+   */
+  public static Scope activate(FieldFilterPlan plan) {
+    FieldFilterPlan previous = ACTIVE.get();
+    ACTIVE.set(plan);
+    return new Scope(previous);
+  }
+
+  /** @return the selection of the fields of the root object */
+  FieldSelection root() {
+    return root;
+  }
+
+  /** @return the selected top level field names */
+  public Set<String> getSelectedFields() {
+    return root.fieldNames();
+  }
+
+  /** Restores the previously active plan when closed. */
+  public static final class Scope implements Closeable {
+
+    private final FieldFilterPlan previous;
+
+    private Scope(FieldFilterPlan previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (previous == null) {
+        ACTIVE.remove();
+      } else {
+        ACTIVE.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.sdase.commons.server.jackson.filter;
+
+import java.io.IOException;
+import java.util.List;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Creates the {@link FieldFilterPlan} of the {@code fields} query parameter once per response and
+ * activates it while the entity is written.
+ */
+public class FieldFilterWriterInterceptor implements WriterInterceptor {
+
+  static final String FIELD_FILTER_QUERY_PARAM = "fields";
+
+  @Context private UriInfo uriInfo;
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    try (FieldFilterPlan.Scope ignored = FieldFilterPlan.activate(createPlan())) {
+      context.proceed();
+    }
+  }
+
+  private FieldFilterPlan createPlan() {
+    try {
+      List<String> fieldsParameters = uriInfo.getQueryParameters().get(FIELD_FILTER_QUERY_PARAM);
+      return FieldFilterPlan.of(fieldsParameters);
+    } catch (Exception ignored) {
+      // maybe there is some odd state, e.g. not in a request context
+      return null;
+    }
+  }
+}
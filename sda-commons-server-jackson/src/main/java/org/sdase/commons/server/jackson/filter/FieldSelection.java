@@ -0,0 +1,103 @@
+package org.sdase.commons.server.jackson.filter;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled node of the selected fields. A node either selects all fields of an object or maps the
+ * selected field names to the selection of their values, e.g. {@code id,address.city} compiles to a
+ * root node selecting {@code id} completely and {@code address} with a node that selects {@code
+ * city}.
+ */
+final class FieldSelection {
+
+  /** Selects all fields of an object and of all nested objects. */
+  static final FieldSelection ALL = new FieldSelection(null);
+
+  /** The selection of the values by selected field name, {@code null} if all are selected. */
+  private final Map<String, FieldSelection> children;
+
+  private FieldSelection(Map<String, FieldSelection> children) {
+    this.children = children;
+  }
+
+  /**
+   * @param paths the selected paths, nested fields are separated by dots, e.g. {@code address.city}
+   * @return the compiled selection of the root object
+   */
+  static FieldSelection compile(Collection<String> paths) {
+    Node root = new Node();
+    for (String path : paths) {
+      Node node = root;
+      for (String field : path.split("\\.")) {
+        if (node.complete) {
+          break;
+        }
+        node = node.children.computeIfAbsent(field, f -> new Node());
+      }
+      node.complete = true;
+      node.children.clear();
+    }
+    root.complete = false;
+    return root.build();
+  }
+
+  /**
+   * @param field the name of a field of the object this selection applies to
+   * @return if the field is selected
+   */
+  boolean includes(String field) {
+    return children == null || children.containsKey(field);
+  }
+
+  /** @return the names of the selected fields, an empty set if all fields are selected */
+  Set<String> fieldNames() {
+    return children == null ? Collections.emptySet() : children.keySet();
+  }
+
+  /**
+   * Resolves the selection that applies to the object that is currently written. The selection is
+   * derived from the names of the parent contexts without allocating a path. Objects in arrays
+   * inherit the selection of the array. Objects below fields that are not part of the selection,
+   * e.g. {@code _embedded} resources written by the HAL module, are selected completely.
+   *
+   * @param objectContext the output context of the object that is currently written
+   * @return the selection of the fields of the object
+   */
+  FieldSelection resolve(JsonStreamContext objectContext) {
+    JsonStreamContext parent = objectContext.getParent();
+    while (parent != null && parent.inArray()) {
+      parent = parent.getParent();
+    }
+    if (parent == null || parent.inRoot()) {
+      return this;
+    }
+    FieldSelection parentSelection = resolve(parent);
+    if (parentSelection.children == null) {
+      return ALL;
+    }
+    FieldSelection selection = parentSelection.children.get(parent.getCurrentName());
+    return selection == null ? ALL : selection;
+  }
+
+  /** Mutable node used while compiling. */
+  private static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+
+    private boolean complete;
+
+    private FieldSelection build() {
+      if (complete) {
+        return ALL;
+      }
+      Map<String, FieldSelection> selections = new HashMap<>();
+      children.forEach((field, node) -> selections.put(field, node.build()));
+      return new FieldSelection(Collections.unmodifiableMap(selections));
+    }
+  }
+}
@@ -1,10 +1,10 @@
 package org.sdase.commons.server.jackson.hal;
 
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Parameter;
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import org.slf4j.Logger;
@@ -13,6 +13,9 @@ import org.slf4j.LoggerFactory;
 /**
  * An utility class to process and store the invocation information of a method. It also creates and
  * returns a proxy that uses the method invocation handler to process the invocation information.
+ *
+ * <p>The proxy of each type is created once and reused. The {@link HalLinkTemplate} of each invoked
+ * method is compiled when a link to the method is built for the first time.
  */
 public class HalLinkInvocationStateUtility {
 
@@ -21,88 +24,26 @@ public class HalLinkInvocationStateUtility {
   private static final ThreadLocal<MethodInvocationState> THREAD_LOCAL_METHOD_INVOCATION_STATE =
       ThreadLocal.withInitial(MethodInvocationState::new);
 
-  // Method invocation handler to process and save the current state of the method invocation
-  private static final InvocationHandler METHOD_PROCESSING_INVOCATION_HANDLER =
-      (proxy, method, methodArguments) -> {
-        // Get  invocation state from current thread
-        final MethodInvocationState methodInvocationState =
-            THREAD_LOCAL_METHOD_INVOCATION_STATE.get();
-        final String methodName = method.getName();
-        methodInvocationState.setInvokedMethod(methodName);
-        LOG.debug("Last invoked method '{}' added to current invocation state", methodName);
-        // Process annotated query and path parameters
-        processParams(methodInvocationState, methodArguments, method.getParameters());
-        methodInvocationState.processed();
-        // Do nothing
-        return null;
-      };
+  private static final Map<Class<?>, LinkableType> LINKABLE_TYPES = new ConcurrentHashMap<>();
 
   private HalLinkInvocationStateUtility() {}
 
   /**
-   * Creates and returns a proxy instance based on the passed type parameter with a method
-   * invocation handler, which processes and saves the needed method invocation information in the
-   * current thread. Parameters in the afterwards called method of the proxy will be used to resolve
-   * the URI template of the corresponding method. It should be ensured that the parameters are
-   * annotated with {@linkplain PathParam} or with {@linkplain QueryParam}. The passed class type
-   * must represent interfaces, not classes or primitive types.
+   * Returns a proxy instance based on the passed type parameter with a method invocation handler,
+   * which saves the needed method invocation information in the current thread. Parameters in the
+   * afterwards called method of the proxy will be used to resolve the URI template of the
+   * corresponding method. It should be ensured that the parameters are annotated with {@linkplain
+   * PathParam} or with {@linkplain QueryParam}. The passed class type must represent interfaces,
+   * not classes or primitive types.
    *
    * @param <T> the type parameter based on the passed type. Should not be null {@literal null}.
    * @param type the type on which the method should be invoked.
    * @return the proxy instance
    * @throws HalLinkMethodInvocationException if the proxy instance could not be created
    */
-  static <T> T methodOn(Class<T> type) {
-    return createProxy(type);
-  }
-
   @SuppressWarnings("unchecked")
-  private static <T> T createProxy(Class<T> type) {
-    THREAD_LOCAL_METHOD_INVOCATION_STATE.get().setType(type);
-    LOG.debug("Class type: '{}' added to the current invocation state", type);
-    try {
-      return (T)
-          Proxy.newProxyInstance(
-              type.getClassLoader(), new Class[] {type}, METHOD_PROCESSING_INVOCATION_HANDLER);
-    } catch (IllegalArgumentException | SecurityException | NullPointerException e) {
-      // Deprecated type needed for backward compatibility until deprecated package is removed
-      // afterwards the the class from this package can be used
-      throw new org.sda.commons.server.jackson.hal.HalLinkMethodInvocationException(
-          String.format("Could not create proxy instance of type '%s' for method invocation", type),
-          e);
-    }
-  }
-
-  private static void processParams(
-      MethodInvocationState methodInvocationState,
-      Object[] methodArguments,
-      Parameter[] parameters) {
-
-    // Correlation between method argument order and annotatedParams order
-    for (int i = 0; i < parameters.length; i++) {
-      Parameter parameter = parameters[i];
-      if (parameter.isAnnotationPresent(PathParam.class)) {
-        final PathParam pathParam = parameter.getAnnotation(PathParam.class);
-        final Object paramValue = methodArguments[i];
-        methodInvocationState.getPathParams().put(pathParam.value(), paramValue);
-        LOG.debug(
-            "Saved PathParam: '{}' with value: '{}' to current invocation state",
-            pathParam.value(),
-            paramValue);
-      } else if (parameter.isAnnotationPresent(QueryParam.class)) {
-        final QueryParam queryParam = parameter.getAnnotation(QueryParam.class);
-        final Object paramValue = methodArguments[i];
-        if (paramValue != null) {
-          methodInvocationState.getQueryParams().put(queryParam.value(), paramValue);
-          LOG.debug(
-              "Saved QueryParam: '{}' with value: '{}' to current invocation state",
-              queryParam.value(),
-              paramValue);
-        } else {
-          LOG.debug("Ignoring parameter {} annotated with {}", i, parameter.getAnnotations());
-        }
-      }
-    }
+  static <T> T methodOn(Class<T> type) {
+    return (T) LINKABLE_TYPES.computeIfAbsent(type, LinkableType::new).proxy;
   }
 
   /**
@@ -111,92 +52,111 @@ public class HalLinkInvocationStateUtility {
    * @return the method invocation state
    */
   static MethodInvocationState loadMethodInvocationState() {
-    LOG.debug("Load invocation state of current thread");
     return THREAD_LOCAL_METHOD_INVOCATION_STATE.get();
   }
 
   /** Unload the method invocation state of the current thread. */
   static void unloadMethodInvocationState() {
-    LOG.debug("Remove invocation state of current thread");
-    THREAD_LOCAL_METHOD_INVOCATION_STATE.remove();
+    THREAD_LOCAL_METHOD_INVOCATION_STATE.get().reset();
   }
 
-  /** Data class to save method invocation information */
-  static class MethodInvocationState {
-    private boolean processed = false;
-    private Class<?> type;
-    private String invokedMethod;
-    private final Map<String, Object> pathParams = new HashMap<>();
-    private final Map<String, Object> queryParams = new HashMap<>();
+  /**
+   * The proxy of a type and the compiled templates of its methods. Invocations of the proxy are
+   * saved in the invocation state of the current thread.
+   */
+  static class LinkableType implements InvocationHandler {
+    private final Class<?> type;
+    private final Object proxy;
+    private final Map<Method, HalLinkTemplate> templates = new ConcurrentHashMap<>();
 
-    /**
-     * Gets type of the class of the invoked method.
-     *
-     * @return the type
-     */
-    Class<?> getType() {
-      return type;
+    private LinkableType(Class<?> type) {
+      this.type = type;
+      LOG.debug("Creating proxy of type '{}' for method invocations", type);
+      try {
+        this.proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class[] {type}, this);
+      } catch (IllegalArgumentException | SecurityException | NullPointerException e) {
+        // Deprecated type needed for backward compatibility until deprecated package is removed
+        // afterwards the the class from this package can be used
+        throw new org.sda.commons.server.jackson.hal.HalLinkMethodInvocationException(
+            String.format(
+                "Could not create proxy instance of type '%s' for method invocation", type),
+            e);
+      }
     }
 
-    /**
-     * Sets type of the class of the invoked method.
-     *
-     * @param type the type
-     */
-    void setType(Class<?> type) {
-      this.type = type;
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] methodArguments) {
+      THREAD_LOCAL_METHOD_INVOCATION_STATE.get().processed(this, method, methodArguments);
+      // Do nothing
+      return null;
     }
 
     /**
-     * Gets the method name.
+     * Gets the compiled template of a method of this type.
      *
-     * @return the invoked method name
+     * @param method the invoked method
+     * @return the template of the method
+     * @throws IllegalArgumentException if the path template of the method is invalid
      */
-    String getInvokedMethod() {
-      return invokedMethod;
+    HalLinkTemplate template(Method method) {
+      return templates.computeIfAbsent(method, m -> HalLinkTemplate.compile(type, m));
     }
+  }
+
+  /** Data class to save method invocation information */
+  static class MethodInvocationState {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private LinkableType linkableType;
+    private Method invokedMethod;
+    private Object[] arguments;
 
     /**
-     * Sets the method name.
+     * Gets the compiled template of the invoked method.
      *
-     * @param invokedMethod the invoked method name
+     * @return the template
+     * @throws IllegalArgumentException if the path template of the method is invalid
      */
-    void setInvokedMethod(String invokedMethod) {
-      this.invokedMethod = invokedMethod;
+    HalLinkTemplate getTemplate() {
+      return linkableType.template(invokedMethod);
     }
 
     /**
-     * Gets the Key-Value pairs of the processed {@linkplain PathParam#value()} and the
-     * corresponding method arguments of the invoked method.
+     * Gets the arguments of the invoked method in order of the parameters.
      *
-     * @return the path params
+     * @return the arguments
      */
-    Map<String, Object> getPathParams() {
-      return pathParams;
+    Object[] getArguments() {
+      return arguments;
     }
 
     /**
-     * Gets the Key-Value pairs of the processed {@linkplain QueryParam#value()} and the
-     * corresponding method arguments of the invoked method.
+     * Returns {@literal true} if the invoked method is processed.
      *
-     * @return the query params
+     * @return the boolean
      */
-    Map<String, Object> getQueryParams() {
-      return queryParams;
+    boolean isProcessed() {
+      return invokedMethod != null;
     }
 
     /**
-     * Returns {@literal true} if the invoked method is processed.
+     * Set the state of the method invocation to processed.
      *
-     * @return the boolean
+     * @param linkableType the type of the invoked proxy
+     * @param invokedMethod the invoked method
+     * @param arguments the arguments of the invocation, {@code null} if the method has none
      */
-    boolean isProcessed() {
-      return processed;
+    void processed(LinkableType linkableType, Method invokedMethod, Object[] arguments) {
+      this.linkableType = linkableType;
+      this.invokedMethod = invokedMethod;
+      this.arguments = arguments == null ? NO_ARGUMENTS : arguments;
     }
 
-    /** Set the state of the method invocation to processed. */
-    void processed() {
-      this.processed = true;
+    /** Resets the state, so that it can be reused for the next invocation. */
+    void reset() {
+      this.linkableType = null;
+      this.invokedMethod = null;
+      this.arguments = null;
     }
   }
 }
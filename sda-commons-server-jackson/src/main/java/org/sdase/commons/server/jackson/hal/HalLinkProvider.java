@@ -6,9 +6,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Feature;
 import javax.ws.rs.core.FeatureContext;
-import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
-import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +38,10 @@ import org.slf4j.LoggerFactory;
  * <p>The builder will use the `UriInfo` of the current request context to create absolute URIs. If
  * no request context is available, it will fall back to a simple path without host that does not
  * include any configured root or context path.
+ *
+ * <p>The proxy of each interface is created once. The path template and the parameter bindings of
+ * each method are compiled when the first link to the method is built, further links only expand
+ * the template with the arguments.
  */
 public class HalLinkProvider implements Feature {
 
@@ -99,20 +101,15 @@ public class HalLinkProvider implements Feature {
         throw new org.sda.commons.server.jackson.hal.HalLinkMethodInvocationException(
             "No proxied method invocation processed.");
       }
-      final UriBuilder uriBuilder =
-          baseUriBuilder()
-              .path(methodInvocationState.getType())
-              .path(methodInvocationState.getType(), methodInvocationState.getInvokedMethod())
-              // Add Path Params from invocation state
-              .resolveTemplates(methodInvocationState.getPathParams());
-      // Add Query Params from invocation state
-      methodInvocationState.getQueryParams().forEach(uriBuilder::queryParam);
-      LinkResult linkResult = new LinkResult(uriBuilder.build());
-      HalLinkInvocationStateUtility.unloadMethodInvocationState();
-      return linkResult;
+      return new LinkResult(
+          methodInvocationState
+              .getTemplate()
+              .expand(baseUri(), methodInvocationState.getArguments()));
     } catch (IllegalArgumentException e) {
       throw new org.sda.commons.server.jackson.hal.HalLinkMethodInvocationException(
           "Could not build URI.", e);
+    } finally {
+      HalLinkInvocationStateUtility.unloadMethodInvocationState();
     }
   }
 
@@ -140,14 +137,15 @@ public class HalLinkProvider implements Feature {
     return HalLinkInvocationStateUtility.methodOn(type);
   }
 
-  private UriBuilder baseUriBuilder() {
+  private String baseUri() {
     try {
-      return uriInfo.getBaseUriBuilder();
+      String baseUri = uriInfo.getBaseUri().toString();
+      return baseUri.endsWith("/") ? baseUri : baseUri + "/";
     } catch (Exception e) {
       LOG.error(
-          "Unable to access baseUriBuilder from request context. Using context unaware builder as a fallback.",
+          "Unable to access baseUri from request context. Using context unaware path as a fallback.",
           e);
-      return new JerseyUriBuilder().path("/");
+      return "/";
     }
   }
 
@@ -0,0 +1,162 @@
+package org.sdase.commons.server.jackson.hal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.UriBuilder;
+import org.glassfish.jersey.uri.UriComponent;
+import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
+
+/**
+ * The precompiled link of a method of a JAX-RS interface. The path template of the interface and
+ * the method is parsed once into literal parts and template variables. Each template variable and
+ * each query parameter is bound to the index of the {@linkplain PathParam} or {@linkplain
+ * QueryParam} annotated method parameter, so that building a link only expands the template with
+ * the arguments of an invocation.
+ */
+final class HalLinkTemplate {
+
+  /** The literal parts of the path template, one more than {@link #variableNames}. */
+  private final String[] literals;
+
+  /** The names of the template variables in order of their occurrence in the path template. */
+  private final String[] variableNames;
+
+  /** The index of the argument of each template variable, {@code -1} if no parameter is bound. */
+  private final int[] variableArgumentIndexes;
+
+  /** The encoded name of the query parameter by argument index, {@code null} for other params. */
+  private final String[] queryParamNames;
+
+  private HalLinkTemplate(
+      String[] literals,
+      String[] variableNames,
+      int[] variableArgumentIndexes,
+      String[] queryParamNames) {
+    this.literals = literals;
+    this.variableNames = variableNames;
+    this.variableArgumentIndexes = variableArgumentIndexes;
+    this.queryParamNames = queryParamNames;
+  }
+
+  /**
+   * @param type the JAX-RS interface
+   * @param method the invoked method of the interface
+   * @return the compiled link of the method
+   * @throws IllegalArgumentException if the path template is invalid
+   */
+  static HalLinkTemplate compile(Class<?> type, Method method) {
+    UriBuilder pathBuilder = new JerseyUriBuilder().path(type);
+    if (method.isAnnotationPresent(Path.class)) {
+      pathBuilder.path(method);
+    }
+    String pathTemplate = pathBuilder.toTemplate();
+
+    Parameter[] parameters = method.getParameters();
+    String[] pathParamNames = new String[parameters.length];
+    String[] queryParamNames = new String[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      PathParam pathParam = parameters[i].getAnnotation(PathParam.class);
+      QueryParam queryParam = parameters[i].getAnnotation(QueryParam.class);
+      if (pathParam != null) {
+        pathParamNames[i] = pathParam.value();
+      } else if (queryParam != null) {
+        queryParamNames[i] =
+            UriComponent.contextualEncode(queryParam.value(), UriComponent.Type.QUERY_PARAM);
+      }
+    }
+
+    List<String> literals = new ArrayList<>();
+    List<String> variableNames = new ArrayList<>();
+    int literalStart = 0;
+    int variableStart = pathTemplate.indexOf('{');
+    while (variableStart >= 0) {
+      int variableEnd = endOfVariable(pathTemplate, variableStart);
+      literals.add(pathTemplate.substring(literalStart, variableStart));
+      String variable = pathTemplate.substring(variableStart + 1, variableEnd);
+      int regexStart = variable.indexOf(':');
+      variableNames.add((regexStart < 0 ? variable : variable.substring(0, regexStart)).trim());
+      literalStart = variableEnd + 1;
+      variableStart = pathTemplate.indexOf('{', literalStart);
+    }
+    literals.add(pathTemplate.substring(literalStart));
+
+    int[] variableArgumentIndexes = new int[variableNames.size()];
+    for (int v = 0; v < variableArgumentIndexes.length; v++) {
+      variableArgumentIndexes[v] = -1;
+      for (int i = 0; i < pathParamNames.length; i++) {
+        if (variableNames.get(v).equals(pathParamNames[i])) {
+          variableArgumentIndexes[v] = i;
+        }
+      }
+    }
+
+    return new HalLinkTemplate(
+        literals.toArray(new String[0]),
+        variableNames.toArray(new String[0]),
+        variableArgumentIndexes,
+        queryParamNames);
+  }
+
+  /**
+   * Expands the template with the arguments of an invocation of the method.
+   *
+   * @param baseUri the base URI the path of the method is relative to, ending with a slash
+   * @param arguments the arguments of the invocation
+   * @return the URI of the invocation
+   * @throws IllegalArgumentException if a template variable has no value or the URI is invalid
+   */
+  URI expand(String baseUri, Object[] arguments) {
+    StringBuilder uri = new StringBuilder(baseUri.length() + 64);
+    // the base URI ends with a slash, the path template may start with one
+    if (literals[0].startsWith("/")) {
+      uri.append(baseUri, 0, baseUri.length() - 1);
+    } else {
+      uri.append(baseUri);
+    }
+    for (int v = 0; v < variableNames.length; v++) {
+      uri.append(literals[v]);
+      int argumentIndex = variableArgumentIndexes[v];
+      Object value = argumentIndex < 0 ? null : arguments[argumentIndex];
+      if (value == null) {
+        throw new IllegalArgumentException(
+            String.format("The template variable '%s' has no value.", variableNames[v]));
+      }
+      uri.append(UriComponent.encode(value.toString(), UriComponent.Type.PATH_SEGMENT));
+    }
+    uri.append(literals[variableNames.length]);
+
+    char separator = '?';
+    for (int i = 0; i < queryParamNames.length; i++) {
+      if (queryParamNames[i] != null && arguments[i] != null) {
+        uri.append(separator)
+            .append(queryParamNames[i])
+            .append('=')
+            .append(
+                UriComponent.contextualEncode(
+                    arguments[i].toString(), UriComponent.Type.QUERY_PARAM));
+        separator = '&';
+      }
+    }
+    return URI.create(uri.toString());
+  }
+
+  private static int endOfVariable(String pathTemplate, int variableStart) {
+    int depth = 0;
+    for (int i = variableStart; i < pathTemplate.length(); i++) {
+      char c = pathTemplate.charAt(i);
+      if (c == '{') {
+        depth++;
+      } else if (c == '}' && --depth == 0) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(
+        String.format("The path template '%s' is not closed.", pathTemplate));
+  }
+}
@@ -0,0 +1,200 @@
+package org.sdase.commons.server.jackson.stream;
+
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A collection that is written to the response incrementally as JSON array while its elements are
+ * consumed, e.g. from a database cursor. The complete collection is never held in memory. Resources
+ * may return a {@code StreamingCollection} as entity:
+ *
+ * <pre>
+ *   &#64;GET
+ *   &#64;Produces(MediaType.APPLICATION_JSON)
+ *   public StreamingCollection&lt;PersonResource&gt; getPersons() {
+ *     return StreamingCollection.of(personRepository.streamAll().map(this::toResource));
+ *   }
+ * </pre>
+ *
+ * <p>The elements are serialized with the {@link com.fasterxml.jackson.databind.ObjectMapper} of
+ * the application. HAL resources and the field filter work the same way as for a {@link
+ * java.util.List} of the elements. Optionally, the collection is wrapped in a HAL resource with
+ * links and the elements as embedded resources:
+ *
+ * <pre>
+ *   StreamingCollection.of(persons).asEmbedded("persons").withLink("self", selfLink);
+ *   // {"_links":{"self":{"href":"..."}},"_embedded":{"persons":[...]}}
+ * </pre>
+ *
+ * <p>The source of the elements is closed when the response is written or writing failed. It is
+ * closed as well if the collection is not written at all, e.g. for {@code HEAD} requests or if a
+ * filter replaced the entity of the response. Errors while reading the first element are handled by
+ * the exception mappers like errors in the resource method. Errors while reading further elements
+ * end the response with incomplete JSON, because the status and the beginning of the collection may
+ * have been sent to the client already.
+ *
+ * @param <T> the type of the elements
+ */
+public class StreamingCollection<T> implements Closeable {
+
+  /** The default amount of elements written before the output is flushed to the client. */
+  public static final int DEFAULT_FLUSH_INTERVAL = 100;
+
+  private final Supplier<Iterator<T>> iteratorSupplier;
+
+  private AutoCloseable resource;
+
+  private Iterator<T> iterator;
+
+  private String embeddedRel;
+
+  private final Map<String, HALLink> links = new LinkedHashMap<>();
+
+  private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private StreamingCollection(Supplier<Iterator<T>> iteratorSupplier, AutoCloseable resource) {
+    this.iteratorSupplier = iteratorSupplier;
+    this.resource = resource;
+  }
+
+  /**
+   * @param stream the elements of the collection, the stream is closed after it has been written
+   * @param <T> the type of the elements
+   * @return the collection streaming the elements
+   */
+  public static <T> StreamingCollection<T> of(Stream<T> stream) {
+    Objects.requireNonNull(stream, "stream");
+    return new StreamingCollection<>(stream::iterator, stream);
+  }
+
+  /**
+   * @param iterable the elements of the collection, the iterator is created when the response is
+   *     written and closed afterwards if it is {@link AutoCloseable}, e.g. a {@code MongoCursor}
+   * @param <T> the type of the elements
+   * @return the collection streaming the elements
+   */
+  public static <T> StreamingCollection<T> of(Iterable<T> iterable) {
+    Objects.requireNonNull(iterable, "iterable");
+    return new StreamingCollection<>(iterable::iterator, null);
+  }
+
+  /**
+   * @param iterator the elements of the collection, the iterator is closed after it has been
+   *     written if it is {@link AutoCloseable}, e.g. a {@code MongoCursor}
+   * @param <T> the type of the elements
+   * @return the collection streaming the elements
+   */
+  public static <T> StreamingCollection<T> of(Iterator<T> iterator) {
+    Objects.requireNonNull(iterator, "iterator");
+    return new StreamingCollection<>(() -> iterator, null);
+  }
+
+  /**
+   * Closes the given resource with the source of the elements, e.g. a session or connection that is
+   * needed to read the elements.
+   *
+   * @param resource the resource to close after the collection has been written
+   * @return this collection
+   */
+  public StreamingCollection<T> withResource(AutoCloseable resource) {
+    AutoCloseable previous = this.resource;
+    this.resource =
+        previous == null
+            ? resource
+            : () -> {
+              try (AutoCloseable first = previous) {
+                resource.close();
+              }
+            };
+    return this;
+  }
+
+  /**
+   * Writes the collection as HAL resource with the elements embedded as {@code _embedded.<rel>}
+   * instead of a plain JSON array.
+   *
+   * @param rel the relation name of the embedded elements
+   * @return this collection
+   */
+  public StreamingCollection<T> asEmbedded(String rel) {
+    this.embeddedRel = Objects.requireNonNull(rel, "rel");
+    return this;
+  }
+
+  /**
+   * Adds a link to the HAL resource, only written if the collection is written {@link
+   * #asEmbedded(String) as embedded} elements.
+   *
+   * @param rel the relation name of the link, e.g. {@code self}
+   * @param link the link
+   * @return this collection
+   */
+  public StreamingCollection<T> withLink(String rel, HALLink link) {
+    this.links.put(Objects.requireNonNull(rel, "rel"), Objects.requireNonNull(link, "link"));
+    return this;
+  }
+
+  /**
+   * @param flushInterval the amount of elements written before the output is flushed to the client,
+   *     defaults to {@value #DEFAULT_FLUSH_INTERVAL}
+   * @return this collection
+   */
+  public StreamingCollection<T> withFlushInterval(int flushInterval) {
+    if (flushInterval < 1) {
+      throw new IllegalArgumentException("The flush interval must be positive: " + flushInterval);
+    }
+    this.flushInterval = flushInterval;
+    return this;
+  }
+
+  /** @return the elements of the collection, only consumed once */
+  Iterator<T> iterator() {
+    if (iterator == null) {
+      iterator = iteratorSupplier.get();
+    }
+    return iterator;
+  }
+
+  /** @return the relation name of the embedded elements or {@code null} to write a plain array */
+  String getEmbeddedRel() {
+    return embeddedRel;
+  }
+
+  /** @return the links of the HAL resource */
+  Map<String, HALLink> getLinks() {
+    return links;
+  }
+
+  /** @return the amount of elements written before the output is flushed */
+  int getFlushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * Closes the source of the elements and the {@linkplain #withResource(AutoCloseable) resource}.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    try (AutoCloseable closeableResource = resource;
+        AutoCloseable closeableIterator =
+            iterator instanceof AutoCloseable ? (AutoCloseable) iterator : null) {
+      // closes both
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to close the source of the streamed collection", e);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package org.sdase.commons.server.jackson.stream;
+
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closes a {@link StreamingCollection} returned by a resource when the request is finished. The
+ * {@link StreamingCollectionMessageBodyWriter} closes the collection after writing it, but it is
+ * not invoked for {@code HEAD} requests or if a response filter replaced the entity.
+ */
+public class StreamingCollectionCloser implements ApplicationEventListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreamingCollectionCloser.class);
+
+  @Override
+  public void onEvent(ApplicationEvent event) {
+    // nothing to do
+  }
+
+  @Override
+  public RequestEventListener onRequest(RequestEvent requestEvent) {
+    if (requestEvent.getType() == RequestEvent.Type.START) {
+      return new CloseRequestEventListener();
+    }
+    return null;
+  }
+
+  static class CloseRequestEventListener implements RequestEventListener {
+
+    /** The collection returned by the resource, before response filters may replace it. */
+    private StreamingCollection<?> collection;
+
+    @Override
+    public void onEvent(RequestEvent event) {
+      if (event.getType() == RequestEvent.Type.RESP_FILTERS_START) {
+        collection = streamingCollectionOf(event.getContainerResponse());
+      } else if (event.getType() == RequestEvent.Type.FINISHED) {
+        close(collection);
+        close(streamingCollectionOf(event.getContainerResponse()));
+      }
+    }
+
+    private static StreamingCollection<?> streamingCollectionOf(ContainerResponse response) {
+      if (response != null && response.getEntity() instanceof StreamingCollection) {
+        return (StreamingCollection<?>) response.getEntity();
+      }
+      return null;
+    }
+
+    private static void close(StreamingCollection<?> streamingCollection) {
+      if (streamingCollection == null) {
+        return;
+      }
+      try {
+        // does nothing if the collection has been closed after writing
+        streamingCollection.close();
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to close the streamed collection of the response", e);
+      }
+    }
+  }
+}
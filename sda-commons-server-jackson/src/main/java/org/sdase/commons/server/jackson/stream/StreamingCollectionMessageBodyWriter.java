@@ -0,0 +1,180 @@
+package org.sdase.commons.server.jackson.stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Writes a {@link StreamingCollection} incrementally as JSON array. The elements are serialized one
+ * after another with the {@link ObjectMapper} of the application and the output is flushed after
+ * each {@linkplain StreamingCollection#withFlushInterval(int) flush interval}. Writing blocks while
+ * the client does not consume the response, so that the elements are read from the source only as
+ * fast as the client receives them.
+ */
+public class StreamingCollectionMessageBodyWriter
+    implements MessageBodyWriter<StreamingCollection<?>> {
+
+  private final ObjectMapper objectMapper;
+
+  /** @param objectMapper the {@link ObjectMapper} used to serialize the elements */
+  public StreamingCollectionMessageBodyWriter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public boolean isWriteable(
+      Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return StreamingCollection.class.isAssignableFrom(type) && isJson(mediaType);
+  }
+
+  @Override
+  public void writeTo(
+      StreamingCollection<?> collection,
+      Class<?> type,
+      Type genericType,
+      Annotation[] annotations,
+      MediaType mediaType,
+      MultivaluedMap<String, Object> httpHeaders,
+      OutputStream entityStream)
+      throws IOException {
+    // created per response to consider modules registered after this writer has been created,
+    // flushing is controlled by the flush interval of the collection
+    ObjectWriter objectWriter =
+        objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (StreamingCollection<?> closeableCollection = collection) {
+      Iterator<?> elements = closeableCollection.iterator();
+      // read the first element before anything is written to be able to respond with an error
+      boolean hasNext = elements.hasNext();
+
+      DiscardableOutputStream output = new DiscardableOutputStream(entityStream);
+      JsonGenerator generator = objectWriter.createGenerator(output);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      // closing after a failure must not complete the truncated JSON
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+      boolean written = false;
+      try {
+        writeCollection(objectWriter, generator, closeableCollection, elements, hasNext);
+        written = true;
+      } finally {
+        if (!written) {
+          // output that has not been flushed yet is dropped, if nothing has been flushed the
+          // response may still be mapped to an error
+          output.discard();
+        }
+        generator.close();
+      }
+    }
+  }
+
+  private static void writeCollection(
+      ObjectWriter objectWriter,
+      JsonGenerator generator,
+      StreamingCollection<?> collection,
+      Iterator<?> elements,
+      boolean hasNext)
+      throws IOException {
+    String embeddedRel = collection.getEmbeddedRel();
+    if (embeddedRel != null) {
+      generator.writeStartObject();
+      writeLinks(objectWriter, generator, collection.getLinks());
+      generator.writeObjectFieldStart("_embedded");
+      generator.writeFieldName(embeddedRel);
+    }
+
+    // the sequence writer reuses the serializers of the elements, closing it does only end the
+    // array but does not close the generator
+    SequenceWriter sequenceWriter = objectWriter.writeValuesAsArray(generator);
+    int flushInterval = collection.getFlushInterval();
+    int count = 0;
+    boolean next = hasNext;
+    while (next) {
+      sequenceWriter.write(elements.next());
+      if (++count % flushInterval == 0) {
+        generator.flush();
+      }
+      next = elements.hasNext();
+    }
+    sequenceWriter.close();
+
+    if (embeddedRel != null) {
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+  }
+
+  private static void writeLinks(
+      ObjectWriter objectWriter, JsonGenerator generator, Map<String, HALLink> links)
+      throws IOException {
+    if (links.isEmpty()) {
+      return;
+    }
+    generator.writeObjectFieldStart("_links");
+    for (Map.Entry<String, HALLink> link : links.entrySet()) {
+      generator.writeFieldName(link.getKey());
+      objectWriter.writeValue(generator, link.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  private static boolean isJson(MediaType mediaType) {
+    if (mediaType == null || mediaType.isWildcardType()) {
+      return true;
+    }
+    String subtype = mediaType.getSubtype();
+    return "json".equalsIgnoreCase(subtype) || subtype.toLowerCase(Locale.ROOT).endsWith("+json");
+  }
+
+  /** Forwards to the entity stream until the output is discarded after a failure. */
+  private static class DiscardableOutputStream extends FilterOutputStream {
+
+    private boolean discarded;
+
+    private DiscardableOutputStream(OutputStream entityStream) {
+      super(entityStream);
+    }
+
+    private void discard() {
+      discarded = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (!discarded) {
+        out.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (!discarded) {
+        out.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!discarded) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() {
+      // the entity stream is closed by Jersey
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package org.sdase.commons.server.jackson;
+
+/** Runs the tests of the {@link DateFormatObjectMapperTest} with bytecode acceleration. */
+public class BytecodeAcceleratedDateFormatObjectMapperTest extends DateFormatObjectMapperTest {
+
+  @Override
+  protected ObjectMapperConfigurationUtil.Builder configureMapper() {
+    return super.configureMapper().withBytecodeAcceleration();
+  }
+}
@@ -0,0 +1,20 @@
+package org.sdase.commons.server.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/** Runs the tests of the {@link TolerantObjectMapperTest} with bytecode acceleration. */
+public class BytecodeAcceleratedTolerantObjectMapperTest extends TolerantObjectMapperTest {
+
+  @Override
+  protected ObjectMapperConfigurationUtil.Builder configureMapper() {
+    return super.configureMapper().withBytecodeAcceleration();
+  }
+
+  @Test
+  public void shouldRegisterBlackbirdModule() {
+    assertThat(configureMapper().build().getRegisteredModuleIds())
+        .contains("com.fasterxml.jackson.module.blackbird.BlackbirdModule");
+  }
+}
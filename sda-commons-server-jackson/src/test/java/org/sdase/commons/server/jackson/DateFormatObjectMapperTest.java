@@ -29,15 +29,17 @@ public class DateFormatObjectMapperTest {
 
   @Before
   public void setUp() {
-    this.om = ObjectMapperConfigurationUtil.configureMapper().build();
-    this.alwaysMillisOm =
-        ObjectMapperConfigurationUtil.configureMapper()
-            .alwaysWriteZonedDateTimeWithMillis()
-            .build();
-    this.onlySecondsOm =
-        ObjectMapperConfigurationUtil.configureMapper()
-            .alwaysWriteZonedDateTimeWithoutMillis()
-            .build();
+    this.om = configureMapper().build();
+    this.alwaysMillisOm = configureMapper().alwaysWriteZonedDateTimeWithMillis().build();
+    this.onlySecondsOm = configureMapper().alwaysWriteZonedDateTimeWithoutMillis().build();
+  }
+
+  /**
+   * @return the builder of the {@link ObjectMapper}s under test, may be overridden to run the same
+   *     tests with other options
+   */
+  protected ObjectMapperConfigurationUtil.Builder configureMapper() {
+    return ObjectMapperConfigurationUtil.configureMapper();
   }
 
   @Test
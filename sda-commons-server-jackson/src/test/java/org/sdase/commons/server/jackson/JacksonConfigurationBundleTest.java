@@ -1,6 +1,7 @@
 package org.sdase.commons.server.jackson;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -14,6 +15,9 @@ import io.openapitools.jackson.dataformat.hal.HALLink;
 import java.net.URI;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Test;
+import org.sdase.commons.server.jackson.filter.FieldFilterPlan;
+import org.sdase.commons.server.jackson.test.Address;
+import org.sdase.commons.server.jackson.test.PersonResource;
 import org.sdase.commons.server.jackson.test.ResourceWithLink;
 
 public class JacksonConfigurationBundleTest {
@@ -84,6 +88,51 @@ public class JacksonConfigurationBundleTest {
                 + "}");
   }
 
+  @Test
+  public void shouldRenderSelfLinkWithBytecodeAcceleration() throws Exception {
+
+    ObjectMapper objectMapper =
+        objectMapperFromBundle(
+            JacksonConfigurationBundle.builder().withBytecodeAcceleration().build());
+    HALLink link = new HALLink.Builder(URI.create("http://test/1")).build();
+    ResourceWithLink resource = new ResourceWithLink().setSelf(link);
+
+    String json = objectMapper.writeValueAsString(resource);
+
+    assertThat(json).isEqualTo("{\"_links\":{\"self\":{\"href\":\"http://test/1\"}}}");
+  }
+
+  @Test
+  public void shouldFilterFieldsOfHalResourceWithBytecodeAcceleration() throws Exception {
+    ObjectMapper objectMapper =
+        objectMapperFromBundle(JacksonConfigurationBundle.builder().build());
+    ObjectMapper acceleratedObjectMapper =
+        objectMapperFromBundle(
+            JacksonConfigurationBundle.builder().withBytecodeAcceleration().build());
+    PersonResource resource =
+        new PersonResource()
+            .setSelf(new HALLink.Builder(URI.create("http://test/1")).build())
+            .setFirstName("John")
+            .setLastName("Doe")
+            .setAddress(singletonList(new Address().setId("1").setCity("Hamburg")));
+
+    String json = acceleratedObjectMapper.writeValueAsString(resource);
+    String filteredJson;
+    try (FieldFilterPlan.Scope ignored =
+        FieldFilterPlan.activate(
+            FieldFilterPlan.of(singletonList("lastName,_embedded.address.city")))) {
+      filteredJson = acceleratedObjectMapper.writeValueAsString(resource);
+      assertThat(filteredJson).isEqualTo(objectMapper.writeValueAsString(resource));
+    }
+
+    assertThat(json).isEqualTo(objectMapper.writeValueAsString(resource));
+    assertThat(filteredJson)
+        .isEqualTo(
+            "{\"_links\":{\"self\":{\"href\":\"http://test/1\"}},"
+                + "\"_embedded\":{\"address\":[{\"city\":\"Hamburg\"}]},"
+                + "\"lastName\":\"Doe\"}");
+  }
+
   /**
    * @param jacksonConfigurationBundle the bundle
    * @return the {@link ObjectMapper} as it would be created in a Dropwizard App using the given
@@ -26,7 +26,15 @@ public class TolerantObjectMapperTest {
 
   @Before
   public void setUp() {
-    this.om = ObjectMapperConfigurationUtil.configureMapper().build();
+    this.om = configureMapper().build();
+  }
+
+  /**
+   * @return the builder of the {@link ObjectMapper}s under test, may be overridden to run the same
+   *     tests with other options
+   */
+  protected ObjectMapperConfigurationUtil.Builder configureMapper() {
+    return ObjectMapperConfigurationUtil.configureMapper();
   }
 
   @Test
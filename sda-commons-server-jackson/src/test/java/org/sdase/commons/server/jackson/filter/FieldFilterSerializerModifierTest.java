@@ -0,0 +1,163 @@
+package org.sdase.commons.server.jackson.filter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.jackson.EnableFieldFilter;
+
+class FieldFilterSerializerModifierTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper().registerModule(new JacksonFieldFilterModule());
+
+  @Test
+  void shouldSerializeAllFieldsWithoutActivePlan() throws JsonProcessingException {
+    assertThat(objectMapper.writeValueAsString(new Person("John", "Doe", null)))
+        .isEqualTo("{\"firstName\":\"John\",\"lastName\":\"Doe\",\"partner\":null}");
+  }
+
+  @Test
+  void shouldSerializeSelectedFields() throws JsonProcessingException {
+    assertThat(write(new Person("John", "Doe", null), " lastName , partner"))
+        .isEqualTo("{\"lastName\":\"Doe\",\"partner\":null}");
+  }
+
+  @Test
+  void shouldSerializeSelectedFieldsOfEachElement() throws JsonProcessingException {
+    List<Person> people = asList(new Person("John", "Doe", null), new Person("Jane", "Doe", null));
+
+    assertThat(write(people, "firstName"))
+        .isEqualTo("[{\"firstName\":\"John\"},{\"firstName\":\"Jane\"}]");
+  }
+
+  @Test
+  void shouldSerializeAllFieldsOfNestedObjects() throws JsonProcessingException {
+    Person john = new Person("John", "Doe", new Person("Jane", "Doe", null));
+
+    assertThat(write(john, "partner"))
+        .isEqualTo("{\"partner\":{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"partner\":null}}");
+  }
+
+  @Test
+  void shouldSerializeSelectedFieldsOfNestedObjects() throws JsonProcessingException {
+    Person john = new Person("John", "Doe", new Person("Jane", "Doe", null));
+
+    assertThat(write(john, "firstName,partner.lastName"))
+        .isEqualTo("{\"firstName\":\"John\",\"partner\":{\"lastName\":\"Doe\"}}");
+  }
+
+  @Test
+  void shouldSerializeSelectedFieldsOfNestedElements() throws JsonProcessingException {
+    Family family =
+        new Family(
+            new Person("John", "Doe", null),
+            asList(new Person("Jane", "Doe", null), new Person("Jim", "Doe", null)));
+
+    assertThat(write(family, "members.firstName"))
+        .isEqualTo("{\"members\":[{\"firstName\":\"Jane\"},{\"firstName\":\"Jim\"}]}");
+  }
+
+  @Test
+  void shouldSerializeAllFieldsOfCompletelySelectedParent() throws JsonProcessingException {
+    Person john = new Person("John", "Doe", new Person("Jane", "Doe", null));
+
+    assertThat(write(john, "partner.firstName,partner"))
+        .isEqualTo("{\"partner\":{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"partner\":null}}");
+  }
+
+  @Test
+  void shouldSerializeAllFieldsOfObjectsInUnselectedParents() throws JsonProcessingException {
+    Map<String, Person> embedded = singletonMap("owner", new Person("John", "Doe", null));
+
+    assertThat(write(embedded, "firstName"))
+        .isEqualTo("{\"owner\":{\"firstName\":\"John\",\"lastName\":\"Doe\",\"partner\":null}}");
+  }
+
+  @Test
+  void shouldReuseCompiledSelection() {
+    FieldFilterPlan plan = FieldFilterPlan.of(singletonList("partner.lastName, firstName"));
+
+    assertThat(FieldFilterPlan.of(asList("firstName", "partner.lastName,")).root())
+        .isSameAs(plan.root());
+    assertThat(plan.getSelectedFields()).containsExactlyInAnyOrder("firstName", "partner");
+  }
+
+  @Test
+  void shouldRestorePreviousPlan() {
+    FieldFilterPlan outer = FieldFilterPlan.of(singletonList("firstName"));
+    try (FieldFilterPlan.Scope ignored = FieldFilterPlan.activate(outer)) {
+      try (FieldFilterPlan.Scope ignoredInner = FieldFilterPlan.activate(null)) {
+        assertThat(FieldFilterPlan.active()).isNull();
+      }
+      assertThat(FieldFilterPlan.active()).isSameAs(outer);
+    }
+    assertThat(FieldFilterPlan.active()).isNull();
+  }
+
+  @Test
+  void shouldCreateNoPlanWithoutFieldsParameter() {
+    assertThat(FieldFilterPlan.of(null)).isNull();
+    assertThat(FieldFilterPlan.of(asList("a, b", "c")).getSelectedFields())
+        .containsExactlyInAnyOrder("a", "b", "c");
+  }
+
+  private String write(Object value, String fields) throws JsonProcessingException {
+    try (FieldFilterPlan.Scope ignored =
+        FieldFilterPlan.activate(FieldFilterPlan.of(singletonList(fields)))) {
+      return objectMapper.writeValueAsString(value);
+    }
+  }
+
+  @EnableFieldFilter
+  public static class Family {
+
+    private final Person head;
+    private final List<Person> members;
+
+    Family(Person head, List<Person> members) {
+      this.head = head;
+      this.members = members;
+    }
+
+    public Person getHead() {
+      return head;
+    }
+
+    public List<Person> getMembers() {
+      return members;
+    }
+  }
+
+  @EnableFieldFilter
+  public static class Person {
+
+    private final String firstName;
+    private final String lastName;
+    private final Person partner;
+
+    Person(String firstName, String lastName, Person partner) {
+      this.firstName = firstName;
+      this.lastName = lastName;
+      this.partner = partner;
+    }
+
+    public String getFirstName() {
+      return firstName;
+    }
+
+    public String getLastName() {
+      return lastName;
+    }
+
+    public Person getPartner() {
+      return partner;
+    }
+  }
+}
@@ -86,6 +86,31 @@ public class HalLinkProviderTest {
         .hasMessageContaining("No proxied method invocation processed.");
   }
 
+  @Test
+  public void shouldProvideHalLinkForPathParamWithRegex() {
+    final org.sda.commons.server.jackson.hal.LinkResult linkResult =
+        linkTo(methodOn(TestApi.class).testMethodRegex("TEST", "42"));
+    assertLinkResult(linkResult, "/testPath/TEST/items/42");
+  }
+
+  @Test
+  public void shouldEncodePathAndQueryParams() {
+    final org.sda.commons.server.jackson.hal.LinkResult linkResult =
+        linkTo(methodOn(TestApi.class).testMethodDetail("TE/ST {x}", 1, "test query"));
+    assertLinkResult(linkResult, "/testPath/TE%2FST%20%7Bx%7D/detail/test%20query?query=1");
+  }
+
+  @Test
+  public void shouldReuseProxyOfType() {
+    assertThat(methodOn(TestApi.class)).isSameAs(methodOn(TestApi.class));
+  }
+
+  @Test
+  public void shouldProvideDifferentHalLinksForSameMethod() {
+    assertLinkResult(linkTo(methodOn(TestApi.class).testMethod("ONE")), "/testPath/ONE");
+    assertLinkResult(linkTo(methodOn(TestApi.class).testMethod("TWO")), "/testPath/TWO");
+  }
+
   private void assertLinkResult(LinkResult linkResult, String expectedPath) {
     final HALLink halLink = linkResult.asHalLink();
     final URI uri = linkResult.asUri();
@@ -115,6 +140,10 @@ interface TestApi {
   @GET
   String testMethodQueryParam(@QueryParam("testRequestParam") String testArg);
 
+  @Path("/testPath/{testArg}/items/{id: [0-9]+}")
+  @GET
+  String testMethodRegex(@PathParam("testArg") String testArg, @PathParam("id") String id);
+
   @Path("/testPathWithNoParams")
   @GET
   String testMethodWithoutParams();
@@ -0,0 +1,75 @@
+package org.sdase.commons.server.jackson.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.junit.jupiter.api.Test;
+
+class StreamingCollectionCloserTest {
+
+  private final StreamingCollectionCloser closer = new StreamingCollectionCloser();
+
+  private final AtomicInteger closeCount = new AtomicInteger();
+
+  private final StreamingCollection<String> collection =
+      StreamingCollection.of(Stream.of("a", "b").onClose(closeCount::incrementAndGet));
+
+  @Test
+  void shouldCloseCollectionThatHasNotBeenWritten() {
+    RequestEventListener listener = closer.onRequest(event(RequestEvent.Type.START, null));
+
+    listener.onEvent(event(RequestEvent.Type.RESP_FILTERS_START, collection));
+    assertThat(closeCount).hasValue(0);
+    listener.onEvent(event(RequestEvent.Type.FINISHED, collection));
+
+    assertThat(closeCount).hasValue(1);
+  }
+
+  @Test
+  void shouldCloseCollectionReplacedByFilter() {
+    RequestEventListener listener = closer.onRequest(event(RequestEvent.Type.START, null));
+
+    listener.onEvent(event(RequestEvent.Type.RESP_FILTERS_START, collection));
+    listener.onEvent(event(RequestEvent.Type.FINISHED, "replaced"));
+
+    assertThat(closeCount).hasValue(1);
+  }
+
+  @Test
+  void shouldNotCloseWrittenCollectionAgain() {
+    RequestEventListener listener = closer.onRequest(event(RequestEvent.Type.START, null));
+
+    listener.onEvent(event(RequestEvent.Type.RESP_FILTERS_START, collection));
+    collection.close();
+    listener.onEvent(event(RequestEvent.Type.FINISHED, collection));
+
+    assertThat(closeCount).hasValue(1);
+  }
+
+  @Test
+  void shouldIgnoreOtherEntities() {
+    RequestEventListener listener = closer.onRequest(event(RequestEvent.Type.START, null));
+
+    listener.onEvent(event(RequestEvent.Type.RESP_FILTERS_START, "entity"));
+    listener.onEvent(event(RequestEvent.Type.FINISHED, null));
+
+    assertThat(closeCount).hasValue(0);
+  }
+
+  private static RequestEvent event(RequestEvent.Type type, Object entity) {
+    RequestEvent event = mock(RequestEvent.class);
+    when(event.getType()).thenReturn(type);
+    if (entity != null) {
+      ContainerResponse response = mock(ContainerResponse.class);
+      when(response.getEntity()).thenReturn(entity);
+      when(event.getContainerResponse()).thenReturn(response);
+    }
+    return event;
+  }
+}
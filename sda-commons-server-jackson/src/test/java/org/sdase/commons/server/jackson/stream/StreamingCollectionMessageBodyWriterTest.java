@@ -0,0 +1,268 @@
+package org.sdase.commons.server.jackson.stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.jackson.EnableFieldFilter;
+import org.sdase.commons.server.jackson.ObjectMapperConfigurationUtil;
+import org.sdase.commons.server.jackson.filter.FieldFilterPlan;
+import org.sdase.commons.server.jackson.filter.JacksonFieldFilterModule;
+
+class StreamingCollectionMessageBodyWriterTest {
+
+  private final StreamingCollectionMessageBodyWriter writer =
+      new StreamingCollectionMessageBodyWriter(
+          ObjectMapperConfigurationUtil.configureMapper()
+              .build()
+              .registerModule(new JacksonFieldFilterModule()));
+
+  private final FlushRecordingOutputStream out = new FlushRecordingOutputStream();
+
+  @Test
+  void shouldWriteElementsAsArray() throws IOException {
+    write(StreamingCollection.of(Stream.of(new Item("a", 1), new Item("b", 2))));
+
+    assertThat(out.toString())
+        .isEqualTo("[{\"name\":\"a\",\"amount\":1},{\"name\":\"b\",\"amount\":2}]");
+  }
+
+  @Test
+  void shouldWriteEmptyArray() throws IOException {
+    write(StreamingCollection.of(new ArrayList<Item>()));
+
+    assertThat(out.toString()).isEqualTo("[]");
+  }
+
+  @Test
+  void shouldWriteElementsAsEmbeddedResources() throws IOException {
+    HALLink self = new HALLink.Builder(URI.create("http://test/items")).build();
+
+    write(
+        StreamingCollection.of(singletonList(new Item("a", 1)))
+            .asEmbedded("items")
+            .withLink("self", self));
+
+    assertThat(out.toString())
+        .isEqualTo(
+            "{\"_links\":{\"self\":{\"href\":\"http://test/items\"}},"
+                + "\"_embedded\":{\"items\":[{\"name\":\"a\",\"amount\":1}]}}");
+  }
+
+  @Test
+  void shouldFilterFieldsOfElements() throws IOException {
+    try (FieldFilterPlan.Scope ignored =
+        FieldFilterPlan.activate(FieldFilterPlan.of(singletonList("name")))) {
+      write(StreamingCollection.of(asList(new Item("a", 1), new Item("b", 2)).iterator()));
+    }
+
+    assertThat(out.toString()).isEqualTo("[{\"name\":\"a\"},{\"name\":\"b\"}]");
+  }
+
+  @Test
+  void shouldFlushAfterEachInterval() throws IOException {
+    write(
+        StreamingCollection.of(IntStream.range(0, 5).mapToObj(i -> new Item("i" + i, i)))
+            .withFlushInterval(2));
+
+    assertThat(out.flushedContents)
+        .startsWith(
+            "[{\"name\":\"i0\",\"amount\":0},{\"name\":\"i1\",\"amount\":1}",
+            "[{\"name\":\"i0\",\"amount\":0},{\"name\":\"i1\",\"amount\":1},"
+                + "{\"name\":\"i2\",\"amount\":2},{\"name\":\"i3\",\"amount\":3}");
+  }
+
+  @Test
+  void shouldCloseStreamAndResourceAfterWriting() throws IOException {
+    AtomicBoolean streamClosed = new AtomicBoolean();
+    AtomicBoolean resourceClosed = new AtomicBoolean();
+
+    write(
+        StreamingCollection.of(Stream.of(new Item("a", 1)).onClose(() -> streamClosed.set(true)))
+            .withResource(() -> resourceClosed.set(true)));
+
+    assertThat(streamClosed).isTrue();
+    assertThat(resourceClosed).isTrue();
+  }
+
+  @Test
+  void shouldCloseIteratorAfterWriting() throws IOException {
+    CloseableIterator iterator = new CloseableIterator(singletonList(new Item("a", 1)));
+
+    write(StreamingCollection.of(iterator));
+
+    assertThat(iterator.closed).isTrue();
+  }
+
+  @Test
+  void shouldWriteNothingIfFirstElementFails() {
+    AtomicBoolean streamClosed = new AtomicBoolean();
+    StreamingCollection<Item> collection =
+        StreamingCollection.of(
+            Stream.<Item>generate(
+                    () -> {
+                      throw new IllegalStateException("database not available");
+                    })
+                .onClose(() -> streamClosed.set(true)));
+
+    assertThatThrownBy(() -> write(collection)).isInstanceOf(IllegalStateException.class);
+    assertThat(out.toString()).isEmpty();
+    assertThat(streamClosed).isTrue();
+  }
+
+  @Test
+  void shouldNotCompleteJsonIfElementFails() {
+    AtomicBoolean streamClosed = new AtomicBoolean();
+    StreamingCollection<Item> collection =
+        StreamingCollection.of(
+                IntStream.range(0, 3)
+                    .mapToObj(
+                        i -> {
+                          if (i == 2) {
+                            throw new IllegalStateException("connection lost");
+                          }
+                          return new Item("i" + i, i);
+                        })
+                    .onClose(() -> streamClosed.set(true)))
+            .withFlushInterval(1);
+
+    assertThatThrownBy(() -> write(collection)).isInstanceOf(IllegalStateException.class);
+    assertThat(out.toString())
+        .isEqualTo("[{\"name\":\"i0\",\"amount\":0},{\"name\":\"i1\",\"amount\":1}");
+    assertThat(streamClosed).isTrue();
+  }
+
+  @Test
+  void shouldDiscardUnflushedOutputIfElementFails() {
+    AtomicBoolean streamClosed = new AtomicBoolean();
+    StreamingCollection<Item> collection =
+        StreamingCollection.of(
+            IntStream.range(0, 5)
+                .mapToObj(
+                    i -> {
+                      if (i == 2) {
+                        throw new IllegalStateException("connection lost");
+                      }
+                      return new Item("i" + i, i);
+                    })
+                .onClose(() -> streamClosed.set(true)));
+
+    assertThatThrownBy(() -> write(collection)).isInstanceOf(IllegalStateException.class);
+    assertThat(out.toString()).isEmpty();
+    assertThat(streamClosed).isTrue();
+  }
+
+  @Test
+  void shouldCloseStreamOnlyOnce() {
+    AtomicInteger closeCount = new AtomicInteger();
+    StreamingCollection<Item> collection =
+        StreamingCollection.of(Stream.of(new Item("a", 1)).onClose(closeCount::incrementAndGet));
+
+    collection.close();
+    collection.close();
+
+    assertThat(closeCount).hasValue(1);
+  }
+
+  @Test
+  void shouldOnlyWriteJson() {
+    assertThat(isWriteable(StreamingCollection.class, MediaType.APPLICATION_JSON_TYPE)).isTrue();
+    assertThat(isWriteable(StreamingCollection.class, MediaType.valueOf("application/hal+json")))
+        .isTrue();
+    assertThat(isWriteable(StreamingCollection.class, MediaType.WILDCARD_TYPE)).isTrue();
+    assertThat(isWriteable(StreamingCollection.class, MediaType.APPLICATION_XML_TYPE)).isFalse();
+    assertThat(isWriteable(List.class, MediaType.APPLICATION_JSON_TYPE)).isFalse();
+  }
+
+  private boolean isWriteable(Class<?> type, MediaType mediaType) {
+    return writer.isWriteable(type, type, new Annotation[0], mediaType);
+  }
+
+  private void write(StreamingCollection<?> collection) throws IOException {
+    writer.writeTo(
+        collection,
+        StreamingCollection.class,
+        StreamingCollection.class,
+        new Annotation[0],
+        MediaType.APPLICATION_JSON_TYPE,
+        null,
+        out);
+  }
+
+  @EnableFieldFilter
+  public static class Item {
+
+    private final String name;
+    private final int amount;
+
+    Item(String name, int amount) {
+      this.name = name;
+      this.amount = amount;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getAmount() {
+      return amount;
+    }
+  }
+
+  private static class FlushRecordingOutputStream extends ByteArrayOutputStream {
+
+    private final List<String> flushedContents = new ArrayList<>();
+
+    @Override
+    public void flush() {
+      flushedContents.add(toString());
+    }
+
+    @Override
+    public synchronized String toString() {
+      return new String(toByteArray(), UTF_8);
+    }
+  }
+
+  private static class CloseableIterator implements Iterator<Item>, AutoCloseable {
+
+    private final Iterator<Item> delegate;
+
+    private boolean closed;
+
+    CloseableIterator(List<Item> items) {
+      this.delegate = items.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public Item next() {
+      return delegate.next();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -13,6 +13,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.function.Function;
@@ -37,15 +39,25 @@ import org.sdase.commons.server.kafka.config.ListenerConfig;
 import org.sdase.commons.server.kafka.config.ProducerConfig;
 import org.sdase.commons.server.kafka.config.TopicConfig;
 import org.sdase.commons.server.kafka.consumer.MessageListener;
+import org.sdase.commons.server.kafka.consumer.executor.ListenerExecutor;
+import org.sdase.commons.server.kafka.consumer.executor.ThreadPoolListenerExecutor;
 import org.sdase.commons.server.kafka.exception.ConfigurationException;
 import org.sdase.commons.server.kafka.exception.TopicCreationException;
 import org.sdase.commons.server.kafka.health.ExternalKafkaHealthCheck;
 import org.sdase.commons.server.kafka.health.KafkaHealthCheck;
 import org.sdase.commons.server.kafka.producer.KafkaMessageProducer;
 import org.sdase.commons.server.kafka.producer.MessageProducer;
+import org.sdase.commons.server.kafka.prometheus.ConsumerCommitMetrics;
+import org.sdase.commons.server.kafka.prometheus.ConsumerPartitionQueueMetrics;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicBatchHistogram;
 import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
 import org.sdase.commons.server.kafka.prometheus.KafkaConsumerMetrics;
+import org.sdase.commons.server.kafka.prometheus.KafkaProducerMetrics;
+import org.sdase.commons.server.kafka.prometheus.ListenerThreadMetrics;
 import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageCounter;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageSizeHistogram;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicSendMetrics;
+import org.sdase.commons.server.kafka.serializers.KafkaJsonPooledSerializer;
 import org.sdase.commons.server.kafka.topicana.ComparisonResult;
 import org.sdase.commons.server.kafka.topicana.EvaluationException;
 import org.sdase.commons.server.kafka.topicana.ExpectedTopicConfiguration;
@@ -66,12 +78,20 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
   private final Function<C, KafkaConfiguration> configurationProvider;
   private KafkaConfiguration kafkaConfiguration;
   private final boolean healthCheckDisabled;
+  private ListenerExecutor listenerExecutor;
 
   private ProducerTopicMessageCounter topicProducerCounterSpec;
+  private ProducerTopicMessageSizeHistogram topicProducerSizeHistogram;
+  private ProducerTopicSendMetrics topicProducerSendMetrics;
   private ConsumerTopicMessageHistogram topicConsumerHistogram;
+  private ConsumerTopicBatchHistogram topicConsumerBatchHistogram;
+  private ConsumerCommitMetrics consumerCommitMetrics;
+  private ConsumerPartitionQueueMetrics consumerPartitionQueueMetrics;
+  private ListenerThreadMetrics listenerThreadMetrics;
+  private KafkaConsumerMetrics kafkaConsumerMetrics;
+  private KafkaProducerMetrics kafkaProducerMetrics;
 
   private final List<MessageListener<?, ?>> messageListeners = new ArrayList<>();
-  private final List<ThreadedMessageListener<?, ?>> threadedMessageListeners = new ArrayList<>();
   private final List<KafkaMessageProducer<?, ?>> messageProducers = new ArrayList<>();
 
   private final Map<String, ExpectedTopicConfiguration> topics = new HashMap<>();
@@ -79,9 +99,12 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
   private KafkaHealthCheck kafkaHealthCheck;
 
   private KafkaBundle(
-      KafkaConfigurationProvider<C> configurationProvider, boolean healthCheckDisabled) {
+      KafkaConfigurationProvider<C> configurationProvider,
+      boolean healthCheckDisabled,
+      ListenerExecutor listenerExecutor) {
     this.configurationProvider = configurationProvider;
     this.healthCheckDisabled = healthCheckDisabled;
+    this.listenerExecutor = listenerExecutor;
   }
 
   public static InitialBuilder builder() {
@@ -108,8 +131,25 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
       }
     }
     topicProducerCounterSpec = new ProducerTopicMessageCounter();
-    topicConsumerHistogram = new ConsumerTopicMessageHistogram();
-    new KafkaConsumerMetrics(messageListeners);
+    topicProducerSizeHistogram = new ProducerTopicMessageSizeHistogram();
+    topicProducerSendMetrics =
+        new ProducerTopicSendMetrics(
+            histogramBuckets(ProducerTopicSendMetrics.DURATION_METRIC_NAME));
+    topicConsumerHistogram =
+        new ConsumerTopicMessageHistogram(
+            histogramBuckets(ConsumerTopicMessageHistogram.METRIC_NAME));
+    topicConsumerBatchHistogram = new ConsumerTopicBatchHistogram();
+    consumerCommitMetrics = new ConsumerCommitMetrics();
+    kafkaConsumerMetrics =
+        new KafkaConsumerMetrics(messageListeners, kafkaConfiguration.getClientMetrics());
+    kafkaProducerMetrics =
+        new KafkaProducerMetrics(messageProducers, kafkaConfiguration.getClientMetrics());
+    consumerPartitionQueueMetrics = new ConsumerPartitionQueueMetrics(messageListeners);
+    listenerThreadMetrics = new ListenerThreadMetrics(messageListeners);
+    if (listenerExecutor == null) {
+      listenerExecutor =
+          ThreadPoolListenerExecutor.fromConfig(kafkaConfiguration.getListenerExecutor());
+    }
     setupManagedThreadManager(environment);
   }
 
@@ -180,9 +220,12 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
       throw new IllegalStateException("A strategy is mandatory for message listeners.");
     }
 
+    listenerExecutor.verifyCapacity(listenerConfig.getInstances());
     List<MessageListener<K, V>> listener = new ArrayList<>(listenerConfig.getInstances());
     for (int i = 0; i < listenerConfig.getInstances(); i++) {
-      registration.getStrategy().init(topicConsumerHistogram);
+      registration
+          .getStrategy()
+          .init(topicConsumerHistogram, topicConsumerBatchHistogram, consumerCommitMetrics);
       MessageListener<K, V> instance =
           new MessageListener<>(
               registration.getTopicsNames(),
@@ -191,12 +234,9 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
               registration.getStrategy());
 
       listener.add(instance);
-      Thread t = new Thread(instance);
-      t.start();
-
-      threadedMessageListeners.add(new ThreadedMessageListener<>(instance, t));
+      messageListeners.add(instance);
+      listenerExecutor.execute(instance);
     }
-    messageListeners.addAll(listener);
     return listener;
   }
 
@@ -230,6 +270,11 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
         public Future<RecordMetadata> send(K key, V value, Headers headers) {
           return null;
         }
+
+        @Override
+        public CompletionStage<RecordMetadata> sendAsync(K key, V value, Headers headers) {
+          return CompletableFuture.completedFuture(null);
+        }
       };
     }
 
@@ -247,19 +292,36 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
         throw new MismatchedTopicConfigException(comparisonResult);
       }
     }
-    KafkaProducer<K, V> producer = createProducer(registration);
+    initSerializer(registration.getKeySerializer());
+    initSerializer(registration.getValueSerializer());
+    ProducerConfig producerConfig = getProducerConfig(registration);
+    KafkaProducer<K, V> producer =
+        createProducer(
+            registration.getKeySerializer(), registration.getValueSerializer(), producerConfig);
     Entry<MetricName, ? extends Metric> entry =
         producer.metrics().entrySet().stream().findFirst().orElse(null);
     String clientId = entry != null ? entry.getKey().tags().get("client-id") : "";
 
     KafkaMessageProducer<K, V> messageProducer =
         new KafkaMessageProducer<>(
-            registration.getTopicName(), producer, topicProducerCounterSpec, clientId);
+            registration.getTopicName(),
+            producer,
+            topicProducerCounterSpec,
+            topicProducerSendMetrics,
+            clientId,
+            producerConfig != null ? producerConfig.getMaxInFlightMessages() : 0,
+            producerConfig != null ? producerConfig.getMaxInFlightBlockMs() : 0);
 
     messageProducers.add(messageProducer);
     return messageProducer;
   }
 
+  private void initSerializer(Serializer<?> serializer) {
+    if (serializer instanceof KafkaJsonPooledSerializer) {
+      ((KafkaJsonPooledSerializer<?>) serializer).init(topicProducerSizeHistogram);
+    }
+  }
+
   /**
    * Checks or creates a collection of topics with respect to its configuration
    *
@@ -331,6 +393,19 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
     }
   }
 
+  /**
+   * @param metricName the name of a histogram
+   * @return the configured upper bounds of the buckets of the histogram, empty for the default
+   *     buckets
+   */
+  private double[] histogramBuckets(String metricName) {
+    List<Double> buckets = kafkaConfiguration.getHistogramBuckets().get(metricName);
+    if (buckets == null) {
+      return new double[0];
+    }
+    return buckets.stream().mapToDouble(Double::doubleValue).toArray();
+  }
+
   @SuppressWarnings("static-method")
   private ExpectedTopicConfiguration createTopicDescription(TopicConfig c) {
     return TopicConfigurationBuilder.builder(c.getName())
@@ -449,7 +524,7 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
     return createProducer(keySerializer, valueSerializer, producerConfig);
   }
 
-  private <K, V> KafkaProducer<K, V> createProducer(ProducerRegistration<K, V> registration) {
+  private <K, V> ProducerConfig getProducerConfig(ProducerRegistration<K, V> registration) {
 
     ProducerConfig producerConfig = registration.getProducerConfig();
     if (producerConfig == null && registration.getProducerConfigName() != null) {
@@ -458,9 +533,7 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
     if (producerConfig != null && producerConfig.getClientId() == null) {
       producerConfig.setClientId(registration.getProducerConfigName());
     }
-
-    return createProducer(
-        registration.getKeySerializer(), registration.getValueSerializer(), producerConfig);
+    return producerConfig;
   }
 
   /**
@@ -575,6 +648,9 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
           }
         });
     topicProducerCounterSpec.unregister();
+    topicProducerSizeHistogram.unregister();
+    topicProducerSendMetrics.unregister();
+    kafkaProducerMetrics.unregister();
   }
 
   //
@@ -582,18 +658,20 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
   //
 
   private void shutdownConsumerThreads() {
-    threadedMessageListeners.forEach(l -> l.messageListener.stopConsumer());
-    threadedMessageListeners.forEach(
-        l -> {
-          try {
-            l.thread.join();
-          } catch (InterruptedException e) {
-            LOGGER.warn("Error while shutting down consumer threads", e);
-            Thread.currentThread().interrupt();
-          }
-        });
+    messageListeners.forEach(MessageListener::stopConsumer);
+    try {
+      listenerExecutor.awaitTermination();
+    } catch (InterruptedException e) {
+      LOGGER.warn("Error while shutting down consumer threads", e);
+      Thread.currentThread().interrupt();
+    }
 
     topicConsumerHistogram.unregister();
+    topicConsumerBatchHistogram.unregister();
+    consumerCommitMetrics.unregister();
+    consumerPartitionQueueMetrics.unregister();
+    listenerThreadMetrics.unregister();
+    kafkaConsumerMetrics.unregister();
   }
 
   private void shutdownKafkaHealthCheck() {
@@ -625,6 +703,15 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
      */
     FinalBuilder<T> withoutHealthCheck();
 
+    /**
+     * Uses the given executor to run the poll loops of all message listeners instead of the
+     * executor defined by {@link KafkaConfiguration#getListenerExecutor()}.
+     *
+     * @param listenerExecutor the executor that runs the listeners
+     * @return the same builder instance
+     */
+    FinalBuilder<T> withListenerExecutor(ListenerExecutor listenerExecutor);
+
     KafkaBundle<T> build();
   }
 
@@ -632,6 +719,7 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
 
     private KafkaConfigurationProvider<T> configurationProvider;
     private boolean healthCheckDisabled = false;
+    private ListenerExecutor listenerExecutor;
 
     private Builder() {}
 
@@ -645,9 +733,15 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
       return this;
     }
 
+    @Override
+    public FinalBuilder<T> withListenerExecutor(ListenerExecutor listenerExecutor) {
+      this.listenerExecutor = listenerExecutor;
+      return this;
+    }
+
     @Override
     public KafkaBundle<T> build() {
-      return new KafkaBundle<>(configurationProvider, healthCheckDisabled);
+      return new KafkaBundle<>(configurationProvider, healthCheckDisabled, listenerExecutor);
     }
 
     @Override
@@ -656,14 +750,4 @@ public class KafkaBundle<C extends Configuration> implements ConfiguredBundle<C>
       return new Builder<>(configurationProvider);
     }
   }
-
-  private static class ThreadedMessageListener<K, V> {
-    private final MessageListener<K, V> messageListener;
-    private final Thread thread;
-
-    private ThreadedMessageListener(MessageListener<K, V> messageListener, Thread thread) {
-      this.messageListener = messageListener;
-      this.thread = thread;
-    }
-  }
 }
@@ -5,9 +5,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.sdase.commons.server.kafka.config.AdminConfig;
+import org.sdase.commons.server.kafka.config.ClientMetricsConfig;
 import org.sdase.commons.server.kafka.config.ConsumerConfig;
 import org.sdase.commons.server.kafka.config.HealthCheckConfig;
 import org.sdase.commons.server.kafka.config.ListenerConfig;
+import org.sdase.commons.server.kafka.config.ListenerExecutorConfig;
 import org.sdase.commons.server.kafka.config.ProducerConfig;
 import org.sdase.commons.server.kafka.config.Security;
 import org.sdase.commons.server.kafka.config.TopicConfig;
@@ -35,6 +37,12 @@ public class KafkaConfiguration {
 
   private HealthCheckConfig healthCheck = new HealthCheckConfig();
 
+  private ListenerExecutorConfig listenerExecutor = new ListenerExecutorConfig();
+
+  private ClientMetricsConfig clientMetrics = new ClientMetricsConfig();
+
+  private Map<String, List<Double>> histogramBuckets = new HashMap<>();
+
   public List<String> getBrokers() {
     return brokers;
   }
@@ -124,4 +132,36 @@ public class KafkaConfiguration {
     this.healthCheck = healthCheck;
     return this;
   }
+
+  public ListenerExecutorConfig getListenerExecutor() {
+    return listenerExecutor;
+  }
+
+  public KafkaConfiguration setListenerExecutor(ListenerExecutorConfig listenerExecutor) {
+    this.listenerExecutor = listenerExecutor;
+    return this;
+  }
+
+  public ClientMetricsConfig getClientMetrics() {
+    return clientMetrics;
+  }
+
+  public KafkaConfiguration setClientMetrics(ClientMetricsConfig clientMetrics) {
+    this.clientMetrics = clientMetrics;
+    return this;
+  }
+
+  /**
+   * @return the upper bounds of the buckets of histograms in seconds by name of the histogram, e.g.
+   *     {@code kafka_consumer_topic_message_duration}, the default buckets of Prometheus are used
+   *     for other histograms
+   */
+  public Map<String, List<Double>> getHistogramBuckets() {
+    return histogramBuckets;
+  }
+
+  public KafkaConfiguration setHistogramBuckets(Map<String, List<Double>> histogramBuckets) {
+    this.histogramBuckets = histogramBuckets;
+    return this;
+  }
 }
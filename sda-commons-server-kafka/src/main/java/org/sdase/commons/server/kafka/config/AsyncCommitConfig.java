@@ -0,0 +1,64 @@
+package org.sdase.commons.server.kafka.config;
+
+/**
+ * Configures strategies to collect the offsets of processed records across polls and commit them
+ * asynchronously. A commit is triggered as soon as one of the thresholds is reached.
+ */
+public class AsyncCommitConfig {
+
+  private int commitEveryRecords = 500;
+  private long commitIntervalMs = 1_000;
+
+  private AsyncCommitConfig() {
+    // empty constructor for jackson
+  }
+
+  public static AsyncCommitConfig getDefault() {
+    return new AsyncCommitConfig();
+  }
+
+  public static AsyncCommitConfigBuilder builder() {
+    return new AsyncCommitConfigBuilder();
+  }
+
+  /** @return the number of processed records that triggers a commit */
+  public int getCommitEveryRecords() {
+    return commitEveryRecords;
+  }
+
+  public void setCommitEveryRecords(int commitEveryRecords) {
+    this.commitEveryRecords = commitEveryRecords;
+  }
+
+  /** @return the maximum time in milliseconds processed records wait for a commit */
+  public long getCommitIntervalMs() {
+    return commitIntervalMs;
+  }
+
+  public void setCommitIntervalMs(long commitIntervalMs) {
+    this.commitIntervalMs = commitIntervalMs;
+  }
+
+  public static class AsyncCommitConfigBuilder {
+
+    private int commitEveryRecords = 500;
+    private long commitIntervalMs = 1_000;
+
+    public AsyncCommitConfigBuilder withCommitEveryRecords(int records) {
+      this.commitEveryRecords = records;
+      return this;
+    }
+
+    public AsyncCommitConfigBuilder withCommitIntervalMs(long ms) {
+      this.commitIntervalMs = ms;
+      return this;
+    }
+
+    public AsyncCommitConfig build() {
+      AsyncCommitConfig build = new AsyncCommitConfig();
+      build.setCommitEveryRecords(commitEveryRecords);
+      build.setCommitIntervalMs(commitIntervalMs);
+      return build;
+    }
+  }
+}
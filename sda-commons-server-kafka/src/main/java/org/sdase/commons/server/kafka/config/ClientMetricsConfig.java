@@ -0,0 +1,69 @@
+package org.sdase.commons.server.kafka.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the metrics of the Kafka clients that are exported to Prometheus. The names
+ * refer to the <a href="https://kafka.apache.org/documentation/#consumer_monitoring">consumer</a>
+ * and <a href="https://kafka.apache.org/documentation/#producer_monitoring">producer</a> metrics of
+ * Kafka.
+ */
+public class ClientMetricsConfig {
+
+  private List<String> consumerMetrics =
+      new ArrayList<>(
+          Arrays.asList(
+              "records-lag",
+              "records-lag-max",
+              "fetch-latency-avg",
+              "fetch-latency-max",
+              "commit-latency-avg",
+              "commit-latency-max",
+              "bytes-consumed-rate"));
+
+  private List<String> producerMetrics =
+      new ArrayList<>(
+          Arrays.asList(
+              "batch-size-avg",
+              "batch-size-max",
+              "record-send-rate",
+              "record-error-rate",
+              "request-latency-avg"));
+
+  private long indexRefreshIntervalMs = 30_000;
+
+  /** @return the names of the Kafka consumer metrics to export */
+  public List<String> getConsumerMetrics() {
+    return consumerMetrics;
+  }
+
+  public ClientMetricsConfig setConsumerMetrics(List<String> consumerMetrics) {
+    this.consumerMetrics = consumerMetrics;
+    return this;
+  }
+
+  /** @return the names of the Kafka producer metrics to export */
+  public List<String> getProducerMetrics() {
+    return producerMetrics;
+  }
+
+  public ClientMetricsConfig setProducerMetrics(List<String> producerMetrics) {
+    this.producerMetrics = producerMetrics;
+    return this;
+  }
+
+  /**
+   * @return the maximum time in milliseconds until metrics that are added to a client, e.g. for
+   *     newly assigned partitions, are exported
+   */
+  public long getIndexRefreshIntervalMs() {
+    return indexRefreshIntervalMs;
+  }
+
+  public ClientMetricsConfig setIndexRefreshIntervalMs(long indexRefreshIntervalMs) {
+    this.indexRefreshIntervalMs = indexRefreshIntervalMs;
+    return this;
+  }
+}
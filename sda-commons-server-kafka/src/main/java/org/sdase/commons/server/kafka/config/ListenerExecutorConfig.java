@@ -0,0 +1,43 @@
+package org.sdase.commons.server.kafka.config;
+
+/** Configuration of the threads that run the poll loops of the message listeners. */
+public class ListenerExecutorConfig {
+
+  private boolean virtualThreads = false;
+
+  private int maxThreads = 0;
+
+  private String threadNamePrefix = "kafka-listener";
+
+  /** @return if listeners run in virtual threads, requires Java 21 or newer */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public ListenerExecutorConfig setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  /**
+   * @return the maximum number of listener instances that may run at the same time, 0 for no limit
+   */
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  public ListenerExecutorConfig setMaxThreads(int maxThreads) {
+    this.maxThreads = maxThreads;
+    return this;
+  }
+
+  /** @return the prefix of the names of the listener threads */
+  public String getThreadNamePrefix() {
+    return threadNamePrefix;
+  }
+
+  public ListenerExecutorConfig setThreadNamePrefix(String threadNamePrefix) {
+    this.threadNamePrefix = threadNamePrefix;
+    return this;
+  }
+}
@@ -13,6 +13,15 @@ public class ProducerConfig {
 
   private Map<String, String> config = new HashMap<>();
 
+  /**
+   * The maximum number of messages a producer may have sent that are not acknowledged yet. Further
+   * sends block until a message is acknowledged. 0 for no limit.
+   */
+  private int maxInFlightMessages = 0;
+
+  /** The maximum time a send blocks if {@link #maxInFlightMessages} is reached. */
+  private long maxInFlightBlockMs = 60_000;
+
   public Map<String, String> getConfig() {
     if (clientId != null) {
       config.putIfAbsent("client.id", clientId);
@@ -34,11 +43,33 @@ public class ProducerConfig {
     return this;
   }
 
+  public int getMaxInFlightMessages() {
+    return maxInFlightMessages;
+  }
+
+  public ProducerConfig setMaxInFlightMessages(int maxInFlightMessages) {
+    this.maxInFlightMessages = maxInFlightMessages;
+    return this;
+  }
+
+  public long getMaxInFlightBlockMs() {
+    return maxInFlightBlockMs;
+  }
+
+  public ProducerConfig setMaxInFlightBlockMs(long maxInFlightBlockMs) {
+    this.maxInFlightBlockMs = maxInFlightBlockMs;
+    return this;
+  }
+
   public interface ProducerConfigBuilder {
     ProducerConfigBuilder addConfig(String key, String value);
 
     ProducerConfigBuilder withClientId(String clientId);
 
+    ProducerConfigBuilder withMaxInFlightMessages(int maxInFlightMessages);
+
+    ProducerConfigBuilder withMaxInFlightBlockMs(long maxInFlightBlockMs);
+
     ProducerConfig build();
   }
 
@@ -50,6 +81,8 @@ public class ProducerConfig {
 
     private String clientId;
     private Map<String, String> config = new HashMap<>();
+    private int maxInFlightMessages = 0;
+    private long maxInFlightBlockMs = 60_000;
 
     @Override
     public ProducerConfigBuilder addConfig(String key, String value) {
@@ -62,6 +95,8 @@ public class ProducerConfig {
       ProducerConfig producerConfig = new ProducerConfig();
       producerConfig.setConfig(config);
       producerConfig.setClientId(clientId);
+      producerConfig.setMaxInFlightMessages(maxInFlightMessages);
+      producerConfig.setMaxInFlightBlockMs(maxInFlightBlockMs);
       return producerConfig;
     }
 
@@ -70,5 +105,17 @@ public class ProducerConfig {
       this.clientId = clientId;
       return this;
     }
+
+    @Override
+    public ProducerConfigBuilder withMaxInFlightMessages(int maxInFlightMessages) {
+      this.maxInFlightMessages = maxInFlightMessages;
+      return this;
+    }
+
+    @Override
+    public ProducerConfigBuilder withMaxInFlightBlockMs(long maxInFlightBlockMs) {
+      this.maxInFlightBlockMs = maxInFlightBlockMs;
+      return this;
+    }
   }
 }
@@ -0,0 +1,17 @@
+package org.sdase.commons.server.kafka.consumer;
+
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Handler for processing multiple consumer records at once, e.g. to write them to a database in one
+ * bulk operation. All records of a batch belong to the same partition and are ordered by offset. Be
+ * aware that the key or value can be null if the WrappedNoSerializationErrorDeserializer is used.
+ *
+ * @param <K> key class
+ * @param <V> value class
+ */
+@FunctionalInterface
+public interface BatchMessageHandler<K, V> {
+  void handle(List<ConsumerRecord<K, V>> records);
+}
@@ -2,12 +2,16 @@ package org.sdase.commons.server.kafka.consumer;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.errors.WakeupException;
 import org.sdase.commons.server.kafka.config.ListenerConfig;
 import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
@@ -48,6 +52,11 @@ public class MessageListener<K, V> implements Runnable {
   private final String joinedTopics;
   private final AtomicBoolean shouldStop = new AtomicBoolean(false);
   private final KafkaConsumer<K, V> consumer;
+  private final Map<MetricName, ? extends Metric> metrics;
+
+  private final AtomicLong busyNanos = new AtomicLong();
+  private final AtomicLong idleNanos = new AtomicLong();
+  private volatile String threadName;
 
   public MessageListener(
       Collection<String> topics,
@@ -57,8 +66,16 @@ public class MessageListener<K, V> implements Runnable {
     this.topics = topics;
     this.joinedTopics = String.join(",", topics);
     this.consumer = consumer;
-    consumer.subscribe(topics);
+    // the live view of the metrics is requested before the consumer is used by the listener thread
+    this.metrics = consumer.metrics();
     this.strategy = strategy;
+    ConsumerRebalanceListener rebalanceListener =
+        strategy != null ? strategy.createRebalanceListener(consumer) : null;
+    if (rebalanceListener != null) {
+      consumer.subscribe(topics, rebalanceListener);
+    } else {
+      consumer.subscribe(topics);
+    }
     this.configuredPollIntervalMillis = listenerConfig.getPollInterval();
     this.topicMissingRetryMs = listenerConfig.getTopicMissingRetryMs();
     this.currentPollIntervalMillis = new AtomicLong(this.configuredPollIntervalMillis);
@@ -68,13 +85,17 @@ public class MessageListener<K, V> implements Runnable {
 
   @Override
   public void run() {
+    threadName = Thread.currentThread().getName();
     waitForTopic(joinedTopics);
 
     while (!shouldStop.get()) {
       // return immediately and resubmit Runnable
       try {
+        long pollStartNanos = System.nanoTime();
         ConsumerRecords<K, V> records =
             consumer.poll(Duration.ofMillis(currentPollIntervalMillis.get()));
+        long processStartNanos = System.nanoTime();
+        idleNanos.addAndGet(processStartNanos - pollStartNanos);
 
         if (records.count() > 0) {
           LOGGER.debug("Received {} messages from topics [{}]", records.count(), joinedTopics);
@@ -82,8 +103,12 @@ public class MessageListener<K, V> implements Runnable {
           LOGGER.trace("Received {} messages from topics [{}]", records.count(), joinedTopics);
         }
 
-        strategy.resetOffsetsToCommitOnClose();
-        strategy.processRecords(records, consumer);
+        try {
+          strategy.resetOffsetsToCommitOnClose();
+          strategy.processRecords(records, consumer);
+        } finally {
+          busyNanos.addAndGet(System.nanoTime() - processStartNanos);
+        }
 
         configureAfterSuccess();
       } catch (WakeupException w) {
@@ -155,6 +180,36 @@ public class MessageListener<K, V> implements Runnable {
     return consumer;
   }
 
+  /**
+   * @return the live view of the metrics of the consumer, that may be read from other threads than
+   *     the listener thread
+   */
+  public Map<MetricName, ? extends Metric> getMetrics() {
+    return metrics;
+  }
+
+  public MessageListenerStrategy<K, V> getStrategy() {
+    return strategy;
+  }
+
+  /**
+   * @return the name of the thread running the poll loop or {@code null} if the listener has not
+   *     been started yet
+   */
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /** @return the total time in nanoseconds the listener spent processing polled records */
+  public long getBusyNanos() {
+    return busyNanos.get();
+  }
+
+  /** @return the total time in nanoseconds the listener spent waiting in poll for new records */
+  public long getIdleNanos() {
+    return idleNanos.get();
+  }
+
   @Override
   public String toString() {
     return "ML ".concat(String.join("", topics));
@@ -0,0 +1,39 @@
+package org.sdase.commons.server.kafka.consumer.executor;
+
+import org.sdase.commons.server.kafka.consumer.MessageListener;
+
+/**
+ * Runs the poll loops of {@link MessageListener}s. Each listener occupies one thread of the
+ * executor until it is stopped.
+ */
+public interface ListenerExecutor {
+
+  /**
+   * Starts the poll loop of the given listener in a thread of this executor.
+   *
+   * @param listener the listener to start
+   */
+  void execute(MessageListener<?, ?> listener);
+
+  /**
+   * Verifies that the given number of listeners can be started in addition to the running
+   * listeners. Called before the listeners of a registration are created, so that a configuration
+   * that exceeds the capacity of the executor fails before any listener of the registration runs.
+   *
+   * @param listeners the number of listeners that should be started
+   * @throws org.sdase.commons.server.kafka.exception.ConfigurationException if the executor can't
+   *     run that many additional listeners
+   */
+  default void verifyCapacity(int listeners) {
+    // unlimited by default
+  }
+
+  /**
+   * Blocks until all listeners started by this executor have finished. The listeners must be
+   * stopped before by {@link MessageListener#stopConsumer()}. No further listeners can be started
+   * afterwards.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  void awaitTermination() throws InterruptedException;
+}
@@ -0,0 +1,137 @@
+package org.sdase.commons.server.kafka.consumer.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sdase.commons.server.kafka.config.ListenerExecutorConfig;
+import org.sdase.commons.server.kafka.consumer.MessageListener;
+import org.sdase.commons.server.kafka.exception.ConfigurationException;
+
+/**
+ * {@link ListenerExecutor} that runs each {@link MessageListener} in a named thread of an {@link
+ * ExecutorService}. The threads are either platform threads or, on Java 21 and newer, virtual
+ * threads that do not need an OS thread while the listener is waiting for records.
+ *
+ * <p>If a maximum number of threads is configured, it limits the number of listeners running at the
+ * same time. A listener releases its thread when its poll loop ends after {@link
+ * MessageListener#stopConsumer()}.
+ */
+public class ThreadPoolListenerExecutor implements ListenerExecutor {
+
+  private final ExecutorService executorService;
+  private final int maxThreads;
+  private final AtomicInteger runningListeners = new AtomicInteger();
+
+  private ThreadPoolListenerExecutor(ExecutorService executorService, int maxThreads) {
+    this.executorService = executorService;
+    this.maxThreads = maxThreads;
+  }
+
+  /**
+   * @param config the configuration of the listener threads
+   * @return the executor as configured
+   * @throws ConfigurationException if virtual threads are configured but not supported by the JVM
+   */
+  public static ThreadPoolListenerExecutor fromConfig(ListenerExecutorConfig config) {
+    if (config.isVirtualThreads()) {
+      return virtualThreads(config.getThreadNamePrefix(), config.getMaxThreads());
+    }
+    return platformThreads(config.getThreadNamePrefix(), config.getMaxThreads());
+  }
+
+  /**
+   * @param threadNamePrefix the prefix of the thread names, followed by a counter
+   * @param maxThreads the maximum number of listeners that may run, 0 for no limit
+   * @return an executor that runs listeners in platform threads
+   */
+  public static ThreadPoolListenerExecutor platformThreads(
+      String threadNamePrefix, int maxThreads) {
+    AtomicInteger threadCounter = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> new Thread(runnable, threadNamePrefix + "-" + threadCounter.getAndIncrement());
+    return new ThreadPoolListenerExecutor(Executors.newCachedThreadPool(threadFactory), maxThreads);
+  }
+
+  /**
+   * @param threadNamePrefix the prefix of the thread names, followed by a counter
+   * @param maxThreads the maximum number of listeners that may run, 0 for no limit
+   * @return an executor that runs listeners in virtual threads
+   * @throws ConfigurationException if virtual threads are not supported by the JVM
+   */
+  public static ThreadPoolListenerExecutor virtualThreads(String threadNamePrefix, int maxThreads) {
+    try {
+      // virtual threads are only available since Java 21 and must be created by reflection
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder =
+          builderType
+              .getMethod("name", String.class, long.class)
+              .invoke(builder, threadNamePrefix + "-", 0L);
+      ThreadFactory threadFactory =
+          (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      ExecutorService executorService =
+          (ExecutorService)
+              Executors.class
+                  .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                  .invoke(null, threadFactory);
+      return new ThreadPoolListenerExecutor(executorService, maxThreads);
+    } catch (ReflectiveOperationException e) {
+      throw new ConfigurationException(
+          String.format(
+              "Virtual threads for Kafka listeners require Java 21 or newer but running on Java %s.",
+              System.getProperty("java.version")));
+    }
+  }
+
+  /** @return if the current JVM supports virtual threads */
+  public static boolean isVirtualThreadsSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void verifyCapacity(int listeners) {
+    if (maxThreads > 0 && runningListeners.get() + listeners > maxThreads) {
+      throw new ConfigurationException(
+          String.format(
+              "Can't start %d listeners, %d of %d listener threads are in use. Increase 'listenerExecutor.maxThreads'.",
+              listeners, runningListeners.get(), maxThreads));
+    }
+  }
+
+  @Override
+  public void execute(MessageListener<?, ?> listener) {
+    if (runningListeners.incrementAndGet() > maxThreads && maxThreads > 0) {
+      runningListeners.decrementAndGet();
+      throw new ConfigurationException(
+          String.format(
+              "Can't start listener %s, all %d listener threads are in use. Increase 'listenerExecutor.maxThreads'.",
+              listener, maxThreads));
+    }
+    try {
+      executorService.execute(
+          () -> {
+            try {
+              listener.run();
+            } finally {
+              runningListeners.decrementAndGet();
+            }
+          });
+    } catch (RuntimeException e) {
+      runningListeners.decrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public void awaitTermination() throws InterruptedException {
+    executorService.shutdown();
+    executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,206 @@
+package org.sdase.commons.server.kafka.consumer.strategies;
+
+import io.prometheus.client.SimpleTimer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.config.AsyncCommitConfig;
+import org.sdase.commons.server.kafka.consumer.KafkaHelper;
+import org.sdase.commons.server.kafka.prometheus.ConsumerCommitMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the offsets of processed records of one consumer across polls and commits them
+ * asynchronously when the thresholds of the {@link AsyncCommitConfig} are reached. Pending offsets
+ * are committed synchronously when partitions are revoked or the consumer is closed.
+ *
+ * <p>An instance is bound to a single consumer and must only be used from the thread that polls
+ * this consumer. Callbacks of asynchronous commits are invoked by the consumer in the same thread.
+ *
+ * @param <K> key object type
+ * @param <V> value object type
+ */
+public class AsyncOffsetCommitter<K, V> implements ConsumerRebalanceListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncOffsetCommitter.class);
+
+  private final KafkaConsumer<K, V> consumer;
+  private final AsyncCommitConfig config;
+  private final ConsumerCommitMetrics commitMetrics;
+  private final String consumerName;
+
+  private final Map<TopicPartition, OffsetAndMetadata> pendingOffsets = new HashMap<>();
+  private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+  private int pendingRecords;
+  private long lastCommitNanos = System.nanoTime();
+
+  /**
+   * @param consumer the consumer to commit the offsets with
+   * @param config the thresholds that trigger a commit
+   * @param commitMetrics the metrics for commit latency and pending records, may be {@code null}
+   */
+  public AsyncOffsetCommitter(
+      KafkaConsumer<K, V> consumer, AsyncCommitConfig config, ConsumerCommitMetrics commitMetrics) {
+    this.consumer = consumer;
+    this.config = config;
+    this.commitMetrics = commitMetrics;
+    this.consumerName = KafkaHelper.getClientId(consumer);
+  }
+
+  /**
+   * Marks the given record as processed. The offset is committed with one of the next commits.
+   *
+   * @param consumerRecord the successfully processed record
+   */
+  public void addProcessed(ConsumerRecord<K, V> consumerRecord) {
+    mergeOffset(
+        new TopicPartition(consumerRecord.topic(), consumerRecord.partition()),
+        new OffsetAndMetadata(consumerRecord.offset() + 1));
+    pendingRecords++;
+  }
+
+  /**
+   * Commits all pending offsets asynchronously if the configured number of records has been
+   * processed or the configured interval has elapsed since the last commit.
+   */
+  public void commitIfDue() {
+    if (pendingOffsets.isEmpty()) {
+      return;
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastCommitNanos);
+    if (pendingRecords >= config.getCommitEveryRecords()
+        || elapsedMs >= config.getCommitIntervalMs()) {
+      commitAsync();
+    } else if (commitMetrics != null) {
+      commitMetrics.setPendingRecords(pendingRecords, consumerName);
+    }
+  }
+
+  /** Commits all pending offsets synchronously. */
+  public void commitSync() {
+    commitSync(new HashMap<>(pendingOffsets));
+  }
+
+  /** @return the number of processed records since the last commit was requested */
+  public int getPendingRecords() {
+    return pendingRecords;
+  }
+
+  @Override
+  public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition partition : partitions) {
+      OffsetAndMetadata offset = pendingOffsets.get(partition);
+      if (offset != null) {
+        offsets.put(partition, offset);
+      }
+    }
+    if (!offsets.isEmpty()) {
+      LOGGER.info("Committing offsets of revoked partitions: {}", offsets);
+      commitSync(offsets);
+    }
+    forget(partitions);
+  }
+
+  @Override
+  public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+    // nothing to do, offsets are only tracked for processed records
+  }
+
+  @Override
+  public void onPartitionsLost(Collection<TopicPartition> partitions) {
+    // the partitions are owned by another consumer already, committing would fail
+    forget(partitions);
+  }
+
+  private void commitAsync() {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(pendingOffsets);
+    clearPending();
+    SimpleTimer timer = new SimpleTimer();
+    consumer.commitAsync(
+        offsets,
+        (committed, exception) -> {
+          if (commitMetrics != null) {
+            commitMetrics.observeCommit(timer.elapsedSeconds(), consumerName, true);
+          }
+          if (exception == null) {
+            markCommitted(offsets);
+          } else {
+            LOGGER.warn(
+                "Async commit failed, offsets will be committed again: {}", offsets, exception);
+            retainForNextCommit(offsets);
+          }
+        });
+  }
+
+  private void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    if (offsets.isEmpty()) {
+      return;
+    }
+    SimpleTimer timer = new SimpleTimer();
+    try {
+      consumer.commitSync(offsets);
+      markCommitted(offsets);
+      offsets.keySet().forEach(pendingOffsets::remove);
+      if (pendingOffsets.isEmpty()) {
+        clearPending();
+      }
+    } catch (CommitFailedException e) {
+      LOGGER.error("Commit failed", e);
+    } finally {
+      if (commitMetrics != null) {
+        commitMetrics.observeCommit(timer.elapsedSeconds(), consumerName, false);
+      }
+    }
+  }
+
+  private void retainForNextCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    // only offsets of partitions that are still assigned and not overtaken by a later commit
+    Collection<TopicPartition> assignment = consumer.assignment();
+    offsets.forEach(
+        (partition, offset) -> {
+          Long committed = committedOffsets.get(partition);
+          if (assignment.contains(partition)
+              && (committed == null || committed < offset.offset())) {
+            mergeOffset(partition, offset);
+          }
+        });
+  }
+
+  private void markCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    offsets.forEach(
+        (partition, offset) -> committedOffsets.merge(partition, offset.offset(), Math::max));
+  }
+
+  private void mergeOffset(TopicPartition partition, OffsetAndMetadata offset) {
+    pendingOffsets.merge(
+        partition, offset, (current, next) -> next.offset() > current.offset() ? next : current);
+  }
+
+  private void forget(Collection<TopicPartition> partitions) {
+    for (TopicPartition partition : partitions) {
+      pendingOffsets.remove(partition);
+      committedOffsets.remove(partition);
+    }
+    if (pendingOffsets.isEmpty()) {
+      clearPending();
+    }
+  }
+
+  private void clearPending() {
+    pendingOffsets.clear();
+    pendingRecords = 0;
+    lastCommitNanos = System.nanoTime();
+    if (commitMetrics != null) {
+      commitMetrics.setPendingRecords(0, consumerName);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -12,6 +13,8 @@ import org.apache.kafka.common.TopicPartition;
 import org.sdase.commons.server.kafka.config.ConsumerConfig;
 import org.sdase.commons.server.kafka.consumer.MessageHandler;
 import org.sdase.commons.server.kafka.consumer.MessageListener;
+import org.sdase.commons.server.kafka.prometheus.ConsumerCommitMetrics;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicBatchHistogram;
 import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,28 +35,80 @@ public abstract class MessageListenerStrategy<K, V> {
 
   protected ConsumerTopicMessageHistogram consumerProcessedMsgHistogram;
 
+  protected ConsumerTopicBatchHistogram consumerProcessedBatchHistogram;
+
+  protected ConsumerCommitMetrics consumerCommitMetrics;
+
   private Map<TopicPartition, OffsetAndMetadata> offsetsToCommitOnClose = new HashMap<>();
 
   public void init(ConsumerTopicMessageHistogram consumerTopicMessageHistogram) {
     this.consumerProcessedMsgHistogram = consumerTopicMessageHistogram;
   }
 
+  /**
+   * Initializes the strategy with all metrics provided by the {@code KafkaBundle}. Strategies that
+   * process records in batches should observe {@link #consumerProcessedBatchHistogram}, if it is
+   * available.
+   *
+   * @param consumerTopicMessageHistogram the histogram for the duration of single records
+   * @param consumerTopicBatchHistogram the histogram for the size and duration of batches
+   */
+  public void init(
+      ConsumerTopicMessageHistogram consumerTopicMessageHistogram,
+      ConsumerTopicBatchHistogram consumerTopicBatchHistogram) {
+    init(consumerTopicMessageHistogram);
+    this.consumerProcessedBatchHistogram = consumerTopicBatchHistogram;
+  }
+
+  /**
+   * Initializes the strategy with all metrics provided by the {@code KafkaBundle}. Strategies that
+   * commit offsets asynchronously should report to {@link #consumerCommitMetrics}, if it is
+   * available.
+   *
+   * @param consumerTopicMessageHistogram the histogram for the duration of single records
+   * @param consumerTopicBatchHistogram the histogram for the size and duration of batches
+   * @param consumerCommitMetrics the metrics for commit latency and pending offsets
+   */
+  public void init(
+      ConsumerTopicMessageHistogram consumerTopicMessageHistogram,
+      ConsumerTopicBatchHistogram consumerTopicBatchHistogram,
+      ConsumerCommitMetrics consumerCommitMetrics) {
+    init(consumerTopicMessageHistogram, consumerTopicBatchHistogram);
+    this.consumerCommitMetrics = consumerCommitMetrics;
+  }
+
+  /**
+   * Creates a listener that is notified when partitions are assigned to or revoked from the given
+   * consumer. Strategies that hold back commits should use it to commit pending offsets before the
+   * partitions are handed over to another consumer.
+   *
+   * @param consumer the consumer that subscribes to the topics
+   * @return the listener to subscribe with or {@code null} if the strategy does not need one
+   */
+  public ConsumerRebalanceListener createRebalanceListener(KafkaConsumer<K, V> consumer) {
+    return null;
+  }
+
   /**
    * Implementation of processing and commit logic during poll loop of {@link MessageListener}.
    *
    * <p>The strategy should collect the processing duration metric for each entry of records within
-   * the {@link #consumerProcessedMsgHistogram}. Furthermore, each record that was processed
+   * the {@link #consumerProcessedMsgHistogram}. The child of the histogram should be resolved once
+   * per partition instead of for each record. Furthermore, each record that was processed
    * successfully should be marked by calling {@link #addOffsetToCommitOnClose} to commit the
    * current offset in case the application shuts down.
    *
    * <pre>
-   * SimpleTimer timer = new SimpleTimer();
-   * handler.handle(record);
-   * addOffsetToCommitOnClose(record);
+   * Histogram.Child messageDurationHistogram =
+   *     consumerProcessedMsgHistogram.child(consumerName, partition.topic());
+   * for (ConsumerRecord&lt;K, V&gt; record : records.records(partition)) {
+   *   SimpleTimer timer = new SimpleTimer();
+   *   handler.handle(record);
+   *   addOffsetToCommitOnClose(record);
    *
-   * // Prometheus
-   * double elapsedSeconds = timer.elapsedSeconds();
-   * consumerProcessedMsgHistogram.observe(elapsedSeconds, consumerName, record.topic());
+   *   // Prometheus
+   *   messageDurationHistogram.observe(timer.elapsedSeconds());
+   * }
    * </pre>
    *
    * @param records consumer records that should be processed in this poll loop.
@@ -1,5 +1,6 @@
 package org.sdase.commons.server.kafka.consumer.strategies.autocommit;
 
+import io.prometheus.client.Histogram;
 import io.prometheus.client.SimpleTimer;
 import java.util.Collections;
 import java.util.Map;
@@ -7,6 +8,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
 import org.sdase.commons.server.kafka.consumer.ErrorHandler;
 import org.sdase.commons.server.kafka.consumer.KafkaHelper;
 import org.sdase.commons.server.kafka.consumer.MessageHandler;
@@ -35,34 +37,39 @@ public class AutocommitMLS<K, V> extends MessageListenerStrategy<K, V> {
       consumerName = KafkaHelper.getClientId(consumer);
     }
 
-    for (ConsumerRecord<K, V> record : records) {
-      LOGGER.debug("Handling message for {}", record.key());
-      try {
-        SimpleTimer timer = new SimpleTimer();
-        handler.handle(record);
-        addOffsetToCommitOnClose(record);
+    for (TopicPartition partition : records.partitions()) {
+      // resolved once per partition to avoid the label lookup for each record
+      Histogram.Child messageDurationHistogram =
+          consumerProcessedMsgHistogram.child(consumerName, partition.topic());
+      for (ConsumerRecord<K, V> record : records.records(partition)) {
+        LOGGER.debug("Handling message for {}", record.key());
+        try {
+          SimpleTimer timer = new SimpleTimer();
+          handler.handle(record);
+          addOffsetToCommitOnClose(record);
 
-        // Prometheus
-        double elapsedSeconds = timer.elapsedSeconds();
-        consumerProcessedMsgHistogram.observe(elapsedSeconds, consumerName, record.topic());
+          // Prometheus
+          double elapsedSeconds = timer.elapsedSeconds();
+          messageDurationHistogram.observe(elapsedSeconds);
 
-        if (LOGGER.isTraceEnabled()) {
-          LOGGER.trace(
-              "calculated duration {} for message consumed by {} from {}",
-              elapsedSeconds,
-              consumerName,
-              record.topic());
-        }
+          if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(
+                "calculated duration {} for message consumed by {} from {}",
+                elapsedSeconds,
+                consumerName,
+                record.topic());
+          }
 
-      } catch (RuntimeException e) {
-        LOGGER.error(
-            "Error while handling record {} in message handler {}",
-            record.key(),
-            handler.getClass(),
-            e);
-        boolean shouldContinue = errorHandler.handleError(record, e, consumer);
-        if (!shouldContinue) {
-          throw new StopListenerException(e);
+        } catch (RuntimeException e) {
+          LOGGER.error(
+              "Error while handling record {} in message handler {}",
+              record.key(),
+              handler.getClass(),
+              e);
+          boolean shouldContinue = errorHandler.handleError(record, e, consumer);
+          if (!shouldContinue) {
+            throw new StopListenerException(e);
+          }
         }
       }
     }
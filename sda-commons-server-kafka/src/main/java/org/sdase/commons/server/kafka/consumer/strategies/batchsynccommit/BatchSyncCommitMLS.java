@@ -0,0 +1,182 @@
+package org.sdase.commons.server.kafka.consumer.strategies.batchsynccommit;
+
+import io.prometheus.client.SimpleTimer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.consumer.BatchMessageHandler;
+import org.sdase.commons.server.kafka.consumer.ErrorHandler;
+import org.sdase.commons.server.kafka.consumer.KafkaHelper;
+import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
+import org.sdase.commons.server.kafka.exception.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MessageListenerStrategy} that passes the records of each partition in batches to a {@link
+ * BatchMessageHandler} and commits synchronously after each successful batch.
+ *
+ * <p>If a batch fails, it is split in half and both halves are processed again until the failing
+ * records are isolated. The {@link ErrorHandler} is invoked for each single record that still
+ * fails. If the error handler returns {@code true}, the record is skipped.
+ *
+ * <p>If failed batches are not split, the {@link ErrorHandler} is invoked for each record of the
+ * failed batch with the error of the batch, e.g. to move every record to a dead letter topic. If it
+ * returns {@code false} for a record, the offsets of the records handled before are committed and
+ * the listener stops.
+ */
+public class BatchSyncCommitMLS<K, V> extends MessageListenerStrategy<K, V> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchSyncCommitMLS.class);
+  private final BatchMessageHandler<K, V> handler;
+  private final ErrorHandler<K, V> errorHandler;
+  private final int maxBatchSize;
+  private final boolean splitFailedBatches;
+  private String consumerName;
+
+  /**
+   * Creates a strategy that passes all records of a partition received in one poll as one batch and
+   * splits failed batches.
+   *
+   * @param handler the handler that processes the batches
+   * @param errorHandler the handler that decides if processing continues after a record failed
+   */
+  public BatchSyncCommitMLS(BatchMessageHandler<K, V> handler, ErrorHandler<K, V> errorHandler) {
+    this(handler, errorHandler, Integer.MAX_VALUE, true);
+  }
+
+  /**
+   * @param handler the handler that processes the batches
+   * @param errorHandler the handler that decides if processing continues after a record failed
+   * @param maxBatchSize the maximum number of records passed to the handler at once
+   * @param splitFailedBatches if failed batches should be split to isolate the failing records. If
+   *     {@code false}, the error handler is invoked for each record of the failed batch without
+   *     processing the records again.
+   */
+  public BatchSyncCommitMLS(
+      BatchMessageHandler<K, V> handler,
+      ErrorHandler<K, V> errorHandler,
+      int maxBatchSize,
+      boolean splitFailedBatches) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1");
+    }
+    this.handler = handler;
+    this.errorHandler = errorHandler;
+    this.maxBatchSize = maxBatchSize;
+    this.splitFailedBatches = splitFailedBatches;
+  }
+
+  @Override
+  public void processRecords(ConsumerRecords<K, V> records, KafkaConsumer<K, V> consumer) {
+    if (consumerName == null) {
+      consumerName = KafkaHelper.getClientId(consumer);
+    }
+
+    for (TopicPartition partition : records.partitions()) {
+      List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+      for (int from = 0; from < partitionRecords.size(); from += maxBatchSize) {
+        int to = (int) Math.min((long) from + maxBatchSize, partitionRecords.size());
+        processBatch(partitionRecords.subList(from, to), partition, consumer);
+      }
+    }
+  }
+
+  private void processBatch(
+      List<ConsumerRecord<K, V>> batch, TopicPartition partition, KafkaConsumer<K, V> consumer) {
+    LOGGER.debug("Handling batch of {} messages from {}", batch.size(), partition);
+    RuntimeException error = handleBatch(batch, partition);
+    if (error == null) {
+      commitSync(batch, partition, consumer);
+    } else if (splitFailedBatches && batch.size() > 1) {
+      LOGGER.warn(
+          "Error while handling batch of {} records from {} in message handler {}, splitting batch",
+          batch.size(),
+          partition,
+          handler.getClass());
+      int half = batch.size() / 2;
+      processBatch(batch.subList(0, half), partition, consumer);
+      processBatch(batch.subList(half, batch.size()), partition, consumer);
+    } else {
+      LOGGER.error(
+          "Error while handling batch of {} records from {} in message handler {}",
+          batch.size(),
+          partition,
+          handler.getClass(),
+          error);
+      for (int i = 0; i < batch.size(); i++) {
+        boolean shouldContinue = errorHandler.handleError(batch.get(i), error, consumer);
+        if (!shouldContinue) {
+          if (i > 0) {
+            commitSync(batch.subList(0, i), partition, consumer);
+          }
+          throw new StopListenerException(error);
+        }
+      }
+      commitSync(batch, partition, consumer);
+    }
+  }
+
+  private RuntimeException handleBatch(List<ConsumerRecord<K, V>> batch, TopicPartition partition) {
+    SimpleTimer timer = new SimpleTimer();
+    boolean successful = false;
+    try {
+      handler.handle(batch);
+      successful = true;
+      return null;
+    } catch (RuntimeException e) {
+      return e;
+    } finally {
+      // Prometheus
+      double elapsedSeconds = timer.elapsedSeconds();
+      if (consumerProcessedBatchHistogram != null) {
+        consumerProcessedBatchHistogram.observe(
+            batch.size(), elapsedSeconds, consumerName, partition.topic(), successful);
+      }
+
+      if (LOGGER.isTraceEnabled()) {
+        LOGGER.trace(
+            "calculated duration {} for {} batch of {} messages consumed by {} from {}",
+            elapsedSeconds,
+            successful ? "successful" : "failed",
+            batch.size(),
+            consumerName,
+            partition.topic());
+      }
+    }
+  }
+
+  private void commitSync(
+      List<ConsumerRecord<K, V>> batch, TopicPartition partition, KafkaConsumer<K, V> consumer) {
+    ConsumerRecord<K, V> lastRecord = batch.get(batch.size() - 1);
+    addOffsetToCommitOnClose(lastRecord);
+    try {
+      consumer.commitSync(
+          Collections.singletonMap(partition, new OffsetAndMetadata(lastRecord.offset() + 1)));
+    } catch (CommitFailedException e) {
+      LOGGER.error("Commit failed", e);
+    }
+  }
+
+  @Override
+  public void verifyConsumerConfig(Map<String, String> config) {
+    if (Boolean.parseBoolean(
+        config.getOrDefault(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true"))) {
+      throw new ConfigurationException(
+          "The strategy should NOT use autocommit but property 'enable.auto.commit' in consumer config is set to 'true' (which is the default and must be disabled).");
+    }
+  }
+
+  @Override
+  public Map<String, String> forcedConfigToApply() {
+    return Collections.singletonMap(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+  }
+}
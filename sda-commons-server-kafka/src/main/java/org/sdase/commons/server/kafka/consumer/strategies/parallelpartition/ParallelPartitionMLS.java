@@ -0,0 +1,526 @@
+package org.sdase.commons.server.kafka.consumer.strategies.parallelpartition;
+
+import io.prometheus.client.Histogram;
+import io.prometheus.client.SimpleTimer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.consumer.ErrorHandler;
+import org.sdase.commons.server.kafka.consumer.KafkaHelper;
+import org.sdase.commons.server.kafka.consumer.MessageHandler;
+import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
+import org.sdase.commons.server.kafka.exception.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MessageListenerStrategy} that hands the records of each {@link TopicPartition} to a
+ * bounded pool of worker threads. Records of the same partition are processed strictly in order,
+ * records of different partitions are processed in parallel.
+ *
+ * <p>The polling thread never waits for the {@link MessageHandler}. Partitions that have more than
+ * {@code maxQueuedRecordsPerPartition} records waiting are {@linkplain KafkaConsumer#pause paused}
+ * and {@linkplain KafkaConsumer#resume resumed} when the worker caught up. After each poll, the
+ * offsets of all records that have been processed contiguously are committed synchronously.
+ *
+ * <p>When partitions are revoked in a rebalance, the queued records of these partitions are
+ * dropped, the records that are currently processed are completed and the processed offsets are
+ * committed before the partitions are handed over to another consumer.
+ *
+ * <p>If the {@link MessageHandler} fails, the worker of the partition stops and the {@link
+ * ErrorHandler} is invoked from the polling thread after the next poll, so that it may use the
+ * consumer. If the error handler returns {@code true}, the worker continues with the next record of
+ * the partition. Otherwise, the listener stops and only the offsets processed before the failing
+ * record are committed.
+ *
+ * @param <K> key object type
+ * @param <V> value object type
+ */
+public class ParallelPartitionMLS<K, V> extends MessageListenerStrategy<K, V> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelPartitionMLS.class);
+
+  private static final int DEFAULT_MAX_QUEUED_RECORDS_PER_PARTITION = 500;
+
+  private static final long CLOSE_TIMEOUT_MS = 10_000;
+
+  private final MessageHandler<K, V> handler;
+  private final ErrorHandler<K, V> errorHandler;
+  private final int workerThreads;
+  private final int maxQueuedRecordsPerPartition;
+
+  private final Map<KafkaConsumer<K, V>, ConsumerContext> contexts = new ConcurrentHashMap<>();
+  private ExecutorService executor;
+
+  /**
+   * Creates a strategy with one worker thread per available processor and pauses partitions with
+   * more than 500 queued records.
+   *
+   * @param handler the handler that processes the records
+   * @param errorHandler the handler that decides if processing continues after an error
+   */
+  public ParallelPartitionMLS(MessageHandler<K, V> handler, ErrorHandler<K, V> errorHandler) {
+    this(
+        handler,
+        errorHandler,
+        Runtime.getRuntime().availableProcessors(),
+        DEFAULT_MAX_QUEUED_RECORDS_PER_PARTITION);
+  }
+
+  /**
+   * @param handler the handler that processes the records
+   * @param errorHandler the handler that decides if processing continues after an error
+   * @param workerThreads the number of threads that process records, shared by all listener
+   *     instances using this strategy
+   * @param maxQueuedRecordsPerPartition the number of queued records of a partition that causes the
+   *     partition to be paused until the worker caught up
+   */
+  public ParallelPartitionMLS(
+      MessageHandler<K, V> handler,
+      ErrorHandler<K, V> errorHandler,
+      int workerThreads,
+      int maxQueuedRecordsPerPartition) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("workerThreads must be at least 1");
+    }
+    if (maxQueuedRecordsPerPartition < 1) {
+      throw new IllegalArgumentException("maxQueuedRecordsPerPartition must be at least 1");
+    }
+    this.handler = handler;
+    this.errorHandler = errorHandler;
+    this.workerThreads = workerThreads;
+    this.maxQueuedRecordsPerPartition = maxQueuedRecordsPerPartition;
+  }
+
+  @Override
+  public ConsumerRebalanceListener createRebalanceListener(KafkaConsumer<K, V> consumer) {
+    return contexts.computeIfAbsent(consumer, ConsumerContext::new);
+  }
+
+  @Override
+  public void processRecords(ConsumerRecords<K, V> records, KafkaConsumer<K, V> consumer) {
+    ConsumerContext context = contexts.computeIfAbsent(consumer, ConsumerContext::new);
+
+    // only needed if the consumer has not been subscribed with the rebalance listener
+    context.removeRevokedPartitions();
+
+    for (TopicPartition partition : records.partitions()) {
+      context.enqueue(partition, records.records(partition));
+    }
+
+    context.handleFailures();
+    context.pauseOrResumePartitions();
+    context.commitProcessedOffsets();
+
+    RuntimeException stopCause = context.stopCause();
+    if (stopCause != null) {
+      throw new StopListenerException(stopCause);
+    }
+  }
+
+  /**
+   * Stops processing of queued records of the given consumer, waits for the records that are
+   * currently processed and commits the offsets of all records that have been processed.
+   *
+   * @param consumer the consumer to communicate with Kafka
+   */
+  @Override
+  public void commitOnClose(KafkaConsumer<K, V> consumer) {
+    ConsumerContext context = contexts.remove(consumer);
+    if (context == null) {
+      return;
+    }
+    context.close();
+    shutdownExecutorIfUnused();
+  }
+
+  /**
+   * @param consumer a consumer that is used with this strategy
+   * @return the number of records that are waiting for processing by partition
+   */
+  public Map<TopicPartition, Integer> getQueueDepths(KafkaConsumer<K, V> consumer) {
+    ConsumerContext context = contexts.get(consumer);
+    if (context == null) {
+      return Collections.emptyMap();
+    }
+    Map<TopicPartition, Integer> queueDepths = new HashMap<>();
+    context.workers.forEach((partition, worker) -> queueDepths.put(partition, worker.queued.get()));
+    return queueDepths;
+  }
+
+  @Override
+  public void verifyConsumerConfig(Map<String, String> config) {
+    if (Boolean.parseBoolean(
+        config.getOrDefault(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true"))) {
+      throw new ConfigurationException(
+          "The strategy should NOT use autocommit but property 'enable.auto.commit' in consumer config is set to 'true' (which is the default and must be disabled).");
+    }
+  }
+
+  @Override
+  public Map<String, String> forcedConfigToApply() {
+    return Collections.singletonMap(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+  }
+
+  private synchronized ExecutorService executor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(workerThreads, new WorkerThreadFactory());
+    }
+    return executor;
+  }
+
+  private synchronized void shutdownExecutorIfUnused() {
+    if (contexts.isEmpty() && executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * The state of all partitions assigned to one consumer. Partitions are only added and removed by
+   * the polling thread, either while processing the records of a poll or in the callbacks of the
+   * rebalance listener, which are invoked during the poll.
+   */
+  private class ConsumerContext implements ConsumerRebalanceListener {
+
+    private final KafkaConsumer<K, V> consumer;
+    private final String consumerName;
+    private final Map<TopicPartition, PartitionWorker> workers = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    private volatile boolean closed;
+    private RuntimeException stopCauseOfRevokedPartition;
+
+    private ConsumerContext(KafkaConsumer<K, V> consumer) {
+      this.consumer = consumer;
+      this.consumerName = KafkaHelper.getClientId(consumer);
+    }
+
+    private void enqueue(TopicPartition partition, List<ConsumerRecord<K, V>> records) {
+      workers.computeIfAbsent(partition, PartitionWorker::new).enqueue(records);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      if (closed) {
+        // offsets have been committed by commitOnClose already
+        return;
+      }
+      Collection<PartitionWorker> revoked = revoke(partitions);
+      awaitIdle(revoked);
+      commitProcessedOffsets(revoked);
+      forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      // records of a previous assignment must not be processed, the consumer fetches them again
+      revoke(partitions);
+      forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+      // the partitions are owned by another consumer already, committing would fail
+      awaitIdle(revoke(partitions));
+      forget(partitions);
+    }
+
+    private Collection<PartitionWorker> revoke(Collection<TopicPartition> partitions) {
+      List<PartitionWorker> revoked = new ArrayList<>();
+      for (TopicPartition partition : partitions) {
+        PartitionWorker worker = workers.get(partition);
+        if (worker != null) {
+          LOGGER.info("Partition {} is no longer assigned to {}", partition, consumerName);
+          worker.revoke();
+          revoked.add(worker);
+        }
+      }
+      return revoked;
+    }
+
+    private void awaitIdle(Collection<PartitionWorker> workersToAwait) {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MS);
+      try {
+        for (PartitionWorker worker : workersToAwait) {
+          if (!worker.awaitIdle(deadline)) {
+            LOGGER.warn("Partition worker for {} did not finish in time", worker.partition);
+          }
+        }
+      } catch (InterruptedException e) {
+        LOGGER.warn("Interrupted while waiting for partition workers to finish", e);
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+      for (TopicPartition partition : partitions) {
+        PartitionWorker worker = workers.remove(partition);
+        if (worker != null && worker.stopCause != null) {
+          stopCauseOfRevokedPartition = worker.stopCause;
+        }
+        committedOffsets.remove(partition);
+      }
+    }
+
+    private void close() {
+      closed = true;
+      Collection<PartitionWorker> all = workers.values();
+      all.forEach(PartitionWorker::revoke);
+      awaitIdle(all);
+      commitProcessedOffsets(all);
+    }
+
+    private void removeRevokedPartitions() {
+      Set<TopicPartition> assignment = consumer.assignment();
+      Iterator<Map.Entry<TopicPartition, PartitionWorker>> it = workers.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<TopicPartition, PartitionWorker> entry = it.next();
+        if (!assignment.contains(entry.getKey())) {
+          LOGGER.info("Partition {} is no longer assigned to {}", entry.getKey(), consumerName);
+          entry.getValue().revoke();
+          committedOffsets.remove(entry.getKey());
+          it.remove();
+        }
+      }
+    }
+
+    private void pauseOrResumePartitions() {
+      Set<TopicPartition> paused = consumer.paused();
+      for (PartitionWorker worker : workers.values()) {
+        int queued = worker.queued.get();
+        boolean isPaused = paused.contains(worker.partition);
+        if (!isPaused && queued >= maxQueuedRecordsPerPartition) {
+          LOGGER.debug("Pausing partition {} with {} queued records", worker.partition, queued);
+          consumer.pause(Collections.singleton(worker.partition));
+        } else if (isPaused && queued <= maxQueuedRecordsPerPartition / 2) {
+          LOGGER.debug("Resuming partition {} with {} queued records", worker.partition, queued);
+          consumer.resume(Collections.singleton(worker.partition));
+        }
+      }
+    }
+
+    private void commitProcessedOffsets() {
+      commitProcessedOffsets(workers.values());
+    }
+
+    private void commitProcessedOffsets(Collection<PartitionWorker> workersToCommit) {
+      Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+      for (PartitionWorker worker : workersToCommit) {
+        long nextOffset = worker.nextOffsetToCommit.get();
+        Long committed = committedOffsets.get(worker.partition);
+        if (nextOffset >= 0 && (committed == null || committed < nextOffset)) {
+          offsets.put(worker.partition, new OffsetAndMetadata(nextOffset));
+        }
+      }
+      if (offsets.isEmpty()) {
+        return;
+      }
+      try {
+        consumer.commitSync(offsets);
+        offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+      } catch (CommitFailedException e) {
+        LOGGER.error("Commit failed", e);
+      } catch (KafkaException e) {
+        LOGGER.error("Commit of offsets {} failed", offsets, e);
+      }
+    }
+
+    /** Invokes the error handler for failed records in the polling thread. */
+    private void handleFailures() {
+      for (PartitionWorker worker : workers.values()) {
+        Failure failure = worker.failure;
+        if (failure != null) {
+          boolean shouldContinue =
+              errorHandler.handleError(failure.consumerRecord, failure.exception, consumer);
+          if (shouldContinue) {
+            worker.nextOffsetToCommit.set(failure.consumerRecord.offset() + 1);
+            worker.failure = null;
+            worker.schedule();
+          } else {
+            worker.stopCause = failure.exception;
+          }
+        }
+      }
+    }
+
+    private RuntimeException stopCause() {
+      if (stopCauseOfRevokedPartition != null) {
+        return stopCauseOfRevokedPartition;
+      }
+      for (PartitionWorker worker : workers.values()) {
+        if (worker.stopCause != null) {
+          return worker.stopCause;
+        }
+      }
+      return null;
+    }
+
+    /** Processes the records of one partition in order. At most one task is scheduled at once. */
+    private class PartitionWorker implements Runnable {
+
+      private final TopicPartition partition;
+      private final Queue<ConsumerRecord<K, V>> queue = new ConcurrentLinkedQueue<>();
+      private final AtomicInteger queued = new AtomicInteger();
+      private final AtomicBoolean scheduled = new AtomicBoolean();
+      private final AtomicLong nextOffsetToCommit = new AtomicLong(-1);
+      private final Histogram.Child messageDurationHistogram;
+      private volatile boolean revoked;
+      private volatile Failure failure;
+      private volatile RuntimeException stopCause;
+
+      private PartitionWorker(TopicPartition partition) {
+        this.partition = partition;
+        this.messageDurationHistogram =
+            consumerProcessedMsgHistogram.child(consumerName, partition.topic());
+      }
+
+      private void enqueue(List<ConsumerRecord<K, V>> records) {
+        queue.addAll(records);
+        queued.addAndGet(records.size());
+        schedule();
+      }
+
+      private void revoke() {
+        revoked = true;
+        queue.clear();
+      }
+
+      private void schedule() {
+        if (!revoked
+            && failure == null
+            && stopCause == null
+            && scheduled.compareAndSet(false, true)) {
+          try {
+            executor().execute(this);
+          } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            LOGGER.warn("Partition worker for {} rejected", partition, e);
+          }
+        }
+      }
+
+      @Override
+      public void run() {
+        try {
+          ConsumerRecord<K, V> consumerRecord;
+          while (!revoked
+              && failure == null
+              && stopCause == null
+              && (consumerRecord = queue.poll()) != null) {
+            process(consumerRecord);
+            queued.decrementAndGet();
+          }
+        } finally {
+          synchronized (this) {
+            scheduled.set(false);
+            notifyAll();
+          }
+        }
+        // records may have been added after the loop found the queue empty
+        if (!queue.isEmpty()) {
+          schedule();
+        }
+      }
+
+      /**
+       * @param deadline the {@link System#nanoTime()} until the worker is awaited
+       * @return if the worker finished processing before the deadline
+       */
+      private synchronized boolean awaitIdle(long deadline) throws InterruptedException {
+        while (scheduled.get()) {
+          long remainingNanos = deadline - System.nanoTime();
+          if (remainingNanos <= 0) {
+            return false;
+          }
+          TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        }
+        return true;
+      }
+
+      private void process(ConsumerRecord<K, V> consumerRecord) {
+        LOGGER.debug("Handling message for {}", consumerRecord.key());
+        try {
+          SimpleTimer timer = new SimpleTimer();
+          handler.handle(consumerRecord);
+          nextOffsetToCommit.set(consumerRecord.offset() + 1);
+
+          // Prometheus
+          double elapsedSeconds = timer.elapsedSeconds();
+          messageDurationHistogram.observe(elapsedSeconds);
+
+          if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(
+                "calculated duration {} for message consumed by {} from {}",
+                elapsedSeconds,
+                consumerName,
+                consumerRecord.topic());
+          }
+        } catch (RuntimeException e) {
+          LOGGER.error(
+              "Error while handling record {} in message handler {}",
+              consumerRecord.key(),
+              handler.getClass(),
+              e);
+          // the consumer must only be used by the polling thread that handles the failure
+          failure = new Failure(consumerRecord, e);
+        }
+      }
+    }
+
+    /** A record that failed in the message handler. */
+    private class Failure {
+
+      private final ConsumerRecord<K, V> consumerRecord;
+      private final RuntimeException exception;
+
+      private Failure(ConsumerRecord<K, V> consumerRecord, RuntimeException exception) {
+        this.consumerRecord = consumerRecord;
+        this.exception = exception;
+      }
+    }
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final int poolNumber = POOL_COUNTER.incrementAndGet();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread =
+          new Thread(
+              runnable,
+              "kafka-partition-worker-" + poolNumber + "-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -1,18 +1,23 @@
 package org.sdase.commons.server.kafka.consumer.strategies.retryprocessingerror;
 
+import io.prometheus.client.Histogram;
 import io.prometheus.client.SimpleTimer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.config.AsyncCommitConfig;
 import org.sdase.commons.server.kafka.consumer.ErrorHandler;
 import org.sdase.commons.server.kafka.consumer.KafkaHelper;
 import org.sdase.commons.server.kafka.consumer.MessageHandler;
 import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.consumer.strategies.AsyncOffsetCommitter;
 import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
 import org.sdase.commons.server.kafka.exception.ConfigurationException;
 import org.slf4j.Logger;
@@ -20,18 +25,37 @@ import org.slf4j.LoggerFactory;
 
 /**
  * {@link MessageListenerStrategy} commits records for each partition. In case of processing errors
- * an error handler can decide if processing should be retried or stopped.
+ * an error handler can decide if processing should be retried or stopped. If created with an {@link
+ * AsyncCommitConfig}, the offsets are collected across polls and committed asynchronously instead.
+ * Pending offsets are committed synchronously on rebalance and on close.
  */
 public class RetryProcessingErrorMLS<K, V> extends MessageListenerStrategy<K, V> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RetryProcessingErrorMLS.class);
   private final MessageHandler<K, V> handler;
   private final ErrorHandler<K, V> errorHandler;
+  private final AsyncCommitConfig asyncCommitConfig;
+  private final Map<KafkaConsumer<K, V>, AsyncOffsetCommitter<K, V>> asyncCommitters =
+      new ConcurrentHashMap<>();
   private String consumerName;
 
   public RetryProcessingErrorMLS(MessageHandler<K, V> handler, ErrorHandler<K, V> errorHandler) {
+    this(handler, errorHandler, null);
+  }
+
+  /**
+   * @param handler the handler that processes each record
+   * @param errorHandler the handler that decides if a failed record is retried
+   * @param asyncCommitConfig the thresholds to commit offsets asynchronously or {@code null} to
+   *     commit synchronously for each partition after each poll
+   */
+  public RetryProcessingErrorMLS(
+      MessageHandler<K, V> handler,
+      ErrorHandler<K, V> errorHandler,
+      AsyncCommitConfig asyncCommitConfig) {
     this.handler = handler;
     this.errorHandler = errorHandler;
+    this.asyncCommitConfig = asyncCommitConfig;
   }
 
   @Override
@@ -40,14 +64,47 @@ public class RetryProcessingErrorMLS<K, V> extends MessageListenerStrategy<K, V>
       consumerName = KafkaHelper.getClientId(consumer);
     }
 
+    AsyncOffsetCommitter<K, V> asyncCommitter = getAsyncCommitter(consumer);
     for (TopicPartition partition : records.partitions()) {
-      processRecordsByPartition(records, consumer, partition);
+      processRecordsByPartition(records, consumer, partition, asyncCommitter);
+    }
+    if (asyncCommitter != null) {
+      asyncCommitter.commitIfDue();
+    }
+  }
+
+  @Override
+  public ConsumerRebalanceListener createRebalanceListener(KafkaConsumer<K, V> consumer) {
+    return getAsyncCommitter(consumer);
+  }
+
+  @Override
+  public void commitOnClose(KafkaConsumer<K, V> consumer) {
+    AsyncOffsetCommitter<K, V> asyncCommitter = asyncCommitters.remove(consumer);
+    if (asyncCommitter != null) {
+      asyncCommitter.commitSync();
+    } else {
+      super.commitOnClose(consumer);
     }
   }
 
+  private AsyncOffsetCommitter<K, V> getAsyncCommitter(KafkaConsumer<K, V> consumer) {
+    if (asyncCommitConfig == null) {
+      return null;
+    }
+    return asyncCommitters.computeIfAbsent(
+        consumer, c -> new AsyncOffsetCommitter<>(c, asyncCommitConfig, consumerCommitMetrics));
+  }
+
   private void processRecordsByPartition(
-      ConsumerRecords<K, V> records, KafkaConsumer<K, V> consumer, TopicPartition partition) {
+      ConsumerRecords<K, V> records,
+      KafkaConsumer<K, V> consumer,
+      TopicPartition partition,
+      AsyncOffsetCommitter<K, V> asyncCommitter) {
     List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+    // resolved once per partition to avoid the label lookup for each record
+    Histogram.Child messageDurationHistogram =
+        consumerProcessedMsgHistogram.child(consumerName, partition.topic());
     OffsetAndMetadata lastCommitOffset = null;
     for (ConsumerRecord<K, V> record : partitionRecords) {
       LOGGER.debug("Handling message for {}", record.key());
@@ -58,10 +115,13 @@ public class RetryProcessingErrorMLS<K, V> extends MessageListenerStrategy<K, V>
         // mark last successful processed record for commit
         lastCommitOffset = new OffsetAndMetadata(record.offset() + 1);
         addOffsetToCommitOnClose(record);
+        if (asyncCommitter != null) {
+          asyncCommitter.addProcessed(record);
+        }
 
         // Prometheus
         double elapsedSeconds = timer.elapsedSeconds();
-        consumerProcessedMsgHistogram.observe(elapsedSeconds, consumerName, record.topic());
+        messageDurationHistogram.observe(elapsedSeconds);
 
         if (LOGGER.isTraceEnabled()) {
           LOGGER.trace(
@@ -93,7 +153,7 @@ public class RetryProcessingErrorMLS<K, V> extends MessageListenerStrategy<K, V>
         }
       }
     }
-    if (lastCommitOffset != null) {
+    if (lastCommitOffset != null && asyncCommitter == null) {
       consumer.commitSync(Collections.singletonMap(partition, lastCommitOffset));
     }
   }
@@ -1,33 +1,60 @@
 package org.sdase.commons.server.kafka.consumer.strategies.synccommit;
 
+import io.prometheus.client.Histogram;
 import io.prometheus.client.SimpleTimer;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.kafka.clients.consumer.CommitFailedException;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.config.AsyncCommitConfig;
 import org.sdase.commons.server.kafka.consumer.ErrorHandler;
 import org.sdase.commons.server.kafka.consumer.KafkaHelper;
 import org.sdase.commons.server.kafka.consumer.MessageHandler;
 import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.consumer.strategies.AsyncOffsetCommitter;
 import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
 import org.sdase.commons.server.kafka.exception.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** {@link MessageListenerStrategy} that uses sync commit explicitly before polling a new chunk */
+/**
+ * {@link MessageListenerStrategy} that uses sync commit explicitly before polling a new chunk. If
+ * created with an {@link AsyncCommitConfig}, the offsets are collected across polls and committed
+ * asynchronously instead. Pending offsets are committed synchronously on rebalance and on close.
+ */
 public class SyncCommitMLS<K, V> extends MessageListenerStrategy<K, V> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SyncCommitMLS.class);
   private final MessageHandler<K, V> handler;
   private final ErrorHandler<K, V> errorHandler;
+  private final AsyncCommitConfig asyncCommitConfig;
+  private final Map<KafkaConsumer<K, V>, AsyncOffsetCommitter<K, V>> asyncCommitters =
+      new ConcurrentHashMap<>();
   private String consumerName;
 
   public SyncCommitMLS(MessageHandler<K, V> handler, ErrorHandler<K, V> errorHandler) {
+    this(handler, errorHandler, null);
+  }
+
+  /**
+   * @param handler the handler that processes each record
+   * @param errorHandler the handler that decides how to proceed if processing failed
+   * @param asyncCommitConfig the thresholds to commit offsets asynchronously or {@code null} to
+   *     commit synchronously after each poll
+   */
+  public SyncCommitMLS(
+      MessageHandler<K, V> handler,
+      ErrorHandler<K, V> errorHandler,
+      AsyncCommitConfig asyncCommitConfig) {
     this.handler = handler;
     this.errorHandler = errorHandler;
+    this.asyncCommitConfig = asyncCommitConfig;
   }
 
   @Override
@@ -36,38 +63,74 @@ public class SyncCommitMLS<K, V> extends MessageListenerStrategy<K, V> {
       consumerName = KafkaHelper.getClientId(consumer);
     }
 
-    for (ConsumerRecord<K, V> record : records) {
-      LOGGER.debug("Handling message for {}", record.key());
-      try {
-        SimpleTimer timer = new SimpleTimer();
-        handler.handle(record);
-        addOffsetToCommitOnClose(record);
-
-        // Prometheus
-        double elapsedSeconds = timer.elapsedSeconds();
-        consumerProcessedMsgHistogram.observe(elapsedSeconds, consumerName, record.topic());
-
-        if (LOGGER.isTraceEnabled()) {
-          LOGGER.trace(
-              "calculated duration {} for message consumed by {} from {}",
-              elapsedSeconds,
-              consumerName,
-              record.topic());
-        }
+    AsyncOffsetCommitter<K, V> asyncCommitter = getAsyncCommitter(consumer);
+    for (TopicPartition partition : records.partitions()) {
+      // resolved once per partition to avoid the label lookup for each record
+      Histogram.Child messageDurationHistogram =
+          consumerProcessedMsgHistogram.child(consumerName, partition.topic());
+      for (ConsumerRecord<K, V> record : records.records(partition)) {
+        LOGGER.debug("Handling message for {}", record.key());
+        try {
+          SimpleTimer timer = new SimpleTimer();
+          handler.handle(record);
+          addOffsetToCommitOnClose(record);
+          if (asyncCommitter != null) {
+            asyncCommitter.addProcessed(record);
+          }
+
+          // Prometheus
+          double elapsedSeconds = timer.elapsedSeconds();
+          messageDurationHistogram.observe(elapsedSeconds);
 
-      } catch (RuntimeException e) {
-        LOGGER.error(
-            "Error while handling record {} in message handler {}",
-            record.key(),
-            handler.getClass(),
-            e);
-        boolean shouldContinue = errorHandler.handleError(record, e, consumer);
-        if (!shouldContinue) {
-          throw new StopListenerException(e);
+          if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(
+                "calculated duration {} for message consumed by {} from {}",
+                elapsedSeconds,
+                consumerName,
+                record.topic());
+          }
+
+        } catch (RuntimeException e) {
+          LOGGER.error(
+              "Error while handling record {} in message handler {}",
+              record.key(),
+              handler.getClass(),
+              e);
+          boolean shouldContinue = errorHandler.handleError(record, e, consumer);
+          if (!shouldContinue) {
+            throw new StopListenerException(e);
+          }
         }
       }
     }
-    commitSync(consumer);
+    if (asyncCommitter != null) {
+      asyncCommitter.commitIfDue();
+    } else {
+      commitSync(consumer);
+    }
+  }
+
+  @Override
+  public ConsumerRebalanceListener createRebalanceListener(KafkaConsumer<K, V> consumer) {
+    return getAsyncCommitter(consumer);
+  }
+
+  @Override
+  public void commitOnClose(KafkaConsumer<K, V> consumer) {
+    AsyncOffsetCommitter<K, V> asyncCommitter = asyncCommitters.remove(consumer);
+    if (asyncCommitter != null) {
+      asyncCommitter.commitSync();
+    } else {
+      super.commitOnClose(consumer);
+    }
+  }
+
+  private AsyncOffsetCommitter<K, V> getAsyncCommitter(KafkaConsumer<K, V> consumer) {
+    if (asyncCommitConfig == null) {
+      return null;
+    }
+    return asyncCommitters.computeIfAbsent(
+        consumer, c -> new AsyncOffsetCommitter<>(c, asyncCommitConfig, consumerCommitMetrics));
   }
 
   private void commitSync(KafkaConsumer<K, V> consumer) {
@@ -0,0 +1,107 @@
+package org.sdase.commons.server.kafka.producer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts the {@link Future} returned by {@link MessageProducer#send} to a {@link CompletionStage}
+ * for producers that do not implement {@link MessageProducer#sendAsync} themselves.
+ *
+ * <p>Pending futures are not awaited in a blocking way. A single shared thread checks them with an
+ * increasing delay instead, so that slow or stuck sends do not occupy a thread each.
+ */
+final class FutureCompletionStage {
+
+  /** The delay before a pending future is checked for the first time. */
+  private static final long MIN_POLL_DELAY_MICROS = 100;
+
+  /** The maximum delay between two checks of a pending future. */
+  private static final long MAX_POLL_DELAY_MICROS = TimeUnit.MILLISECONDS.toMicros(100);
+
+  /** Checks if pending futures are done. */
+  private static final ScheduledExecutorService POLLING_EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "kafka-producer-send-poller");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private FutureCompletionStage() {
+    // utility class
+  }
+
+  /**
+   * @param future the future of a send, may be {@code null} for producers that do not provide a
+   *     result
+   * @param <T> the type of the result
+   * @return a stage that completes with the result of the future
+   */
+  @SuppressWarnings("unchecked")
+  static <T> CompletionStage<T> of(Future<T> future) {
+    if (future == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    if (future instanceof CompletionStage) {
+      return (CompletionStage<T>) future;
+    }
+    CompletableFuture<T> result = new CompletableFuture<>();
+    if (future.isDone()) {
+      complete(result, future);
+    } else {
+      new Poll<>(future, result).schedule(MIN_POLL_DELAY_MICROS);
+    }
+    return result;
+  }
+
+  /**
+   * @param result the stage to complete
+   * @param future a future that is done
+   */
+  private static <T> void complete(CompletableFuture<T> result, Future<T> future) {
+    try {
+      result.complete(future.get());
+    } catch (ExecutionException e) {
+      result.completeExceptionally(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.completeExceptionally(new CompletionException(e));
+    } catch (RuntimeException e) {
+      // e.g. CancellationException
+      result.completeExceptionally(e);
+    }
+  }
+
+  /** Checks if a pending future is done and schedules the next check otherwise. */
+  private static class Poll<T> implements Runnable {
+
+    private final Future<T> future;
+    private final CompletableFuture<T> result;
+    private long delayMicros;
+
+    private Poll(Future<T> future, CompletableFuture<T> result) {
+      this.future = future;
+      this.result = result;
+    }
+
+    private void schedule(long delayMicros) {
+      this.delayMicros = delayMicros;
+      POLLING_EXECUTOR.schedule(this, delayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        complete(result, future);
+      } else if (!result.isDone()) {
+        schedule(Math.min(delayMicros * 2, MAX_POLL_DELAY_MICROS));
+      }
+    }
+  }
+}
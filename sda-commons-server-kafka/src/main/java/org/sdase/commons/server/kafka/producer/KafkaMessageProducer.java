@@ -1,45 +1,185 @@
 package org.sdase.commons.server.kafka.producer;
 
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.SimpleTimer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.apache.kafka.common.header.Headers;
 import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageCounter;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicSendMetrics;
 
+/**
+ * {@link MessageProducer} that sends messages with a {@link KafkaProducer} to a fixed topic.
+ *
+ * <p>The number of messages that are sent but not acknowledged yet can be limited. When the limit
+ * is reached, sending blocks until a message is acknowledged. If no message is acknowledged in
+ * time, the send fails with a {@link TimeoutException}.
+ */
 public class KafkaMessageProducer<K, V> implements MessageProducer<K, V> {
 
   private String topic;
 
   private KafkaProducer<K, V> producer;
 
-  private ProducerTopicMessageCounter msgCounter;
+  /** The counter of sent messages, resolved once because producer name and topic are fixed. */
+  private Counter.Child msgCounter;
 
-  private String producerName;
+  private Histogram.Child sendDuration;
+
+  private Counter.Child sendFailures;
+
+  private Semaphore inFlightPermits;
+
+  private long maxInFlightBlockMs;
 
   public KafkaMessageProducer(
       String topic,
       KafkaProducer<K, V> producer,
       ProducerTopicMessageCounter msgCounter,
       String producerName) {
+    this(topic, producer, msgCounter, null, producerName, 0, 0);
+  }
+
+  /**
+   * @param topic the topic to send to
+   * @param producer the producer used to send
+   * @param msgCounter the counter of sent messages
+   * @param sendMetrics the metrics of acknowledged and failed messages, may be {@code null}
+   * @param producerName the name of the producer used in the metrics
+   * @param maxInFlightMessages the maximum number of messages that are sent but not acknowledged
+   *     yet, 0 for no limit
+   * @param maxInFlightBlockMs the maximum time to block a send when the limit is reached
+   */
+  public KafkaMessageProducer(
+      String topic,
+      KafkaProducer<K, V> producer,
+      ProducerTopicMessageCounter msgCounter,
+      ProducerTopicSendMetrics sendMetrics,
+      String producerName,
+      int maxInFlightMessages,
+      long maxInFlightBlockMs) {
     this.producer = producer;
     this.topic = topic;
-    this.msgCounter = msgCounter;
-    this.producerName = producerName;
+    this.msgCounter = msgCounter.child(producerName, topic);
+    if (sendMetrics != null) {
+      this.sendDuration = sendMetrics.durationChild(producerName, topic);
+      this.sendFailures = sendMetrics.failureChild(producerName, topic);
+    }
+    if (maxInFlightMessages > 0) {
+      this.inFlightPermits = new Semaphore(maxInFlightMessages);
+    }
+    this.maxInFlightBlockMs = maxInFlightBlockMs;
   }
 
   @Override
   public Future<RecordMetadata> send(K key, V value) {
-    ProducerRecord<K, V> record = new ProducerRecord<>(topic, key, value);
-    msgCounter.increase(producerName, record.topic());
-    return producer.send(record);
+    return send(new ProducerRecord<>(topic, key, value), null);
   }
 
   @Override
   public Future<RecordMetadata> send(K key, V value, Headers headers) {
-    ProducerRecord<K, V> record = new ProducerRecord<>(topic, null, key, value, headers);
-    msgCounter.increase(producerName, record.topic());
-    return producer.send(record);
+    return send(new ProducerRecord<>(topic, null, key, value, headers), null);
+  }
+
+  @Override
+  public CompletionStage<RecordMetadata> sendAsync(K key, V value, Headers headers) {
+    CompletableFuture<RecordMetadata> result = new CompletableFuture<>();
+    try {
+      send(
+          new ProducerRecord<>(topic, null, key, value, headers),
+          (metadata, exception) -> {
+            if (exception != null) {
+              result.completeExceptionally(exception);
+            } else {
+              result.complete(metadata);
+            }
+          });
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  private Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+    if (!acquireInFlightPermit()) {
+      TimeoutException e =
+          new TimeoutException(
+              String.format(
+                  "Message to '%s' not sent: too many messages in flight after %d ms.",
+                  topic, maxInFlightBlockMs));
+      if (sendFailures != null) {
+        sendFailures.inc();
+      }
+      if (callback != null) {
+        callback.onCompletion(null, e);
+      }
+      CompletableFuture<RecordMetadata> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    msgCounter.inc();
+    SimpleTimer timer = new SimpleTimer();
+    try {
+      return producer.send(
+          record, (metadata, exception) -> onCompletion(metadata, exception, timer, callback));
+    } catch (RuntimeException e) {
+      // the producer did not accept the record and will not call the callback
+      releaseInFlightPermit();
+      if (sendFailures != null) {
+        sendFailures.inc();
+      }
+      throw e;
+    }
+  }
+
+  private void onCompletion(
+      RecordMetadata metadata, Exception exception, SimpleTimer timer, Callback callback) {
+    releaseInFlightPermit();
+    if (sendDuration != null) {
+      sendDuration.observe(timer.elapsedSeconds());
+    }
+    if (exception != null && sendFailures != null) {
+      sendFailures.inc();
+    }
+    if (callback != null) {
+      callback.onCompletion(metadata, exception);
+    }
+  }
+
+  private boolean acquireInFlightPermit() {
+    if (inFlightPermits == null) {
+      return true;
+    }
+    try {
+      return inFlightPermits.tryAcquire(maxInFlightBlockMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptException(e);
+    }
+  }
+
+  private void releaseInFlightPermit() {
+    if (inFlightPermits != null) {
+      inFlightPermits.release();
+    }
+  }
+
+  /** @return the live view of the metrics of the producer */
+  public Map<MetricName, ? extends Metric> getMetrics() {
+    return producer.metrics();
   }
 
   public void close() {
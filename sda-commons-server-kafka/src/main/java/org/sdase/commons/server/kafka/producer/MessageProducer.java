@@ -1,6 +1,12 @@
 package org.sdase.commons.server.kafka.producer;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.header.Headers;
 
@@ -23,6 +29,68 @@ public interface MessageProducer<K, V> {
 
   Future<RecordMetadata> send(K key, V value, Headers headers);
 
+  /**
+   * Asynchronously send a record to a specific topic and get notified when it is acknowledged.
+   *
+   * @param key key to send
+   * @param value value to send
+   * @return a stage that completes with the {@link RecordMetadata} when the record is acknowledged
+   *     or exceptionally if sending failed
+   * @see #sendAsync(Object, Object, Headers)
+   */
+  default CompletionStage<RecordMetadata> sendAsync(K key, V value) {
+    return sendAsync(key, value, null);
+  }
+
+  /**
+   * Asynchronously send a record to a specific topic and get notified when it is acknowledged. Note
+   * that stages depending on the result are executed in the I/O thread of the producer unless an
+   * async method with an own executor is used. They must not block.
+   *
+   * <p>The default implementation sends the record with {@link #send(Object, Object, Headers)}, or
+   * {@link #send(Object, Object)} if there are no headers, and completes the stage when the
+   * returned {@link Future} is done. If the {@code Future} is not a {@link CompletionStage} itself,
+   * a single thread shared by all producers checks if it is done, with a delay of up to 100ms.
+   * Implementations should override this method if they are notified about the result of a send.
+   *
+   * @param key key to send
+   * @param value value to send
+   * @param headers headers to send, may be {@code null}
+   * @return a stage that completes with the {@link RecordMetadata} when the record is acknowledged
+   *     or exceptionally if sending failed
+   */
+  default CompletionStage<RecordMetadata> sendAsync(K key, V value, Headers headers) {
+    Future<RecordMetadata> future;
+    try {
+      future = headers == null ? send(key, value) : send(key, value, headers);
+    } catch (RuntimeException e) {
+      CompletableFuture<RecordMetadata> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    return FutureCompletionStage.of(future);
+  }
+
+  /**
+   * Asynchronously sends all messages in the given order. The producer batches the messages
+   * according to its configuration.
+   *
+   * @param messages the messages to send
+   * @return a stage that completes with the {@link RecordMetadata} of all messages in the given
+   *     order when all of them are acknowledged or exceptionally if sending any message failed
+   */
+  default CompletionStage<List<RecordMetadata>> sendAll(
+      Collection<ProducerMessage<K, V>> messages) {
+    List<CompletableFuture<RecordMetadata>> results = new ArrayList<>(messages.size());
+    for (ProducerMessage<K, V> message : messages) {
+      results.add(
+          sendAsync(message.getKey(), message.getValue(), message.getHeaders())
+              .toCompletableFuture());
+    }
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+        .thenApply(v -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+  }
+
   /**
    * This method is a blank default implementation in order to avoid it being a breaking change. The
    * implementing class must override this to add behaviour to it. The implementation should call
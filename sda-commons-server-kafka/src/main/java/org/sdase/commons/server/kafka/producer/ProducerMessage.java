@@ -0,0 +1,43 @@
+package org.sdase.commons.server.kafka.producer;
+
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * A message that is sent with {@link MessageProducer#sendAll(java.util.Collection)}.
+ *
+ * @param <K> key class to send
+ * @param <V> value class to send
+ */
+public class ProducerMessage<K, V> {
+
+  private final K key;
+  private final V value;
+  private final Headers headers;
+
+  private ProducerMessage(K key, V value, Headers headers) {
+    this.key = key;
+    this.value = value;
+    this.headers = headers;
+  }
+
+  public static <K, V> ProducerMessage<K, V> of(K key, V value) {
+    return new ProducerMessage<>(key, value, null);
+  }
+
+  public static <K, V> ProducerMessage<K, V> of(K key, V value, Headers headers) {
+    return new ProducerMessage<>(key, value, headers);
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public V getValue() {
+    return value;
+  }
+
+  /** @return the headers of the message, may be {@code null} */
+  public Headers getHeaders() {
+    return headers;
+  }
+}
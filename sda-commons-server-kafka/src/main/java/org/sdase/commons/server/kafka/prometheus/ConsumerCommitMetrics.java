@@ -0,0 +1,107 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The central definition of the metrics of offset commits of Kafka consumers. It measures the
+ * duration of commits and the number of processed records that are not committed yet.
+ */
+public class ConsumerCommitMetrics {
+
+  /** The name of the commit duration histogram as it is published to Prometheus. */
+  private static final String DURATION_METRIC_NAME = "kafka_consumer_commit_duration";
+
+  /** The help message description that describes the commit duration histogram. */
+  private static final String DURATION_HELP = "Duration of Kafka offset commits in seconds.";
+
+  /** The name of the pending offsets gauge as it is published to Prometheus. */
+  private static final String PENDING_METRIC_NAME = "kafka_consumer_pending_commit_records";
+
+  /** The help message description that describes the pending offsets gauge. */
+  private static final String PENDING_HELP = "Number of processed records not committed yet.";
+
+  /**
+   * The labels added to the commit duration histogram. The labels and their order have to be
+   * aligned with the values used in {@link #observeCommit(double, String, boolean)}
+   */
+  private static final String[] DURATION_LABELS = {
+    // the name of the client committing the offsets
+    "consumer_name",
+    // "sync" or "async"
+    "commit_type"
+  };
+
+  /** The labels added to the pending offsets gauge. */
+  private static final String[] PENDING_LABELS = {
+    // the name of the client committing the offsets
+    "consumer_name"
+  };
+
+  private final Histogram commitDurationHistogram;
+
+  private final Gauge pendingRecordsGauge;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the metrics matching the specification of this {@code ConsumerCommitMetrics} instance.
+   * The metrics are registered when they are used first, so that applications without explicit
+   * commits do not export empty metrics. <strong>Note that there should be only one instance of
+   * this type in the application.</strong>
+   */
+  public ConsumerCommitMetrics() {
+    this.commitDurationHistogram =
+        Histogram.build()
+            .name(DURATION_METRIC_NAME)
+            .help(DURATION_HELP)
+            .labelNames(DURATION_LABELS)
+            .create();
+    this.pendingRecordsGauge =
+        Gauge.build()
+            .name(PENDING_METRIC_NAME)
+            .help(PENDING_HELP)
+            .labelNames(PENDING_LABELS)
+            .create();
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(commitDurationHistogram);
+      CollectorRegistry.defaultRegistry.unregister(pendingRecordsGauge);
+    }
+  }
+
+  /**
+   * Observes the duration of a commit.
+   *
+   * @param durationSeconds the time from the commit request until it completed
+   * @param consumerName the name of the consumer
+   * @param async if the offsets were committed asynchronously
+   */
+  public void observeCommit(double durationSeconds, String consumerName, boolean async) {
+    registerOnFirstUse();
+    commitDurationHistogram.labels(consumerName, async ? "async" : "sync").observe(durationSeconds);
+  }
+
+  /**
+   * Sets the number of processed records of a consumer that are not committed yet.
+   *
+   * @param pendingRecords the number of records
+   * @param consumerName the name of the consumer
+   */
+  public void setPendingRecords(long pendingRecords, String consumerName) {
+    registerOnFirstUse();
+    pendingRecordsGauge.labels(consumerName).set(pendingRecords);
+  }
+
+  private void registerOnFirstUse() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(commitDurationHistogram);
+      CollectorRegistry.defaultRegistry.register(pendingRecordsGauge);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.GaugeMetricFamily;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.sdase.commons.server.kafka.consumer.KafkaHelper;
+import org.sdase.commons.server.kafka.consumer.MessageListener;
+import org.sdase.commons.server.kafka.consumer.strategies.parallelpartition.ParallelPartitionMLS;
+
+/**
+ * Custom Prometheus Collector that reports the number of records waiting for processing by
+ * partition for all registered message listeners that use the {@link ParallelPartitionMLS}. The
+ * queue depths are only read when the metrics are scraped.
+ */
+public class ConsumerPartitionQueueMetrics extends Collector {
+
+  /** The gauge name as it is published to Prometheus. */
+  private static final String METRIC_NAME = "kafka_consumer_partition_queue_depth";
+
+  /** The help message description that describes the gauge. */
+  private static final String HELP = "Number of consumed records waiting for processing.";
+
+  /** The labels added by {@code ConsumerPartitionQueueMetrics}. */
+  private static final List<String> LABELS =
+      Arrays.asList(
+          // the name of the client handling the message
+          "consumer_name",
+          // name of the topic records are processed from
+          "topic_name",
+          // the partition records are processed from
+          "partition");
+
+  private final List<MessageListener<?, ?>> messageListeners;
+
+  /**
+   * Creates and registers a custom Prometheus Collector {@link Collector}. <strong>Note that there
+   * should be only one registered instance of this type in the application.</strong>
+   *
+   * @param messageListeners list of listeners for which to gather metrics
+   */
+  public ConsumerPartitionQueueMetrics(List<MessageListener<?, ?>> messageListeners) {
+    this.messageListeners = messageListeners;
+    this.register();
+  }
+
+  /** Unregisters the collector. Should be called when the context is closed. */
+  public void unregister() {
+    CollectorRegistry.defaultRegistry.unregister(this);
+  }
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    GaugeMetricFamily gauge = new GaugeMetricFamily(METRIC_NAME, HELP, LABELS);
+    for (MessageListener<?, ?> listener : messageListeners) {
+      if (listener.getStrategy() instanceof ParallelPartitionMLS) {
+        addQueueDepths(gauge, listener);
+      }
+    }
+    // families without samples are not exported
+    return gauge.samples.isEmpty() ? Collections.emptyList() : Collections.singletonList(gauge);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> void addQueueDepths(
+      GaugeMetricFamily gauge, MessageListener<K, V> listener) {
+    KafkaConsumer<K, V> consumer = listener.getConsumer();
+    Map<TopicPartition, Integer> queueDepths =
+        ((ParallelPartitionMLS<K, V>) listener.getStrategy()).getQueueDepths(consumer);
+    if (queueDepths.isEmpty()) {
+      return;
+    }
+    String consumerName = KafkaHelper.getClientId(consumer);
+    queueDepths.forEach(
+        (partition, depth) ->
+            gauge.addMetric(
+                Arrays.asList(
+                    consumerName, partition.topic(), String.valueOf(partition.partition())),
+                depth));
+  }
+}
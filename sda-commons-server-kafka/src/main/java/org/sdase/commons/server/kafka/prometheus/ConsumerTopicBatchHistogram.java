@@ -0,0 +1,124 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The central definition of the histograms of message batches processed by Kafka consumers. It
+ * measures the number of records in each batch and the duration to process the batch.
+ */
+public class ConsumerTopicBatchHistogram {
+
+  /** The name of the batch size histogram as it is published to Prometheus. */
+  private static final String SIZE_METRIC_NAME = "kafka_consumer_topic_batch_size";
+
+  /** The help message description that describes the batch size histogram. */
+  private static final String SIZE_HELP = "Number of Kafka Messages consumed in one batch.";
+
+  /** The name of the batch duration histogram as it is published to Prometheus. */
+  private static final String DURATION_METRIC_NAME = "kafka_consumer_topic_batch_duration";
+
+  /** The help message description that describes the batch duration histogram. */
+  private static final String DURATION_HELP =
+      "Duration of Kafka Message batches consumed in seconds.";
+
+  /** The buckets of the batch size histogram. */
+  private static final double[] SIZE_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500};
+
+  /**
+   * The labels added by {@code ConsumerTopicBatchHistogram}. The labels and their order have to be
+   * aligned with the values created in {@link #createLabelValuesForCurrentBatch(String, String,
+   * boolean)}
+   */
+  private static final String[] LABELS = {
+    // the name of the client handling the message
+    "consumer_name",
+    // name of the topic records are processed from
+    "topic_name",
+    // "success" or "failure" of the batch handler
+    "outcome"
+  };
+
+  private final Histogram batchSizeHistogram;
+
+  private final Histogram batchDurationHistogram;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new {@link Histogram}s matching the specification of this {@code
+   * ConsumerTopicBatchHistogram} instance. The histograms are registered when the first batch is
+   * observed, so that applications without batch processing do not export empty histograms.
+   * <strong>Note that there should be only one instance of this type in the application.</strong>
+   */
+  public ConsumerTopicBatchHistogram() {
+    this.batchSizeHistogram =
+        create(Histogram.build().name(SIZE_METRIC_NAME).help(SIZE_HELP).buckets(SIZE_BUCKETS));
+    this.batchDurationHistogram =
+        create(Histogram.build().name(DURATION_METRIC_NAME).help(DURATION_HELP));
+  }
+
+  /** Unregisters the histograms. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(batchSizeHistogram);
+      CollectorRegistry.defaultRegistry.unregister(batchDurationHistogram);
+    }
+  }
+
+  /**
+   * Observes the given batch size and duration and adds the defined labels.
+   *
+   * @param batchSize the number of records in the batch
+   * @param durationSeconds the duration to process the batch
+   * @param consumerName the name of the consumer
+   * @param topicName the name of the topic
+   * @param successful if the batch handler processed the batch without failure
+   */
+  public void observe(
+      int batchSize,
+      double durationSeconds,
+      String consumerName,
+      String topicName,
+      boolean successful) {
+    registerOnFirstUse();
+    String[] labelValues = createLabelValuesForCurrentBatch(consumerName, topicName, successful);
+    batchSizeHistogram.labels(labelValues).observe(batchSize);
+    batchDurationHistogram.labels(labelValues).observe(durationSeconds);
+  }
+
+  /**
+   * Creates all values for the labels required by the histograms in appropriate order.
+   *
+   * @param consumerName the name of the consumer
+   * @param topicName the name of the topic
+   * @param successful if the batch handler processed the batch without failure
+   * @return all values for the labels in the order they are registered in the histograms
+   */
+  @SuppressWarnings("static-method")
+  private String[] createLabelValuesForCurrentBatch(
+      String consumerName, String topicName, boolean successful) {
+    // the number of values and their order has to be aligned with the
+    // defined #LABELS
+    return new String[] {consumerName, topicName, successful ? "success" : "failure"};
+  }
+
+  private void registerOnFirstUse() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(batchSizeHistogram);
+      CollectorRegistry.defaultRegistry.register(batchDurationHistogram);
+    }
+  }
+
+  /**
+   * Builds the {@link Histogram} with the defined labels.
+   *
+   * @param histogramBuilder the builder with name, help and buckets of the histogram
+   * @return the {@link Histogram}
+   */
+  @SuppressWarnings("static-method")
+  private Histogram create(Histogram.Builder histogramBuilder) {
+    return histogramBuilder.labelNames(LABELS).create();
+  }
+}
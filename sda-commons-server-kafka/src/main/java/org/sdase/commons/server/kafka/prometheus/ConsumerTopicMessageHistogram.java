@@ -11,7 +11,7 @@ import io.prometheus.client.Histogram;
 public class ConsumerTopicMessageHistogram {
 
   /** The histogram name as it is published to Prometheus. */
-  private static final String METRIC_NAME = "kafka_consumer_topic_message_duration";
+  public static final String METRIC_NAME = "kafka_consumer_topic_message_duration";
 
   /** The help message description that describes the Histogram. */
   private static final String HELP = "Duration of Kafka Messages consumed in seconds.";
@@ -36,7 +36,19 @@ public class ConsumerTopicMessageHistogram {
    * instance of this type in the application.</strong>
    */
   public ConsumerTopicMessageHistogram() {
-    this.messageDurationHistogram = createAndRegister();
+    this(new double[0]);
+  }
+
+  /**
+   * Creates and registers a new {@link Histogram} matching the specification of this {@code
+   * ConsumerTopicMessageHistogram} instance with custom buckets. <strong>Note that there should be
+   * only one registered instance of this type in the application.</strong>
+   *
+   * @param buckets the upper bounds of the buckets in seconds, the default buckets of Prometheus
+   *     are used if empty
+   */
+  public ConsumerTopicMessageHistogram(double... buckets) {
+    this.messageDurationHistogram = createAndRegister(buckets);
   }
 
   /** Unregisters the histogram. Should be called when the context is closed. */
@@ -56,6 +68,20 @@ public class ConsumerTopicMessageHistogram {
     messageDurationHistogram.labels(labelValues).observe(durationSeconds);
   }
 
+  /**
+   * Resolves the histogram child of the given labels. Consumers that observe many messages of the
+   * same topic should resolve the child once and observe the durations directly to avoid the label
+   * lookup for each message.
+   *
+   * @param consumerName the name of the consumer
+   * @param topicName the name of the topic
+   * @return the child of the histogram to observe the durations of messages with the given labels
+   */
+  public Histogram.Child child(String consumerName, String topicName) {
+    return messageDurationHistogram.labels(
+        createLabelValuesForCurrentMessage(consumerName, topicName));
+  }
+
   /**
    * Creates all values for the labels required by the histogram in appropriate order.
    *
@@ -73,12 +99,16 @@ public class ConsumerTopicMessageHistogram {
   /**
    * Builds the {@link Histogram} to measure message consumer duration and registers it.
    *
+   * @param buckets the upper bounds of the buckets, the default buckets are used if empty
    * @return the registered {@link Histogram}
    */
   @SuppressWarnings("static-method")
-  private Histogram createAndRegister() {
+  private Histogram createAndRegister(double[] buckets) {
     Histogram.Builder histogramBuilder =
         Histogram.build().name(METRIC_NAME).labelNames(LABELS).help(HELP);
+    if (buckets.length > 0) {
+      histogramBuilder.buckets(buckets);
+    }
     Histogram histogram = histogramBuilder.create();
     CollectorRegistry.defaultRegistry.register(histogram);
     return histogram;
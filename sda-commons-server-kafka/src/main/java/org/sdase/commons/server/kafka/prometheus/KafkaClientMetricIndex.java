@@ -0,0 +1,124 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.GaugeMetricFamily;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+/**
+ * Index of the wanted metrics of a single Kafka client. The metrics of the client are searched only
+ * when the index is built. A scrape reads the values of the indexed metrics directly. The index is
+ * rebuilt when metrics are added to or removed from the client, e.g. after a rebalance, or latest
+ * after the configured refresh interval.
+ *
+ * <p>Only metrics of the client, a topic or a partition are indexed. Each of them is exported with
+ * the labels {@code <client>_name}, {@code topic} and {@code partition}. Labels that are not tagged
+ * in the Kafka metric are exported empty, e.g. the client wide {@code records-lag-max} has an empty
+ * {@code topic} and {@code partition}.
+ */
+class KafkaClientMetricIndex {
+
+  private static final String TAG_CLIENT_ID = "client-id";
+  private static final String TAG_TOPIC = "topic";
+  private static final String TAG_PARTITION = "partition";
+
+  private static final Set<String> SUPPORTED_TAGS =
+      new HashSet<>(Arrays.asList(TAG_CLIENT_ID, TAG_TOPIC, TAG_PARTITION));
+
+  private final Map<MetricName, ? extends Metric> metrics;
+  private final Set<String> metricNames;
+  private final long refreshIntervalNanos;
+
+  private List<IndexedMetric> indexedMetrics = new ArrayList<>();
+  private int indexedSize = -1;
+  private long indexedAtNanos;
+
+  /**
+   * @param metrics the live view of the metrics of the Kafka client as provided by {@code
+   *     metrics()} of the client
+   * @param metricNames the names of the Kafka metrics to export
+   * @param refreshIntervalMs the maximum age of the index in milliseconds
+   */
+  KafkaClientMetricIndex(
+      Map<MetricName, ? extends Metric> metrics,
+      Collection<String> metricNames,
+      long refreshIntervalMs) {
+    this.metrics = metrics;
+    this.metricNames = new HashSet<>(metricNames);
+    this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMs);
+  }
+
+  /**
+   * Adds the current values of the indexed metrics to the families of the metrics.
+   *
+   * @param prefix the prefix of the exported metric names, e.g. {@code kafka_consumer_}
+   * @param labelNames the names of the labels for client, topic and partition
+   * @param families the families by exported metric name to add the samples to
+   */
+  synchronized void collect(
+      String prefix, List<String> labelNames, Map<String, GaugeMetricFamily> families) {
+    if (metrics == null || metricNames.isEmpty()) {
+      return;
+    }
+    refreshIfNeeded();
+    for (IndexedMetric indexedMetric : indexedMetrics) {
+      Object value = indexedMetric.metric.metricValue();
+      if (!(value instanceof Number)) {
+        continue;
+      }
+      MetricName metricName = indexedMetric.metric.metricName();
+      families
+          .computeIfAbsent(
+              prefix + metricName.name().replace('-', '_'),
+              name -> new GaugeMetricFamily(name, help(metricName), labelNames))
+          .addMetric(indexedMetric.labelValues, ((Number) value).doubleValue());
+    }
+  }
+
+  private void refreshIfNeeded() {
+    long now = System.nanoTime();
+    int size = metrics.size();
+    if (size == indexedSize && now - indexedAtNanos < refreshIntervalNanos) {
+      return;
+    }
+    List<IndexedMetric> newIndex = new ArrayList<>();
+    for (Metric metric : metrics.values()) {
+      MetricName metricName = metric.metricName();
+      if (metricNames.contains(metricName.name())
+          && SUPPORTED_TAGS.containsAll(metricName.tags().keySet())) {
+        newIndex.add(new IndexedMetric(metric));
+      }
+    }
+    indexedMetrics = newIndex;
+    indexedSize = size;
+    indexedAtNanos = now;
+  }
+
+  private static String help(MetricName metricName) {
+    String description = metricName.description();
+    return description == null || description.isEmpty() ? metricName.name() : description;
+  }
+
+  private static class IndexedMetric {
+
+    private final Metric metric;
+    private final List<String> labelValues;
+
+    private IndexedMetric(Metric metric) {
+      this.metric = metric;
+      Map<String, String> tags = metric.metricName().tags();
+      this.labelValues =
+          Arrays.asList(
+              tags.getOrDefault(TAG_CLIENT_ID, ""),
+              tags.getOrDefault(TAG_TOPIC, ""),
+              tags.getOrDefault(TAG_PARTITION, ""));
+    }
+  }
+}
@@ -1,22 +1,24 @@
 package org.sdase.commons.server.kafka.prometheus;
 
 import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.GaugeMetricFamily;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
-import org.apache.kafka.common.Metric;
-import org.apache.kafka.common.MetricName;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sdase.commons.server.kafka.config.ClientMetricsConfig;
 import org.sdase.commons.server.kafka.consumer.MessageListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Custom Prometheus Collector scraping Kafka Metrics for all registered message listeners.<br>
- * Specify the metrics to be handled by Prometheus in {@link #KAFKA_METRICS}.
+ * Specify the metrics to be handled by Prometheus in {@link
+ * ClientMetricsConfig#getConsumerMetrics()}. The metrics of each consumer are indexed once and
+ * refreshed when the metrics of the consumer change, see {@link KafkaClientMetricIndex}.
  */
 public class KafkaConsumerMetrics extends Collector {
 
@@ -25,101 +27,68 @@ public class KafkaConsumerMetrics extends Collector {
   /** The prefix for the metrics name as they are published to Prometheus */
   private static final String METRIC_NAME_PREFIX = "kafka_consumer_";
 
-  /**
-   * <a href= "https://kafka.apache.org/documentation/#consumer_monitoring">Kafka Metrics</a>
-   * scraped by this class.
-   */
-  private static final String[] KAFKA_METRICS = {"records-lag"};
+  /** The labels added by {@link KafkaConsumerMetrics}. */
+  private static final List<String> LABELS =
+      Arrays.asList(
+          // id of the client retrieving the Kafka metric
+          "consumer_name",
+          // the topic of topic and partition metrics, empty for client metrics
+          "topic",
+          // the partition of partition metrics, empty for client and topic metrics
+          "partition");
 
-  /**
-   * The labels added by {@link KafkaConsumerMetrics}. The labels and their order have to be aligned
-   * with the values created in {@link #createLabelValuesForCurrentMessage(String, String, String)}
-   */
-  private static final String[] LABELS = {
-    // id of the client retrieving the Kafka metric
-    "consumer_name"
-  };
+  private final List<MessageListener<?, ?>> messageListeners;
 
-  private static final String KAFKA_METRIC_TAG_CLIENT_ID = "client-id";
+  private final ClientMetricsConfig clientMetricsConfig;
 
-  private List<MessageListener<?, ?>> messageListeners;
+  private final Map<MessageListener<?, ?>, KafkaClientMetricIndex> indexes =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates and registers a custom Prometheus Collector {@link Collector} with the default metrics.
+   * <strong>Note that there should be only one registered instance of this type in the
+   * application.</strong>
+   *
+   * @param messageListeners list of listeners for which to gather metrics
+   */
+  public KafkaConsumerMetrics(List<MessageListener<?, ?>> messageListeners) {
+    this(messageListeners, new ClientMetricsConfig());
+  }
 
   /**
    * Creates and registers a custom Prometheus Collector {@link Collector}. <strong>Note that there
    * should be only one registered instance of this type in the application.</strong>
    *
    * @param messageListeners list of listeners for which to gather metrics
+   * @param clientMetricsConfig the configuration of the exported metrics
    */
-  public KafkaConsumerMetrics(List<MessageListener<?, ?>> messageListeners) {
+  public KafkaConsumerMetrics(
+      List<MessageListener<?, ?>> messageListeners, ClientMetricsConfig clientMetricsConfig) {
     this.messageListeners = messageListeners;
+    this.clientMetricsConfig = clientMetricsConfig;
     this.register();
     LOGGER.debug("Registered Kafka Consumer Metrics Collector.");
   }
 
-  @Override
-  public List<MetricFamilySamples> collect() {
-    List<MetricFamilySamples> mfs = new ArrayList<>();
-    messageListeners.forEach(
-        listener -> mfs.addAll(collectGaugesPerListener(listener.getConsumer().metrics())));
-    return mfs;
+  /** Unregisters the collector. Should be called when the context is closed. */
+  public void unregister() {
+    CollectorRegistry.defaultRegistry.unregister(this);
   }
 
-  private List<GaugeMetricFamily> collectGaugesPerListener(
-      Map<MetricName, ? extends Metric> metrics) {
-    List<GaugeMetricFamily> list = new ArrayList<>();
-
-    Arrays.stream(KAFKA_METRICS)
-        .forEach(
-            metricName -> list.add(collectKafkaMetric(metricByNameOrNull(metrics, metricName))));
-    list.removeIf(Objects::isNull);
-    return list;
-  }
-
-  private GaugeMetricFamily collectKafkaMetric(Entry<MetricName, ? extends Metric> kafkaMetric) {
-    if (kafkaMetric == null) {
-      return null;
+  @Override
+  public List<MetricFamilySamples> collect() {
+    Map<String, GaugeMetricFamily> families = new LinkedHashMap<>();
+    for (MessageListener<?, ?> listener : messageListeners) {
+      indexes
+          .computeIfAbsent(
+              listener,
+              l ->
+                  new KafkaClientMetricIndex(
+                      l.getMetrics(),
+                      clientMetricsConfig.getConsumerMetrics(),
+                      clientMetricsConfig.getIndexRefreshIntervalMs()))
+          .collect(METRIC_NAME_PREFIX, LABELS, families);
     }
-    String normalizedMetricName =
-        METRIC_NAME_PREFIX + kafkaMetric.getKey().name().replace('-', '_');
-    GaugeMetricFamily labeledGauge =
-        new GaugeMetricFamily(
-            normalizedMetricName, kafkaMetric.getKey().description(), Arrays.asList(LABELS));
-
-    String[] labelValues =
-        createLabelValuesForCurrentMessage(
-            kafkaMetric.getKey().tags().get(KAFKA_METRIC_TAG_CLIENT_ID));
-
-    labeledGauge.addMetric(
-        Arrays.asList(labelValues), (double) kafkaMetric.getValue().metricValue());
-    return labeledGauge;
-  }
-
-  /**
-   * Creates all values for the labels required by the gauges in appropriate order.
-   *
-   * @param consumerName
-   * @return all values for the labels in the order they are registered in the respective gauge
-   */
-  @SuppressWarnings("static-method")
-  private String[] createLabelValuesForCurrentMessage(String consumerName) {
-    // the number of values and their order has to be aligned with the
-    // defined #LABELS
-    return new String[] {consumerName};
-  }
-
-  /**
-   * Extracts {@link Metric} from Kafka Metrics by its name
-   *
-   * @param metrics
-   * @param name
-   * @return
-   */
-  @SuppressWarnings("static-method")
-  private Entry<MetricName, ? extends Metric> metricByNameOrNull(
-      Map<MetricName, ? extends Metric> metrics, String name) {
-    return metrics.entrySet().stream()
-        .filter(mx -> mx.getKey().name().equals(name))
-        .findFirst()
-        .orElse(null);
+    return new ArrayList<>(families.values());
   }
 }
@@ -0,0 +1,78 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.GaugeMetricFamily;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sdase.commons.server.kafka.config.ClientMetricsConfig;
+import org.sdase.commons.server.kafka.producer.KafkaMessageProducer;
+
+/**
+ * Custom Prometheus Collector scraping Kafka Metrics for all registered message producers.<br>
+ * Specify the metrics to be handled by Prometheus in {@link
+ * ClientMetricsConfig#getProducerMetrics()}. The metrics of each producer are indexed once and
+ * refreshed when the metrics of the producer change, see {@link KafkaClientMetricIndex}.
+ */
+public class KafkaProducerMetrics extends Collector {
+
+  /** The prefix for the metrics name as they are published to Prometheus */
+  private static final String METRIC_NAME_PREFIX = "kafka_producer_";
+
+  /** The labels added by {@link KafkaProducerMetrics}. */
+  private static final List<String> LABELS =
+      Arrays.asList(
+          // id of the client retrieving the Kafka metric
+          "producer_name",
+          // the topic of topic metrics, empty for client metrics
+          "topic",
+          // the partition of partition metrics, empty for client and topic metrics
+          "partition");
+
+  private final List<KafkaMessageProducer<?, ?>> messageProducers;
+
+  private final ClientMetricsConfig clientMetricsConfig;
+
+  private final Map<KafkaMessageProducer<?, ?>, KafkaClientMetricIndex> indexes =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates and registers a custom Prometheus Collector {@link Collector}. <strong>Note that there
+   * should be only one registered instance of this type in the application.</strong>
+   *
+   * @param messageProducers list of producers for which to gather metrics
+   * @param clientMetricsConfig the configuration of the exported metrics
+   */
+  public KafkaProducerMetrics(
+      List<KafkaMessageProducer<?, ?>> messageProducers, ClientMetricsConfig clientMetricsConfig) {
+    this.messageProducers = messageProducers;
+    this.clientMetricsConfig = clientMetricsConfig;
+    this.register();
+  }
+
+  /** Unregisters the collector. Should be called when the context is closed. */
+  public void unregister() {
+    CollectorRegistry.defaultRegistry.unregister(this);
+  }
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    Map<String, GaugeMetricFamily> families = new LinkedHashMap<>();
+    for (KafkaMessageProducer<?, ?> producer : messageProducers) {
+      indexes
+          .computeIfAbsent(
+              producer,
+              p ->
+                  new KafkaClientMetricIndex(
+                      p.getMetrics(),
+                      clientMetricsConfig.getProducerMetrics(),
+                      clientMetricsConfig.getIndexRefreshIntervalMs()))
+          .collect(METRIC_NAME_PREFIX, LABELS, families);
+    }
+    return new ArrayList<>(families.values());
+  }
+}
@@ -0,0 +1,82 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.CounterMetricFamily;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.sdase.commons.server.kafka.consumer.KafkaHelper;
+import org.sdase.commons.server.kafka.consumer.MessageListener;
+
+/**
+ * Custom Prometheus Collector that reports how long the thread of each registered message listener
+ * was busy processing records and how long it was idle waiting for new records in poll. The ratio
+ * helps to decide if more or less {@code instances} of a listener are needed.
+ */
+public class ListenerThreadMetrics extends Collector {
+
+  /** The name of the busy time counter as it is published to Prometheus. */
+  private static final String BUSY_METRIC_NAME = "kafka_consumer_listener_busy_seconds";
+
+  /** The help message description that describes the busy time counter. */
+  private static final String BUSY_HELP = "Time the listener thread spent processing records.";
+
+  /** The name of the idle time counter as it is published to Prometheus. */
+  private static final String IDLE_METRIC_NAME = "kafka_consumer_listener_idle_seconds";
+
+  /** The help message description that describes the idle time counter. */
+  private static final String IDLE_HELP = "Time the listener thread spent waiting for records.";
+
+  /** The labels added by {@code ListenerThreadMetrics}. */
+  private static final List<String> LABELS =
+      Arrays.asList(
+          // the name of the client handling the message
+          "consumer_name",
+          // the name of the thread running the poll loop
+          "thread_name");
+
+  private final List<MessageListener<?, ?>> messageListeners;
+
+  /**
+   * Creates and registers a custom Prometheus Collector {@link Collector}. <strong>Note that there
+   * should be only one registered instance of this type in the application.</strong>
+   *
+   * @param messageListeners list of listeners for which to gather metrics
+   */
+  public ListenerThreadMetrics(List<MessageListener<?, ?>> messageListeners) {
+    this.messageListeners = messageListeners;
+    this.register();
+  }
+
+  /** Unregisters the collector. Should be called when the context is closed. */
+  public void unregister() {
+    CollectorRegistry.defaultRegistry.unregister(this);
+  }
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    CounterMetricFamily busy = new CounterMetricFamily(BUSY_METRIC_NAME, BUSY_HELP, LABELS);
+    CounterMetricFamily idle = new CounterMetricFamily(IDLE_METRIC_NAME, IDLE_HELP, LABELS);
+    for (MessageListener<?, ?> listener : messageListeners) {
+      String threadName = listener.getThreadName();
+      if (threadName == null) {
+        // not started yet
+        continue;
+      }
+      List<String> labelValues =
+          Arrays.asList(KafkaHelper.getClientId(listener.getConsumer()), threadName);
+      busy.addMetric(labelValues, listener.getBusyNanos() / NANOSECONDS_PER_SECOND);
+      idle.addMetric(labelValues, listener.getIdleNanos() / NANOSECONDS_PER_SECOND);
+    }
+    if (busy.samples.isEmpty()) {
+      // families without samples are not exported
+      return Collections.emptyList();
+    }
+    List<MetricFamilySamples> mfs = new ArrayList<>();
+    mfs.add(busy);
+    mfs.add(idle);
+    return mfs;
+  }
+}
@@ -55,6 +55,18 @@ public class ProducerTopicMessageCounter {
     topicMessagesCounter.labels(labelValues).inc();
   }
 
+  /**
+   * Resolves the counter child of the given labels. Producers that send to a fixed topic should
+   * resolve the child once and increase it directly to avoid the label lookup for each message.
+   *
+   * @param producerName the producer name
+   * @param topicName the topic name
+   * @return the child of the counter for messages with the given labels
+   */
+  public Counter.Child child(String producerName, String topicName) {
+    return topicMessagesCounter.labels(createLabelValuesForCurrentRequest(producerName, topicName));
+  }
+
   /**
    * Creates all values for the labels required by the counter in appropriate order.
    *
@@ -0,0 +1,64 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The central definition of the histogram of serialized message sizes by topic. The distribution
+ * helps to tune {@code batch.size} and {@code linger.ms} of producers.
+ */
+public class ProducerTopicMessageSizeHistogram {
+
+  /** The histogram name as it is published to Prometheus. */
+  private static final String METRIC_NAME = "kafka_producer_topic_message_size_bytes";
+
+  /** The help message description that describes the Histogram. */
+  private static final String HELP = "Size of serialized Kafka Messages in bytes.";
+
+  /** The buckets of the histogram from 64 bytes to 1 MiB. */
+  private static final double[] BUCKETS = {
+    64, 128, 256, 512, 1024, 2048, 4096, 8192, 16384, 32768, 65536, 131072, 262144, 524288, 1048576
+  };
+
+  /** The labels added by {@code ProducerTopicMessageSizeHistogram}. */
+  private static final String[] LABELS = {
+    // name of the topic the message is serialized for
+    "topic_name"
+  };
+
+  private final Histogram messageSizeHistogram;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new {@link Histogram} matching the specification of this {@code
+   * ProducerTopicMessageSizeHistogram} instance. The histogram is registered when the first size is
+   * observed, so that applications without measuring serializers do not export an empty histogram.
+   * <strong>Note that there should be only one instance of this type in the application.</strong>
+   */
+  public ProducerTopicMessageSizeHistogram() {
+    this.messageSizeHistogram =
+        Histogram.build().name(METRIC_NAME).help(HELP).buckets(BUCKETS).labelNames(LABELS).create();
+  }
+
+  /** Unregisters the histogram. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(messageSizeHistogram);
+    }
+  }
+
+  /**
+   * Observes the size of a serialized message.
+   *
+   * @param sizeInBytes the size of the serialized message
+   * @param topicName the topic the message is serialized for
+   */
+  public void observe(int sizeInBytes, String topicName) {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(messageSizeHistogram);
+    }
+    messageSizeHistogram.labels(topicName).observe(sizeInBytes);
+  }
+}
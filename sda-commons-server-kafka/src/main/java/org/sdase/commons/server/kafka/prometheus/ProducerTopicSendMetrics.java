@@ -0,0 +1,105 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The central definition of the metrics of acknowledged and failed sends of Kafka producers. They
+ * complement the {@link ProducerTopicMessageCounter} that counts the messages handed over to the
+ * producers with the same labels.
+ */
+public class ProducerTopicSendMetrics {
+
+  /** The name of the send duration histogram as it is published to Prometheus. */
+  public static final String DURATION_METRIC_NAME = "kafka_producer_topic_send_duration";
+
+  /** The help message description that describes the send duration histogram. */
+  private static final String DURATION_HELP =
+      "Duration from sending a Kafka Message until it is acknowledged or failed in seconds.";
+
+  /** The name of the failure counter as it is published to Prometheus. */
+  private static final String FAILURE_METRIC_NAME = "kafka_producer_topic_send_failures";
+
+  /** The help message description that describes the failure counter. */
+  private static final String FAILURE_HELP =
+      "Amount of messages that Kafka producers failed to send.";
+
+  /** The labels added by {@code ProducerTopicSendMetrics}. */
+  private static final String[] LABELS = {
+    // the name of the client sending the message
+    "producer_name",
+    // name of the topic the message is sent to
+    "topic_name"
+  };
+
+  private final Histogram sendDurationHistogram;
+
+  private final Counter sendFailureCounter;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  /**
+   * Creates the new metrics matching the specification of this {@code ProducerTopicSendMetrics}
+   * instance. The metrics are registered when the first producer resolves its children.
+   * <strong>Note that there should be only one instance of this type in the application.</strong>
+   */
+  public ProducerTopicSendMetrics() {
+    this(new double[0]);
+  }
+
+  /**
+   * Creates the new metrics matching the specification of this {@code ProducerTopicSendMetrics}
+   * instance with custom buckets of the send duration histogram. <strong>Note that there should be
+   * only one instance of this type in the application.</strong>
+   *
+   * @param durationBuckets the upper bounds of the buckets of the send duration histogram in
+   *     seconds, the default buckets of Prometheus are used if empty
+   */
+  public ProducerTopicSendMetrics(double... durationBuckets) {
+    Histogram.Builder durationBuilder =
+        Histogram.build().name(DURATION_METRIC_NAME).help(DURATION_HELP).labelNames(LABELS);
+    if (durationBuckets.length > 0) {
+      durationBuilder.buckets(durationBuckets);
+    }
+    this.sendDurationHistogram = durationBuilder.create();
+    this.sendFailureCounter =
+        Counter.build().name(FAILURE_METRIC_NAME).help(FAILURE_HELP).labelNames(LABELS).create();
+  }
+
+  /** Unregisters the metrics. Should be called when the context is closed. */
+  public void unregister() {
+    if (registered.getAndSet(false)) {
+      CollectorRegistry.defaultRegistry.unregister(sendDurationHistogram);
+      CollectorRegistry.defaultRegistry.unregister(sendFailureCounter);
+    }
+  }
+
+  /**
+   * @param producerName the producer name
+   * @param topicName the topic name
+   * @return the child of the histogram to observe send durations of the producer and topic
+   */
+  public Histogram.Child durationChild(String producerName, String topicName) {
+    registerIfNeeded();
+    return sendDurationHistogram.labels(producerName, topicName);
+  }
+
+  /**
+   * @param producerName the producer name
+   * @param topicName the topic name
+   * @return the child of the counter to count failed sends of the producer and topic
+   */
+  public Counter.Child failureChild(String producerName, String topicName) {
+    registerIfNeeded();
+    return sendFailureCounter.labels(producerName, topicName);
+  }
+
+  private void registerIfNeeded() {
+    if (!registered.get() && registered.compareAndSet(false, true)) {
+      CollectorRegistry.defaultRegistry.register(sendDurationHistogram);
+      CollectorRegistry.defaultRegistry.register(sendFailureCounter);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.Map;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Deserializer for JSON values that defers parsing until the handler accesses the value. Records
+ * that are skipped by the handler, e.g. after checking the key or a header, are never parsed.
+ *
+ * @param <T> the type of the deserialized value
+ */
+public class KafkaJsonLazyDeserializer<T> implements Deserializer<LazyJsonValue<T>> {
+
+  private final ObjectReader objectReader;
+
+  public KafkaJsonLazyDeserializer(ObjectMapper objectMapper, Class<T> clazz) {
+    this(objectMapper.readerFor(clazz));
+  }
+
+  /** @param objectReader the reader that is already bound to the type of the values */
+  public KafkaJsonLazyDeserializer(ObjectReader objectReader) {
+    this.objectReader = objectReader;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    // no further configuration
+  }
+
+  @Override
+  public LazyJsonValue<T> deserialize(String topic, byte[] data) {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+    return new LazyJsonValue<>(objectReader, data);
+  }
+
+  @Override
+  public void close() {
+    // not necessary
+  }
+}
@@ -0,0 +1,142 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageSizeHistogram;
+
+/**
+ * Serializer for JSON values that reduces the allocations per message compared to {@link
+ * KafkaJsonSerializer}. The values are written with an {@link ObjectWriter} that is created once
+ * per value type into buffers that are recycled for the next messages of the same type. The buffers
+ * grow with the messages, only the final copy of the message is allocated. Buffers that grew beyond
+ * the configured limit are not recycled.
+ *
+ * <p>If the serializer is used for a producer registered at the {@code KafkaBundle}, the size of
+ * each serialized message is observed in the {@link ProducerTopicMessageSizeHistogram}.
+ *
+ * @param <T> the type of the serialized values
+ */
+public class KafkaJsonPooledSerializer<T> implements Serializer<T> {
+
+  private static final int DEFAULT_MAX_POOLED_BUFFERS_PER_TYPE =
+      2 * Runtime.getRuntime().availableProcessors();
+
+  private static final int DEFAULT_MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final int MIN_BUFFER_SIZE = 256;
+
+  private final ObjectMapper objectMapper;
+  private final int maxPooledBuffersPerType;
+  private final int maxRetainedBufferSize;
+  private final Map<Class<?>, TypeContext> typeContexts = new ConcurrentHashMap<>();
+
+  private ProducerTopicMessageSizeHistogram sizeHistogram;
+
+  public KafkaJsonPooledSerializer(ObjectMapper objectMapper) {
+    this(objectMapper, DEFAULT_MAX_POOLED_BUFFERS_PER_TYPE, DEFAULT_MAX_RETAINED_BUFFER_SIZE);
+  }
+
+  /**
+   * @param objectMapper the mapper to create the writers for the value types
+   * @param maxPooledBuffersPerType the maximum number of buffers recycled for each value type,
+   *     should match the number of threads sending concurrently
+   * @param maxRetainedBufferSize the maximum size in bytes of a buffer to be recycled
+   */
+  public KafkaJsonPooledSerializer(
+      ObjectMapper objectMapper, int maxPooledBuffersPerType, int maxRetainedBufferSize) {
+    this.objectMapper = objectMapper;
+    this.maxPooledBuffersPerType = maxPooledBuffersPerType;
+    this.maxRetainedBufferSize = maxRetainedBufferSize;
+  }
+
+  /**
+   * Initializes the serializer with the histogram to observe the message sizes. Called by the
+   * {@code KafkaBundle} when the producer is registered.
+   *
+   * @param sizeHistogram the histogram of serialized message sizes
+   */
+  public void init(ProducerTopicMessageSizeHistogram sizeHistogram) {
+    this.sizeHistogram = sizeHistogram;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    // no further configuration
+  }
+
+  @Override
+  public byte[] serialize(String topic, T data) {
+    if (data == null) {
+      return new byte[0];
+    }
+
+    TypeContext typeContext = getTypeContext(data.getClass());
+    PooledBuffer buffer = typeContext.buffers.poll();
+    if (buffer == null) {
+      buffer = new PooledBuffer(typeContext.sizeHint);
+    }
+    try {
+      typeContext.writer.writeValue(buffer, data);
+      byte[] serialized = buffer.toByteArray();
+      typeContext.sizeHint = Math.max(MIN_BUFFER_SIZE, serialized.length + serialized.length / 4);
+      if (sizeHistogram != null) {
+        sizeHistogram.observe(serialized.length, topic);
+      }
+      return serialized;
+    } catch (Exception e) {
+      throw new SerializationException("Error serializing JSON message", e);
+    } finally {
+      if (buffer.capacity() <= maxRetainedBufferSize) {
+        buffer.reset();
+        typeContext.buffers.offer(buffer);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    typeContexts.clear();
+  }
+
+  private TypeContext getTypeContext(Class<?> type) {
+    // avoid locking of computeIfAbsent in Java 8 for existing types
+    TypeContext typeContext = typeContexts.get(type);
+    if (typeContext == null) {
+      typeContext =
+          typeContexts.computeIfAbsent(
+              type, t -> new TypeContext(objectMapper.writerFor(t), maxPooledBuffersPerType));
+    }
+    return typeContext;
+  }
+
+  private static class TypeContext {
+
+    private final ObjectWriter writer;
+    private final ArrayBlockingQueue<PooledBuffer> buffers;
+
+    /** The initial size of new buffers, adapted to the size of the last message. */
+    private volatile int sizeHint = MIN_BUFFER_SIZE;
+
+    private TypeContext(ObjectWriter writer, int maxPooledBuffers) {
+      this.writer = writer;
+      this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooledBuffers));
+    }
+  }
+
+  private static class PooledBuffer extends ByteArrayOutputStream {
+
+    private PooledBuffer(int size) {
+      super(size);
+    }
+
+    private int capacity() {
+      return buf.length;
+    }
+  }
+}
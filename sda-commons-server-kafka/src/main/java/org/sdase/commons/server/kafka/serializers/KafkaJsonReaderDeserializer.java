@@ -0,0 +1,115 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Deserializer for JSON values that resolves the target type only once when it is created. In
+ * contrast to {@link KafkaJsonDeserializer}, the value is read with a pre-built {@link
+ * ObjectReader} that can be restricted to the properties of a projection type or to a nested part
+ * of the message.
+ *
+ * <pre>
+ * // reads only the properties of CustomerIdOnly from /payload, all other properties are skipped
+ * KafkaJsonReaderDeserializer.builder(objectMapper, CustomerIdOnly.class)
+ *     .ignoringUnknownProperties()
+ *     .at("/payload")
+ *     .build();
+ * </pre>
+ *
+ * @param <T> the type of the deserialized value
+ */
+public class KafkaJsonReaderDeserializer<T> implements Deserializer<T> {
+
+  private final ObjectReader objectReader;
+
+  public KafkaJsonReaderDeserializer(ObjectMapper objectMapper, Class<T> clazz) {
+    this(objectMapper.readerFor(clazz));
+  }
+
+  /** @param objectReader the reader that is already bound to the type of the values */
+  public KafkaJsonReaderDeserializer(ObjectReader objectReader) {
+    this.objectReader = objectReader;
+  }
+
+  public static <T> Builder<T> builder(ObjectMapper objectMapper, Class<T> clazz) {
+    return new Builder<>(objectMapper.readerFor(clazz));
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    // no further configuration
+  }
+
+  @Override
+  public T deserialize(String topic, byte[] data) {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+    return read(objectReader, data);
+  }
+
+  @Override
+  public void close() {
+    // not necessary
+  }
+
+  static <T> T read(ObjectReader objectReader, byte[] data) {
+    try {
+      return objectReader.readValue(data);
+    } catch (Exception e) {
+      throw new SerializationException(e);
+    }
+  }
+
+  public static class Builder<T> {
+
+    private ObjectReader objectReader;
+
+    private Builder(ObjectReader objectReader) {
+      this.objectReader = objectReader;
+    }
+
+    /**
+     * Skips all properties of the message that are not defined in the target type. Use a projection
+     * type with only the needed properties to avoid the creation of objects that are not used by
+     * the handler.
+     *
+     * @return the same builder instance
+     */
+    public Builder<T> ignoringUnknownProperties() {
+      objectReader = objectReader.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+      return this;
+    }
+
+    /**
+     * Reads the value only from the part of the message identified by the given pointer. The rest
+     * of the message is skipped without being bound.
+     *
+     * @param jsonPointer the <a href="https://tools.ietf.org/html/rfc6901">JSON Pointer</a> of the
+     *     part to read, e.g. {@code /payload}
+     * @return the same builder instance
+     */
+    public Builder<T> at(String jsonPointer) {
+      objectReader = objectReader.at(jsonPointer);
+      return this;
+    }
+
+    /** @return a deserializer that reads the value immediately */
+    public KafkaJsonReaderDeserializer<T> build() {
+      return new KafkaJsonReaderDeserializer<>(objectReader);
+    }
+
+    /**
+     * @return a deserializer that keeps the raw message and reads the value when it is accessed
+     *     first
+     */
+    public KafkaJsonLazyDeserializer<T> buildLazy() {
+      return new KafkaJsonLazyDeserializer<>(objectReader);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * A JSON value of a consumed record that is parsed when it is accessed first. Instances are not
+ * thread safe and should only be used by the thread that handles the record.
+ *
+ * @param <T> the type of the value
+ */
+public class LazyJsonValue<T> {
+
+  private final ObjectReader objectReader;
+  private final byte[] data;
+  private T value;
+  private boolean parsed;
+
+  LazyJsonValue(ObjectReader objectReader, byte[] data) {
+    this.objectReader = objectReader;
+    this.data = data;
+  }
+
+  /**
+   * @return the parsed value, the message is parsed only on the first call
+   * @throws SerializationException if the message can't be parsed
+   */
+  public T get() {
+    if (!parsed) {
+      value = KafkaJsonReaderDeserializer.read(objectReader, data);
+      parsed = true;
+    }
+    return value;
+  }
+
+  /**
+   * Reads the message as another type, e.g. a projection with less properties. The result is not
+   * cached.
+   *
+   * @param type the type to read
+   * @param <P> the type to read
+   * @return the message read as the given type
+   * @throws SerializationException if the message can't be parsed
+   */
+  public <P> P as(Class<P> type) {
+    return KafkaJsonReaderDeserializer.read(objectReader.forType(type), data);
+  }
+
+  /** @return the raw message as received from Kafka */
+  public byte[] getRaw() {
+    return data;
+  }
+}
@@ -106,7 +106,14 @@ public class KafkaPrometheusMonitoringIT {
     String[] metrics = {
       "kafka_producer_topic_message",
       "kafka_consumer_topic_message_duration",
-      "kafka_consumer_records_lag"
+      "kafka_consumer_records_lag",
+      "kafka_consumer_fetch_latency_avg",
+      "kafka_producer_record_send_rate",
+      "kafka_producer_batch_size_avg",
+      "kafka_producer_topic_send_duration",
+      "kafka_producer_topic_send_failures",
+      "kafka_consumer_listener_busy_seconds",
+      "kafka_consumer_listener_idle_seconds"
     };
 
     assertThat(list).extracting(m -> m.name).contains(metrics);
@@ -139,5 +146,21 @@ public class KafkaPrometheusMonitoringIT {
                 new String[] {CONSUMER_1 + "-0", topic}))
         .as("sample value for metric 'kafka_consumer_topic_message_duration_count'")
         .isEqualTo(2);
+
+    assertThat(
+            CollectorRegistry.defaultRegistry.getSampleValue(
+                "kafka_consumer_records_lag",
+                new String[] {"consumer_name", "topic", "partition"},
+                new String[] {CONSUMER_1 + "-0", topic, "0"}))
+        .as("sample value for metric 'kafka_consumer_records_lag'")
+        .isEqualTo(0);
+
+    assertThat(
+            CollectorRegistry.defaultRegistry.getSampleValue(
+                "kafka_producer_record_send_rate",
+                new String[] {"producer_name", "topic", "partition"},
+                new String[] {PRODUCER_1, topic, ""}))
+        .as("sample value for metric 'kafka_producer_record_send_rate'")
+        .isPositive();
   }
 }
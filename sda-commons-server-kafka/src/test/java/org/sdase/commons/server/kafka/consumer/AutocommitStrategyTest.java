@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.when;
@@ -55,7 +56,7 @@ public class AutocommitStrategyTest {
     consumer = Mockito.mock(KafkaConsumer.class);
     handler = Mockito.mock(MessageHandler.class);
     errorHandler = Mockito.mock(ErrorHandler.class);
-    histogram = Mockito.mock(ConsumerTopicMessageHistogram.class);
+    histogram = Mockito.mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS);
   }
 
   @After
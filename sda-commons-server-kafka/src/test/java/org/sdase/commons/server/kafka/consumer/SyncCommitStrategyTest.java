@@ -3,10 +3,13 @@ package org.sdase.commons.server.kafka.consumer;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import io.prometheus.client.Histogram;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.junit.Before;
 import org.junit.Test;
@@ -20,6 +23,7 @@ public class SyncCommitStrategyTest {
   private ErrorHandler<String, String> errorHandler;
   private KafkaConsumer<String, String> consumer;
   private ConsumerTopicMessageHistogram histogram;
+  private Histogram.Child histogramChild;
 
   @SuppressWarnings("unchecked")
   @Before
@@ -28,6 +32,8 @@ public class SyncCommitStrategyTest {
     handler = Mockito.mock(MessageHandler.class);
     errorHandler = Mockito.mock(ErrorHandler.class);
     histogram = Mockito.mock(ConsumerTopicMessageHistogram.class);
+    histogramChild = Mockito.mock(Histogram.Child.class);
+    when(histogram.child(anyString(), anyString())).thenReturn(histogramChild);
   }
 
   @Test
@@ -37,13 +43,14 @@ public class SyncCommitStrategyTest {
 
     strategy.processRecords(TestHelper.createConsumerRecords(5, "topic"), consumer);
     Mockito.verify(consumer, timeout(100).times(1)).commitSync();
-    Mockito.verify(histogram, timeout(100).times(5)).observe(anyDouble(), anyString(), anyString());
+    Mockito.verify(histogramChild, timeout(100).times(5)).observe(anyDouble());
 
     // second chunk commits again
     strategy.processRecords(TestHelper.createConsumerRecords(5, "topic"), consumer);
     Mockito.verify(consumer, timeout(100).times(2)).commitSync();
-    Mockito.verify(histogram, timeout(100).times(10))
-        .observe(anyDouble(), anyString(), anyString());
+    Mockito.verify(histogramChild, timeout(100).times(10)).observe(anyDouble());
+    // the child is resolved per partition and not for each record
+    Mockito.verify(histogram, times(2)).child(anyString(), eq("topic"));
   }
 
   @Test
@@ -0,0 +1,130 @@
+package org.sdase.commons.server.kafka.consumer.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.kafka.config.ListenerConfig;
+import org.sdase.commons.server.kafka.config.ListenerExecutorConfig;
+import org.sdase.commons.server.kafka.consumer.MessageListener;
+import org.sdase.commons.server.kafka.consumer.strategies.MessageListenerStrategy;
+import org.sdase.commons.server.kafka.exception.ConfigurationException;
+
+class ThreadPoolListenerExecutorTest {
+
+  @Test
+  void shouldRunListenersInNamedThreads() throws InterruptedException {
+    ThreadPoolListenerExecutor executor =
+        ThreadPoolListenerExecutor.fromConfig(
+            new ListenerExecutorConfig().setThreadNamePrefix("test-listener"));
+    MessageListener<String, String> first = createListener();
+    MessageListener<String, String> second = createListener();
+
+    executor.execute(first);
+    executor.execute(second);
+    await().until(() -> first.getThreadName() != null && second.getThreadName() != null);
+
+    assertThat(first.getThreadName()).startsWith("test-listener-");
+    assertThat(second.getThreadName())
+        .startsWith("test-listener-")
+        .isNotEqualTo(first.getThreadName());
+
+    first.stopConsumer();
+    second.stopConsumer();
+    executor.awaitTermination();
+
+    assertThat(first.getIdleNanos()).isPositive();
+    assertThat(second.getIdleNanos()).isPositive();
+  }
+
+  @Test
+  void shouldRejectListenersExceedingMaxThreads() throws InterruptedException {
+    ThreadPoolListenerExecutor executor = ThreadPoolListenerExecutor.platformThreads("test", 1);
+    MessageListener<String, String> listener = createListener();
+    executor.execute(listener);
+
+    assertThatThrownBy(() -> executor.execute(createListener()))
+        .isInstanceOf(ConfigurationException.class)
+        .hasMessageContaining("maxThreads");
+
+    listener.stopConsumer();
+    executor.awaitTermination();
+  }
+
+  @Test
+  void shouldRejectMoreListenersThanFreeThreadsBeforeStarting() throws InterruptedException {
+    ThreadPoolListenerExecutor executor = ThreadPoolListenerExecutor.platformThreads("test", 2);
+    executor.verifyCapacity(2);
+    MessageListener<String, String> listener = createListener();
+    executor.execute(listener);
+
+    assertThatThrownBy(() -> executor.verifyCapacity(2))
+        .isInstanceOf(ConfigurationException.class)
+        .hasMessageContaining("maxThreads");
+    executor.verifyCapacity(1);
+
+    listener.stopConsumer();
+    executor.awaitTermination();
+  }
+
+  @Test
+  void shouldReleaseThreadOfStoppedListener() throws InterruptedException {
+    ThreadPoolListenerExecutor executor = ThreadPoolListenerExecutor.platformThreads("test", 1);
+    for (int i = 0; i < 3; i++) {
+      MessageListener<String, String> listener = createListener();
+      executor.execute(listener);
+      await().until(() -> listener.getThreadName() != null);
+
+      listener.stopConsumer();
+      await()
+          .untilAsserted(
+              () -> assertThatCode(() -> executor.verifyCapacity(1)).doesNotThrowAnyException());
+    }
+    executor.awaitTermination();
+  }
+
+  @Test
+  void shouldRunListenersInVirtualThreadsIfSupported() throws InterruptedException {
+    ListenerExecutorConfig config = new ListenerExecutorConfig().setVirtualThreads(true);
+    if (!ThreadPoolListenerExecutor.isVirtualThreadsSupported()) {
+      assertThatThrownBy(() -> ThreadPoolListenerExecutor.fromConfig(config))
+          .isInstanceOf(ConfigurationException.class)
+          .hasMessageContaining("Java 21");
+      return;
+    }
+    ThreadPoolListenerExecutor executor = ThreadPoolListenerExecutor.fromConfig(config);
+    MessageListener<String, String> listener = createListener();
+
+    executor.execute(listener);
+    await().until(() -> listener.getThreadName() != null);
+
+    assertThat(listener.getThreadName()).startsWith("kafka-listener-");
+    listener.stopConsumer();
+    executor.awaitTermination();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MessageListener<String, String> createListener() {
+    KafkaConsumer<String, String> consumer = mock(KafkaConsumer.class);
+    when(consumer.poll(any(Duration.class)))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(1);
+              return new ConsumerRecords<>(Collections.emptyMap());
+            });
+    return new MessageListener<>(
+        Collections.singletonList("topic"),
+        consumer,
+        ListenerConfig.getDefault(),
+        mock(MessageListenerStrategy.class));
+  }
+}
@@ -0,0 +1,225 @@
+package org.sdase.commons.server.kafka.consumer.strategies;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.kafka.config.AsyncCommitConfig;
+import org.sdase.commons.server.kafka.consumer.ErrorHandler;
+import org.sdase.commons.server.kafka.consumer.MessageHandler;
+import org.sdase.commons.server.kafka.consumer.strategies.retryprocessingerror.RetryProcessingErrorMLS;
+import org.sdase.commons.server.kafka.consumer.strategies.synccommit.SyncCommitMLS;
+import org.sdase.commons.server.kafka.prometheus.ConsumerCommitMetrics;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicBatchHistogram;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
+
+class AsyncOffsetCommitterTest {
+
+  private static final String TOPIC_NAME = "topic";
+  private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC_NAME, 0);
+  private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC_NAME, 1);
+
+  private KafkaConsumer<String, String> consumer;
+  private MessageHandler<String, String> handler;
+  private ErrorHandler<String, String> errorHandler;
+  private ConsumerCommitMetrics commitMetrics;
+  private final List<Map<TopicPartition, OffsetAndMetadata>> asyncCommits = new ArrayList<>();
+  private final List<OffsetCommitCallback> callbacks = new ArrayList<>();
+
+  @SuppressWarnings("unchecked")
+  @BeforeEach
+  void setUp() {
+    consumer = mock(KafkaConsumer.class);
+    handler = mock(MessageHandler.class);
+    errorHandler = mock(ErrorHandler.class);
+    commitMetrics = mock(ConsumerCommitMetrics.class);
+    doAnswer(
+            invocation -> {
+              asyncCommits.add(new HashMap<>(invocation.getArgument(0)));
+              callbacks.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(consumer)
+        .commitAsync(anyMap(), any(OffsetCommitCallback.class));
+  }
+
+  @Test
+  void shouldCommitAsyncAcrossPollsWhenRecordThresholdIsReached() {
+    SyncCommitMLS<String, String> strategy = syncCommitStrategy(5);
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 3), consumer);
+    assertThat(asyncCommits).isEmpty();
+
+    strategy.processRecords(createRecords(PARTITION_1, 0, 3), consumer);
+
+    assertThat(asyncCommits).containsExactly(offsets(PARTITION_0, 3, PARTITION_1, 3));
+    verify(consumer, never()).commitSync();
+    verify(consumer, never()).commitSync(anyMap());
+
+    callbacks.get(0).onComplete(asyncCommits.get(0), null);
+    verify(commitMetrics).observeCommit(anyDouble(), anyString(), eq(true));
+  }
+
+  @Test
+  void shouldCommitAgainAfterFailedAsyncCommit() {
+    when(consumer.assignment()).thenReturn(Collections.singleton(PARTITION_0));
+    SyncCommitMLS<String, String> strategy = syncCommitStrategy(3);
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 3), consumer);
+    callbacks.get(0).onComplete(null, new RetriableCommitFailedException("test"));
+    strategy.processRecords(createRecords(PARTITION_0, 3, 1), consumer);
+    strategy.commitOnClose(consumer);
+
+    verify(consumer).commitSync(offsets(PARTITION_0, 4));
+  }
+
+  @Test
+  void shouldNotCommitOffsetsOfFailedCommitThatWereCommittedLater() {
+    when(consumer.assignment()).thenReturn(Collections.singleton(PARTITION_0));
+    SyncCommitMLS<String, String> strategy = syncCommitStrategy(2);
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 2), consumer);
+    strategy.processRecords(createRecords(PARTITION_0, 2, 2), consumer);
+    callbacks.get(1).onComplete(asyncCommits.get(1), null);
+    callbacks.get(0).onComplete(null, new RetriableCommitFailedException("test"));
+    strategy.commitOnClose(consumer);
+
+    assertThat(asyncCommits).containsExactly(offsets(PARTITION_0, 2), offsets(PARTITION_0, 4));
+    verify(consumer, never()).commitSync(anyMap());
+  }
+
+  @Test
+  void shouldCommitPendingOffsetsSyncWhenPartitionsAreRevoked() {
+    SyncCommitMLS<String, String> strategy = syncCommitStrategy(100);
+    ConsumerRebalanceListener rebalanceListener = strategy.createRebalanceListener(consumer);
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 2), consumer);
+    strategy.processRecords(createRecords(PARTITION_1, 0, 4), consumer);
+    rebalanceListener.onPartitionsRevoked(Collections.singleton(PARTITION_1));
+
+    verify(consumer).commitSync(offsets(PARTITION_1, 4));
+    verify(commitMetrics).observeCommit(anyDouble(), anyString(), eq(false));
+
+    strategy.commitOnClose(consumer);
+
+    verify(consumer).commitSync(offsets(PARTITION_0, 2));
+    assertThat(asyncCommits).isEmpty();
+  }
+
+  @Test
+  void shouldNotCreateRebalanceListenerWithoutAsyncCommit() {
+    SyncCommitMLS<String, String> strategy = new SyncCommitMLS<>(handler, errorHandler);
+
+    assertThat(strategy.createRebalanceListener(consumer)).isNull();
+  }
+
+  @Test
+  void shouldCommitOffsetsBeforeRetriedRecordAsync() {
+    doAnswer(
+            invocation -> {
+              ConsumerRecord<String, String> consumerRecord = invocation.getArgument(0);
+              if (consumerRecord.offset() == 2) {
+                throw new IllegalStateException("retry");
+              }
+              return null;
+            })
+        .when(handler)
+        .handle(any());
+    when(errorHandler.handleError(any(), any(), any())).thenReturn(true);
+    RetryProcessingErrorMLS<String, String> strategy =
+        new RetryProcessingErrorMLS<>(
+            handler, errorHandler, AsyncCommitConfig.builder().withCommitEveryRecords(2).build());
+    strategy.init(
+        mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS),
+        mock(ConsumerTopicBatchHistogram.class),
+        commitMetrics);
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 5), consumer);
+
+    verify(consumer).seek(PARTITION_0, 2);
+    verify(consumer, never()).commitSync(anyMap());
+    assertThat(asyncCommits).containsExactly(offsets(PARTITION_0, 2));
+  }
+
+  @Test
+  void shouldCommitAsyncWhenIntervalElapsed() {
+    SyncCommitMLS<String, String> strategy =
+        new SyncCommitMLS<>(
+            handler,
+            errorHandler,
+            AsyncCommitConfig.builder()
+                .withCommitEveryRecords(Integer.MAX_VALUE)
+                .withCommitIntervalMs(0)
+                .build());
+    strategy.init(mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS));
+
+    strategy.processRecords(createRecords(PARTITION_0, 0, 1), consumer);
+
+    verify(consumer, times(1)).commitAsync(anyMap(), any(OffsetCommitCallback.class));
+  }
+
+  private SyncCommitMLS<String, String> syncCommitStrategy(int commitEveryRecords) {
+    SyncCommitMLS<String, String> strategy =
+        new SyncCommitMLS<>(
+            handler,
+            errorHandler,
+            AsyncCommitConfig.builder()
+                .withCommitEveryRecords(commitEveryRecords)
+                .withCommitIntervalMs(60_000)
+                .build());
+    strategy.init(
+        mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS),
+        mock(ConsumerTopicBatchHistogram.class),
+        commitMetrics);
+    return strategy;
+  }
+
+  private static ConsumerRecords<String, String> createRecords(
+      TopicPartition partition, long firstOffset, int count) {
+    List<ConsumerRecord<String, String>> records = new ArrayList<>();
+    for (long offset = firstOffset; offset < firstOffset + count; offset++) {
+      records.add(
+          new ConsumerRecord<>(
+              partition.topic(), partition.partition(), offset, "key", "value" + offset));
+    }
+    return new ConsumerRecords<>(Collections.singletonMap(partition, records));
+  }
+
+  private static Map<TopicPartition, OffsetAndMetadata> offsets(
+      TopicPartition partition, long offset) {
+    return Collections.singletonMap(partition, new OffsetAndMetadata(offset));
+  }
+
+  private static Map<TopicPartition, OffsetAndMetadata> offsets(
+      TopicPartition partition, long offset, TopicPartition otherPartition, long otherOffset) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    offsets.put(partition, new OffsetAndMetadata(offset));
+    offsets.put(otherPartition, new OffsetAndMetadata(otherOffset));
+    return offsets;
+  }
+}
@@ -3,6 +3,7 @@ package org.sdase.commons.server.kafka.consumer.strategies;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -65,7 +66,7 @@ class MessageListenerStrategyOnCloseTest {
   private void shouldCommitLastOffsetOnClose(
       MessageListenerStrategy<String, String> strategy, MyMessageHandler messageHandler) {
     // given
-    strategy.init(mock(ConsumerTopicMessageHistogram.class));
+    strategy.init(mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS));
 
     Map<TopicPartition, List<ConsumerRecord<String, String>>> recordsByPartition = new HashMap<>();
     recordsByPartition.put(
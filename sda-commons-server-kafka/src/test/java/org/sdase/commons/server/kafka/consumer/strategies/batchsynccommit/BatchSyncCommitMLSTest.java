@@ -0,0 +1,197 @@
+package org.sdase.commons.server.kafka.consumer.strategies.batchsynccommit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.sdase.commons.server.kafka.consumer.BatchMessageHandler;
+import org.sdase.commons.server.kafka.consumer.ErrorHandler;
+import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicBatchHistogram;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
+
+class BatchSyncCommitMLSTest {
+
+  private static final String TOPIC_NAME = "topic";
+  private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+
+  private KafkaConsumer<String, String> consumer;
+  private ErrorHandler<String, String> errorHandler;
+  private ConsumerTopicBatchHistogram batchHistogram;
+  private final List<List<Long>> handledBatches = new ArrayList<>();
+
+  @SuppressWarnings("unchecked")
+  @BeforeEach
+  void setUp() {
+    consumer = mock(KafkaConsumer.class);
+    errorHandler = mock(ErrorHandler.class);
+    batchHistogram = mock(ConsumerTopicBatchHistogram.class);
+  }
+
+  @Test
+  void shouldHandleRecordsInBatchesAndCommitAfterEachBatch() {
+    BatchSyncCommitMLS<String, String> strategy =
+        createStrategy(records -> handledBatches.add(offsets(records)), 4);
+
+    strategy.processRecords(createRecords(10), consumer);
+
+    assertThat(handledBatches)
+        .containsExactly(asList(0L, 1L, 2L, 3L), asList(4L, 5L, 6L, 7L), asList(8L, 9L));
+    assertThat(committedOffsets()).containsExactly(4L, 8L, 10L);
+    verify(batchHistogram, times(2))
+        .observe(eq(4), anyDouble(), anyString(), eq(TOPIC_NAME), eq(true));
+    verify(batchHistogram).observe(eq(2), anyDouble(), anyString(), eq(TOPIC_NAME), eq(true));
+  }
+
+  @Test
+  void shouldSplitFailedBatchToIsolatePoisonRecord() {
+    when(errorHandler.handleError(any(), any(), any())).thenReturn(true);
+    BatchSyncCommitMLS<String, String> strategy =
+        createStrategy(
+            records -> {
+              List<Long> offsets = offsets(records);
+              handledBatches.add(offsets);
+              if (offsets.contains(5L)) {
+                throw new IllegalStateException("poison");
+              }
+            },
+            8);
+
+    strategy.processRecords(createRecords(8), consumer);
+
+    ArgumentCaptor<ConsumerRecord<String, String>> failed =
+        ArgumentCaptor.forClass(ConsumerRecord.class);
+    verify(errorHandler).handleError(failed.capture(), any(), any());
+    assertThat(failed.getValue().offset()).isEqualTo(5L);
+    assertThat(handledBatches)
+        .containsExactly(
+            asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L),
+            asList(0L, 1L, 2L, 3L),
+            asList(4L, 5L, 6L, 7L),
+            asList(4L, 5L),
+            asList(4L),
+            asList(5L),
+            asList(6L, 7L));
+    assertThat(committedOffsets()).containsExactly(4L, 5L, 6L, 8L);
+    verify(batchHistogram).observe(eq(8), anyDouble(), anyString(), eq(TOPIC_NAME), eq(false));
+    verify(batchHistogram).observe(eq(1), anyDouble(), anyString(), eq(TOPIC_NAME), eq(true));
+    verify(batchHistogram).observe(eq(1), anyDouble(), anyString(), eq(TOPIC_NAME), eq(false));
+  }
+
+  @Test
+  void shouldStopWithoutCommittingFailedRecord() {
+    when(errorHandler.handleError(any(), any(), any())).thenReturn(false);
+    BatchSyncCommitMLS<String, String> strategy =
+        createStrategy(
+            records -> {
+              if (offsets(records).contains(2L)) {
+                throw new IllegalStateException("poison");
+              }
+            },
+            4);
+
+    assertThatThrownBy(() -> strategy.processRecords(createRecords(4), consumer))
+        .isInstanceOf(StopListenerException.class);
+    assertThat(committedOffsets()).containsExactly(2L);
+  }
+
+  @Test
+  void shouldPassEveryRecordOfFailedBatchToErrorHandlerWithoutSplitting() {
+    when(errorHandler.handleError(any(), any(), any())).thenReturn(true);
+    BatchSyncCommitMLS<String, String> strategy = createFailingStrategyWithoutSplitting();
+
+    strategy.processRecords(createRecords(4), consumer);
+
+    ArgumentCaptor<ConsumerRecord<String, String>> failed =
+        ArgumentCaptor.forClass(ConsumerRecord.class);
+    verify(errorHandler, times(4)).handleError(failed.capture(), any(), any());
+    assertThat(offsets(failed.getAllValues())).containsExactly(0L, 1L, 2L, 3L);
+    assertThat(handledBatches).containsExactly(asList(0L, 1L, 2L, 3L));
+    assertThat(committedOffsets()).containsExactly(4L);
+    verify(batchHistogram).observe(eq(4), anyDouble(), anyString(), eq(TOPIC_NAME), eq(false));
+  }
+
+  @Test
+  void shouldCommitRecordsPassedToErrorHandlerBeforeItStops() {
+    when(errorHandler.handleError(any(), any(), any()))
+        .thenAnswer(
+            invocation -> invocation.<ConsumerRecord<String, String>>getArgument(0).offset() < 2);
+    BatchSyncCommitMLS<String, String> strategy = createFailingStrategyWithoutSplitting();
+
+    assertThatThrownBy(() -> strategy.processRecords(createRecords(4), consumer))
+        .isInstanceOf(StopListenerException.class);
+    verify(errorHandler, times(3)).handleError(any(), any(), any());
+    assertThat(committedOffsets()).containsExactly(2L);
+  }
+
+  private BatchSyncCommitMLS<String, String> createFailingStrategyWithoutSplitting() {
+    BatchSyncCommitMLS<String, String> strategy =
+        new BatchSyncCommitMLS<>(
+            records -> {
+              handledBatches.add(offsets(records));
+              throw new IllegalStateException("failed");
+            },
+            errorHandler,
+            4,
+            false);
+    strategy.init(mock(ConsumerTopicMessageHistogram.class), batchHistogram);
+    return strategy;
+  }
+
+  private BatchSyncCommitMLS<String, String> createStrategy(
+      BatchMessageHandler<String, String> handler, int maxBatchSize) {
+    BatchSyncCommitMLS<String, String> strategy =
+        new BatchSyncCommitMLS<>(handler, errorHandler, maxBatchSize, true);
+    strategy.init(mock(ConsumerTopicMessageHistogram.class), batchHistogram);
+    return strategy;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Long> committedOffsets() {
+    ArgumentCaptor<Map<TopicPartition, OffsetAndMetadata>> offsets =
+        ArgumentCaptor.forClass(Map.class);
+    verify(consumer, atLeast(0)).commitSync(offsets.capture());
+    return offsets.getAllValues().stream()
+        .map(o -> o.get(PARTITION).offset())
+        .collect(Collectors.toList());
+  }
+
+  private static ConsumerRecords<String, String> createRecords(int count) {
+    List<ConsumerRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      records.add(new ConsumerRecord<>(TOPIC_NAME, 0, i, "key" + i, "value" + i));
+    }
+    return new ConsumerRecords<>(Collections.singletonMap(PARTITION, records));
+  }
+
+  private static List<Long> offsets(List<ConsumerRecord<String, String>> records) {
+    return records.stream().map(ConsumerRecord::offset).collect(Collectors.toList());
+  }
+
+  private static List<Long> asList(Long... offsets) {
+    List<Long> list = new ArrayList<>();
+    Collections.addAll(list, offsets);
+    return list;
+  }
+}
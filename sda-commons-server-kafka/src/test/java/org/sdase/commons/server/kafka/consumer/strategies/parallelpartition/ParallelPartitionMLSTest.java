@@ -0,0 +1,315 @@
+package org.sdase.commons.server.kafka.consumer.strategies.parallelpartition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.sdase.commons.server.kafka.consumer.IgnoreAndProceedErrorHandler;
+import org.sdase.commons.server.kafka.consumer.MessageHandler;
+import org.sdase.commons.server.kafka.consumer.StopListenerException;
+import org.sdase.commons.server.kafka.prometheus.ConsumerTopicMessageHistogram;
+
+class ParallelPartitionMLSTest {
+
+  private static final String TOPIC_NAME = "topic";
+
+  private KafkaConsumer<String, String> consumer;
+  private final Set<TopicPartition> assignment = new HashSet<>();
+  private final Set<TopicPartition> paused = new HashSet<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @SuppressWarnings("unchecked")
+  @BeforeEach
+  void setUp() {
+    consumer = mock(KafkaConsumer.class);
+    when(consumer.assignment()).thenReturn(assignment);
+    when(consumer.paused()).thenReturn(paused);
+  }
+
+  @AfterEach
+  void releaseHandlers() {
+    release.countDown();
+  }
+
+  @Test
+  void shouldProcessPartitionsInParallelAndKeepOrderWithinPartition() {
+    Map<Integer, List<Long>> processedOffsets = new ConcurrentHashMap<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    CountDownLatch allStarted = new CountDownLatch(2);
+    MessageHandler<String, String> handler =
+        r -> {
+          threads.add(Thread.currentThread().getName());
+          allStarted.countDown();
+          awaitLatch(allStarted);
+          processedOffsets
+              .computeIfAbsent(r.partition(), p -> new CopyOnWriteArrayList<>())
+              .add(r.offset());
+        };
+    ParallelPartitionMLS<String, String> strategy = createStrategy(handler, 100);
+
+    strategy.processRecords(records(0, 0, 5, 1, 0, 5), consumer);
+
+    await()
+        .untilAsserted(
+            () ->
+                assertThat(processedOffsets)
+                    .containsEntry(0, offsets(0, 5))
+                    .containsEntry(1, offsets(0, 5)));
+    assertThat(threads).hasSize(2);
+
+    strategy.processRecords(ConsumerRecords.empty(), consumer);
+    Map<TopicPartition, OffsetAndMetadata> committed = lastCommit();
+    assertThat(committed.get(partition(0)).offset()).isEqualTo(5);
+    assertThat(committed.get(partition(1)).offset()).isEqualTo(5);
+  }
+
+  @Test
+  void shouldPauseBusyPartitionAndResumeWhenDrained() {
+    MessageHandler<String, String> handler = r -> awaitLatch(release);
+    ParallelPartitionMLS<String, String> strategy = createStrategy(handler, 4);
+
+    strategy.processRecords(records(0, 0, 10), consumer);
+    verify(consumer).pause(Collections.singleton(partition(0)));
+    paused.add(partition(0));
+    assertThat(strategy.getQueueDepths(consumer)).containsEntry(partition(0), 10);
+
+    release.countDown();
+    await().until(() -> strategy.getQueueDepths(consumer).get(partition(0)) == 0);
+
+    strategy.processRecords(ConsumerRecords.empty(), consumer);
+    verify(consumer).resume(Collections.singleton(partition(0)));
+    assertThat(lastCommit().get(partition(0)).offset()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldOnlyCommitOffsetsProcessedBeforeFailure() {
+    MessageHandler<String, String> handler =
+        r -> {
+          if (r.offset() == 3) {
+            awaitLatch(release);
+            throw new IllegalStateException("failed");
+          }
+        };
+    ParallelPartitionMLS<String, String> strategy =
+        new ParallelPartitionMLS<>(handler, (r, e, c) -> false, 2, 100);
+    strategy.init(mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS));
+
+    strategy.processRecords(records(0, 0, 10), consumer);
+    release.countDown();
+
+    await()
+        .untilAsserted(
+            () ->
+                assertThatThrownBy(() -> strategy.processRecords(ConsumerRecords.empty(), consumer))
+                    .isInstanceOf(StopListenerException.class));
+    assertThat(lastCommit().get(partition(0)).offset()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldCallErrorHandlerFromPollingThreadAndContinue() {
+    List<Long> processedOffsets = new CopyOnWriteArrayList<>();
+    List<Thread> errorHandlerThreads = new CopyOnWriteArrayList<>();
+    MessageHandler<String, String> handler =
+        r -> {
+          if (r.offset() == 3) {
+            throw new IllegalStateException("failed");
+          }
+          processedOffsets.add(r.offset());
+        };
+    ParallelPartitionMLS<String, String> strategy =
+        new ParallelPartitionMLS<>(
+            handler,
+            (r, e, c) -> {
+              errorHandlerThreads.add(Thread.currentThread());
+              return true;
+            },
+            2,
+            100);
+    strategy.init(mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS));
+
+    strategy.processRecords(records(0, 0, 10), consumer);
+    await()
+        .pollInSameThread()
+        .untilAsserted(
+            () -> {
+              strategy.processRecords(ConsumerRecords.empty(), consumer);
+              assertThat(lastCommit().get(partition(0)).offset()).isEqualTo(10);
+            });
+
+    assertThat(errorHandlerThreads).containsExactly(Thread.currentThread());
+    assertThat(processedOffsets).containsExactly(0L, 1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L);
+  }
+
+  @Test
+  void shouldCommitProcessedOffsetsOnClose() {
+    MessageHandler<String, String> handler =
+        r -> {
+          if (r.offset() == 2) {
+            awaitLatch(release);
+          }
+        };
+    ParallelPartitionMLS<String, String> strategy = createStrategy(handler, 100);
+
+    strategy.processRecords(records(0, 0, 5), consumer);
+    await().until(() -> strategy.getQueueDepths(consumer).get(partition(0)) == 3);
+
+    new Thread(release::countDown).start();
+    strategy.commitOnClose(consumer);
+
+    // the record in progress is completed, queued records are skipped
+    assertThat(lastCommit().get(partition(0)).offset()).isEqualTo(3);
+    assertThat(strategy.getQueueDepths(consumer)).isEmpty();
+  }
+
+  @Test
+  void shouldCommitInFlightPartitionWhenRevokedAndNotProcessRecordsTwice() {
+    List<Long> processedOffsets = new CopyOnWriteArrayList<>();
+    CountDownLatch inFlight = new CountDownLatch(1);
+    MessageHandler<String, String> handler =
+        r -> {
+          if (r.offset() == 2) {
+            inFlight.countDown();
+            awaitLatch(release);
+          }
+          processedOffsets.add(r.offset());
+        };
+    ParallelPartitionMLS<String, String> strategy = createStrategy(handler, 100);
+    ConsumerRebalanceListener rebalanceListener = strategy.createRebalanceListener(consumer);
+
+    strategy.processRecords(records(0, 0, 5), consumer);
+    awaitLatch(inFlight);
+
+    // the rebalance happens in the poll while the record at offset 2 is processed
+    new Thread(
+            () -> {
+              sleep(100);
+              release.countDown();
+            })
+        .start();
+    rebalanceListener.onPartitionsRevoked(Collections.singleton(partition(0)));
+
+    // the record in progress is completed and committed, queued records are dropped
+    int committed = (int) lastCommit().get(partition(0)).offset();
+    assertThat(committed).isGreaterThanOrEqualTo(3);
+    assertThat(processedOffsets).isEqualTo(offsets(0, committed));
+    assertThat(strategy.getQueueDepths(consumer)).isEmpty();
+
+    // the partition is assigned again and the consumer fetches from the committed offset
+    rebalanceListener.onPartitionsAssigned(Collections.singleton(partition(0)));
+    strategy.processRecords(records(0, committed, 8 - committed), consumer);
+
+    await().untilAsserted(() -> assertThat(processedOffsets).isEqualTo(offsets(0, 8)));
+    strategy.processRecords(ConsumerRecords.empty(), consumer);
+    assertThat(lastCommit().get(partition(0)).offset()).isEqualTo(8);
+  }
+
+  @Test
+  void shouldNotCommitLostPartitions() {
+    MessageHandler<String, String> handler = r -> {};
+    ParallelPartitionMLS<String, String> strategy = createStrategy(handler, 100);
+    ConsumerRebalanceListener rebalanceListener = strategy.createRebalanceListener(consumer);
+
+    strategy.processRecords(records(0, 0, 5), consumer);
+    await().until(() -> strategy.getQueueDepths(consumer).get(partition(0)) == 0);
+    clearInvocations(consumer);
+    rebalanceListener.onPartitionsLost(Collections.singleton(partition(0)));
+
+    verify(consumer, never()).commitSync(anyMap());
+    assertThat(strategy.getQueueDepths(consumer)).isEmpty();
+  }
+
+  private ParallelPartitionMLS<String, String> createStrategy(
+      MessageHandler<String, String> handler, int maxQueued) {
+    ParallelPartitionMLS<String, String> strategy =
+        new ParallelPartitionMLS<>(handler, new IgnoreAndProceedErrorHandler<>(), 2, maxQueued);
+    strategy.init(mock(ConsumerTopicMessageHistogram.class, RETURNS_DEEP_STUBS));
+    return strategy;
+  }
+
+  /**
+   * @param partitionOffsetsAndCounts triples of partition, first offset and number of records
+   * @return the records
+   */
+  private ConsumerRecords<String, String> records(int... partitionOffsetsAndCounts) {
+    Map<TopicPartition, List<ConsumerRecord<String, String>>> recordsByPartition = new HashMap<>();
+    for (int i = 0; i < partitionOffsetsAndCounts.length; i += 3) {
+      int partition = partitionOffsetsAndCounts[i];
+      assignment.add(partition(partition));
+      List<ConsumerRecord<String, String>> records = new ArrayList<>();
+      for (int offset = partitionOffsetsAndCounts[i + 1];
+          offset < partitionOffsetsAndCounts[i + 1] + partitionOffsetsAndCounts[i + 2];
+          offset++) {
+        records.add(new ConsumerRecord<>(TOPIC_NAME, partition, offset, "key" + offset, "value"));
+      }
+      recordsByPartition.put(partition(partition), records);
+    }
+    return new ConsumerRecords<>(recordsByPartition);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<TopicPartition, OffsetAndMetadata> lastCommit() {
+    ArgumentCaptor<Map<TopicPartition, OffsetAndMetadata>> offsets =
+        ArgumentCaptor.forClass(Map.class);
+    verify(consumer, atLeastOnce()).commitSync(offsets.capture());
+    Map<TopicPartition, OffsetAndMetadata> merged = new HashMap<>();
+    offsets.getAllValues().forEach(merged::putAll);
+    return merged;
+  }
+
+  private static TopicPartition partition(int partition) {
+    return new TopicPartition(TOPIC_NAME, partition);
+  }
+
+  private static List<Long> offsets(long from, long to) {
+    List<Long> offsets = new ArrayList<>();
+    for (long i = from; i < to; i++) {
+      offsets.add(i);
+    }
+    return offsets;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitLatch(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,21 +1,43 @@
 package org.sdase.commons.server.kafka.producer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageCounter;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicSendMetrics;
 
 @ExtendWith(MockitoExtension.class)
 class KafkaMessageProducerTest {
 
   @Mock KafkaProducer<String, String> mockProducer;
+  @Mock Histogram.Child sendDuration;
+  @Mock Counter.Child sendFailures;
+  @Captor ArgumentCaptor<ProducerRecord<String, String>> recordCaptor;
+  @Captor ArgumentCaptor<Callback> callbackCaptor;
 
   @Test
   void shouldDelegateFlushCallToProducer() {
@@ -29,6 +51,146 @@ class KafkaMessageProducerTest {
     verify(mockProducer, times(1)).flush();
   }
 
+  @Test
+  void shouldResolveCounterOnceAndIncreaseForEachMessage() {
+    // given
+    ProducerTopicMessageCounter counter = mock(ProducerTopicMessageCounter.class);
+    Counter.Child counterChild = mock(Counter.Child.class);
+    when(counter.child("producerName", "topicName")).thenReturn(counterChild);
+    KafkaMessageProducer<String, String> kafkaMessageProducer =
+        new KafkaMessageProducer<>("topicName", mockProducer, counter, "producerName");
+    // when
+    kafkaMessageProducer.send("key", "value");
+    kafkaMessageProducer.send("key", "value", new RecordHeaders());
+    // then
+    verify(counter, times(1)).child("producerName", "topicName");
+    verify(counterChild, times(2)).inc();
+    verify(mockProducer, times(2)).send(any(ProducerRecord.class), any(Callback.class));
+  }
+
+  @Test
+  void shouldCompleteSendAsyncWhenAcknowledged() {
+    // given
+    KafkaMessageProducer<String, String> kafkaMessageProducer = producerWithSendMetrics(0);
+    // when
+    CompletableFuture<RecordMetadata> result =
+        kafkaMessageProducer.sendAsync("key", "value").toCompletableFuture();
+    // then
+    assertThat(result).isNotDone();
+    RecordMetadata metadata = metadata(42);
+    acknowledge(0, metadata, null);
+    assertThat(result).isCompletedWithValue(metadata);
+    verify(sendDuration).observe(anyDouble());
+    verify(sendFailures, never()).inc();
+  }
+
+  @Test
+  void shouldCompleteSendAsyncExceptionallyAndCountFailure() {
+    // given
+    KafkaMessageProducer<String, String> kafkaMessageProducer = producerWithSendMetrics(0);
+    // when
+    CompletableFuture<RecordMetadata> result =
+        kafkaMessageProducer.sendAsync("key", "value").toCompletableFuture();
+    acknowledge(0, null, new NetworkException("broker gone"));
+    // then
+    assertThat(result)
+        .isCompletedExceptionally()
+        .failsWithin(Duration.ZERO)
+        .withThrowableOfType(ExecutionException.class)
+        .withCauseInstanceOf(NetworkException.class);
+    verify(sendFailures).inc();
+  }
+
+  @Test
+  void shouldCompleteSendAllWithMetadataInOrder() {
+    // given
+    KafkaMessageProducer<String, String> kafkaMessageProducer = producerWithSendMetrics(0);
+    // when
+    CompletableFuture<List<RecordMetadata>> result =
+        kafkaMessageProducer
+            .sendAll(
+                Arrays.asList(
+                    ProducerMessage.of("k1", "v1"),
+                    ProducerMessage.of("k2", "v2", new RecordHeaders())))
+            .toCompletableFuture();
+    // then
+    verify(mockProducer, times(2)).send(recordCaptor.capture(), callbackCaptor.capture());
+    assertThat(recordCaptor.getAllValues())
+        .extracting(ProducerRecord::key)
+        .containsExactly("k1", "k2");
+    RecordMetadata metadata1 = metadata(1);
+    RecordMetadata metadata2 = metadata(2);
+    acknowledge(1, metadata2, null);
+    assertThat(result).isNotDone();
+    acknowledge(0, metadata1, null);
+    assertThat(result).isCompletedWithValue(Arrays.asList(metadata1, metadata2));
+  }
+
+  @Test
+  void shouldFailWhenTooManyMessagesAreInFlight() {
+    // given
+    KafkaMessageProducer<String, String> kafkaMessageProducer = producerWithSendMetrics(1);
+    CompletableFuture<RecordMetadata> first =
+        kafkaMessageProducer.sendAsync("k1", "v1").toCompletableFuture();
+    // when
+    CompletableFuture<RecordMetadata> second =
+        kafkaMessageProducer.sendAsync("k2", "v2").toCompletableFuture();
+    // then
+    assertThat(second)
+        .failsWithin(Duration.ZERO)
+        .withThrowableOfType(ExecutionException.class)
+        .withCauseInstanceOf(TimeoutException.class);
+    verify(sendFailures).inc();
+
+    // a new message can be sent when the first is acknowledged
+    RecordMetadata metadata = metadata(1);
+    acknowledge(0, metadata, null);
+    assertThat(first).isCompletedWithValue(metadata);
+    kafkaMessageProducer.sendAsync("k3", "v3");
+    verify(mockProducer, times(2)).send(any(ProducerRecord.class), any(Callback.class));
+  }
+
+  @Test
+  void shouldReleaseInFlightPermitIfProducerRejectsMessage() {
+    // given
+    KafkaMessageProducer<String, String> kafkaMessageProducer = producerWithSendMetrics(1);
+    when(mockProducer.send(any(ProducerRecord.class), any(Callback.class)))
+        .thenThrow(new SerializationException("invalid"))
+        .thenReturn(null);
+    // when
+    CompletableFuture<RecordMetadata> rejected =
+        kafkaMessageProducer.sendAsync("k1", "v1").toCompletableFuture();
+    kafkaMessageProducer.sendAsync("k2", "v2");
+    // then
+    assertThat(rejected).isCompletedExceptionally();
+    verify(mockProducer, times(2)).send(any(ProducerRecord.class), any(Callback.class));
+    verify(sendFailures).inc();
+  }
+
+  private KafkaMessageProducer<String, String> producerWithSendMetrics(int maxInFlightMessages) {
+    ProducerTopicSendMetrics sendMetrics = mock(ProducerTopicSendMetrics.class);
+    when(sendMetrics.durationChild("producerName", "topicName")).thenReturn(sendDuration);
+    when(sendMetrics.failureChild("producerName", "topicName")).thenReturn(sendFailures);
+    return new KafkaMessageProducer<>(
+        "topicName",
+        mockProducer,
+        mock(ProducerTopicMessageCounter.class, RETURNS_DEEP_STUBS),
+        sendMetrics,
+        "producerName",
+        maxInFlightMessages,
+        10);
+  }
+
+  private void acknowledge(int index, RecordMetadata metadata, Exception exception) {
+    verify(mockProducer, atLeast(index + 1))
+        .send(any(ProducerRecord.class), callbackCaptor.capture());
+    callbackCaptor.getAllValues().get(index).onCompletion(metadata, exception);
+  }
+
+  private static RecordMetadata metadata(long offset) {
+    return new RecordMetadata(new TopicPartition("topicName", 0), offset, 0, 0L, 3, 5);
+  }
+
   @Test
   void callingFlushShouldNotThrowExceptionAndMakeSonarHappy() {
     MessageProducer messageProducer =
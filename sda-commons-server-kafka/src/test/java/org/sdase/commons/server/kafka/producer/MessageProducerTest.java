@@ -0,0 +1,142 @@
+package org.sdase.commons.server.kafka.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+class MessageProducerTest {
+
+  @Test
+  void shouldCompleteWithResultOfPendingFuture() throws Exception {
+    FutureTask<RecordMetadata> pending = new FutureTask<>(() -> metadata(1));
+    MessageProducer<String, String> producer = producer(pending);
+
+    CompletableFuture<RecordMetadata> result =
+        producer.sendAsync("key", "value").toCompletableFuture();
+    assertThat(result).isNotDone();
+
+    pending.run();
+    assertThat(result.get(10, TimeUnit.SECONDS).offset()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCompletePendingFuturesInOneSharedThread() throws Exception {
+    List<FutureTask<RecordMetadata>> pending = new ArrayList<>();
+    List<CompletableFuture<String>> completingThreads = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      FutureTask<RecordMetadata> future = new FutureTask<>(() -> metadata(1));
+      pending.add(future);
+      completingThreads.add(
+          producer(future)
+              .sendAsync("key", "value")
+              .thenApply(m -> Thread.currentThread().getName())
+              .toCompletableFuture());
+    }
+
+    pending.forEach(FutureTask::run);
+
+    for (CompletableFuture<String> completingThread : completingThreads) {
+      assertThat(completingThread.get(10, TimeUnit.SECONDS))
+          .isEqualTo("kafka-producer-send-poller");
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWithCauseOfFailedFuture() {
+    FutureTask<RecordMetadata> failed =
+        new FutureTask<>(
+            () -> {
+              throw new NetworkException("broker not available");
+            });
+    failed.run();
+    MessageProducer<String, String> producer = producer(failed);
+
+    CompletableFuture<RecordMetadata> result =
+        producer.sendAsync("key", "value").toCompletableFuture();
+
+    assertThatThrownBy(result::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(NetworkException.class);
+  }
+
+  @Test
+  void shouldCompleteExceptionallyIfSendThrows() {
+    MessageProducer<String, String> producer =
+        new MessageProducer<String, String>() {
+          @Override
+          public Future<RecordMetadata> send(String key, String value) {
+            throw new SerializationException("invalid value");
+          }
+
+          @Override
+          public Future<RecordMetadata> send(String key, String value, Headers headers) {
+            throw new SerializationException("invalid value");
+          }
+        };
+
+    CompletableFuture<RecordMetadata> result =
+        producer.sendAsync("key", "value").toCompletableFuture();
+
+    assertThatThrownBy(result::get).hasCauseInstanceOf(SerializationException.class);
+  }
+
+  @Test
+  void shouldSendAllWithHeadersInOrder() throws Exception {
+    MessageProducer<String, String> producer =
+        new MessageProducer<String, String>() {
+          @Override
+          public Future<RecordMetadata> send(String key, String value) {
+            return CompletableFuture.completedFuture(metadata(Long.parseLong(value)));
+          }
+
+          @Override
+          public Future<RecordMetadata> send(String key, String value, Headers headers) {
+            return CompletableFuture.completedFuture(metadata(10 + Long.parseLong(value)));
+          }
+        };
+
+    List<RecordMetadata> result =
+        producer
+            .sendAll(
+                Arrays.asList(
+                    ProducerMessage.of("k1", "1"),
+                    ProducerMessage.of("k2", "2", new RecordHeaders())))
+            .toCompletableFuture()
+            .get(10, TimeUnit.SECONDS);
+
+    assertThat(result).extracting(RecordMetadata::offset).containsExactly(1L, 12L);
+  }
+
+  private static MessageProducer<String, String> producer(Future<RecordMetadata> future) {
+    return new MessageProducer<String, String>() {
+      @Override
+      public Future<RecordMetadata> send(String key, String value) {
+        return future;
+      }
+
+      @Override
+      public Future<RecordMetadata> send(String key, String value, Headers headers) {
+        return future;
+      }
+    };
+  }
+
+  private static RecordMetadata metadata(long offset) {
+    return new RecordMetadata(new TopicPartition("topic", 0), offset, 0, 0L, 0, 0);
+  }
+}
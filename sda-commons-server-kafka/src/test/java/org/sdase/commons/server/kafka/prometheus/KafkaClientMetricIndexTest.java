@@ -0,0 +1,115 @@
+package org.sdase.commons.server.kafka.prometheus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.GaugeMetricFamily;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KafkaClientMetricIndexTest {
+
+  private static final List<String> LABELS = Arrays.asList("consumer_name", "topic", "partition");
+
+  private final Metrics metrics = new Metrics();
+
+  @AfterEach
+  void closeMetrics() {
+    metrics.close();
+  }
+
+  @Test
+  void shouldExportWantedMetricsOfClientTopicAndPartition() {
+    addGauge("records-lag-max", tags("topic", "my-topic", "partition", "0"), new AtomicLong(3));
+    addGauge("records-lag-max", tags(), new AtomicLong(5));
+    addGauge("fetch-rate", tags(), new AtomicLong(1));
+    addGauge("records-lag-max", tags("node-id", "1"), new AtomicLong(7));
+
+    Map<String, GaugeMetricFamily> families = collect(index(10_000));
+
+    assertThat(families).containsOnlyKeys("kafka_consumer_records_lag_max");
+    assertThat(families.get("kafka_consumer_records_lag_max").samples)
+        .extracting(s -> s.labelValues, s -> s.value)
+        .containsExactlyInAnyOrder(
+            tuple(Arrays.asList("client", "my-topic", "0"), 3.0),
+            tuple(Arrays.asList("client", "", ""), 5.0));
+  }
+
+  @Test
+  void shouldReadCurrentValuesOfIndexedMetrics() {
+    AtomicLong lag = new AtomicLong(3);
+    addGauge("records-lag", tags("topic", "my-topic", "partition", "0"), lag);
+    KafkaClientMetricIndex index = index(10_000);
+    collect(index);
+
+    lag.set(42);
+
+    assertThat(collect(index).get("kafka_consumer_records_lag").samples)
+        .extracting(s -> s.value)
+        .containsExactly(42.0);
+  }
+
+  @Test
+  void shouldRefreshIndexWhenMetricsAreAdded() {
+    addGauge("records-lag", tags("topic", "my-topic", "partition", "0"), new AtomicLong(1));
+    KafkaClientMetricIndex index = index(10_000);
+    collect(index);
+
+    addGauge("records-lag", tags("topic", "my-topic", "partition", "1"), new AtomicLong(2));
+
+    assertThat(collect(index).get("kafka_consumer_records_lag").samples)
+        .extracting(s -> s.labelValues.get(2))
+        .containsExactlyInAnyOrder("0", "1");
+  }
+
+  @Test
+  void shouldNotExportAnythingWithoutWantedMetrics() {
+    addGauge("records-lag", tags("topic", "my-topic", "partition", "0"), new AtomicLong(1));
+
+    Map<String, GaugeMetricFamily> families = new LinkedHashMap<>();
+    new KafkaClientMetricIndex(metrics.metrics(), Arrays.asList(), 10_000)
+        .collect("kafka_consumer_", LABELS, families);
+
+    assertThat(families).isEmpty();
+  }
+
+  private KafkaClientMetricIndex index(long refreshIntervalMs) {
+    return new KafkaClientMetricIndex(
+        metrics.metrics(), Arrays.asList("records-lag", "records-lag-max"), refreshIntervalMs);
+  }
+
+  private Map<String, GaugeMetricFamily> collect(KafkaClientMetricIndex index) {
+    Map<String, GaugeMetricFamily> families = new LinkedHashMap<>();
+    index.collect("kafka_consumer_", LABELS, families);
+    for (GaugeMetricFamily family : families.values()) {
+      for (Sample sample : family.samples) {
+        assertThat(sample.labelNames).isEqualTo(LABELS);
+      }
+    }
+    return families;
+  }
+
+  private void addGauge(String name, Map<String, String> tags, AtomicLong value) {
+    MetricName metricName = metrics.metricName(name, "test-metrics", "", tags);
+    metrics.addMetric(metricName, (Gauge<Long>) (config, now) -> value.get());
+  }
+
+  private static Map<String, String> tags(String... keysAndValues) {
+    Map<String, String> tags = new HashMap<>();
+    tags.put("client-id", "client");
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      tags.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return tags;
+  }
+}
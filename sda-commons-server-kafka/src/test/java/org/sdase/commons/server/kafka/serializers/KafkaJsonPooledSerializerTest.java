@@ -0,0 +1,103 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.sdase.commons.server.kafka.prometheus.ProducerTopicMessageSizeHistogram;
+
+class KafkaJsonPooledSerializerTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void shouldSerializeLikeKafkaJsonSerializer() {
+    KafkaJsonPooledSerializer<Object> serializer = new KafkaJsonPooledSerializer<>(objectMapper);
+    KafkaJsonSerializer<Object> kafkaJsonSerializer = new KafkaJsonSerializer<>(objectMapper);
+
+    for (int i = 0; i < 3; i++) {
+      SimpleEntity entity = entity("name-" + i);
+      assertThat(serializer.serialize("topic", entity))
+          .isEqualTo(kafkaJsonSerializer.serialize("topic", entity));
+    }
+    NameOnly other = new NameOnly();
+    other.name = "other type";
+    assertThat(serializer.serialize("topic", other))
+        .isEqualTo(kafkaJsonSerializer.serialize("topic", other));
+    assertThat(serializer.serialize("topic", null)).isEmpty();
+  }
+
+  @Test
+  void shouldNotMixMessagesOfConcurrentThreads() throws Exception {
+    KafkaJsonPooledSerializer<SimpleEntity> serializer =
+        new KafkaJsonPooledSerializer<>(objectMapper, 2, 1024);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        // every 10th message exceeds the retained buffer size
+        String name = i % 10 == 0 ? repeat("x", 2000) + i : "name-" + i;
+        results.add(
+            executorService.submit(
+                () ->
+                    objectMapper
+                        .readValue(serializer.serialize("topic", entity(name)), SimpleEntity.class)
+                        .getName()
+                        .equals(name)));
+      }
+      for (Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  void shouldObserveMessageSize() {
+    ProducerTopicMessageSizeHistogram histogram = mock(ProducerTopicMessageSizeHistogram.class);
+    KafkaJsonPooledSerializer<SimpleEntity> serializer =
+        new KafkaJsonPooledSerializer<>(objectMapper);
+    serializer.init(histogram);
+
+    byte[] serialized = serializer.serialize("my-topic", entity("John"));
+
+    verify(histogram).observe(serialized.length, "my-topic");
+  }
+
+  @Test
+  void shouldThrowSerializationException() {
+    KafkaJsonPooledSerializer<Object> serializer = new KafkaJsonPooledSerializer<>(objectMapper);
+
+    assertThatThrownBy(() -> serializer.serialize("topic", new Object()))
+        .isInstanceOf(SerializationException.class);
+  }
+
+  private static SimpleEntity entity(String name) {
+    SimpleEntity entity = new SimpleEntity();
+    entity.setName(name);
+    entity.setLastname("Doe");
+    return entity;
+  }
+
+  private static String repeat(String value, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  static class NameOnly {
+    public String name;
+  }
+}
@@ -0,0 +1,96 @@
+package org.sdase.commons.server.kafka.serializers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+class KafkaJsonReaderDeserializerTest {
+
+  private static final byte[] EVENT =
+      ("{\"type\":\"CREATED\",\"payload\":{\"name\":\"John\",\"lastname\":\"Doe\","
+              + "\"addresses\":[{\"city\":\"Hamburg\"},{\"city\":\"Berlin\"}]}}")
+          .getBytes(UTF_8);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void shouldDeserializeLikeKafkaJsonDeserializer() {
+    byte[] data = "{\"name\":\"John\",\"lastname\":\"Doe\"}".getBytes(UTF_8);
+
+    SimpleEntity entity =
+        new KafkaJsonReaderDeserializer<>(objectMapper, SimpleEntity.class)
+            .deserialize("topic", data);
+
+    assertThat(entity).extracting("name", "lastname").containsExactly("John", "Doe");
+  }
+
+  @Test
+  void shouldReturnNullForEmptyData() {
+    KafkaJsonReaderDeserializer<SimpleEntity> deserializer =
+        new KafkaJsonReaderDeserializer<>(objectMapper, SimpleEntity.class);
+
+    assertThat(deserializer.deserialize("topic", null)).isNull();
+    assertThat(deserializer.deserialize("topic", new byte[0])).isNull();
+  }
+
+  @Test
+  void shouldProjectNestedPartOfMessage() {
+    KafkaJsonReaderDeserializer<SimpleEntity> deserializer =
+        KafkaJsonReaderDeserializer.builder(objectMapper, SimpleEntity.class)
+            .ignoringUnknownProperties()
+            .at("/payload")
+            .build();
+
+    SimpleEntity entity = deserializer.deserialize("topic", EVENT);
+
+    assertThat(entity).extracting("name", "lastname").containsExactly("John", "Doe");
+  }
+
+  @Test
+  void shouldFailOnUnknownPropertiesByDefault() {
+    KafkaJsonReaderDeserializer<SimpleEntity> deserializer =
+        KafkaJsonReaderDeserializer.builder(objectMapper, SimpleEntity.class)
+            .at("/payload")
+            .build();
+
+    assertThatThrownBy(() -> deserializer.deserialize("topic", EVENT))
+        .isInstanceOf(SerializationException.class);
+  }
+
+  @Test
+  void shouldParseLazyValueOnlyOnAccess() {
+    KafkaJsonLazyDeserializer<SimpleEntity> deserializer =
+        KafkaJsonReaderDeserializer.builder(objectMapper, SimpleEntity.class)
+            .ignoringUnknownProperties()
+            .at("/payload")
+            .buildLazy();
+    byte[] invalid = "{\"payload\":".getBytes(UTF_8);
+
+    LazyJsonValue<SimpleEntity> invalidValue = deserializer.deserialize("topic", invalid);
+    LazyJsonValue<SimpleEntity> value = deserializer.deserialize("topic", EVENT);
+
+    assertThat(invalidValue.getRaw()).isSameAs(invalid);
+    assertThatThrownBy(invalidValue::get).isInstanceOf(SerializationException.class);
+    assertThat(value.get()).isSameAs(value.get());
+    assertThat(value.get().getName()).isEqualTo("John");
+  }
+
+  @Test
+  void shouldReadLazyValueAsOtherType() {
+    LazyJsonValue<SimpleEntity> value =
+        KafkaJsonReaderDeserializer.builder(objectMapper, SimpleEntity.class)
+            .ignoringUnknownProperties()
+            .buildLazy()
+            .deserialize("topic", "{\"name\":\"John\",\"age\":42}".getBytes(UTF_8));
+
+    assertThat(value.as(NameOnly.class).name).isEqualTo("John");
+  }
+
+  static class NameOnly {
+    public String name;
+  }
+}
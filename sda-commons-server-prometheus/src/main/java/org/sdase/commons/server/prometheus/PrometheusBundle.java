@@ -12,7 +12,10 @@ import io.prometheus.client.dropwizard.DropwizardExports;
 import io.prometheus.client.dropwizard.samplebuilder.CustomMappingSampleBuilder;
 import io.prometheus.client.dropwizard.samplebuilder.MapperConfig;
 import io.prometheus.client.dropwizard.samplebuilder.SampleBuilder;
-import io.prometheus.client.exporter.MetricsServlet;
+import io.prometheus.client.exemplars.DefaultExemplarSampler;
+import io.prometheus.client.exemplars.ExemplarConfig;
+import io.prometheus.client.exemplars.HistogramExemplarSampler;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,10 +26,17 @@ import javax.servlet.ServletRegistration;
 import javax.ws.rs.container.DynamicFeature;
 import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.FeatureContext;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
+import org.sdase.commons.server.prometheus.exemplars.OpenTracingSpanContextSupplier;
+import org.sdase.commons.server.prometheus.exposition.CachedMetricsServlet;
 import org.sdase.commons.server.prometheus.health.HealthCheckAsPrometheusMetricServlet;
 import org.sdase.commons.server.prometheus.health.HealthCheckMetricsCollector;
 import org.sdase.commons.server.prometheus.metric.request.duration.RequestDurationFilter;
 import org.sdase.commons.server.prometheus.metric.request.duration.RequestDurationHistogramSpecification;
+import org.sdase.commons.server.prometheus.metric.request.phase.RequestPhaseFilter;
+import org.sdase.commons.server.prometheus.metric.request.phase.RequestPhaseHistogramSpecification;
+import org.sdase.commons.server.prometheus.metric.request.phase.ResourcePhaseFilter;
+import org.sdase.commons.server.prometheus.metric.request.phase.SerializationPhaseInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,8 +66,29 @@ public class PrometheusBundle implements ConfiguredBundle<Configuration>, Dynami
 
   private RequestDurationHistogramSpecification requestDurationHistogramSpecification;
 
+  private final double[] requestDurationBuckets;
+
+  private final HistogramExemplarSampler exemplarSampler;
+
+  private final Duration metricsCacheDuration;
+
+  private final boolean requestPhaseMetrics;
+
+  private final boolean serverTimingHeader;
+
   // use PrometheusBundle.builder()... to get an instance
-  private PrometheusBundle() {}
+  private PrometheusBundle(
+      double[] requestDurationBuckets,
+      HistogramExemplarSampler exemplarSampler,
+      Duration metricsCacheDuration,
+      boolean requestPhaseMetrics,
+      boolean serverTimingHeader) {
+    this.requestDurationBuckets = requestDurationBuckets;
+    this.exemplarSampler = exemplarSampler;
+    this.metricsCacheDuration = metricsCacheDuration;
+    this.requestPhaseMetrics = requestPhaseMetrics;
+    this.serverTimingHeader = serverTimingHeader;
+  }
 
   @Override
   public void run(Configuration configuration, Environment environment) {
@@ -66,12 +97,51 @@ public class PrometheusBundle implements ConfiguredBundle<Configuration>, Dynami
     registerHealthCheckServlet(environment.admin());
     registerHealthCheckMetrics(environment);
     environment.jersey().register(this);
+    if (exemplarSampler != null) {
+      registerExemplarSampler(environment);
+    }
+    if (requestPhaseMetrics || serverTimingHeader) {
+      registerRequestPhaseMetrics(environment);
+    }
 
     // init Histogram at startup
-    requestDurationHistogramSpecification = new RequestDurationHistogramSpecification();
+    requestDurationHistogramSpecification =
+        new RequestDurationHistogramSpecification(requestDurationBuckets);
     initializeDropwizardMetricsBridge(environment);
   }
 
+  private void registerExemplarSampler(Environment environment) {
+    // the sampler is used by all histograms that do not configure exemplars explicitly, e.g. the
+    // histograms of Kafka and circuit breakers
+    HistogramExemplarSampler previousSampler = ExemplarConfig.getHistogramExemplarSampler();
+    boolean previouslyEnabled = ExemplarConfig.isExemplarsEnabled();
+    ExemplarConfig.setHistogramExemplarSampler(exemplarSampler);
+    ExemplarConfig.enableExemplars();
+    environment
+        .lifecycle()
+        .manage(
+            onShutdown(
+                () -> {
+                  ExemplarConfig.setHistogramExemplarSampler(previousSampler);
+                  if (!previouslyEnabled) {
+                    ExemplarConfig.disableExemplars();
+                  }
+                }));
+  }
+
+  private void registerRequestPhaseMetrics(Environment environment) {
+    RequestPhaseHistogramSpecification requestPhaseHistogramSpecification =
+        new RequestPhaseHistogramSpecification();
+    environment
+        .jersey()
+        .register(new RequestPhaseFilter(requestPhaseHistogramSpecification, serverTimingHeader));
+    environment.jersey().register(new ResourcePhaseFilter());
+    environment
+        .jersey()
+        .register(new SerializationPhaseInterceptor(requestPhaseHistogramSpecification));
+    environment.lifecycle().manage(onShutdown(requestPhaseHistogramSpecification::unregister));
+  }
+
   private void initializeDropwizardMetricsBridge(Environment environment) {
     // Create a custom mapper to convert the Graphite style Dropwizard metrics
     // to Prometheus metrics.
@@ -273,7 +343,10 @@ public class PrometheusBundle implements ConfiguredBundle<Configuration>, Dynami
 
   private void registerMetricsServlet(AdminEnvironment environment) {
     // Prometheus Servlet registration
-    ServletRegistration.Dynamic dynamic = environment.addServlet("metrics", MetricsServlet.class);
+    ServletRegistration.Dynamic dynamic =
+        environment.addServlet(
+            "metrics",
+            new CachedMetricsServlet(CollectorRegistry.defaultRegistry, metricsCacheDuration));
     dynamic.addMapping(METRICS_SERVLET_URL);
     LOG.info("Registered Prometheus metrics servlet at '{}'", METRICS_SERVLET_URL);
   }
@@ -286,8 +359,14 @@ public class PrometheusBundle implements ConfiguredBundle<Configuration>, Dynami
   }
 
   private void registerHealthCheckMetrics(Environment environment) {
+    // the scheduler of the health checks may be registered by another bundle, it is resolved when
+    // the metrics are collected
     HealthCheckMetricsCollector healthCheckMetricsCollector =
-        new HealthCheckMetricsCollector(environment.healthChecks());
+        new HealthCheckMetricsCollector(
+            environment.healthChecks(),
+            () ->
+                HealthCheckScheduler.fromServletContext(
+                    environment.getAdminContext().getServletContext()));
 
     healthCheckMetricsCollector.register();
 
@@ -312,15 +391,117 @@ public class PrometheusBundle implements ConfiguredBundle<Configuration>, Dynami
   //
 
   public interface InitialBuilder {
+
+    /**
+     * @param buckets the upper bounds of the buckets of {@code http_request_duration_seconds} in
+     *     seconds, e.g. to distinguish requests of 20 ms and 80 ms
+     * @return the builder
+     */
+    InitialBuilder withRequestDurationBuckets(double... buckets);
+
+    /**
+     * Attaches the trace id and span id of the active OpenTracing span as exemplar to the
+     * observations of all histograms, e.g. of {@code http_request_duration_seconds}. Exemplars are
+     * only exposed if the metrics are requested in the OpenMetrics format.
+     *
+     * @return the builder
+     */
+    InitialBuilder withExemplars();
+
+    /**
+     * Attaches exemplars sampled by the given sampler to the observations of all histograms.
+     *
+     * @param exemplarSampler the sampler of the exemplars
+     * @return the builder
+     */
+    InitialBuilder withExemplars(HistogramExemplarSampler exemplarSampler);
+
+    /**
+     * @param cacheDuration the time a scraped snapshot of the metrics is served to further scrapes,
+     *     defaults to {@link CachedMetricsServlet#DEFAULT_CACHE_DURATION}, {@link Duration#ZERO}
+     *     collects the metrics for each scrape
+     * @return the builder
+     */
+    InitialBuilder withMetricsCacheDuration(Duration cacheDuration);
+
+    /**
+     * Measures the time spent in the phases of each request, e.g. in the filters of SDA commons,
+     * the resource method and the serialization of the response entity, as {@code
+     * http_request_phase_duration_seconds}.
+     *
+     * @return the builder
+     */
+    InitialBuilder withRequestPhaseMetrics();
+
+    /**
+     * Measures the phases of each request like {@link #withRequestPhaseMetrics()} and adds them as
+     * {@code Server-Timing} header to the response. The header reveals internals of the service and
+     * should only be enabled for services that are not called by external clients.
+     *
+     * @return the builder
+     */
+    InitialBuilder withServerTimingHeader();
+
     PrometheusBundle build();
   }
 
   public static class Builder implements InitialBuilder {
 
+    private double[] requestDurationBuckets = new double[0];
+
+    private HistogramExemplarSampler exemplarSampler;
+
+    private Duration metricsCacheDuration = CachedMetricsServlet.DEFAULT_CACHE_DURATION;
+
+    private boolean requestPhaseMetrics;
+
+    private boolean serverTimingHeader;
+
     private Builder() {}
 
+    @Override
+    public InitialBuilder withRequestDurationBuckets(double... buckets) {
+      this.requestDurationBuckets = buckets.clone();
+      return this;
+    }
+
+    @Override
+    public InitialBuilder withExemplars() {
+      return withExemplars(new DefaultExemplarSampler(new OpenTracingSpanContextSupplier()));
+    }
+
+    @Override
+    public InitialBuilder withExemplars(HistogramExemplarSampler exemplarSampler) {
+      this.exemplarSampler = exemplarSampler;
+      return this;
+    }
+
+    @Override
+    public InitialBuilder withMetricsCacheDuration(Duration cacheDuration) {
+      this.metricsCacheDuration = cacheDuration;
+      return this;
+    }
+
+    @Override
+    public InitialBuilder withRequestPhaseMetrics() {
+      this.requestPhaseMetrics = true;
+      return this;
+    }
+
+    @Override
+    public InitialBuilder withServerTimingHeader() {
+      this.serverTimingHeader = true;
+      return this;
+    }
+
+    @Override
     public PrometheusBundle build() {
-      return new PrometheusBundle();
+      return new PrometheusBundle(
+          requestDurationBuckets,
+          exemplarSampler,
+          metricsCacheDuration,
+          requestPhaseMetrics,
+          serverTimingHeader);
     }
   }
 }
@@ -0,0 +1,49 @@
+package org.sdase.commons.server.prometheus.exemplars;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.util.GlobalTracer;
+import io.prometheus.client.exemplars.tracer.common.SpanContextSupplier;
+
+/**
+ * Provides the trace id and span id of the active OpenTracing span for exemplars of Prometheus
+ * metrics. Observations without active span have no exemplar.
+ *
+ * <p>OpenTracing does not expose if the span is sampled. All active spans are considered as
+ * sampled, so exemplars may refer to traces that have not been reported.
+ */
+public class OpenTracingSpanContextSupplier implements SpanContextSupplier {
+
+  private final Tracer tracer;
+
+  /** Uses the {@link GlobalTracer}, e.g. the Jaeger tracer registered by the JaegerBundle. */
+  public OpenTracingSpanContextSupplier() {
+    this(GlobalTracer.get());
+  }
+
+  public OpenTracingSpanContextSupplier(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public String getTraceId() {
+    Span span = tracer.activeSpan();
+    return span != null ? emptyToNull(span.context().toTraceId()) : null;
+  }
+
+  @Override
+  public String getSpanId() {
+    Span span = tracer.activeSpan();
+    return span != null ? emptyToNull(span.context().toSpanId()) : null;
+  }
+
+  @Override
+  public boolean isSampled() {
+    return tracer.activeSpan() != null;
+  }
+
+  private static String emptyToNull(String id) {
+    // the noop tracer provides empty ids
+    return id == null || id.isEmpty() ? null : id;
+  }
+}
@@ -0,0 +1,315 @@
+package org.sdase.commons.server.prometheus.exposition;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.SimpleTimer;
+import io.prometheus.client.exporter.common.TextFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the metrics of a {@link CollectorRegistry} like the {@link
+ * io.prometheus.client.exporter.MetricsServlet MetricsServlet} but shares the encoded payload
+ * between scrapes. Only one scrape collects and encodes the metrics at a time. Scrapes that arrive
+ * while the metrics are encoded, e.g. from multiple Prometheus instances, wait for the result and
+ * are served from the same snapshot. Optionally, the snapshot is served to all scrapes for a short
+ * cache duration.
+ *
+ * <p>The encoding buffers are reused for all scrapes. The payload is compressed with gzip at most
+ * once per snapshot if the scraper accepts it. Cached responses vary by {@code Accept-Encoding}.
+ *
+ * <p>Requests that select metrics with the {@code name[]} query parameter are always encoded
+ * directly and are not cached.
+ *
+ * <p>The servlet reports its own duration and payload size as metrics:
+ *
+ * <ul>
+ *   <li>{@value #DURATION_METRIC_NAME}: the time needed to collect and encode the metrics
+ *   <li>{@value #PAYLOAD_METRIC_NAME}: the size of the latest payload
+ *   <li>{@value #REQUESTS_METRIC_NAME}: the scrapes, labeled if they are served from the cache
+ * </ul>
+ */
+public class CachedMetricsServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The name of the histogram of the encoding duration as it is published to Prometheus. */
+  public static final String DURATION_METRIC_NAME = "metrics_exposition_duration_seconds";
+
+  /** The name of the gauge of the payload size as it is published to Prometheus. */
+  public static final String PAYLOAD_METRIC_NAME = "metrics_exposition_payload_bytes";
+
+  /** The name of the scrape counter as it is published to Prometheus. */
+  public static final String REQUESTS_METRIC_NAME = "metrics_exposition_requests_total";
+
+  /**
+   * By default, a snapshot of the metrics is only shared with scrapes that arrive while it is
+   * encoded.
+   */
+  public static final Duration DEFAULT_CACHE_DURATION = Duration.ZERO;
+
+  private static final String FORMAT_TEXT = "text";
+
+  private static final String FORMAT_OPENMETRICS = "openmetrics";
+
+  private static final String ENCODING_IDENTITY = "identity";
+
+  private static final String ENCODING_GZIP = "gzip";
+
+  private static final String CACHE_HIT = "hit";
+
+  private static final String CACHE_MISS = "miss";
+
+  private static final String CACHE_BYPASS = "bypass";
+
+  private final transient CollectorRegistry registry;
+
+  private final long cacheDurationNanos;
+
+  private final transient Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  private final transient Object encodingLock = new Object();
+
+  /** Reused for all payloads, only accessed while holding the {@link #encodingLock}. */
+  private final transient ByteArrayOutputStream encodingBuffer = new ByteArrayOutputStream(16384);
+
+  private final transient Histogram durationHistogram;
+
+  private final transient Gauge payloadGauge;
+
+  private final transient Counter requestsCounter;
+
+  /**
+   * Serves the metrics of the {@link CollectorRegistry#defaultRegistry} with the {@link
+   * #DEFAULT_CACHE_DURATION}.
+   */
+  public CachedMetricsServlet() {
+    this(CollectorRegistry.defaultRegistry, DEFAULT_CACHE_DURATION);
+  }
+
+  /**
+   * @param registry the registry of the metrics to serve, the metrics of this servlet are
+   *     registered in the same registry
+   * @param cacheDuration the time a snapshot of the metrics is served to further scrapes, {@link
+   *     Duration#ZERO} to share it only with scrapes that arrive while it is encoded
+   */
+  public CachedMetricsServlet(CollectorRegistry registry, Duration cacheDuration) {
+    this.registry = registry;
+    this.cacheDurationNanos = cacheDuration.toNanos();
+    this.durationHistogram =
+        Histogram.build()
+            .name(DURATION_METRIC_NAME)
+            .help("Duration of collecting and encoding the metrics for a scrape in seconds.")
+            .labelNames("format")
+            .buckets(0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0)
+            .register(registry);
+    this.payloadGauge =
+        Gauge.build()
+            .name(PAYLOAD_METRIC_NAME)
+            .help("Size of the latest payload of a scrape in bytes.")
+            .labelNames("format", "encoding")
+            .register(registry);
+    this.requestsCounter =
+        Counter.build()
+            .name(REQUESTS_METRIC_NAME)
+            .help("Amount of scrapes of the metrics.")
+            .labelNames("format", "cache")
+            .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    super.destroy();
+    registry.unregister(durationHistogram);
+    registry.unregister(payloadGauge);
+    registry.unregister(requestsCounter);
+    snapshots.clear();
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    String contentType = TextFormat.chooseContentType(req.getHeader("Accept"));
+    String format =
+        TextFormat.CONTENT_TYPE_004.equals(contentType) ? FORMAT_TEXT : FORMAT_OPENMETRICS;
+    boolean gzip = acceptsGzip(req);
+
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType(contentType);
+
+    String[] names = req.getParameterValues("name[]");
+    if (names != null && names.length > 0) {
+      requestsCounter.labels(format, CACHE_BYPASS).inc();
+      writeFiltered(resp, contentType, names);
+      return;
+    }
+
+    Snapshot snapshot = snapshot(contentType, format);
+    byte[] payload = gzip ? snapshot.gzipped(format) : snapshot.payload;
+    resp.setHeader("Vary", "Accept-Encoding");
+    if (gzip) {
+      resp.setHeader("Content-Encoding", ENCODING_GZIP);
+    }
+    resp.setContentLength(payload.length);
+    try (OutputStream out = resp.getOutputStream()) {
+      out.write(payload);
+    }
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    doGet(req, resp);
+  }
+
+  private Snapshot snapshot(String contentType, String format) throws IOException {
+    long requestedAt = System.nanoTime();
+    Snapshot snapshot = snapshots.get(contentType);
+    if (snapshot != null && snapshot.isFresh(requestedAt)) {
+      requestsCounter.labels(format, CACHE_HIT).inc();
+      return snapshot;
+    }
+    synchronized (encodingLock) {
+      // another scrape may have encoded the payload while waiting for the lock
+      snapshot = snapshots.get(contentType);
+      if (snapshot != null && snapshot.isFresh(requestedAt)) {
+        requestsCounter.labels(format, CACHE_HIT).inc();
+        return snapshot;
+      }
+      snapshot = encode(contentType, format);
+      snapshots.put(contentType, snapshot);
+      requestsCounter.labels(format, CACHE_MISS).inc();
+      return snapshot;
+    }
+  }
+
+  private Snapshot encode(String contentType, String format) throws IOException {
+    SimpleTimer timer = new SimpleTimer();
+    long createdAt = System.nanoTime();
+    encodingBuffer.reset();
+    // a new writer for each payload, characters of a failed encoding must not leak into the next
+    Writer encodingWriter = new OutputStreamWriter(encodingBuffer, UTF_8);
+    TextFormat.writeFormat(contentType, encodingWriter, registry.metricFamilySamples());
+    encodingWriter.flush();
+    byte[] payload = encodingBuffer.toByteArray();
+    durationHistogram.labels(format).observe(timer.elapsedSeconds());
+    payloadGauge.labels(format, ENCODING_IDENTITY).set(payload.length);
+    return new Snapshot(createdAt, System.nanoTime(), payload);
+  }
+
+  private byte[] compress(byte[] payload) throws IOException {
+    synchronized (encodingLock) {
+      encodingBuffer.reset();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(encodingBuffer)) {
+        gzip.write(payload);
+      }
+      return encodingBuffer.toByteArray();
+    }
+  }
+
+  private void writeFiltered(HttpServletResponse resp, String contentType, String[] names)
+      throws IOException {
+    try (Writer writer = new OutputStreamWriter(resp.getOutputStream(), UTF_8)) {
+      TextFormat.writeFormat(
+          contentType,
+          writer,
+          registry.filteredMetricFamilySamples(new HashSet<>(Arrays.asList(names))));
+    }
+  }
+
+  /**
+   * @param req the scrape
+   * @return if the scraper accepts gzip explicitly or by wildcard with a quality above 0
+   */
+  static boolean acceptsGzip(HttpServletRequest req) {
+    String acceptEncoding = req.getHeader("Accept-Encoding");
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzipQuality = null;
+    Double wildcardQuality = null;
+    for (String codingWithParameters : acceptEncoding.split(",")) {
+      String[] parts = codingWithParameters.split(";");
+      String coding = parts[0].trim();
+      if (ENCODING_GZIP.equalsIgnoreCase(coding)) {
+        gzipQuality = quality(parts);
+      } else if ("*".equals(coding)) {
+        wildcardQuality = quality(parts);
+      }
+    }
+    if (gzipQuality != null) {
+      return gzipQuality > 0;
+    }
+    return wildcardQuality != null && wildcardQuality > 0;
+  }
+
+  private static double quality(String[] codingAndParameters) {
+    for (int i = 1; i < codingAndParameters.length; i++) {
+      String parameter = codingAndParameters[i].trim();
+      if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          // an invalid quality does not accept the coding
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /** An encoded payload of the metrics. */
+  private final class Snapshot {
+
+    private final long createdAt;
+
+    private final long completedAt;
+
+    private final byte[] payload;
+
+    private volatile byte[] gzipped;
+
+    private Snapshot(long createdAt, long completedAt, byte[] payload) {
+      this.createdAt = createdAt;
+      this.completedAt = completedAt;
+      this.payload = payload;
+    }
+
+    /**
+     * @param requestedAt the {@link System#nanoTime()} when the scrape arrived
+     * @return if the snapshot has been completed after the scrape arrived or is still cached
+     */
+    private boolean isFresh(long requestedAt) {
+      return completedAt - requestedAt >= 0 || requestedAt - createdAt < cacheDurationNanos;
+    }
+
+    private byte[] gzipped(String format) throws IOException {
+      byte[] result = gzipped;
+      if (result == null) {
+        synchronized (this) {
+          result = gzipped;
+          if (result == null) {
+            result = compress(payload);
+            gzipped = result;
+            payloadGauge.labels(format, ENCODING_GZIP).set(result.length);
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -16,6 +16,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
 
 /**
  * Serves all {@link HealthCheck}s in a Prometheus metric format.
@@ -59,7 +60,10 @@ public class HealthCheckAsPrometheusMetricServlet extends HttpServlet {
       }
     }
 
-    healthCheckMetricsCollector = new HealthCheckMetricsCollector(registry);
+    ServletContext context = config.getServletContext();
+    healthCheckMetricsCollector =
+        new HealthCheckMetricsCollector(
+            registry, () -> HealthCheckScheduler.fromServletContext(context));
   }
 
   @Override
@@ -1,5 +1,6 @@
 package org.sdase.commons.server.prometheus.health;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableList;
 
@@ -7,51 +8,84 @@ import com.codahale.metrics.health.HealthCheck;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import io.prometheus.client.Collector;
 import io.prometheus.client.Collector.MetricFamilySamples.Sample;
-import java.util.Collections;
 import java.util.List;
 import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
 
 /**
  * Provides all {@link HealthCheck}s as Prometheus metrics.
  *
- * <p>Currently all {@link HealthCheck.Result}s are collected synchronously and sequentially unless
- * a {@link HealthCheck} is annotated as {@link com.codahale.metrics.health.annotation.Async Async}
- * when the endpoint is called.
+ * <p>If the health checks are {@linkplain HealthCheckScheduler scheduled}, the latest {@link
+ * HealthCheck.Result}s are provided. Otherwise all {@link HealthCheck.Result}s are collected
+ * synchronously and sequentially unless a {@link HealthCheck} is annotated as {@link
+ * com.codahale.metrics.health.annotation.Async Async} when the endpoint is called.
  */
 public class HealthCheckMetricsCollector extends Collector {
   private static final String HEALTH_CHECK_STATUS_METRIC = "healthcheck_status";
+  private static final String HEALTH_CHECK_DURATION_METRIC = "healthcheck_duration_seconds";
   private static final List<String> HEALTH_CHECK_METRIC_LABELS =
       unmodifiableList(singletonList("name"));
 
   private final HealthCheckRegistry healthCheckRegistry;
 
+  private final Supplier<HealthCheckScheduler> healthCheckSchedulerSupplier;
+
   public HealthCheckMetricsCollector(HealthCheckRegistry healthCheckRegistry) {
+    this(healthCheckRegistry, () -> null);
+  }
+
+  /**
+   * @param healthCheckRegistry the registry of the health checks that are executed when the metrics
+   *     are collected
+   * @param healthCheckSchedulerSupplier provides the scheduler of the health checks when the
+   *     metrics are collected, provides {@code null} if the health checks are not scheduled
+   */
+  public HealthCheckMetricsCollector(
+      HealthCheckRegistry healthCheckRegistry,
+      Supplier<HealthCheckScheduler> healthCheckSchedulerSupplier) {
     this.healthCheckRegistry = healthCheckRegistry;
+    this.healthCheckSchedulerSupplier = healthCheckSchedulerSupplier;
   }
 
   public List<MetricFamilySamples> collect() {
-    MetricFamilySamples metricFamilySamples =
+    SortedMap<String, HealthCheck.Result> results = collectHealthCheckResults();
+    MetricFamilySamples statusSamples =
         new MetricFamilySamples(
             HEALTH_CHECK_STATUS_METRIC,
             Collector.Type.GAUGE,
             "Status of a Health Check (1: healthy, 0: unhealthy)",
-            collectHealthCheckSamples());
-    return Collections.singletonList(metricFamilySamples);
+            createSamples(HEALTH_CHECK_STATUS_METRIC, results, r -> r.isHealthy() ? 1.0 : 0.0));
+    MetricFamilySamples durationSamples =
+        new MetricFamilySamples(
+            HEALTH_CHECK_DURATION_METRIC,
+            Collector.Type.GAUGE,
+            "Duration of the latest execution of a Health Check in seconds",
+            createSamples(HEALTH_CHECK_DURATION_METRIC, results, r -> r.getDuration() / 1000.0));
+    return asList(statusSamples, durationSamples);
   }
 
-  private List<Sample> collectHealthCheckSamples() {
-    SortedMap<String, HealthCheck.Result> results = healthCheckRegistry.runHealthChecks();
+  private SortedMap<String, HealthCheck.Result> collectHealthCheckResults() {
+    HealthCheckScheduler healthCheckScheduler = healthCheckSchedulerSupplier.get();
+    if (healthCheckScheduler != null) {
+      return healthCheckScheduler.getResults();
+    }
+    return healthCheckRegistry.runHealthChecks();
+  }
 
+  private List<Sample> createSamples(
+      String metricName,
+      SortedMap<String, HealthCheck.Result> results,
+      Function<HealthCheck.Result, Double> value) {
     return results.entrySet().stream()
-        .map(e -> createSample(e.getKey(), e.getValue().isHealthy()))
+        .map(e -> createSample(metricName, e.getKey(), value.apply(e.getValue())))
         .collect(Collectors.toList());
   }
 
-  private Sample createSample(String healthCheckName, boolean healthy) {
+  private Sample createSample(String metricName, String healthCheckName, double gaugeValue) {
     List<String> labelValues = singletonList(healthCheckName);
-    double gaugeValue = healthy ? 1.0 : 0.0;
-    return new Sample(
-        HEALTH_CHECK_STATUS_METRIC, HEALTH_CHECK_METRIC_LABELS, labelValues, gaugeValue);
+    return new Sample(metricName, HEALTH_CHECK_METRIC_LABELS, labelValues, gaugeValue);
   }
 }
@@ -5,9 +5,15 @@ import io.prometheus.client.Histogram;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.uri.UriTemplate;
 import org.sdase.commons.shared.tracing.ConsumerTracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +37,8 @@ public class RequestDurationHistogramSpecification {
   /**
    * The labels added by {@code RequestDurationHistogram}. The labels and their order have to be
    * aligned with the values created in {@link #createLabelValuesForCurrentRequest(ResourceInfo,
-   * ContainerRequestContext, ContainerResponseContext)}
+   * ContainerRequestContext, ContainerResponseContext)} and {@link
+   * ResourceMethodLabels#child(String, String, String)}
    */
   private static final String[] LABELS = {
     // the name of the method that handled the request
@@ -47,20 +54,49 @@ public class RequestDurationHistogramSpecification {
     "consumer_name"
   };
 
+  /** The status codes as label values to avoid converting them for each request. */
+  private static final String[] STATUS_CODES = new String[600];
+
+  static {
+    for (int i = 0; i < STATUS_CODES.length; i++) {
+      STATUS_CODES[i] = String.valueOf(i);
+    }
+  }
+
   private Histogram requestDurationHistogram;
 
+  /**
+   * The labels of the resource methods that do not depend on the current request. The resource path
+   * is derived from the route template once and not from the path of each request.
+   */
+  private final ConcurrentMap<ResourceMethod, ResourceMethodLabels> resourceMethodLabels =
+      new ConcurrentHashMap<>();
+
   /**
    * Creates and registers a new {@link Histogram} matching the specification of this {@code
    * RequestDurationHistogramSpecification} instance. <strong>Note that there should be only one
    * registered instance of this type in the application.</strong>
    */
   public RequestDurationHistogramSpecification() {
-    this.requestDurationHistogram = createAndRegister();
+    this(new double[0]);
+  }
+
+  /**
+   * Creates and registers a new {@link Histogram} matching the specification of this {@code
+   * RequestDurationHistogramSpecification} instance with custom buckets. <strong>Note that there
+   * should be only one registered instance of this type in the application.</strong>
+   *
+   * @param buckets the upper bounds of the buckets in seconds, the default buckets of Prometheus
+   *     are used if empty
+   */
+  public RequestDurationHistogramSpecification(double... buckets) {
+    this.requestDurationHistogram = createAndRegister(buckets);
   }
 
   /** Unregisters the histogram. Should be called when the context is closed. */
   public void unregister() {
     CollectorRegistry.defaultRegistry.unregister(requestDurationHistogram);
+    resourceMethodLabels.clear();
   }
 
   /**
@@ -78,11 +114,55 @@ public class RequestDurationHistogramSpecification {
       ResourceInfo resourceInfo,
       ContainerRequestContext requestContext,
       ContainerResponseContext responseContext) {
+    ResourceMethodLabels labels = getResourceMethodLabels(resourceInfo, requestContext);
+    if (labels != null) {
+      labels
+          .child(
+              getHttpMethod(requestContext),
+              getStatusCode(responseContext),
+              getConsumerName(requestContext))
+          .observe(requestDurationSeconds);
+      return;
+    }
     String[] labelValues =
         createLabelValuesForCurrentRequest(resourceInfo, requestContext, responseContext);
     requestDurationHistogram.labels(labelValues).observe(requestDurationSeconds);
   }
 
+  /**
+   * Resolves the labels of the matched resource method. Resource methods of sub-resources may be
+   * matched with different route templates and are not cached.
+   *
+   * @param resourceInfo the {@link ResourceInfo} of the current request
+   * @param requestContext the context of the current request
+   * @return the cached labels of the matched resource method or {@code null} if the labels must be
+   *     derived from the current request
+   */
+  private ResourceMethodLabels getResourceMethodLabels(
+      ResourceInfo resourceInfo, ContainerRequestContext requestContext) {
+    UriInfo uriInfo = requestContext.getUriInfo();
+    if (!(uriInfo instanceof ExtendedUriInfo)) {
+      return null;
+    }
+    ExtendedUriInfo extendedUriInfo = (ExtendedUriInfo) uriInfo;
+    ResourceMethod resourceMethod = extendedUriInfo.getMatchedResourceMethod();
+    if (resourceMethod == null || !extendedUriInfo.getMatchedResourceLocators().isEmpty()) {
+      return null;
+    }
+    ResourceMethodLabels labels = resourceMethodLabels.get(resourceMethod);
+    if (labels == null) {
+      labels =
+          resourceMethodLabels.computeIfAbsent(
+              resourceMethod,
+              m ->
+                  new ResourceMethodLabels(
+                      requestDurationHistogram,
+                      getImplementingMethod(resourceInfo),
+                      getResourcePath(requestContext)));
+    }
+    return labels;
+  }
+
   /**
    * Creates all values for the labels required by the histogram in appropriate order.
    *
@@ -108,11 +188,15 @@ public class RequestDurationHistogramSpecification {
   /**
    * Builds the {@link Histogram} to measure request duration and registers it.
    *
+   * @param buckets the upper bounds of the buckets, the default buckets are used if empty
    * @return the registered {@link Histogram}
    */
-  private Histogram createAndRegister() {
+  private Histogram createAndRegister(double[] buckets) {
     Histogram.Builder requestDurationHistogramBuilder =
         Histogram.build().name(HISTOGRAM_NAME).labelNames(LABELS).help(DESCRIPTION);
+    if (buckets.length > 0) {
+      requestDurationHistogramBuilder.buckets(buckets);
+    }
     Histogram histogram = requestDurationHistogramBuilder.create();
     LOG.debug("Created Histogram {}", HISTOGRAM_NAME);
     CollectorRegistry.defaultRegistry.register(histogram);
@@ -129,12 +213,21 @@ public class RequestDurationHistogramSpecification {
   }
 
   private String getResourcePath(ContainerRequestContext requestContext) {
-    String path = path(requestContext.getUriInfo().getRequestUri());
-    return restorePathParamPlaceholders(path, requestContext.getUriInfo().getPathParameters());
+    UriInfo uriInfo = requestContext.getUriInfo();
+    if (uriInfo instanceof ExtendedUriInfo) {
+      return routeTemplate(
+          path(uriInfo.getBaseUri()), ((ExtendedUriInfo) uriInfo).getMatchedTemplates());
+    }
+    String path = path(uriInfo.getRequestUri());
+    return restorePathParamPlaceholders(path, uriInfo.getPathParameters());
   }
 
   private String getStatusCode(ContainerResponseContext responseContext) {
-    return String.valueOf(responseContext.getStatus());
+    int status = responseContext.getStatus();
+    if (status >= 0 && status < STATUS_CODES.length) {
+      return STATUS_CODES[status];
+    }
+    return String.valueOf(status);
   }
 
   private String getConsumerName(ContainerRequestContext requestContext) {
@@ -156,6 +249,82 @@ public class RequestDurationHistogramSpecification {
     return path;
   }
 
+  /**
+   * Joins the matched route templates to the resource path with path parameter names. Regular
+   * expressions of path parameters are omitted, e.g. {@code /cars/{id: [0-9]+}} becomes {@code
+   * cars/{id}}.
+   *
+   * @param basePath the path of the application without leading '/', may be {@code null}
+   * @param matchedTemplates the matched templates as provided by {@link
+   *     ExtendedUriInfo#getMatchedTemplates()}, starting with the template of the resource method
+   * @return the resource path without leading and trailing '/'
+   */
+  static String routeTemplate(String basePath, List<UriTemplate> matchedTemplates) {
+    StringBuilder path = new StringBuilder();
+    if (basePath != null) {
+      appendPath(path, basePath);
+    }
+    for (int i = matchedTemplates.size() - 1; i >= 0; i--) {
+      appendPath(path, matchedTemplates.get(i).getTemplate());
+    }
+    if (path.length() > 0 && path.charAt(path.length() - 1) == '/') {
+      path.setLength(path.length() - 1);
+    }
+    return path.toString();
+  }
+
+  /**
+   * Appends the given template to the path with a trailing '/'. Duplicate '/' are skipped and
+   * regular expressions of path parameters are omitted.
+   */
+  private static void appendPath(StringBuilder path, String template) {
+    int i = 0;
+    while (i < template.length()) {
+      char c = template.charAt(i);
+      if (c == '{') {
+        i = appendPathParam(path, template, i);
+        continue;
+      }
+      if (c != '/' || (path.length() > 0 && path.charAt(path.length() - 1) != '/')) {
+        path.append(c);
+      }
+      i++;
+    }
+    if (path.length() > 0 && path.charAt(path.length() - 1) != '/') {
+      path.append('/');
+    }
+  }
+
+  /**
+   * Appends the name of the path parameter that starts at the given index in braces.
+   *
+   * @return the index after the closing brace of the path parameter
+   */
+  private static int appendPathParam(StringBuilder path, String template, int start) {
+    path.append('{');
+    boolean inName = true;
+    int depth = 1;
+    int i = start + 1;
+    while (i < template.length() && depth > 0) {
+      char c = template.charAt(i++);
+      if (c == '{') {
+        depth++;
+      } else if (c == '}') {
+        depth--;
+      } else if (c == ':') {
+        inName = false;
+      } else if (inName && !Character.isWhitespace(c)) {
+        path.append(c);
+      }
+    }
+    path.append('}');
+    return i;
+  }
+
+  /**
+   * Replaces the values of path parameters in the request path. Only used if the matched route
+   * templates are not available.
+   */
   private static String restorePathParamPlaceholders(
       String requestPath, Map<String, List<String>> pathParameters) {
     if (requestPath == null) {
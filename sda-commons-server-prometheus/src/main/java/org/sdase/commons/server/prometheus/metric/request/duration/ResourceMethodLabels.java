@@ -0,0 +1,61 @@
+package org.sdase.commons.server.prometheus.metric.request.duration;
+
+import io.prometheus.client.Histogram;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The labels of the request duration histogram that are fixed for a resource method and the
+ * children of the histogram that have been observed for the resource method. The children are
+ * resolved by the labels that depend on the request without creating a new label array for each
+ * request.
+ */
+class ResourceMethodLabels {
+
+  private final Histogram histogram;
+
+  private final String implementingMethod;
+
+  private final String resourcePath;
+
+  /** The children by http method, status code and consumer name. */
+  private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, Histogram.Child>>>
+      children = new ConcurrentHashMap<>();
+
+  ResourceMethodLabels(Histogram histogram, String implementingMethod, String resourcePath) {
+    this.histogram = histogram;
+    this.implementingMethod = implementingMethod;
+    this.resourcePath = resourcePath;
+  }
+
+  /**
+   * @param httpMethod the http method of the request
+   * @param statusCode the status code of the response
+   * @param consumerName the name of the consumer, empty if unknown
+   * @return the child of the histogram for the given labels of the resource method
+   */
+  Histogram.Child child(String httpMethod, String statusCode, String consumerName) {
+    ConcurrentMap<String, Histogram.Child> consumers =
+        getOrCreate(getOrCreate(children, httpMethod), statusCode);
+    Histogram.Child child = consumers.get(consumerName);
+    if (child == null) {
+      // the number of values and their order has to be aligned with the labels of the histogram
+      child =
+          consumers.computeIfAbsent(
+              consumerName,
+              c ->
+                  histogram.labels(
+                      implementingMethod, httpMethod, resourcePath, statusCode, consumerName));
+    }
+    return child;
+  }
+
+  private static <V> ConcurrentMap<String, V> getOrCreate(
+      ConcurrentMap<String, ConcurrentMap<String, V>> map, String key) {
+    ConcurrentMap<String, V> value = map.get(key);
+    if (value == null) {
+      value = map.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+    return value;
+  }
+}
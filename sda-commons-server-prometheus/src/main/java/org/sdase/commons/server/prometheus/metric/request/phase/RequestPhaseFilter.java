@@ -0,0 +1,79 @@
+package org.sdase.commons.server.prometheus.metric.request.phase;
+
+import java.util.Locale;
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
+
+/**
+ * Enables recording of {@link RequestPhases} for each request and observes the recorded phases when
+ * the response is filtered. Optionally, the phases are added as {@code Server-Timing} header to the
+ * response.
+ *
+ * <p>The serialization of the response entity happens after the response has been filtered. It is
+ * observed by the {@link SerializationPhaseInterceptor} and is not part of the {@code
+ * Server-Timing} header.
+ */
+@PreMatching
+@Priority(1) // first request filter to enable recording for all others, last response filter to
+// collect the phases of all other response filters
+public class RequestPhaseFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+  static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  private final RequestPhaseHistogramSpecification requestPhaseHistogramSpecification;
+
+  private final boolean serverTimingHeader;
+
+  /**
+   * @param requestPhaseHistogramSpecification the histogram to observe the phases
+   * @param serverTimingHeader if the phases should be added as {@code Server-Timing} header
+   */
+  public RequestPhaseFilter(
+      RequestPhaseHistogramSpecification requestPhaseHistogramSpecification,
+      boolean serverTimingHeader) {
+    this.requestPhaseHistogramSpecification = requestPhaseHistogramSpecification;
+    this.serverTimingHeader = serverTimingHeader;
+  }
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    RequestPhases.start(requestContext);
+  }
+
+  @Override
+  public void filter(
+      ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    RequestPhases requestPhases = RequestPhases.fromRequest(requestContext);
+    if (requestPhases == null) {
+      return;
+    }
+    StringBuilder serverTiming = serverTimingHeader ? new StringBuilder() : null;
+    requestPhases.forEach(
+        (phase, durationNanos) -> {
+          requestPhaseHistogramSpecification.observe(phase, durationNanos);
+          if (serverTiming != null) {
+            appendServerTiming(serverTiming, phase, durationNanos);
+          }
+        });
+    if (serverTiming != null && serverTiming.length() > 0) {
+      responseContext.getHeaders().add(SERVER_TIMING_HEADER, serverTiming.toString());
+    }
+  }
+
+  private static void appendServerTiming(
+      StringBuilder serverTiming, String phase, long durationNanos) {
+    if (serverTiming.length() > 0) {
+      serverTiming.append(", ");
+    }
+    // the duration of Server-Timing is defined in milliseconds
+    serverTiming
+        .append(phase)
+        .append(";dur=")
+        .append(String.format(Locale.ROOT, "%.3f", durationNanos / 1_000_000.0));
+  }
+}
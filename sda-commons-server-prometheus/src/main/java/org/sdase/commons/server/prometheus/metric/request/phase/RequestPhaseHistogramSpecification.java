@@ -0,0 +1,65 @@
+package org.sdase.commons.server.prometheus.metric.request.phase;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Histogram;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The central definition of the histogram of the time spent in the phases of handling a request,
+ * e.g. in the filters provided by SDA commons, the resource method and the serialization of the
+ * response entity. The phases are recorded in {@link
+ * org.sdase.commons.server.dropwizard.timing.RequestPhases}.
+ */
+public class RequestPhaseHistogramSpecification {
+
+  /** The histogram name as it is published to Prometheus. */
+  private static final String HISTOGRAM_NAME = "http_request_phase_duration_seconds";
+
+  /** The help message description that describes the Histogram. */
+  private static final String DESCRIPTION =
+      "Duration of the phases of handling HTTP requests in seconds.";
+
+  /** The labels added by {@code RequestPhaseHistogramSpecification}. */
+  private static final String[] LABELS = {
+    // the name of the phase, e.g. jwt or resource
+    "phase"
+  };
+
+  /** Most filters need less than a millisecond, so the buckets start in the microsecond range. */
+  private static final double[] BUCKETS = {
+    0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5
+  };
+
+  private final Histogram requestPhaseHistogram;
+
+  /** The children of the histogram by phase, the phases are a small set of constants. */
+  private final ConcurrentMap<String, Histogram.Child> children = new ConcurrentHashMap<>();
+
+  /**
+   * Creates and registers a new {@link Histogram} matching the specification of this {@code
+   * RequestPhaseHistogramSpecification} instance. <strong>Note that there should be only one
+   * registered instance of this type in the application.</strong>
+   */
+  public RequestPhaseHistogramSpecification() {
+    this.requestPhaseHistogram =
+        Histogram.build(HISTOGRAM_NAME, DESCRIPTION).labelNames(LABELS).buckets(BUCKETS).register();
+  }
+
+  /** Unregisters the histogram. Should be called when the context is closed. */
+  public void unregister() {
+    CollectorRegistry.defaultRegistry.unregister(requestPhaseHistogram);
+    children.clear();
+  }
+
+  /**
+   * @param phase the name of the phase
+   * @param durationNanos the time spent in the phase in nanoseconds
+   */
+  void observe(String phase, long durationNanos) {
+    children
+        .computeIfAbsent(phase, requestPhaseHistogram::labels)
+        .observe(durationNanos / Collector.NANOSECONDS_PER_SECOND);
+  }
+}
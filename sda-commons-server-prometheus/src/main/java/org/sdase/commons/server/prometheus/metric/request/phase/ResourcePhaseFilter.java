@@ -0,0 +1,35 @@
+package org.sdase.commons.server.prometheus.metric.request.phase;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
+
+/**
+ * Records the {@link RequestPhases#RESOURCE} phase from the last request filter until the first
+ * response filter. Requests that are aborted by a request filter do not record this phase.
+ */
+@Priority(Integer.MAX_VALUE) // last request filter and first response filter
+public class ResourcePhaseFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+  private static final String START_REQUEST_PROPERTY =
+      ResourcePhaseFilter.class.getName() + ".start";
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    if (RequestPhases.fromRequest(requestContext) != null) {
+      requestContext.setProperty(START_REQUEST_PROPERTY, System.nanoTime());
+    }
+  }
+
+  @Override
+  public void filter(
+      ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    Object start = requestContext.getProperty(START_REQUEST_PROPERTY);
+    if (start instanceof Long) {
+      RequestPhases.record(requestContext, RequestPhases.RESOURCE, (Long) start);
+    }
+  }
+}
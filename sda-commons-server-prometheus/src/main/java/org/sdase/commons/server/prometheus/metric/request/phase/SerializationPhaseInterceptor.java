@@ -0,0 +1,38 @@
+package org.sdase.commons.server.prometheus.metric.request.phase;
+
+import java.io.IOException;
+import javax.annotation.Priority;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
+
+/**
+ * Observes the {@link RequestPhases#SERIALIZATION} phase of writing the response entity including
+ * the filtering of fields. The serialization happens after the response headers are filtered, so
+ * the phase is observed directly.
+ */
+@Priority(1) // outermost interceptor to include all others
+public class SerializationPhaseInterceptor implements WriterInterceptor {
+
+  private final RequestPhaseHistogramSpecification requestPhaseHistogramSpecification;
+
+  public SerializationPhaseInterceptor(
+      RequestPhaseHistogramSpecification requestPhaseHistogramSpecification) {
+    this.requestPhaseHistogramSpecification = requestPhaseHistogramSpecification;
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    if (context.getProperty(RequestPhases.REQUEST_PROPERTY) == null) {
+      context.proceed();
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      context.proceed();
+    } finally {
+      requestPhaseHistogramSpecification.observe(
+          RequestPhases.SERIALIZATION, System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package org.sdase.commons.server.prometheus;
+
+import static io.dropwizard.testing.ConfigOverride.randomPorts;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+import io.prometheus.client.exemplars.DefaultExemplarSampler;
+import io.prometheus.client.exporter.common.TextFormat;
+import java.util.EnumSet;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.sdase.commons.server.prometheus.exemplars.OpenTracingSpanContextSupplier;
+
+public class PrometheusBundleExemplarsTest {
+
+  private static final MockTracer TRACER = new MockTracer();
+
+  @ClassRule
+  public static final DropwizardAppRule<Configuration> DW =
+      new DropwizardAppRule<>(ExemplarsTestApplication.class, null, randomPorts());
+
+  @Test
+  public void shouldUseConfiguredBuckets() {
+    ping();
+
+    String metrics = readMetrics(TextFormat.CONTENT_TYPE_004);
+
+    assertThat(metrics)
+        .contains("http_request_duration_seconds_bucket{")
+        .contains("le=\"0.02\",")
+        .contains("le=\"0.08\",")
+        .doesNotContain("le=\"0.025\",");
+  }
+
+  @Test
+  public void shouldProvideTraceIdAsExemplarInOpenMetricsFormat() {
+    ping();
+
+    String metrics = readMetrics(TextFormat.CONTENT_TYPE_OPENMETRICS_100);
+
+    assertThat(metrics)
+        .contains("http_request_duration_seconds_bucket{")
+        .containsPattern("# \\{span_id=\"\\d+\",trace_id=\"\\d+\"}")
+        .endsWith("# EOF\n");
+  }
+
+  @Test
+  public void shouldNotProvideExemplarsInTextFormat() {
+    ping();
+
+    String metrics = readMetrics(TextFormat.CONTENT_TYPE_004);
+
+    assertThat(metrics).doesNotContain("trace_id");
+  }
+
+  private void ping() {
+    try (Response response =
+        DW.client()
+            .target(String.format("http://localhost:%d/ping", DW.getLocalPort()))
+            .request()
+            .get()) {
+      assertThat(response.getStatus()).isEqualTo(200);
+    }
+  }
+
+  private String readMetrics(String accept) {
+    return DW.client()
+        .target(String.format("http://localhost:%d/metrics/prometheus", DW.getAdminPort()))
+        .request()
+        .header("Accept", accept)
+        .get(String.class);
+  }
+
+  @Path("/")
+  public static class ExemplarsTestApplication extends Application<Configuration> {
+
+    @Override
+    public void initialize(Bootstrap<Configuration> bootstrap) {
+      bootstrap.addBundle(
+          PrometheusBundle.builder()
+              .withRequestDurationBuckets(0.005, 0.02, 0.08, 0.32)
+              .withExemplars(new DefaultExemplarSampler(new OpenTracingSpanContextSupplier(TRACER)))
+              .build());
+    }
+
+    @Override
+    public void run(Configuration configuration, Environment environment) {
+      environment.jersey().register(this);
+      // activates a span for each request like the TracingFilter of the OpenTracingBundle
+      Filter tracingFilter =
+          (request, response, chain) -> {
+            Span span = TRACER.buildSpan("request").start();
+            try (Scope ignored = TRACER.activateSpan(span)) {
+              chain.doFilter(request, response);
+            } finally {
+              span.finish();
+            }
+          };
+      environment
+          .servlets()
+          .addFilter("tracing", tracingFilter)
+          .addMappingForUrlPatterns(EnumSet.allOf(DispatcherType.class), true, "/*");
+    }
+
+    @GET
+    @Path("/ping")
+    public String ping() {
+      return "pong";
+    }
+  }
+}
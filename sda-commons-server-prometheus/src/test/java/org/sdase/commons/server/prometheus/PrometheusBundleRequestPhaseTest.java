@@ -0,0 +1,110 @@
+package org.sdase.commons.server.prometheus;
+
+import static io.dropwizard.testing.ConfigOverride.randomPorts;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Priority;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
+
+public class PrometheusBundleRequestPhaseTest {
+
+  @ClassRule
+  public static final DropwizardAppRule<Configuration> DW =
+      new DropwizardAppRule<>(RequestPhaseTestApplication.class, null, randomPorts());
+
+  @Test
+  public void shouldAddServerTimingHeader() {
+    try (Response response = get("/ping")) {
+      assertThat(response.getStatus()).isEqualTo(200);
+      assertThat(response.getHeaderString("Server-Timing"))
+          .matches("jwt;dur=\\d+\\.\\d{3}, resource;dur=\\d+\\.\\d{3}");
+    }
+  }
+
+  @Test
+  public void shouldNotRecordResourcePhaseOfAbortedRequest() {
+    try (Response response = get("/ping?reject=true")) {
+      assertThat(response.getStatus()).isEqualTo(401);
+      assertThat(response.getHeaderString("Server-Timing")).matches("jwt;dur=\\d+\\.\\d{3}");
+    }
+  }
+
+  @Test
+  public void shouldObservePhasesAsMetrics() {
+    get("/ping").close();
+
+    String metrics =
+        DW.client()
+            .target(String.format("http://localhost:%d/metrics/prometheus", DW.getAdminPort()))
+            .request()
+            .get(String.class);
+
+    assertThat(metrics)
+        .contains("http_request_phase_duration_seconds_count{phase=\"jwt\",}")
+        .contains("http_request_phase_duration_seconds_count{phase=\"resource\",}")
+        .contains("http_request_phase_duration_seconds_count{phase=\"serialization\",}");
+  }
+
+  private Response get(String path) {
+    return DW.client()
+        .target(String.format("http://localhost:%d%s", DW.getLocalPort(), path))
+        .request()
+        .get();
+  }
+
+  @Path("/")
+  public static class RequestPhaseTestApplication extends Application<Configuration> {
+
+    @Override
+    public void initialize(Bootstrap<Configuration> bootstrap) {
+      bootstrap.addBundle(PrometheusBundle.builder().withServerTimingHeader().build());
+    }
+
+    @Override
+    public void run(Configuration configuration, Environment environment) {
+      environment.jersey().register(this);
+      environment.jersey().register(FakeAuthFilter.class);
+    }
+
+    @GET
+    @Path("/ping")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, String> ping() {
+      return Collections.singletonMap("ping", "pong");
+    }
+  }
+
+  /** Records a phase like the JwtAuthFilter. */
+  @Priority(Priorities.AUTHENTICATION)
+  public static class FakeAuthFilter implements ContainerRequestFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+      long start = System.nanoTime();
+      try {
+        if (requestContext.getUriInfo().getQueryParameters().containsKey("reject")) {
+          requestContext.abortWith(Response.status(401).build());
+        }
+      } finally {
+        RequestPhases.record(requestContext, RequestPhases.JWT, start);
+      }
+    }
+  }
+}
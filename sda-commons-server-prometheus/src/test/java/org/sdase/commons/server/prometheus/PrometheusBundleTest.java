@@ -126,6 +126,26 @@ public class PrometheusBundleTest {
     assertThat(metrics).contains("resource_path=\"path/{param}\"");
   }
 
+  @Test
+  public void shouldTrackResourcePathWithPathParamMatchingLiteralSegment() {
+    DW.client().target(resourceUri).path("path").path("path").request().get(String.class);
+
+    String metrics = readMetrics();
+
+    assertThat(metrics)
+        .contains("resource_path=\"path/{param}\"")
+        .doesNotContain("resource_path=\"{param}/{param}\"");
+  }
+
+  @Test
+  public void shouldTrackResourcePathWithoutRegexOfPathParam() {
+    DW.client().target(resourceUri).path("cars").path("42").request().get(String.class);
+
+    String metrics = readMetrics();
+
+    assertThat(metrics).contains("resource_path=\"cars/{id}\"");
+  }
+
   @Test
   public void shouldTrackStatusCode() {
     prepareResourceRequest().get(String.class);
@@ -0,0 +1,47 @@
+package org.sdase.commons.server.prometheus.exemplars;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.noop.NoopTracerFactory;
+import org.junit.Test;
+
+public class OpenTracingSpanContextSupplierTest {
+
+  private final MockTracer tracer = new MockTracer();
+
+  private final OpenTracingSpanContextSupplier supplier =
+      new OpenTracingSpanContextSupplier(tracer);
+
+  @Test
+  public void shouldProvideIdsOfActiveSpan() {
+    Span span = tracer.buildSpan("request").start();
+    try (Scope ignored = tracer.activateSpan(span)) {
+      assertThat(supplier.isSampled()).isTrue();
+      assertThat(supplier.getTraceId()).isEqualTo(span.context().toTraceId());
+      assertThat(supplier.getSpanId()).isEqualTo(span.context().toSpanId());
+    } finally {
+      span.finish();
+    }
+  }
+
+  @Test
+  public void shouldProvideNoIdsWithoutActiveSpan() {
+    assertThat(supplier.isSampled()).isFalse();
+    assertThat(supplier.getTraceId()).isNull();
+    assertThat(supplier.getSpanId()).isNull();
+  }
+
+  @Test
+  public void shouldProvideNoIdsOfNoopSpan() {
+    io.opentracing.Tracer noopTracer = NoopTracerFactory.create();
+    OpenTracingSpanContextSupplier noopSupplier = new OpenTracingSpanContextSupplier(noopTracer);
+    Span span = noopTracer.buildSpan("request").start();
+    try (Scope ignored = noopTracer.activateSpan(span)) {
+      assertThat(noopSupplier.getTraceId()).isNull();
+      assertThat(noopSupplier.getSpanId()).isNull();
+    }
+  }
+}
@@ -0,0 +1,336 @@
+package org.sdase.commons.server.prometheus.exposition;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.exporter.common.TextFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class CachedMetricsServletTest {
+
+  private CollectorRegistry registry;
+
+  private Counter counter;
+
+  private CachedMetricsServlet servlet;
+
+  @Before
+  public void setUp() {
+    registry = new CollectorRegistry();
+    counter = Counter.build().name("test_events_total").help("Test events.").register(registry);
+  }
+
+  @After
+  public void tearDown() {
+    if (servlet != null) {
+      servlet.destroy();
+    }
+  }
+
+  @Test
+  public void shouldServeMetricsOfRegistry() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ZERO);
+    counter.inc();
+
+    Scrape scrape = scrape(request(null, null));
+
+    assertThat(scrape.contentType).isEqualTo(TextFormat.CONTENT_TYPE_004);
+    assertThat(scrape.body()).contains("test_events_total 1.0");
+  }
+
+  @Test
+  public void shouldCollectForEachSequentialScrapeByDefault() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ZERO);
+
+    assertThat(scrape(request(null, null)).body()).contains("test_events_total 0.0");
+    counter.inc();
+    assertThat(scrape(request(null, null)).body()).contains("test_events_total 1.0");
+    assertThat(requests("text", "miss")).isEqualTo(2.0);
+  }
+
+  @Test
+  public void shouldServeCachedSnapshotWithinCacheDuration() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ofMinutes(1));
+
+    assertThat(scrape(request(null, null)).body()).contains("test_events_total 0.0");
+    counter.inc();
+    assertThat(scrape(request(null, null)).body()).contains("test_events_total 0.0");
+
+    assertThat(requests("text", "hit")).isEqualTo(1.0);
+  }
+
+  @Test
+  public void shouldCacheFormatsSeparately() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ofMinutes(1));
+
+    Scrape text = scrape(request(null, null));
+    Scrape openMetrics = scrape(request(TextFormat.CONTENT_TYPE_OPENMETRICS_100, null));
+
+    assertThat(text.contentType).isEqualTo(TextFormat.CONTENT_TYPE_004);
+    assertThat(text.body()).doesNotContain("# EOF");
+    assertThat(openMetrics.contentType).isEqualTo(TextFormat.CONTENT_TYPE_OPENMETRICS_100);
+    assertThat(openMetrics.body()).contains("test_events_total 0.0").endsWith("# EOF\n");
+  }
+
+  @Test
+  public void shouldCompressPayloadIfAccepted() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ofMinutes(1));
+
+    Scrape plain = scrape(request(null, null));
+    Scrape gzipped = scrape(request(null, "gzip, deflate"));
+
+    verify(gzipped.response).setHeader("Content-Encoding", "gzip");
+    verify(plain.response, never()).setHeader("Content-Encoding", "gzip");
+    verify(gzipped.response).setHeader("Vary", "Accept-Encoding");
+    verify(plain.response).setHeader("Vary", "Accept-Encoding");
+    assertThat(gunzip(gzipped.payload.toByteArray())).isEqualTo(plain.body());
+    assertThat(
+            registry.getSampleValue(
+                CachedMetricsServlet.PAYLOAD_METRIC_NAME,
+                new String[] {"format", "encoding"},
+                new String[] {"text", "identity"}))
+        .isEqualTo(plain.payload.size());
+    assertThat(
+            registry.getSampleValue(
+                CachedMetricsServlet.PAYLOAD_METRIC_NAME,
+                new String[] {"format", "encoding"},
+                new String[] {"text", "gzip"}))
+        .isEqualTo(gzipped.payload.size());
+  }
+
+  @Test
+  public void shouldRespectQualityOfAcceptedEncodings() {
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "gzip"))).isTrue();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "deflate, GZIP;q=0.5"))).isTrue();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "*"))).isTrue();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "gzip;q=0"))).isFalse();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "gzip; q=0.0, *"))).isFalse();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "*;q=0"))).isFalse();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "x-gzip2, deflate"))).isFalse();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, "identity"))).isFalse();
+    assertThat(CachedMetricsServlet.acceptsGzip(request(null, null))).isFalse();
+  }
+
+  @Test
+  public void shouldServeSelectedMetricsWithoutCache() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ofMinutes(1));
+    scrape(request(null, null));
+    counter.inc();
+
+    HttpServletRequest request = request(null, null);
+    when(request.getParameterValues("name[]")).thenReturn(new String[] {"test_events_total"});
+    Scrape scrape = scrape(request);
+
+    assertThat(scrape.body())
+        .contains("test_events_total 1.0")
+        .doesNotContain(CachedMetricsServlet.DURATION_METRIC_NAME);
+  }
+
+  @Test
+  public void shouldObserveEncodingDuration() throws IOException {
+    servlet = new CachedMetricsServlet(registry, Duration.ZERO);
+
+    scrape(request(null, null));
+
+    assertThat(
+            registry.getSampleValue(
+                CachedMetricsServlet.DURATION_METRIC_NAME + "_count",
+                new String[] {"format"},
+                new String[] {"text"}))
+        .isEqualTo(1.0);
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldShareSnapshotWithConcurrentScrapes() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingCollector collector = new BlockingCollector(release).register(registry);
+    servlet = new CachedMetricsServlet(registry, Duration.ZERO);
+
+    CompletableFuture<Scrape> first = CompletableFuture.supplyAsync(this::scrapeUnchecked);
+    await().until(() -> collector.collections.get() == 1);
+    Thread secondThread = new Thread(() -> scrapeUnchecked());
+    secondThread.start();
+    await().until(() -> secondThread.getState() == Thread.State.BLOCKED);
+    release.countDown();
+    secondThread.join();
+
+    assertThat(first.get().body()).contains("test_events_total 0.0");
+    assertThat(collector.collections).hasValue(1);
+  }
+
+  @Test
+  public void shouldServeWellFormedPayloadAfterCollectorFailed() throws IOException {
+    new FailingOnceCollector().register(registry);
+    servlet = new CachedMetricsServlet(registry, Duration.ZERO);
+
+    assertThatThrownBy(() -> scrape(request(null, null))).isInstanceOf(IllegalStateException.class);
+    String body = scrape(request(null, null)).body();
+
+    assertThat(body).doesNotContain("partial_metric").contains("test_events_total 0.0");
+    assertThat(body.split("# TYPE test_events_total ", -1)).hasSize(2);
+  }
+
+  private Scrape scrapeUnchecked() {
+    try {
+      return scrape(request(null, null));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Scrape scrape(HttpServletRequest request) throws IOException {
+    Scrape scrape = new Scrape();
+    when(scrape.response.getOutputStream()).thenReturn(scrape.outputStream());
+    servlet.doGet(request, scrape.response);
+    ArgumentCaptor<String> contentType = ArgumentCaptor.forClass(String.class);
+    verify(scrape.response).setContentType(contentType.capture());
+    scrape.contentType = contentType.getValue();
+    return scrape;
+  }
+
+  private static HttpServletRequest request(String accept, String acceptEncoding) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("Accept")).thenReturn(accept);
+    when(request.getHeader("Accept-Encoding")).thenReturn(acceptEncoding);
+    return request;
+  }
+
+  private Double requests(String format, String cache) {
+    return registry.getSampleValue(
+        CachedMetricsServlet.REQUESTS_METRIC_NAME,
+        new String[] {"format", "cache"},
+        new String[] {format, cache});
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), UTF_8);
+    }
+  }
+
+  private static class Scrape {
+
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+    private String contentType;
+
+    private String body() {
+      return new String(payload.toByteArray(), UTF_8);
+    }
+
+    private ServletOutputStream outputStream() {
+      return new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          // not needed for blocking writes
+        }
+
+        @Override
+        public void write(int b) {
+          payload.write(b);
+        }
+      };
+    }
+  }
+
+  /**
+   * Fails the first collection after a family has been written. The registry fetches the next
+   * family before the current one is returned.
+   */
+  private static class FailingOnceCollector extends Collector {
+
+    private final AtomicInteger collections = new AtomicInteger();
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      if (collections.getAndIncrement() > 0) {
+        return Collections.emptyList();
+      }
+      MetricFamilySamples partial =
+          new MetricFamilySamples(
+              "partial_metric",
+              Type.GAUGE,
+              "Written before the failure.",
+              Collections.singletonList(
+                  new MetricFamilySamples.Sample(
+                      "partial_metric", Collections.emptyList(), Collections.emptyList(), 1.0)));
+      return new AbstractList<MetricFamilySamples>() {
+        @Override
+        public MetricFamilySamples get(int index) {
+          if (index > 1) {
+            throw new IllegalStateException("collector failed");
+          }
+          return partial;
+        }
+
+        @Override
+        public int size() {
+          return 3;
+        }
+      };
+    }
+  }
+
+  private static class BlockingCollector extends Collector {
+
+    private final CountDownLatch release;
+
+    private final AtomicInteger collections = new AtomicInteger();
+
+    private BlockingCollector(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      collections.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Collections.emptyList();
+    }
+  }
+}
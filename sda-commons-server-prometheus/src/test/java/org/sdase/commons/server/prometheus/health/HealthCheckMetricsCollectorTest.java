@@ -3,6 +3,8 @@ package org.sdase.commons.server.prometheus.health;
 import static io.prometheus.client.Collector.Type.GAUGE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.codahale.metrics.health.HealthCheck.Result;
@@ -12,6 +14,7 @@ import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import org.junit.Test;
+import org.sdase.commons.server.healthcheck.scheduler.HealthCheckScheduler;
 
 public class HealthCheckMetricsCollectorTest {
 
@@ -27,7 +30,7 @@ public class HealthCheckMetricsCollectorTest {
 
     List<MetricFamilySamples> metrics = collector.collect();
 
-    assertThat(metrics).hasSize(1);
+    assertThat(metrics).hasSize(2);
     MetricFamilySamples gauge = metrics.get(0);
     assertThat(gauge.name).isEqualTo("healthcheck_status");
     assertThat(gauge.help).isNotBlank();
@@ -46,4 +49,54 @@ public class HealthCheckMetricsCollectorTest {
     assertThat(sampleUnhealthy.labelValues).containsExactly("unhealthy_check");
     assertThat(sampleUnhealthy.value).isEqualTo(0.0);
   }
+
+  @Test
+  public void shouldExposeDurationOfHealthChecks() {
+    HealthCheckRegistry registry = mock(HealthCheckRegistry.class);
+    HealthCheckMetricsCollector collector = new HealthCheckMetricsCollector(registry);
+
+    Result result = Result.healthy();
+    result.setDuration(1500);
+    SortedMap<String, Result> results = new TreeMap<>();
+    results.put("slow_check", result);
+    when(registry.runHealthChecks()).thenReturn(results);
+
+    List<MetricFamilySamples> metrics = collector.collect();
+
+    MetricFamilySamples gauge = metrics.get(1);
+    assertThat(gauge.name).isEqualTo("healthcheck_duration_seconds");
+    assertThat(gauge.help).isNotBlank();
+    assertThat(gauge.type).isEqualTo(GAUGE);
+    assertThat(gauge.samples).hasSize(1);
+
+    MetricFamilySamples.Sample sample = gauge.samples.get(0);
+    assertThat(sample.name).isEqualTo("healthcheck_duration_seconds");
+    assertThat(sample.labelNames).containsExactly("name");
+    assertThat(sample.labelValues).containsExactly("slow_check");
+    assertThat(sample.value).isEqualTo(1.5);
+  }
+
+  @Test
+  public void shouldExposeLatestResultsOfScheduledHealthChecks() {
+    HealthCheckRegistry registry = mock(HealthCheckRegistry.class);
+    HealthCheckScheduler scheduler = mock(HealthCheckScheduler.class);
+    HealthCheckMetricsCollector collector =
+        new HealthCheckMetricsCollector(registry, () -> scheduler);
+
+    SortedMap<String, Result> results = new TreeMap<>();
+    results.put("scheduled_check", Result.unhealthy("Something went wrong"));
+    when(scheduler.getResults()).thenReturn(results);
+
+    List<MetricFamilySamples> metrics = collector.collect();
+
+    assertThat(metrics.get(0).samples)
+        .singleElement()
+        .satisfies(
+            s -> {
+              assertThat(s.labelValues).containsExactly("scheduled_check");
+              assertThat(s.value).isEqualTo(0.0);
+            });
+    verify(scheduler).getResults();
+    verifyNoInteractions(registry);
+  }
 }
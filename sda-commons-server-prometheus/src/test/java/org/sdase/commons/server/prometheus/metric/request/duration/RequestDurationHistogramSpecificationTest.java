@@ -0,0 +1,47 @@
+package org.sdase.commons.server.prometheus.metric.request.duration;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sdase.commons.server.prometheus.metric.request.duration.RequestDurationHistogramSpecification.routeTemplate;
+
+import java.util.Collections;
+import org.glassfish.jersey.uri.PathTemplate;
+import org.junit.Test;
+
+public class RequestDurationHistogramSpecificationTest {
+
+  @Test
+  public void shouldJoinTemplatesOfResourceClassAndMethod() {
+    assertThat(routeTemplate("", asList(new PathTemplate("/ping"), new PathTemplate("/"))))
+        .isEqualTo("ping");
+  }
+
+  @Test
+  public void shouldPrependBasePath() {
+    assertThat(
+            routeTemplate(
+                "api/", asList(new PathTemplate("/{id}"), new PathTemplate("/customers"))))
+        .isEqualTo("api/customers/{id}");
+  }
+
+  @Test
+  public void shouldOmitRegexOfPathParams() {
+    assertThat(
+            routeTemplate(
+                null,
+                asList(
+                    new PathTemplate("/{id : [0-9]{3}}/{name: [a-z]+}"), new PathTemplate("cars"))))
+        .isEqualTo("cars/{id}/{name}");
+  }
+
+  @Test
+  public void shouldSkipTrailingSlash() {
+    assertThat(routeTemplate("", Collections.singletonList(new PathTemplate("/cars/"))))
+        .isEqualTo("cars");
+  }
+
+  @Test
+  public void shouldResolveEmptyPathForRoot() {
+    assertThat(routeTemplate("", Collections.singletonList(new PathTemplate("/")))).isEmpty();
+  }
+}
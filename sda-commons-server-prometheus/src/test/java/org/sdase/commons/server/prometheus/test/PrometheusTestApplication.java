@@ -87,4 +87,10 @@ public class PrometheusTestApplication extends Application<Configuration> {
   public Response pathWithSegment(@PathParam("param") String pathParam) {
     return Response.ok(pathParam).build();
   }
+
+  @GET
+  @Path("/cars/{id: [0-9]+}")
+  public Response pathWithRegex(@PathParam("id") int id) {
+    return Response.ok(String.valueOf(id)).build();
+  }
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
 
 /**
  * This filter adds headers to the response that enhance the security of web applications. Usually
@@ -52,7 +53,9 @@ public class WebSecurityFrontendSupportHeaderFilter implements ContainerResponse
   public void filter(
       ContainerRequestContext requestContext, ContainerResponseContext responseContext)
       throws IOException {
+    long start = System.nanoTime();
     WEB_SECURITY_HEADERS.forEach((name, value) -> addHeaderIfAbsent(responseContext, name, value));
+    RequestPhases.record(requestContext, RequestPhases.SECURITY_HEADERS, start);
   }
 
   private void addHeaderIfAbsent(
@@ -8,6 +8,7 @@ import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.PreMatching;
+import org.sdase.commons.server.dropwizard.timing.RequestPhases;
 import org.sdase.commons.shared.tracing.RequestTracing;
 import org.slf4j.MDC;
 
@@ -27,6 +28,8 @@ public class TraceTokenServerFilter implements ContainerRequestFilter, Container
       return;
     }
 
+    long start = System.nanoTime();
+
     // Get the HTTP trace token header from the request
     String token = extractTokenFromRequest(requestContext).orElse(UUID.randomUUID().toString());
 
@@ -34,13 +37,17 @@ public class TraceTokenServerFilter implements ContainerRequestFilter, Container
     this.addTokenToRequest(requestContext, token);
 
     this.addTokenToMdc(token);
+
+    RequestPhases.record(requestContext, RequestPhases.TRACE_TOKEN, start);
   }
 
   @Override
   public void filter(
       ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    long start = System.nanoTime();
     Optional<String> token = extractTokenFromRequestProperties(requestContext);
     token.ifPresent(s -> responseContext.getHeaders().add(RequestTracing.TOKEN_HEADER, s));
+    RequestPhases.record(requestContext, RequestPhases.TRACE_TOKEN, start);
   }
 
   private Optional<String> extractTokenFromRequestProperties(